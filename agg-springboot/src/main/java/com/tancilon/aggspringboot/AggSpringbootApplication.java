@@ -4,12 +4,14 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootApplication
 @EntityScan("com.tancilon.aggspringboot.entity")
 @EnableJpaRepositories("com.tancilon.aggspringboot.repository")
 @EnableTransactionManagement
+@EnableScheduling
 public class AggSpringbootApplication {
 
     public static void main(String[] args) {
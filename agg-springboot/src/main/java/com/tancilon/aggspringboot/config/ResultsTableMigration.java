@@ -0,0 +1,84 @@
+package com.tancilon.aggspringboot.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * 将旧版 results 表（算法、数据集、指标名称以字符串存储，无索引）迁移为带外键的事实表
+ *
+ * 必须在 Hibernate 执行 ddl-auto 之前运行，否则 update 会尝试在旧表上追加非空外键列。
+ * 旧表重命名为 results_legacy 保留，名称无法对应到算法/数据集/指标的行不会迁移，可在旧表中核对。
+ */
+public class ResultsTableMigration implements InitializingBean {
+    private static final Logger logger = LoggerFactory.getLogger(ResultsTableMigration.class);
+
+    private static final String CREATE_RESULTS_TABLE = "CREATE TABLE results ("
+            + "id BIGINT NOT NULL AUTO_INCREMENT, "
+            + "algorithm_id BIGINT NOT NULL, "
+            + "dataset_id BIGINT NOT NULL, "
+            + "metric_id BIGINT NOT NULL, "
+            + "k_value INT NOT NULL, "
+            + "value DOUBLE, "
+            + "created_at DATETIME(6), "
+            + "PRIMARY KEY (id), "
+            + "UNIQUE KEY uk_results_cell (dataset_id, metric_id, algorithm_id, k_value), "
+            + "KEY idx_results_algorithm_metric (algorithm_id, metric_id), "
+            + "CONSTRAINT fk_results_algorithm FOREIGN KEY (algorithm_id) REFERENCES algorithms (id), "
+            + "CONSTRAINT fk_results_dataset FOREIGN KEY (dataset_id) REFERENCES datasets (id), "
+            + "CONSTRAINT fk_results_metric FOREIGN KEY (metric_id) REFERENCES metrics (id)"
+            + ") ENGINE=InnoDB";
+
+    // 按原表写入顺序插入，INSERT IGNORE 使重复数据点保留先写入的值，与旧查询逻辑一致
+    private static final String COPY_LEGACY_RESULTS = "INSERT IGNORE INTO results "
+            + "(algorithm_id, dataset_id, metric_id, k_value, value, created_at) "
+            + "SELECT a.id, d.id, m.id, COALESCE(r.k_value, 0), r.value, r.created_at "
+            + "FROM results_legacy r "
+            + "JOIN (SELECT name, MIN(id) AS id FROM algorithms GROUP BY name) a ON a.name = r.algorithm "
+            + "JOIN (SELECT name, MIN(id) AS id FROM datasets GROUP BY name) d ON d.name = r.dataset "
+            + "JOIN (SELECT name, MIN(id) AS id FROM metrics GROUP BY name) m ON m.name = r.metric_name "
+            + "ORDER BY r.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ResultsTableMigration(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // 新库或已完成迁移时 results 表不存在字符串列 algorithm
+        if (!columnExists("results", "algorithm")) {
+            return;
+        }
+        if (tableExists("results_legacy")) {
+            throw new IllegalStateException(
+                    "Cannot migrate results table: results_legacy already exists, please check it manually");
+        }
+
+        logger.info("Migrating legacy results table to normalized fact table");
+        jdbcTemplate.execute("RENAME TABLE results TO results_legacy");
+        jdbcTemplate.execute(CREATE_RESULTS_TABLE);
+        int migrated = jdbcTemplate.update(COPY_LEGACY_RESULTS);
+        Long legacy = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM results_legacy", Long.class);
+        logger.info("Migrated {} of {} legacy result rows, original data kept in results_legacy", migrated, legacy);
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns "
+                        + "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.tancilon.aggspringboot.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class SchemaMigrationConfig {
+
+    @Bean
+    public ResultsTableMigration resultsTableMigration(DataSource dataSource) {
+        return new ResultsTableMigration(dataSource);
+    }
+
+    // 保证迁移先于 EntityManagerFactory（即 Hibernate ddl-auto）执行
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor resultsTableMigrationDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor("resultsTableMigration");
+    }
+}
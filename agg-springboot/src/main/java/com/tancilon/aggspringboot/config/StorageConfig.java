@@ -1,15 +1,12 @@
 package com.tancilon.aggspringboot.config;
 
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-import org.springframework.lang.NonNull;
 
 import jakarta.annotation.PostConstruct;
 import java.io.File;
 
 @Configuration
-public class StorageConfig implements WebMvcConfigurer {
+public class StorageConfig {
 
     private static final String[] UPLOAD_DIRS = {
             "./uploads",
@@ -29,9 +26,4 @@ public class StorageConfig implements WebMvcConfigurer {
         }
     }
 
-    @Override
-    public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:uploads/");
-    }
 }
\ No newline at end of file
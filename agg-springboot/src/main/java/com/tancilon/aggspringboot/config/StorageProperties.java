@@ -7,6 +7,8 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "storage")
 public class StorageProperties {
     private String uploadDir;
+    // 服务内部的工作文件（任务暂存、缓存、转换结果等），不在对外提供下载的上传目录之下
+    private String workDir = "./work";
 
     public String getUploadDir() {
         return uploadDir;
@@ -15,4 +17,12 @@ public class StorageProperties {
     public void setUploadDir(String uploadDir) {
         this.uploadDir = uploadDir;
     }
-}
\ No newline at end of file
+
+    public String getWorkDir() {
+        return workDir;
+    }
+
+    public void setWorkDir(String workDir) {
+        this.workDir = workDir;
+    }
+}
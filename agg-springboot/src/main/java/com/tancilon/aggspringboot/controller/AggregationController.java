@@ -0,0 +1,69 @@
+package com.tancilon.aggspringboot.controller;
+
+import com.tancilon.aggspringboot.dto.ErrorResponse;
+import com.tancilon.aggspringboot.enums.AggregationMethod;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.service.AggregationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/aggregations")
+public class AggregationController {
+    private static final Logger logger = LoggerFactory.getLogger(AggregationController.class);
+
+    @Autowired
+    private AggregationService aggregationService;
+
+    // 内置聚合算法：方法名 -> 写入结果时使用的算法名
+    @GetMapping("/methods")
+    public ResponseEntity<?> getMethods() {
+        Map<String, String> methods = new LinkedHashMap<>();
+        for (AggregationMethod method : AggregationMethod.values()) {
+            methods.put(method.name(), method.getAlgorithmName());
+        }
+        return ResponseEntity.ok(methods);
+    }
+
+    // 在数据集上运行内置聚合算法并评测，methods 为空时运行全部算法；save=true 时写入结果表
+    @PostMapping
+    public ResponseEntity<?> run(@RequestParam String dataset,
+            @RequestParam(required = false) List<String> methods,
+            @RequestParam(defaultValue = "true") boolean save) {
+        try {
+            List<AggregationMethod> selected = new ArrayList<>();
+            if (methods == null || methods.isEmpty()) {
+                selected.addAll(Arrays.asList(AggregationMethod.values()));
+            } else {
+                for (String method : methods) {
+                    selected.add(AggregationMethod.fromString(method.trim()));
+                }
+            }
+            return ResponseEntity.ok(aggregationService.run(dataset, selected, save));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error running aggregation on {}", dataset, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to run aggregation: " + e.getMessage()));
+        }
+    }
+}
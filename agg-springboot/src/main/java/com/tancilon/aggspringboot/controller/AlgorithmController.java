@@ -13,15 +13,22 @@ import com.tancilon.aggspringboot.dto.ValidationResponse;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import com.tancilon.aggspringboot.web.FileSender;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.springframework.http.CacheControl;
 import com.tancilon.aggspringboot.dto.ErrorResponse;
 import com.tancilon.aggspringboot.service.FileStorageService;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.tancilon.aggspringboot.service.ResultService;
+import com.tancilon.aggspringboot.service.DataVersionService;
 import com.tancilon.aggspringboot.dto.CategoryStats;
 import com.tancilon.aggspringboot.repository.AlgorithmRepository;
+import com.tancilon.aggspringboot.service.AlgorithmComparisonService;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
 
 @RestController
 @RequestMapping("/api/algorithms")
@@ -38,6 +45,15 @@ public class AlgorithmController {
     @Autowired
     private AlgorithmRepository algorithmRepository;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private FileSender fileSender;
+
+    @Autowired
+    private AlgorithmComparisonService algorithmComparisonService;
+
     public AlgorithmController(AlgorithmService algorithmService, ObjectMapper objectMapper,
             FileStorageService fileStorageService) {
         this.algorithmService = algorithmService;
@@ -80,15 +96,24 @@ public class AlgorithmController {
 
     @GetMapping
     public ResponseEntity<List<Algorithm>> getAlgorithms(
-            @RequestParam(required = false) String category) {
+            @RequestParam(required = false) String category,
+            HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         List<Algorithm> algorithms = category == null ? algorithmService.getAllAlgorithms()
                 : algorithmService.getAlgorithmsByCategory(category);
-        return ResponseEntity.ok(algorithms);
+        return version.ok().body(algorithms);
     }
 
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getCategories() {
-        return ResponseEntity.ok(algorithmService.getAllCategories());
+    public ResponseEntity<List<String>> getCategories(HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
+        return version.ok().body(algorithmService.getAllCategories());
     }
 
     @GetMapping("/check-name")
@@ -118,41 +143,81 @@ public class AlgorithmController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getAlgorithmById(@PathVariable String id) {
+    public ResponseEntity<?> getAlgorithmById(@PathVariable String id, HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             Algorithm algorithm = algorithmService.getAlgorithmById(id);
-            return ResponseEntity.ok(algorithm);
+            return version.ok().body(algorithm);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         }
     }
 
+    // 支持 Range 断点续传与 ETag 条件请求
     @GetMapping("/{id}/download")
-    public ResponseEntity<?> downloadAlgorithm(@PathVariable String id) {
+    public ResponseEntity<?> downloadAlgorithm(@PathVariable String id, HttpServletRequest request,
+            HttpServletResponse response) {
         try {
             Algorithm algorithm = algorithmService.getAlgorithmById(id);
             if (algorithm.getImplementationFilePath() == null || algorithm.getImplementationFilePath().isEmpty()) {
                 throw new RuntimeException("No implementation file available");
             }
 
-            Resource resource = fileStorageService.loadFileAsResource(algorithm.getImplementationFilePath());
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
+            Path file = fileStorageService.resolveFile(algorithm.getImplementationFilePath());
+            if (!Files.isRegularFile(file)) {
+                throw new RuntimeException("File not found at path: " + file);
+            }
+            String filename = fileStorageService.getDownloadFilename(algorithm.getImplementationFilePath());
+            fileSender.send(file, "attachment; filename=\"" + filename + "\"", CacheControl.noCache(),
+                    request, response);
+            return null;
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         }
     }
 
+    // 指标在 k 上（不传 k 时取各 k 的均值）算法两两之间的胜 / 平 / 负矩阵与平均差值，可按数据集分类筛选
+    @GetMapping("/compare")
+    public ResponseEntity<?> compareAlgorithms(@RequestParam String metric,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "0") double tolerance,
+            HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
+        try {
+            return version.ok()
+                    .body(algorithmComparisonService.compare(metric, k, category, tolerance));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error comparing algorithms on {}@{}", metric, k, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to compare algorithms: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}/performance/{metricName}")
     public ResponseEntity<?> getAlgorithmPerformance(
             @PathVariable String id,
-            @PathVariable String metricName) {
+            @PathVariable String metricName,
+            HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             logger.info("Fetching performance data for algorithm: {}, metric: {}", id, metricName);
             Map<String, Object> performanceData = algorithmService.getAlgorithmPerformance(id, metricName);
             logger.info("Successfully retrieved performance data");
-            return ResponseEntity.ok(performanceData);
+            return version.ok().body(performanceData);
         } catch (Exception e) {
             logger.error("Error fetching performance data: {}", e.getMessage());
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -160,12 +225,16 @@ public class AlgorithmController {
     }
 
     @GetMapping("/{id}/metrics")
-    public ResponseEntity<?> getAvailableMetrics(@PathVariable String id) {
+    public ResponseEntity<?> getAvailableMetrics(@PathVariable String id, HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             logger.info("Fetching metrics for algorithm: {}", id);
             List<String> metrics = resultService.findDistinctMetricNamesByAlgorithm(id);
             logger.info("Found {} metrics for algorithm {}", metrics.size(), id);
-            return ResponseEntity.ok(metrics);
+            return version.ok().body(metrics);
         } catch (Exception e) {
             logger.error("Error fetching metrics for algorithm {}: {}", id, e.getMessage());
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -173,11 +242,15 @@ public class AlgorithmController {
     }
 
     @GetMapping("/categories/stats")
-    public ResponseEntity<List<CategoryStats>> getCategoryStats() {
+    public ResponseEntity<List<CategoryStats>> getCategoryStats(HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             // 从算法表中获取所有不同的类别及其计数
             List<CategoryStats> stats = algorithmRepository.findAllCategoriesWithCount();
-            return ResponseEntity.ok(stats);
+            return version.ok().body(stats);
         } catch (Exception e) {
             logger.error("Error getting algorithm categories stats", e);
             return ResponseEntity.internalServerError().build();
@@ -185,7 +258,11 @@ public class AlgorithmController {
     }
 
     @GetMapping("/sources")
-    public ResponseEntity<?> getAllSources() {
+    public ResponseEntity<?> getAllSources(HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             logger.info("Fetching all algorithm sources");
             List<String> sources = algorithmRepository.findAllSources();
@@ -193,7 +270,7 @@ public class AlgorithmController {
             if (sources.isEmpty()) {
                 logger.warn("No sources found in the database");
             }
-            return ResponseEntity.ok(sources);
+            return version.ok().body(sources);
         } catch (Exception e) {
             logger.error("Error getting algorithm sources: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
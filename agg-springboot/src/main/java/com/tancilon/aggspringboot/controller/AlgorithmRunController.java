@@ -0,0 +1,84 @@
+package com.tancilon.aggspringboot.controller;
+
+import com.tancilon.aggspringboot.dto.AlgorithmRunRequest;
+import com.tancilon.aggspringboot.dto.ErrorResponse;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.service.AlgorithmRunService;
+import com.tancilon.aggspringboot.vo.AlgorithmRunVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/algorithm-runs")
+public class AlgorithmRunController {
+    private static final Logger logger = LoggerFactory.getLogger(AlgorithmRunController.class);
+
+    @Autowired
+    private AlgorithmRunService algorithmRunService;
+
+    // 提交算法实现的沙箱运行，每个数据集一个任务，返回 202 与任务列表
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestBody AlgorithmRunRequest request) {
+        try {
+            if (request.getAlgorithmId() == null) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("algorithmId is required"));
+            }
+            return ResponseEntity.accepted().body(algorithmRunService.submit(request));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error submitting algorithm run", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to submit algorithm run: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getJobs(@RequestParam Long algorithmId) {
+        return ResponseEntity.ok(algorithmRunService.getJobsByAlgorithm(algorithmId));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(algorithmRunService.getJob(id));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    // 增量读取运行日志：从 offset 开始返回，X-Log-Offset 为下一次请求的偏移，任务结束前可持续轮询
+    @GetMapping("/{id}/log")
+    public ResponseEntity<?> getLog(@PathVariable Long id, @RequestParam(defaultValue = "0") long offset) {
+        try {
+            AlgorithmRunVO job = algorithmRunService.getJob(id);
+            byte[] chunk = algorithmRunService.readLog(id, offset);
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "plain", StandardCharsets.UTF_8))
+                    .header("X-Log-Offset", String.valueOf(Math.max(offset, 0) + chunk.length))
+                    .header("X-Job-Status", job.getStatus().name())
+                    .body(chunk);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error reading log of algorithm run {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to read log: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tancilon.aggspringboot.controller;
+
+import com.tancilon.aggspringboot.dto.ErrorResponse;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.service.CriticalDifferenceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/critical-difference")
+public class CriticalDifferenceController {
+    private static final Logger logger = LoggerFactory.getLogger(CriticalDifferenceController.class);
+
+    @Autowired
+    private CriticalDifferenceService criticalDifferenceService;
+
+    // 指标在 k 上跨数据集的平均秩、Friedman 检验与临界差图数据；固定类型指标不需要 k，algorithms 为空时比较全部算法
+    @GetMapping
+    public ResponseEntity<?> analyze(@RequestParam String metric,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false) List<String> algorithms,
+            @RequestParam(defaultValue = "0.05") double alpha) {
+        try {
+            return ResponseEntity.ok(criticalDifferenceService.analyze(metric, k, algorithms, alpha));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error analyzing critical differences of {}@{}", metric, k, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to analyze critical differences: " + e.getMessage()));
+        }
+    }
+}
@@ -22,10 +22,15 @@ import java.util.ArrayList;
 import java.util.stream.Collectors;
 import com.tancilon.aggspringboot.dto.ErrorResponse;
 import com.tancilon.aggspringboot.entity.Dataset;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import com.tancilon.aggspringboot.web.FileSender;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.file.Path;
+import org.springframework.http.CacheControl;
 import com.tancilon.aggspringboot.service.FileStorageService;
+import com.tancilon.aggspringboot.service.DataVersionService;
+import com.tancilon.aggspringboot.service.DatasetProfileService;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
@@ -41,6 +46,15 @@ public class DatasetController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private FileSender fileSender;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private DatasetProfileService datasetProfileService;
+
     /**
      * 获取数据集列表(支持分页和分类筛选)
      */
@@ -48,11 +62,16 @@ public class DatasetController {
     public ResponseEntity<Page<DatasetVO>> getDatasets(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String category) {
+            @RequestParam(required = false) String category,
+            HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             Pageable pageable = PageRequest.of(page, size);
             Page<DatasetVO> datasets = datasetService.getDatasets(pageable, category);
-            return ResponseEntity.ok(datasets);
+            return version.ok().body(datasets);
         } catch (Exception e) {
             logger.error("Error getting datasets", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -64,9 +83,13 @@ public class DatasetController {
      * 获取数据集分类统计
      */
     @GetMapping("/categories/stats")
-    public ResponseEntity<List<CategoryStatsVO>> getCategoryStats() {
+    public ResponseEntity<List<CategoryStatsVO>> getCategoryStats(HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
-            return ResponseEntity.ok(datasetService.getCategoryStats());
+            return version.ok().body(datasetService.getCategoryStats());
         } catch (Exception e) {
             logger.error("Error getting category stats", e);
             throw e;
@@ -77,10 +100,14 @@ public class DatasetController {
      * 获取数据集分类列表
      */
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getCategories() {
+    public ResponseEntity<List<String>> getCategories(HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             List<String> categories = datasetService.getAllCategories();
-            return ResponseEntity.ok(categories);
+            return version.ok().body(categories);
         } catch (Exception e) {
             logger.error("Error getting categories", e);
             // 返回空列表而不是错误状态
@@ -132,13 +159,17 @@ public class DatasetController {
 
     // 获取单个数据集详情
     @GetMapping("/{id}")
-    public ResponseEntity<?> getDatasetById(@PathVariable String id) {
+    public ResponseEntity<?> getDatasetById(@PathVariable String id, HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             Dataset dataset = datasetService.getDatasetById(id);
             if (dataset == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(dataset);
+            return version.ok().body(dataset);
         } catch (Exception e) {
             logger.error("Error fetching dataset by id: " + id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -146,16 +177,54 @@ public class DatasetController {
         }
     }
 
+    // 获取数据集文件的统计概要(上传后后台生成)
+    @GetMapping("/{id}/profile")
+    public ResponseEntity<?> getDatasetProfile(@PathVariable String id) {
+        try {
+            Dataset dataset = datasetService.getDatasetById(id);
+            if (dataset == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(datasetProfileService.getProfile(dataset.getId()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching dataset profile: " + id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to fetch dataset profile: " + e.getMessage()));
+        }
+    }
+
+    // 重新统计数据集文件
+    @PostMapping("/{id}/profile")
+    public ResponseEntity<?> refreshDatasetProfile(@PathVariable String id) {
+        try {
+            Dataset dataset = datasetService.getDatasetById(id);
+            if (dataset == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(datasetProfileService.requestProfile(dataset.getId()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error profiling dataset: " + id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to profile dataset: " + e.getMessage()));
+        }
+    }
+
+    // 支持 Range 断点续传与 ETag 条件请求
     @GetMapping("/{id}/download")
-    public ResponseEntity<?> downloadDataset(@PathVariable String id) {
+    public ResponseEntity<?> downloadDataset(@PathVariable String id, HttpServletRequest request,
+            HttpServletResponse response) {
         try {
             Dataset dataset = datasetService.getDatasetById(id);
             if (dataset == null || dataset.getFileUrl() == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            // 获取文件资源
-            Resource resource = fileStorageService.loadFileAsResource(dataset.getFileUrl());
+            // 获取文件路径
+            Path file = fileStorageService.resolveFile(dataset.getFileUrl());
 
             // 从原始文件URL中获取文件扩展名
             String originalExt = dataset.getFileUrl().substring(dataset.getFileUrl().lastIndexOf("."));
@@ -166,11 +235,10 @@ public class DatasetController {
             String encodedFilename = URLEncoder.encode(downloadFilename, StandardCharsets.UTF_8.toString())
                     .replace("+", "%20");
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + encodedFilename + "\"")
-                    .header(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.CONTENT_DISPOSITION)
-                    .body(resource);
+            // 数据集可能被重新上传，由客户端携带 ETag 重新验证
+            fileSender.send(file, "attachment; filename=\"" + encodedFilename + "\"", CacheControl.noCache(),
+                    request, response);
+            return null;
         } catch (Exception e) {
             logger.error("Error downloading dataset: " + id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,46 @@
+package com.tancilon.aggspringboot.controller;
+
+import com.tancilon.aggspringboot.dto.ErrorResponse;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.service.EvaluationService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/evaluations")
+public class EvaluationController {
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationController.class);
+
+    @Autowired
+    private EvaluationService evaluationService;
+
+    // 服务端评测：请求体为算法的聚合排序输出（query, item, rank），以数据集的相关性判断计算 mAP@k 与 NDCG@k
+    // save=true 时经结果上传的同一路径写入结果表
+    @PostMapping
+    public ResponseEntity<?> evaluate(HttpServletRequest request,
+            @RequestParam String algorithm,
+            @RequestParam String dataset,
+            @RequestParam(defaultValue = "true") boolean save) {
+        try {
+            return ResponseEntity.ok(evaluationService.evaluate(algorithm, dataset, request.getInputStream(), save));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error evaluating {} on {}", algorithm, dataset, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to evaluate: " + e.getMessage()));
+        }
+    }
+}
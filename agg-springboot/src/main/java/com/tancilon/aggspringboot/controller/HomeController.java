@@ -0,0 +1,50 @@
+package com.tancilon.aggspringboot.controller;
+
+import com.tancilon.aggspringboot.dto.ErrorResponse;
+import com.tancilon.aggspringboot.service.DataVersionService;
+import com.tancilon.aggspringboot.service.HomeService;
+import com.tancilon.aggspringboot.vo.HomeSnapshotVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/home")
+public class HomeController {
+
+    private static final Logger logger = LoggerFactory.getLogger(HomeController.class);
+
+    @Autowired
+    private HomeService homeService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    /**
+     * 首页快照(数据集分页 + 指标列表 + 首个指标曲线 + 分类统计)
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<?> getSnapshot(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String category,
+            HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
+        try {
+            HomeSnapshotVO snapshot = homeService.getSnapshot(PageRequest.of(page, size), category);
+            return version.ok().body(snapshot);
+        } catch (Exception e) {
+            logger.error("Error building home snapshot", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to load home snapshot: " + e.getMessage()));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.tancilon.aggspringboot.controller;
 import com.tancilon.aggspringboot.entity.Metric;
 import com.tancilon.aggspringboot.service.MetricService;
 import com.tancilon.aggspringboot.service.FileStorageService;
+import com.tancilon.aggspringboot.service.DataVersionService;
 import com.tancilon.aggspringboot.dto.ValidationResponse;
 import com.tancilon.aggspringboot.dto.MetricInfo;
 import com.tancilon.aggspringboot.dto.ErrorResponse;
@@ -10,8 +11,12 @@ import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import com.tancilon.aggspringboot.web.FileSender;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -33,11 +38,21 @@ public class MetricController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private FileSender fileSender;
+
     @GetMapping
-    public ResponseEntity<List<Metric>> getAllMetrics() {
+    public ResponseEntity<List<Metric>> getAllMetrics(HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             List<Metric> metrics = metricService.getAllMetrics();
-            return ResponseEntity.ok(metrics);
+            return version.ok().body(metrics);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -76,9 +91,13 @@ public class MetricController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Metric> getMetricById(@PathVariable Long id) {
+    public ResponseEntity<Metric> getMetricById(@PathVariable Long id, HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
-            return ResponseEntity.ok(metricService.getMetricById(id));
+            return version.ok().body(metricService.getMetricById(id));
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -132,12 +151,16 @@ public class MetricController {
     }
 
     @GetMapping("/by-name/{name}")
-    public ResponseEntity<Metric> getMetricByName(@PathVariable String name) {
+    public ResponseEntity<Metric> getMetricByName(@PathVariable String name, HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         logger.info("接收到获取指标请求，指标名称: {}", name);
         try {
             Metric metric = metricService.getMetricByName(name);
             logger.info("成功获取指标信息: {}", metric);
-            return ResponseEntity.ok(metric);
+            return version.ok().body(metric);
         } catch (ResourceNotFoundException e) {
             logger.warn("指标未找到: {}", name);
             return ResponseEntity.notFound().build();
@@ -148,8 +171,10 @@ public class MetricController {
         }
     }
 
+    // 支持 Range 断点续传与 ETag 条件请求
     @GetMapping("/{name}/download")
-    public ResponseEntity<Resource> downloadImplementation(@PathVariable String name) {
+    public ResponseEntity<?> downloadImplementation(@PathVariable String name, HttpServletRequest request,
+            HttpServletResponse response) {
         try {
             Optional<Metric> metricOpt = metricService.findByName(name);
             logger.info("Attempting to download metric implementation for: {}", name);
@@ -163,11 +188,14 @@ public class MetricController {
             logger.info("Found metric: {}, implementation file: {}", metric.getName(), metric.getImplementationFile());
 
             try {
-                Resource resource = fileStorageService.loadFileAsResource(metric.getImplementationFile());
-                return ResponseEntity.ok()
-                        .header(HttpHeaders.CONTENT_DISPOSITION,
-                                "attachment; filename=\"" + resource.getFilename() + "\"")
-                        .body(resource);
+                Path file = fileStorageService.resolveFile(metric.getImplementationFile());
+                if (!Files.isRegularFile(file)) {
+                    throw new RuntimeException("File not found at path: " + file);
+                }
+                String filename = fileStorageService.getDownloadFilename(metric.getImplementationFile());
+                fileSender.send(file, "attachment; filename=\"" + filename + "\"",
+                        CacheControl.noCache(), request, response);
+                return null;
             } catch (RuntimeException e) {
                 logger.error("Error loading implementation file: {}", e.getMessage());
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
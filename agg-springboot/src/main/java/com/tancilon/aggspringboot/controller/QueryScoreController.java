@@ -0,0 +1,69 @@
+package com.tancilon.aggspringboot.controller;
+
+import com.tancilon.aggspringboot.dto.ErrorResponse;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.service.QueryScoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.Callable;
+
+@RestController
+@RequestMapping("/api/query-scores")
+public class QueryScoreController {
+    private static final Logger logger = LoggerFactory.getLogger(QueryScoreController.class);
+
+    @Autowired
+    private QueryScoreService queryScoreService;
+
+    // 逐查询数值的分布：均值、标准差、分位数与 0 值查询数；非 @k 指标不需要 k
+    @GetMapping("/distribution")
+    public ResponseEntity<?> getDistribution(@RequestParam String algorithm,
+            @RequestParam String dataset,
+            @RequestParam String metric,
+            @RequestParam(required = false) Integer k) {
+        return respond(() -> queryScoreService.getDistribution(algorithm, dataset, metric, k));
+    }
+
+    @GetMapping("/histogram")
+    public ResponseEntity<?> getHistogram(@RequestParam String algorithm,
+            @RequestParam String dataset,
+            @RequestParam String metric,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(defaultValue = "20") int bins) {
+        return respond(() -> queryScoreService.getHistogram(algorithm, dataset, metric, k, bins));
+    }
+
+    // 数值最低的查询，按数值升序
+    @GetMapping("/worst")
+    public ResponseEntity<?> getWorstQueries(@RequestParam String algorithm,
+            @RequestParam String dataset,
+            @RequestParam String metric,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(defaultValue = "20") int limit) {
+        return respond(() -> queryScoreService.getWorstQueries(algorithm, dataset, metric, k, limit));
+    }
+
+    private ResponseEntity<?> respond(Callable<?> query) {
+        try {
+            return ResponseEntity.ok(query.call());
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error reading per-query scores", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to read per-query scores: " + e.getMessage()));
+        }
+    }
+}
@@ -6,48 +6,105 @@ import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.tancilon.aggspringboot.service.ResultService;
-import com.tancilon.aggspringboot.dto.ResultSubmitDTO;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tancilon.aggspringboot.service.DataVersionService;
+import com.tancilon.aggspringboot.service.ResultIngestionService;
+import com.tancilon.aggspringboot.service.ResultIngestionJobService;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.service.ResultExportCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import com.tancilon.aggspringboot.web.FileSender;
 import java.util.List;
 import com.tancilon.aggspringboot.dto.ErrorResponse;
 import java.util.Map;
-import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import com.tancilon.aggspringboot.dto.DownloadResultsRequest;
+import com.tancilon.aggspringboot.vo.IngestionJobVO;
+import com.tancilon.aggspringboot.vo.IngestionReportVO;
+import java.net.URI;
+import com.tancilon.aggspringboot.vo.LeaderboardVO;
+import com.tancilon.aggspringboot.enums.ChartFormat;
+import com.tancilon.aggspringboot.service.ChartRenderService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/results")
 public class ResultController {
     private static final Logger logger = LoggerFactory.getLogger(ResultController.class);
+    private static final int MAX_LEADERBOARD_PAGE_SIZE = 100;
+    private static final String RESULTS_ZIP_DISPOSITION = "attachment; filename=\"results.zip\"";
 
     @Autowired
     private ResultService resultService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private ResultIngestionService resultIngestionService;
 
+    @Autowired
+    private ResultIngestionJobService resultIngestionJobService;
+
+    @Autowired
+    private ResultExportCache resultExportCache;
+
+    @Autowired
+    private FileSender fileSender;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private ChartRenderService chartRenderService;
+
+    // 上传结果：请求体为单个结果对象或结果对象数组，按 (算法, 数据集, 指标, k) upsert，重复提交是幂等的
+    // async=true 时请求体落盘后立即返回 202 与任务 id，通过 /jobs/{id} 查询进度
     @PostMapping
-    public ResponseEntity<?> submitResults(@RequestBody ResultSubmitDTO[] results) {
+    public ResponseEntity<?> submitResults(HttpServletRequest request,
+            @RequestParam(defaultValue = "false") boolean async) {
         try {
-            for (ResultSubmitDTO result : results) {
-                resultService.saveResults(result);
+            if (async) {
+                IngestionJobVO job = resultIngestionJobService.submit(request.getInputStream());
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/results/jobs/" + job.getId()))
+                        .body(job);
             }
-            return ResponseEntity.ok().build();
+            IngestionReportVO report = resultIngestionService.ingest(request.getInputStream());
+            return ResponseEntity.ok(report);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         }
     }
 
+    // 查询异步上传任务的状态、进度与写入统计
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getIngestionJob(@PathVariable Long jobId) {
+        try {
+            return ResponseEntity.ok(resultIngestionJobService.getJob(jobId));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching ingestion job {}: {}", jobId, e.getMessage());
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     // 获取数据集的可用指标列表
     @GetMapping("/metrics/{datasetId}")
-    public ResponseEntity<?> getAvailableMetrics(@PathVariable String datasetId) {
+    public ResponseEntity<?> getAvailableMetrics(@PathVariable String datasetId, HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             logger.info("Fetching metrics for dataset: {}", datasetId);
             List<String> metrics = resultService.findDistinctMetricsByDataset(datasetId);
             logger.info("Found {} metrics for dataset {}", metrics.size(), datasetId);
-            return ResponseEntity.ok(metrics);
+            return version.ok().body(metrics);
         } catch (Exception e) {
             logger.error("Error fetching metrics for dataset {}: {}", datasetId, e.getMessage());
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -58,30 +115,114 @@ public class ResultController {
     @GetMapping("/{datasetId}/{metricName}")
     public ResponseEntity<?> getDatasetMetricPerformance(
             @PathVariable String datasetId,
-            @PathVariable String metricName) {
+            @PathVariable String metricName,
+            HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
             logger.info("Fetching performance data for dataset: {}, metric: {}", datasetId, metricName);
             Map<String, Object> performanceData = resultService.getDatasetMetricPerformance(datasetId, metricName);
             logger.info("Successfully retrieved performance data");
-            return ResponseEntity.ok(performanceData);
+            return version.ok().body(performanceData);
         } catch (Exception e) {
             logger.error("Error fetching performance data: {}", e.getMessage());
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         }
     }
 
-    @PostMapping("/download")
-    public ResponseEntity<Resource> downloadResults(@RequestBody DownloadResultsRequest request) {
+    // 获取数据集在特定指标、k 值下的算法排行榜(固定类型指标 k 取 0)
+    @GetMapping("/{datasetId}/{metricName}/leaderboard")
+    public ResponseEntity<?> getLeaderboard(
+            @PathVariable String datasetId,
+            @PathVariable String metricName,
+            @RequestParam(defaultValue = "0") int k,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
+        if (page < 0 || size < 1 || size > MAX_LEADERBOARD_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(
+                    new ErrorResponse("page must be >= 0 and size between 1 and " + MAX_LEADERBOARD_PAGE_SIZE));
+        }
+        try {
+            LeaderboardVO leaderboard = resultService.getLeaderboard(datasetId, metricName, k,
+                    "asc".equalsIgnoreCase(order), page, size);
+            return version.ok().body(leaderboard);
+        } catch (Exception e) {
+            logger.error("Error fetching leaderboard: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    // 服务端渲染 k 值曲线图(png / svg / pdf)，algorithms 为空时包含全部算法
+    @GetMapping("/{datasetId}/{metricName}/chart")
+    public ResponseEntity<?> renderChart(
+            @PathVariable String datasetId,
+            @PathVariable String metricName,
+            @RequestParam(required = false) List<String> algorithms,
+            @RequestParam(defaultValue = "png") String format,
+            @RequestParam(defaultValue = "800") int width,
+            @RequestParam(defaultValue = "500") int height,
+            @RequestParam(defaultValue = "false") boolean download,
+            HttpServletRequest request) {
+        DataVersionService.Snapshot version = dataVersionService.snapshot();
+        if (version.isNotModified(request)) {
+            return version.notModified();
+        }
         try {
-            // 生成ZIP文件
-            Resource resource = resultService.generateResultsZip(request);
+            ChartFormat chartFormat = ChartFormat.fromString(format);
+            byte[] chart = chartRenderService.render(datasetId, metricName, algorithms, chartFormat, width, height);
+            String filename = datasetId + "-" + metricName + "." + chartFormat.getExtension();
+            return version.ok()
+                    .contentType(MediaType.parseMediaType(chartFormat.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            (download ? "attachment" : "inline") + "; filename=\"" + filename + "\"")
+                    .body(chart);
+        } catch (RejectedExecutionException | TimeoutException e) {
+            logger.warn("Chart rendering unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse("Chart renderer is busy, please retry later"));
+        } catch (Exception e) {
+            logger.error("Error rendering chart: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"results.zip\"")
-                    .body(resource);
+    // 导出结果：相同请求在数据未变更时直接发送缓存文件，否则 ZIP 边生成边写入响应并写入缓存
+    @PostMapping("/download")
+    public ResponseEntity<StreamingResponseBody> downloadResults(@RequestBody DownloadResultsRequest request,
+            HttpServletResponse httpResponse) throws IOException {
+        try {
+            resultService.validateDownloadRequest(request);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            logger.error("Invalid results download request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         }
+
+        String cacheKey = resultExportCache.key(request);
+        try (FileChannel cached = resultExportCache.open(cacheKey)) {
+            if (cached != null) {
+                logger.info("Serving results download from export cache: {}", cacheKey);
+                long length = cached.size();
+                httpResponse.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+                httpResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, RESULTS_ZIP_DISPOSITION);
+                httpResponse.setContentLengthLong(length);
+                fileSender.transfer(cached, 0, length, httpResponse);
+                return null;
+            }
+        }
+
+        StreamingResponseBody body = out -> resultExportCache.store(cacheKey, out,
+                tee -> resultService.writeResultsZip(request, tee));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, RESULTS_ZIP_DISPOSITION)
+                .body(body);
     }
 }
\ No newline at end of file
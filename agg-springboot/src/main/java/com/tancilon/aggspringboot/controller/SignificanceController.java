@@ -0,0 +1,49 @@
+package com.tancilon.aggspringboot.controller;
+
+import com.tancilon.aggspringboot.dto.ErrorResponse;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.service.SignificanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/significance")
+public class SignificanceController {
+    private static final Logger logger = LoggerFactory.getLogger(SignificanceController.class);
+
+    @Autowired
+    private SignificanceService significanceService;
+
+    // 两个算法在数据集、指标、k 上的配对显著性检验，需要两者都有服务端评测保存的逐查询数值
+    @GetMapping
+    public ResponseEntity<?> compare(@RequestParam String dataset,
+            @RequestParam String metric,
+            @RequestParam(required = false) Integer k,
+            @RequestParam String algorithmA,
+            @RequestParam String algorithmB,
+            @RequestParam(required = false) Integer permutations,
+            @RequestParam(required = false) Integer bootstrapSamples,
+            @RequestParam(defaultValue = "0.95") double confidence) {
+        try {
+            return ResponseEntity.ok(significanceService.compare(dataset, metric, k, algorithmA, algorithmB,
+                    permutations, bootstrapSamples, confidence));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error comparing {} and {} on {}", algorithmA, algorithmB, dataset, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to compare algorithms: " + e.getMessage()));
+        }
+    }
+}
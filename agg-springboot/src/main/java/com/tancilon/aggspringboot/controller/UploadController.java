@@ -0,0 +1,76 @@
+package com.tancilon.aggspringboot.controller;
+
+import com.tancilon.aggspringboot.service.FileStorageService;
+import com.tancilon.aggspringboot.web.FileSender;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * 上传文件的静态访问：只提供逻辑句柄 files/{句柄}/{文件名}、旧数据中上传目录根下的 UUID 文件名，
+ * 以及 bib、algorithmImp、metricImp 三个旧子目录中的文件。这些文件以 UUID 命名且写入后不再修改，可长期缓存；
+ * 对象存储目录等其他路径一律返回 404。
+ */
+@RestController
+public class UploadController {
+    private static final Logger logger = LoggerFactory.getLogger(UploadController.class);
+
+    private static final String PATTERN = "/uploads/**";
+    private static final Set<String> LEGACY_DIRS = Set.of("bib", "algorithmImp", "metricImp");
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileSender fileSender;
+
+    @GetMapping(PATTERN)
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String relative = UriUtils.decode(pathMatcher.extractPathWithinPattern(PATTERN, path), StandardCharsets.UTF_8);
+
+        if (!isPublic(relative)) {
+            logger.warn("Rejected non-public upload path {}", relative);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path file;
+        try {
+            file = fileStorageService.resolveFile(relative);
+        } catch (RuntimeException e) {
+            logger.warn("Rejected upload path {}: {}", relative, e.getMessage());
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileSender.send(file, null, IMMUTABLE, request, response);
+    }
+
+    private static boolean isPublic(String relative) {
+        if (relative.startsWith("files/")) {
+            return true;
+        }
+        int slash = relative.indexOf('/');
+        if (slash < 0) {
+            return !relative.isEmpty();
+        }
+        return LEGACY_DIRS.contains(relative.substring(0, slash)) && relative.indexOf('/', slash + 1) < 0;
+    }
+}
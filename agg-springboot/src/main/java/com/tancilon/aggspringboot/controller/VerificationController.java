@@ -0,0 +1,54 @@
+package com.tancilon.aggspringboot.controller;
+
+import com.tancilon.aggspringboot.dto.ErrorResponse;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.service.VerificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/verifications")
+public class VerificationController {
+    private static final Logger logger = LoggerFactory.getLogger(VerificationController.class);
+
+    @Autowired
+    private VerificationService verificationService;
+
+    // 查看算法在数据集上 at-k 结果的复核结论
+    @GetMapping
+    public ResponseEntity<?> getStatus(@RequestParam String algorithm, @RequestParam String dataset) {
+        try {
+            return ResponseEntity.ok(verificationService.getStatus(algorithm, dataset));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching verification status of {} on {}", algorithm, dataset, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to fetch verification status: " + e.getMessage()));
+        }
+    }
+
+    // 立即抽样复核，覆盖此前的结论；需要服务端评测时保存的基准排序
+    @PostMapping
+    public ResponseEntity<?> verify(@RequestParam String algorithm, @RequestParam String dataset) {
+        try {
+            return ResponseEntity.ok(verificationService.verify(algorithm, dataset));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error verifying {} on {}", algorithm, dataset, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Failed to verify: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.tancilon.aggspringboot.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class AlgorithmRunRequest {
+    private Long algorithmId;
+    // 为空时对所有带相关性判断的数据集各创建一个任务
+    private List<String> datasets;
+    private boolean save = true;
+}
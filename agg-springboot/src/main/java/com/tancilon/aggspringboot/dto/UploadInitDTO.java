@@ -0,0 +1,18 @@
+package com.tancilon.aggspringboot.dto;
+
+import lombok.Data;
+
+/**
+ * 创建分片上传会话的请求
+ */
+@Data
+public class UploadInitDTO {
+    private String name;
+    private String category;
+    private String description;
+    private String filename;
+    private String contentType;
+    private Long totalSize;
+    // 可选，未指定时使用服务端默认值
+    private Integer chunkSize;
+}
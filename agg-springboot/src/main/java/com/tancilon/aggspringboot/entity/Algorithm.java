@@ -6,7 +6,7 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "algorithms")
+@Table(name = "algorithms", indexes = @Index(name = "idx_algorithms_name", columnList = "name"))
 public class Algorithm {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,64 @@
+package com.tancilon.aggspringboot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+import com.tancilon.aggspringboot.enums.JobStatus;
+
+/**
+ * 在沙箱中运行算法实现的任务，同时作为持久化的任务队列：PENDING 状态的任务由后台线程按 id 顺序执行
+ */
+@Data
+@Entity
+@Table(name = "algorithm_run_jobs", indexes = @Index(name = "idx_algorithm_run_jobs_status", columnList = "status"))
+public class AlgorithmRunJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "algorithm_id", nullable = false)
+    private Long algorithmId;
+
+    @Column(name = "dataset_id", nullable = false)
+    private Long datasetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status;
+
+    // 评测通过后是否写入结果表
+    @Column(name = "save_results", nullable = false)
+    private Boolean saveResults;
+
+    @Column(name = "exit_code")
+    private Integer exitCode;
+
+    // 子进程标准输出与标准错误合并写入的日志文件
+    @Column(name = "log_path")
+    private String logPath;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    // 评测结果（EvaluationVO 的 JSON）
+    @Lob
+    @Column(name = "evaluation_json", columnDefinition = "TEXT")
+    private String evaluationJson;
+
+    @Column(name = "error_message", length = 2000)
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
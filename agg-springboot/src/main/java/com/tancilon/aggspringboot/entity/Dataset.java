@@ -2,12 +2,13 @@ package com.tancilon.aggspringboot.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "datasets")
+@Table(name = "datasets", indexes = @Index(name = "idx_datasets_name", columnList = "name"))
 @Data
 public class Dataset {
     @Id
@@ -30,6 +31,7 @@ public class Dataset {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "dataset", cascade = CascadeType.ALL)
     private List<MetricScore> metrics;
 }
\ No newline at end of file
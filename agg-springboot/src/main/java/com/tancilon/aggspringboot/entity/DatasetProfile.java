@@ -0,0 +1,93 @@
+package com.tancilon.aggspringboot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+import com.tancilon.aggspringboot.enums.JobStatus;
+
+/**
+ * 数据集文件的统计概要，上传后由后台扫描生成，每个数据集一行
+ */
+@Data
+@Entity
+@Table(name = "dataset_profiles", uniqueConstraints = @UniqueConstraint(name = "uk_dataset_profiles_dataset", columnNames = "dataset_id"))
+public class DatasetProfile {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "dataset_id", nullable = false)
+    private Long datasetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status;
+
+    // 扫描时的文件引用，文件被替换后需要重新扫描
+    @Column(name = "file_url")
+    private String fileUrl;
+
+    @Column(name = "format_signature", length = 1000)
+    private String formatSignature;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "row_count")
+    private Long rowCount;
+
+    @Column(name = "malformed_row_count")
+    private Long malformedRowCount;
+
+    @Column(name = "query_count")
+    private Integer queryCount;
+
+    @Column(name = "voter_count")
+    private Integer voterCount;
+
+    @Column(name = "ranking_count")
+    private Integer rankingCount;
+
+    @Column(name = "item_count")
+    private Integer itemCount;
+
+    @Column(name = "min_list_length")
+    private Integer minListLength;
+
+    @Column(name = "median_list_length")
+    private Integer medianListLength;
+
+    @Column(name = "p90_list_length")
+    private Integer p90ListLength;
+
+    @Column(name = "max_list_length")
+    private Integer maxListLength;
+
+    @Column(name = "mean_list_length")
+    private Double meanListLength;
+
+    @Column(name = "judged_query_count")
+    private Integer judgedQueryCount;
+
+    @Column(name = "judgment_count")
+    private Long judgmentCount;
+
+    @Column(name = "relevant_count")
+    private Long relevantCount;
+
+    @Column(name = "max_relevance")
+    private Integer maxRelevance;
+
+    // 二进制排序格式文件的大小，转换失败时为空
+    @Column(name = "binary_size")
+    private Long binarySize;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "error_message", length = 2000)
+    private String errorMessage;
+
+    @Column(name = "profiled_at")
+    private LocalDateTime profiledAt;
+}
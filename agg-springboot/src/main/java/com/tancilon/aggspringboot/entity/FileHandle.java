@@ -0,0 +1,43 @@
+package com.tancilon.aggspringboot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.time.LocalDateTime;
+
+/**
+ * 文件的逻辑句柄：数据集、算法、指标记录的是句柄而非物理路径，每次上传对应一个句柄
+ */
+@Data
+@Entity
+@Table(name = "file_handles",
+        uniqueConstraints = @UniqueConstraint(name = "uk_file_handles_handle", columnNames = "handle"))
+public class FileHandle {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String handle;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "object_id", nullable = false, foreignKey = @ForeignKey(name = "fk_file_handles_object"))
+    private StoredObject storedObject;
+
+    @Column(name = "original_filename")
+    private String originalFilename;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -5,7 +5,7 @@ import jakarta.persistence.*;
 
 @Data
 @Entity
-@Table(name = "metrics")
+@Table(name = "metrics", indexes = @Index(name = "idx_metrics_name", columnList = "name"))
 public class Metric {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
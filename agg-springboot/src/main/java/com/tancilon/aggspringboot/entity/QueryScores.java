@@ -0,0 +1,54 @@
+package com.tancilon.aggspringboot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 算法在数据集上一个指标的逐查询数值，整条曲线（全部 k）编码为一个压缩块，格式见 QueryScoreBlob
+ *
+ * 唯一键与结果表的 (dataset_id, metric_id, algorithm_id) 前缀一致；查询以数据集二进制文件的 id 编码，
+ * 数据集文件变更后该记录失效；结果表中对应的汇总值被重新提交并改变时，该记录随之删除。
+ */
+@Data
+@Entity
+@Table(name = "query_scores",
+        uniqueConstraints = @UniqueConstraint(name = "uk_query_scores_curve",
+                columnNames = { "dataset_id", "metric_id", "algorithm_id" }))
+public class QueryScores {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "algorithm_id", nullable = false)
+    private Long algorithmId;
+
+    @Column(name = "dataset_id", nullable = false)
+    private Long datasetId;
+
+    @Column(name = "metric_id", nullable = false)
+    private Long metricId;
+
+    // 生成时数据集的文件引用，与当前不一致时查询 id 已失效
+    @Column(name = "dataset_file_url", nullable = false)
+    private String datasetFileUrl;
+
+    @Column(name = "query_count")
+    private Integer queryCount;
+
+    @Column(name = "k_count")
+    private Integer kCount;
+
+    @Lob
+    @Column(name = "scores", nullable = false, length = 16 * 1024 * 1024)
+    private byte[] scores;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,46 @@
+package com.tancilon.aggspringboot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 算法在数据集上最近一次由服务端评测并写入结果的聚合排序，作为抽样复核的基准
+ *
+ * 排序以数据集二进制文件的 id 编码保存，数据集文件变更后该记录失效。
+ */
+@Data
+@Entity
+@Table(name = "reference_rankings",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reference_rankings_pair",
+                columnNames = { "algorithm_id", "dataset_id" }))
+public class ReferenceRanking {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "algorithm_id", nullable = false)
+    private Long algorithmId;
+
+    @Column(name = "dataset_id", nullable = false)
+    private Long datasetId;
+
+    // 生成时数据集的文件引用，与当前不一致时 id 编码已失效
+    @Column(name = "dataset_file_url", nullable = false)
+    private String datasetFileUrl;
+
+    @Column(name = "path", nullable = false)
+    private String path;
+
+    @Column(name = "entry_count")
+    private Integer entryCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
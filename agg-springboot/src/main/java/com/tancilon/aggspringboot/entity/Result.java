@@ -2,31 +2,64 @@ package com.tancilon.aggspringboot.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDateTime;
 import org.hibernate.annotations.CreationTimestamp;
-import java.util.Map;
+import com.tancilon.aggspringboot.enums.VerificationStatus;
 
+/**
+ * 结果事实表：每行对应 (算法, 数据集, 指标, k) 的一个数值
+ *
+ * 唯一键 (dataset_id, metric_id, algorithm_id, k_value) 同时作为按数据集+指标查询的复合索引，
+ * 固定类型指标的 k 记为 0。
+ */
 @Entity
 @Data
-@Table(name = "results")
+@Table(name = "results",
+        uniqueConstraints = @UniqueConstraint(name = "uk_results_cell",
+                columnNames = { "dataset_id", "metric_id", "algorithm_id", "k_value" }),
+        indexes = @Index(name = "idx_results_algorithm_metric", columnList = "algorithm_id, metric_id"))
 public class Result {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
-    private String algorithm;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "algorithm_id", nullable = false, foreignKey = @ForeignKey(name = "fk_results_algorithm"))
+    private Algorithm algorithm;
 
-    @Column(nullable = false)
-    private String dataset;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "dataset_id", nullable = false, foreignKey = @ForeignKey(name = "fk_results_dataset"))
+    private Dataset dataset;
 
-    @Column(columnDefinition = "TEXT")
-    private String metricName;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "metric_id", nullable = false, foreignKey = @ForeignKey(name = "fk_results_metric"))
+    private Metric metric;
 
     private Double value;
 
+    @Column(name = "k_value", nullable = false)
     private Integer kValue;
 
     @CreationTimestamp
     private LocalDateTime createdAt;
-}
\ No newline at end of file
+
+    // 抽样复核的结论，数值被覆盖后重置为 null
+    @Enumerated(EnumType.STRING)
+    @Column(name = "verification_status", length = 16)
+    private VerificationStatus verificationStatus;
+
+    // 复核时由抽样查询估计的数值
+    @Column(name = "verified_value")
+    private Double verifiedValue;
+
+    @Column(name = "verified_at")
+    private LocalDateTime verifiedAt;
+}
@@ -0,0 +1,50 @@
+package com.tancilon.aggspringboot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+import com.tancilon.aggspringboot.enums.JobStatus;
+
+/**
+ * 异步结果上传任务，同时作为本地任务队列：请求体先落盘，PENDING 状态的任务由后台线程依次处理
+ */
+@Data
+@Entity
+@Table(name = "result_ingestion_jobs", indexes = @Index(name = "idx_result_ingestion_jobs_status", columnList = "status"))
+public class ResultIngestionJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status;
+
+    // 落盘的请求体路径
+    @Column(name = "payload_path", nullable = false)
+    private String payloadPath;
+
+    @Column(name = "payload_size")
+    private Long payloadSize;
+
+    private Integer inserted;
+    private Integer updated;
+    private Integer unchanged;
+
+    @Column(name = "error_message", length = 2000)
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,39 @@
+package com.tancilon.aggspringboot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 按内容寻址存储的文件对象，内容相同的上传共用一个对象，由引用计数决定何时删除
+ */
+@Data
+@Entity
+@Table(name = "stored_objects",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stored_objects_sha256", columnNames = "sha256"))
+public class StoredObject {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 内容的 SHA-256，小写十六进制
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    // 提交后未能放入对象目录，文件缺失；相同内容再次上传时修复
+    private Boolean broken;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,43 @@
+package com.tancilon.aggspringboot.enums;
+
+import com.tancilon.aggspringboot.ranking.BordaAggregator;
+import com.tancilon.aggspringboot.ranking.CombSumAggregator;
+import com.tancilon.aggspringboot.ranking.MarkovChainAggregator;
+import com.tancilon.aggspringboot.ranking.RankAggregator;
+import com.tancilon.aggspringboot.ranking.ReciprocalRankFusionAggregator;
+
+/**
+ * 内置的排序聚合算法，algorithmName 为写入结果时使用的算法名
+ */
+public enum AggregationMethod {
+    BORDA("Borda", new BordaAggregator()),
+    COMBSUM("CombSUM", new CombSumAggregator(false)),
+    COMBMNZ("CombMNZ", new CombSumAggregator(true)),
+    RRF("RRF", new ReciprocalRankFusionAggregator()),
+    MC4("MC4", new MarkovChainAggregator());
+
+    private final String algorithmName;
+    private final RankAggregator aggregator;
+
+    AggregationMethod(String algorithmName, RankAggregator aggregator) {
+        this.algorithmName = algorithmName;
+        this.aggregator = aggregator;
+    }
+
+    public String getAlgorithmName() {
+        return algorithmName;
+    }
+
+    public RankAggregator getAggregator() {
+        return aggregator;
+    }
+
+    public static AggregationMethod fromString(String value) {
+        for (AggregationMethod method : values()) {
+            if (method.name().equalsIgnoreCase(value) || method.algorithmName.equalsIgnoreCase(value)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported aggregation method: " + value);
+    }
+}
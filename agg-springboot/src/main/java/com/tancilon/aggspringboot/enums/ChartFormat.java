@@ -0,0 +1,35 @@
+package com.tancilon.aggspringboot.enums;
+
+/**
+ * 服务端图表导出格式
+ */
+public enum ChartFormat {
+    PNG("image/png", "png"),
+    SVG("image/svg+xml", "svg"),
+    PDF("application/pdf", "pdf");
+
+    private final String contentType;
+    private final String extension;
+
+    ChartFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ChartFormat fromString(String value) {
+        for (ChartFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported chart format: " + value);
+    }
+}
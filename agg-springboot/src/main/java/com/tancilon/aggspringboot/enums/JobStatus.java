@@ -0,0 +1,8 @@
+package com.tancilon.aggspringboot.enums;
+
+public enum JobStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.tancilon.aggspringboot.enums;
+
+public enum UploadStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
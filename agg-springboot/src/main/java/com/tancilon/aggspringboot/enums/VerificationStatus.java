@@ -0,0 +1,11 @@
+package com.tancilon.aggspringboot.enums;
+
+/**
+ * 结果抽样复核的结论
+ */
+public enum VerificationStatus {
+    // 与抽样估计值的偏差在容差内
+    VERIFIED,
+    // 偏差超出容差
+    DEVIATED
+}
@@ -0,0 +1,16 @@
+package com.tancilon.aggspringboot.event;
+
+/**
+ * 算法实现文件已保存，可提交沙箱运行
+ */
+public class AlgorithmImplementationStoredEvent {
+    private final Long algorithmId;
+
+    public AlgorithmImplementationStoredEvent(Long algorithmId) {
+        this.algorithmId = algorithmId;
+    }
+
+    public Long getAlgorithmId() {
+        return algorithmId;
+    }
+}
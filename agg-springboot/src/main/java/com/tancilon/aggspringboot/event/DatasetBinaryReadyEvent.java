@@ -0,0 +1,16 @@
+package com.tancilon.aggspringboot.event;
+
+/**
+ * 数据集已转换为二进制排序格式，可直接用于聚合与评测
+ */
+public class DatasetBinaryReadyEvent {
+    private final Long datasetId;
+
+    public DatasetBinaryReadyEvent(Long datasetId) {
+        this.datasetId = datasetId;
+    }
+
+    public Long getDatasetId() {
+        return datasetId;
+    }
+}
@@ -0,0 +1,16 @@
+package com.tancilon.aggspringboot.event;
+
+/**
+ * 数据集文件写入事件，事务提交后触发文件统计
+ */
+public class DatasetFileStoredEvent {
+    private final Long datasetId;
+
+    public DatasetFileStoredEvent(Long datasetId) {
+        this.datasetId = datasetId;
+    }
+
+    public Long getDatasetId() {
+        return datasetId;
+    }
+}
@@ -0,0 +1,16 @@
+package com.tancilon.aggspringboot.event;
+
+/**
+ * 结果删除事件（目前仅在删除指标时级联删除其结果）
+ */
+public class ResultsDeletedEvent {
+    private final String metricName;
+
+    public ResultsDeletedEvent(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,18 @@
+package com.tancilon.aggspringboot.event;
+
+import com.tancilon.aggspringboot.service.ResultBatch;
+
+/**
+ * 结果写入事件，事务提交后用于增量刷新内存中的读模型
+ */
+public class ResultsSavedEvent {
+    private final ResultBatch batch;
+
+    public ResultsSavedEvent(ResultBatch batch) {
+        this.batch = batch;
+    }
+
+    public ResultBatch getBatch() {
+        return batch;
+    }
+}
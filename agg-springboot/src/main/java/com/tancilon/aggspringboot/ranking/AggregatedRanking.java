@@ -0,0 +1,45 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * 算法对一个数据集的聚合排序输出
+ *
+ * 查询与条目使用所属 RankingDataset 的 id，每个查询一条按名次升序的条目序列，连续存放在同一个 int 数组中；
+ * 数据集中不存在的条目记为 -1。没有输出的查询对应空序列。
+ */
+public class AggregatedRanking {
+
+    private final int[] offsets;
+    private final int[] items;
+
+    /**
+     * @param offsets 查询 -> 条目下标范围，长度为查询数 + 1
+     * @param items   按查询分组、组内按名次排列的条目 id
+     */
+    public AggregatedRanking(int[] offsets, int[] items) {
+        this.offsets = offsets;
+        this.items = items;
+    }
+
+    public int queryCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * 查询的第一个条目在条目数组中的下标
+     */
+    public int start(int query) {
+        return offsets[query];
+    }
+
+    public int length(int query) {
+        return offsets[query + 1] - offsets[query];
+    }
+
+    public int itemAt(int entry) {
+        return items[entry];
+    }
+
+    public int entryCount() {
+        return offsets[offsets.length - 1];
+    }
+}
@@ -0,0 +1,148 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 解析文本格式的聚合排序输出
+ *
+ * 每行为 (query, item, rank) 或与数据集相同的 (query, algorithm, item, rank)，分隔符与注释规则同 DelimitedRowScanner，
+ * 首行名次列不是数字时视为表头。名称按哈希映射为数据集的 id，不创建字符串；数据集中不存在的查询整行丢弃，
+ * 不存在的条目保留其位置。每个查询内按名次升序排列，同一条目重复出现时只保留名次最靠前的一次。
+ */
+public class AggregatedRankingReader implements DelimitedRowScanner.RowHandler {
+
+    private final RankingDataset dataset;
+
+    private int[] rowQuery = new int[1024];
+    private int[] rowItem = new int[1024];
+    private float[] rowRank = new float[1024];
+    private int rowCount;
+
+    private boolean firstRow = true;
+    private long malformedRowCount;
+    private long unknownQueryRowCount;
+    private long unknownItemRowCount;
+    private long duplicateRowCount;
+
+    public AggregatedRankingReader(RankingDataset dataset) {
+        this.dataset = dataset;
+    }
+
+    public AggregatedRanking read(Path file) throws IOException {
+        new DelimitedRowScanner(this).scan(file);
+        return build();
+    }
+
+    public AggregatedRanking read(InputStream in) throws IOException {
+        new DelimitedRowScanner(this).scan(in);
+        return build();
+    }
+
+    @Override
+    public void row(DelimitedRowScanner.Row row) {
+        int fields = row.fieldCount();
+        int itemField = fields >= 4 ? 2 : 1;
+        int rankField = fields >= 4 ? 3 : 2;
+        double rank = fields >= 3 ? row.number(rankField) : Double.NaN;
+        boolean header = firstRow && fields >= 3 && !row.isNumeric(rankField);
+        firstRow = false;
+        if (header) {
+            return;
+        }
+        if (Double.isNaN(rank)) {
+            malformedRowCount++;
+            return;
+        }
+        int query = dataset.queryId(row, 0);
+        if (query < 0) {
+            unknownQueryRowCount++;
+            return;
+        }
+        int item = dataset.itemId(row, itemField);
+        if (item < 0) {
+            unknownItemRowCount++;
+        }
+
+        if (rowCount == rowQuery.length) {
+            int capacity = (int) Math.min((long) rowCount * 2, Integer.MAX_VALUE - 8);
+            rowQuery = Arrays.copyOf(rowQuery, capacity);
+            rowItem = Arrays.copyOf(rowItem, capacity);
+            rowRank = Arrays.copyOf(rowRank, capacity);
+        }
+        rowQuery[rowCount] = query;
+        rowItem[rowCount] = item;
+        rowRank[rowCount] = (float) rank;
+        rowCount++;
+    }
+
+    /**
+     * 参与排序的数据行数（不含表头、格式错误与未知查询的行）
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getMalformedRowCount() {
+        return malformedRowCount;
+    }
+
+    public long getUnknownQueryRowCount() {
+        return unknownQueryRowCount;
+    }
+
+    public long getUnknownItemRowCount() {
+        return unknownItemRowCount;
+    }
+
+    public long getDuplicateRowCount() {
+        return duplicateRowCount;
+    }
+
+    // 按查询分桶，桶内按 (名次, 条目) 排序后去重
+    private AggregatedRanking build() {
+        int queryCount = dataset.queryCount();
+        int[] offsets = new int[queryCount + 1];
+        for (int i = 0; i < rowCount; i++) {
+            offsets[rowQuery[i] + 1]++;
+        }
+        for (int q = 1; q <= queryCount; q++) {
+            offsets[q] += offsets[q - 1];
+        }
+        long[] entries = new long[rowCount];
+        int[] cursor = Arrays.copyOf(offsets, queryCount);
+        for (int i = 0; i < rowCount; i++) {
+            entries[cursor[rowQuery[i]]++] = (long) RankingDatasetWriter.sortableFloat(rowRank[i]) << 32
+                    | (rowItem[i] + 1L);
+        }
+        rowQuery = null;
+        rowItem = null;
+        rowRank = null;
+
+        // seen[item] 记录该条目最近一次出现的查询 + 1，避免为每个查询分配集合
+        int[] seen = new int[dataset.itemCount()];
+        int[] items = new int[rowCount];
+        int kept = 0;
+        for (int q = 0; q < queryCount; q++) {
+            int from = offsets[q];
+            int to = offsets[q + 1];
+            Arrays.sort(entries, from, to);
+            offsets[q] = kept;
+            for (int i = from; i < to; i++) {
+                int item = (int) entries[i] - 1;
+                if (item >= 0) {
+                    if (seen[item] == q + 1) {
+                        duplicateRowCount++;
+                        continue;
+                    }
+                    seen[item] = q + 1;
+                }
+                items[kept++] = item;
+            }
+        }
+        offsets[queryCount] = kept;
+        return new AggregatedRanking(offsets, kept == items.length ? items : Arrays.copyOf(items, kept));
+    }
+}
@@ -0,0 +1,139 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.util.Arrays;
+
+/**
+ * 单个线程聚合查询时复用的工作区
+ *
+ * 得分与出现次数按条目 id 直接寻址，用代数标记区分当前查询写入过的槽位，切换查询时不需要清空数组；
+ * 本查询涉及的条目记录在 touched 中。数组按数据集的条目数一次分配，逐查询处理时不再分配内存。
+ */
+public class AggregationWorkspace {
+
+    private static final int SCRATCH_SLOTS = 4;
+
+    final double[] score;
+    final int[] hits;
+    // 条目在 touched 中的下标，供需要稠密编号的算法使用
+    final int[] local;
+    private final int[] stamp;
+    private int generation;
+
+    int[] touched = new int[256];
+    int touchedCount;
+
+    // 供算法使用的临时数组，按槽位复用、按需扩容
+    private final int[][] intBuffers = new int[SCRATCH_SLOTS][0];
+    private final double[][] doubleBuffers = new double[SCRATCH_SLOTS][0];
+
+    public AggregationWorkspace(int itemCount) {
+        score = new double[itemCount];
+        hits = new int[itemCount];
+        local = new int[itemCount];
+        stamp = new int[itemCount];
+    }
+
+    /**
+     * 开始处理一个新查询
+     */
+    void begin() {
+        touchedCount = 0;
+        if (++generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * 累加条目得分并计数一次出现
+     */
+    void add(int item, double value) {
+        touch(item);
+        score[item] += value;
+        hits[item]++;
+    }
+
+    void touch(int item) {
+        if (stamp[item] != generation) {
+            stamp[item] = generation;
+            score[item] = 0;
+            hits[item] = 0;
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            local[item] = touchedCount;
+            touched[touchedCount++] = item;
+        }
+    }
+
+    /**
+     * 第 slot 个临时 int 数组，长度至少为 size，内容未定义
+     */
+    int[] ints(int slot, int size) {
+        if (intBuffers[slot].length < size) {
+            intBuffers[slot] = new int[Math.max(size, intBuffers[slot].length * 2)];
+        }
+        return intBuffers[slot];
+    }
+
+    double[] doubles(int slot, int size) {
+        if (doubleBuffers[slot].length < size) {
+            doubleBuffers[slot] = new double[Math.max(size, doubleBuffers[slot].length * 2)];
+        }
+        return doubleBuffers[slot];
+    }
+
+    /**
+     * 按得分降序（得分相同按条目 id 升序）返回本查询的条目
+     */
+    int[] ranked() {
+        sort(0, touchedCount - 1);
+        return Arrays.copyOf(touched, touchedCount);
+    }
+
+    // 直接在 touched 上做快速排序，避免装箱比较器
+    private void sort(int low, int high) {
+        while (low < high) {
+            if (high - low < 16) {
+                for (int i = low + 1; i <= high; i++) {
+                    int value = touched[i];
+                    int j = i - 1;
+                    while (j >= low && before(value, touched[j])) {
+                        touched[j + 1] = touched[j];
+                        j--;
+                    }
+                    touched[j + 1] = value;
+                }
+                return;
+            }
+            int pivot = touched[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (before(touched[i], pivot)) {
+                    i++;
+                }
+                while (before(pivot, touched[j])) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = touched[i];
+                    touched[i++] = touched[j];
+                    touched[j--] = swap;
+                }
+            }
+            // 先递归较短的一段，较长的一段继续循环，栈深度为 O(log n)
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+    }
+
+    private boolean before(int a, int b) {
+        return score[a] > score[b] || (score[a] == score[b] && a < b);
+    }
+}
@@ -0,0 +1,102 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * 一次评测的结果：每个指标核逐查询的数值以及按查询平均后的数值
+ *
+ * 逐查询的数值按 (查询, k) 展开存放在每个核各自的 double 数组中：@k 指标下标为 query * K_COUNT + kIndex，
+ * 非 @k 指标每个查询只有一个值，下标为 query。未参与评测的查询为 0。
+ */
+public class AtKEvaluation {
+
+    private final MetricKernel[] kernels;
+    final double[][] values;
+    final boolean[] evaluated;
+    private final double[][] means;
+    private int evaluatedQueryCount;
+
+    AtKEvaluation(MetricKernel[] kernels, int queryCount) {
+        this.kernels = kernels;
+        values = new double[kernels.length][];
+        means = new double[kernels.length][];
+        for (int m = 0; m < kernels.length; m++) {
+            values[m] = new double[queryCount * width(m)];
+            means[m] = new double[width(m)];
+        }
+        evaluated = new boolean[queryCount];
+    }
+
+    void summarize() {
+        for (int q = 0; q < evaluated.length; q++) {
+            if (!evaluated[q]) {
+                continue;
+            }
+            evaluatedQueryCount++;
+            for (int m = 0; m < kernels.length; m++) {
+                int width = width(m);
+                for (int i = 0; i < width; i++) {
+                    means[m][i] += values[m][q * width + i];
+                }
+            }
+        }
+        if (evaluatedQueryCount > 0) {
+            for (double[] mean : means) {
+                for (int i = 0; i < mean.length; i++) {
+                    mean[i] /= evaluatedQueryCount;
+                }
+            }
+        }
+    }
+
+    public int queryCount() {
+        return evaluated.length;
+    }
+
+    /**
+     * 参与平均的查询数（有相关条目的查询）
+     */
+    public int evaluatedQueryCount() {
+        return evaluatedQueryCount;
+    }
+
+    public boolean isEvaluated(int query) {
+        return evaluated[query];
+    }
+
+    public int kernelCount() {
+        return kernels.length;
+    }
+
+    public MetricKernel kernel(int index) {
+        return kernels[index];
+    }
+
+    /**
+     * 指标名对应的核下标，不存在时返回 -1
+     */
+    public int kernelIndex(String name) {
+        for (int m = 0; m < kernels.length; m++) {
+            if (kernels[m].name().equals(name)) {
+                return m;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 每个查询的数值个数：@k 指标为 K_COUNT，否则为 1
+     */
+    public int width(int kernel) {
+        return kernels[kernel].isAtK() ? AtKEvaluator.K_COUNT : 1;
+    }
+
+    /**
+     * 查询的数值，非 @k 指标的 kIndex 取 0
+     */
+    public double value(int kernel, int query, int kIndex) {
+        return values[kernel][query * width(kernel) + kIndex];
+    }
+
+    public double mean(int kernel, int kIndex) {
+        return means[kernel][kIndex];
+    }
+}
@@ -0,0 +1,216 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 以数据集的相关性判断为基准，用一组 MetricKernel 评测聚合排序
+ *
+ * 查询按批处理：一批查询先各自换算一次，输出排序的条目 id 按相关性判断换算为等级数组，相关条目按等级计数后
+ * 展开为理想排序；随后外层按核、内层按查询计算，一个核连续处理整批查询，核内对全部 k 做一次前缀遍历。
+ * 核调用仍是接口分派，但不再在每个查询上轮流切换全部核的代码与常量表。只有 @k 核时只换算前 K_MAX 名，
+ * 有非 @k 核（如 MRR）时换算整条输出。
+ * 等级大于 0 的条目视为相关，没有相关条目的查询不参与平均；有相关条目但没有输出的查询照常计算（@k 指标为 0）。
+ * 查询按区间拆分为 fork/join 任务，各任务写入结果数组中互不重叠的位置。
+ */
+public class AtKEvaluator {
+
+    public static final int K_STEP = MetricKernel.K_STEP;
+    public static final int K_MAX = MetricKernel.K_MAX;
+    public static final int K_COUNT = MetricKernel.K_COUNT;
+
+    // 每个 fork/join 任务与每批处理的查询数
+    private static final int QUERIES_PER_TASK = 16;
+    private static final int MAX_GRADE = Byte.MAX_VALUE;
+
+    private final RankingDataset truth;
+    private final MetricKernel[] kernels;
+    private final boolean atKOnly;
+
+    public AtKEvaluator(RankingDataset truth, List<MetricKernel> kernels) {
+        this.truth = truth;
+        this.kernels = kernels.toArray(new MetricKernel[0]);
+        this.atKOnly = kernels.stream().allMatch(MetricKernel::isAtK);
+    }
+
+    /**
+     * 返回第 index 个 k 值（从 0 开始）
+     */
+    public static int k(int index) {
+        return (index + 1) * K_STEP;
+    }
+
+    /**
+     * k 对应的下标，k 不是 K_STEP 的倍数或超出范围时返回 -1
+     */
+    public static int kIndex(int k) {
+        return k >= K_STEP && k <= K_MAX && k % K_STEP == 0 ? k / K_STEP - 1 : -1;
+    }
+
+    /**
+     * 评测全部查询
+     */
+    public AtKEvaluation evaluate(AggregatedRanking ranking, ForkJoinPool pool) {
+        if (ranking.queryCount() != truth.queryCount()) {
+            throw new IllegalArgumentException("Ranking does not belong to this dataset");
+        }
+        AtKEvaluation evaluation = new AtKEvaluation(kernels, truth.queryCount());
+        pool.invoke(new QueryRange(ranking, evaluation, 0, truth.queryCount()));
+        evaluation.summarize();
+        return evaluation;
+    }
+
+    /**
+     * 只评测给定的查询，在调用线程中顺序执行，供抽样复核使用
+     */
+    public AtKEvaluation evaluate(AggregatedRanking ranking, int[] queries) {
+        if (ranking.queryCount() != truth.queryCount()) {
+            throw new IllegalArgumentException("Ranking does not belong to this dataset");
+        }
+        AtKEvaluation evaluation = new AtKEvaluation(kernels, truth.queryCount());
+        Scratch scratch = new Scratch();
+        int[] batch = new int[QUERIES_PER_TASK];
+        for (int from = 0; from < queries.length; from += QUERIES_PER_TASK) {
+            int count = Math.min(QUERIES_PER_TASK, queries.length - from);
+            System.arraycopy(queries, from, batch, 0, count);
+            evaluateBatch(batch, count, ranking, evaluation, scratch);
+        }
+        evaluation.summarize();
+        return evaluation;
+    }
+
+    /**
+     * 查询是否有相关条目，只有这些查询参与平均
+     */
+    public boolean hasRelevant(int query) {
+        for (int j = truth.firstJudgment(query); j < truth.endJudgment(query); j++) {
+            if (truth.grade(j) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 评测一批查询，各核的结果写入 evaluation 中对应查询的位置；没有相关条目的查询标记为不参与评测
+     *
+     * @param queries 前 count 个为本批的查询，count 不超过 QUERIES_PER_TASK
+     * @param scratch 同一线程内复用的临时数组
+     */
+    void evaluateBatch(int[] queries, int count, AggregatedRanking ranking, AtKEvaluation evaluation,
+            Scratch scratch) {
+        int prepared = 0;
+        for (int i = 0; i < count; i++) {
+            int query = queries[i];
+            evaluation.evaluated[query] = prepare(query, ranking, scratch, prepared);
+            if (evaluation.evaluated[query]) {
+                scratch.queries[prepared++] = query;
+            }
+        }
+
+        for (int m = 0; m < kernels.length; m++) {
+            MetricKernel kernel = kernels[m];
+            double[] out = evaluation.values[m];
+            if (kernel.isAtK()) {
+                for (int s = 0; s < prepared; s++) {
+                    kernel.evaluate(scratch.grades[s], Math.min(scratch.lengths[s], K_MAX), scratch.ideal[s],
+                            scratch.relevant[s], out, scratch.queries[s] * K_COUNT);
+                }
+            } else {
+                for (int s = 0; s < prepared; s++) {
+                    kernel.evaluate(scratch.grades[s], scratch.lengths[s], scratch.ideal[s], scratch.relevant[s],
+                            out, scratch.queries[s]);
+                }
+            }
+        }
+    }
+
+    // 把查询换算为第 slot 组等级数组与理想排序，查询没有相关条目时返回 false
+    private boolean prepare(int query, AggregatedRanking ranking, Scratch scratch, int slot) {
+        // 相关条目按等级计数，理想排序即按等级从高到低依次取出
+        int[] gradeCounts = scratch.gradeCounts;
+        Arrays.fill(gradeCounts, 0);
+        int relevant = 0;
+        for (int j = truth.firstJudgment(query); j < truth.endJudgment(query); j++) {
+            int grade = truth.grade(j);
+            if (grade > 0) {
+                gradeCounts[grade]++;
+                relevant++;
+            }
+        }
+        if (relevant == 0) {
+            return false;
+        }
+        int[] ideal = scratch.ideal(slot, relevant);
+        int filled = 0;
+        for (int g = MAX_GRADE; g > 0; g--) {
+            for (int c = gradeCounts[g]; c > 0; c--) {
+                ideal[filled++] = g;
+            }
+        }
+
+        int start = ranking.start(query);
+        int length = atKOnly ? Math.min(ranking.length(query), K_MAX) : ranking.length(query);
+        int[] grades = scratch.grades(slot, length);
+        for (int i = 0; i < length; i++) {
+            int item = ranking.itemAt(start + i);
+            grades[i] = item >= 0 ? Math.max(truth.grade(query, item), 0) : 0;
+        }
+        scratch.lengths[slot] = length;
+        scratch.relevant[slot] = relevant;
+        return true;
+    }
+
+    // 单线程复用的临时数组，每批中的每个查询占一组，按需扩容
+    static class Scratch {
+        final int[] gradeCounts = new int[MAX_GRADE + 1];
+        final int[] queries = new int[QUERIES_PER_TASK];
+        final int[] lengths = new int[QUERIES_PER_TASK];
+        final int[] relevant = new int[QUERIES_PER_TASK];
+        final int[][] grades = new int[QUERIES_PER_TASK][K_MAX];
+        final int[][] ideal = new int[QUERIES_PER_TASK][K_MAX];
+
+        int[] grades(int slot, int length) {
+            if (grades[slot].length < length) {
+                grades[slot] = new int[Math.max(length, grades[slot].length * 2)];
+            }
+            return grades[slot];
+        }
+
+        int[] ideal(int slot, int length) {
+            if (ideal[slot].length < length) {
+                ideal[slot] = new int[Math.max(length, ideal[slot].length * 2)];
+            }
+            return ideal[slot];
+        }
+    }
+
+    private class QueryRange extends RecursiveAction {
+        private final AggregatedRanking ranking;
+        private final AtKEvaluation evaluation;
+        private final int from;
+        private final int to;
+
+        QueryRange(AggregatedRanking ranking, AtKEvaluation evaluation, int from, int to) {
+            this.ranking = ranking;
+            this.evaluation = evaluation;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > QUERIES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new QueryRange(ranking, evaluation, from, mid),
+                        new QueryRange(ranking, evaluation, mid, to));
+                return;
+            }
+            int[] batch = new int[to - from];
+            Arrays.setAll(batch, i -> from + i);
+            evaluateBatch(batch, batch.length, ranking, evaluation, new Scratch());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * AP@k = 前 k 名中各相关位置的 P@i 之和 / min(相关条目数, k)，按查询平均即 mAP@k
+ */
+public class AveragePrecisionKernel implements MetricKernel {
+
+    @Override
+    public String name() {
+        return "mAP";
+    }
+
+    @Override
+    public boolean isAtK() {
+        return true;
+    }
+
+    @Override
+    public void evaluate(int[] grades, int length, int[] idealGrades, int relevant, double[] out, int offset) {
+        int hits = 0;
+        double precisionSum = 0;
+        for (int i = 0; i < K_MAX; i++) {
+            if (i < length && grades[i] > 0) {
+                hits++;
+                precisionSum += (double) hits / (i + 1);
+            }
+            if ((i + 1) % K_STEP == 0) {
+                out[offset + (i + 1) / K_STEP - 1] = precisionSum / Math.min(relevant, i + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * Borda 计数：长度为 n 的输入排序中第 p 名（从 1 开始）得 n - p + 1 分，未出现的条目得 0 分
+ */
+public class BordaAggregator implements RankAggregator {
+
+    @Override
+    public void score(RankingDataset dataset, int query, AggregationWorkspace workspace) {
+        for (int r = dataset.firstRanking(query); r < dataset.endRanking(query); r++) {
+            int length = dataset.rankingLength(r);
+            int entry = dataset.entryOffset(r);
+            for (int p = 0; p < length; p++) {
+                workspace.add(dataset.itemAt(entry + p), length - p);
+            }
+        }
+    }
+}
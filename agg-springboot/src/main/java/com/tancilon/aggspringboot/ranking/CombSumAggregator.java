@@ -0,0 +1,32 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * CombSUM / CombMNZ：输入排序只有名次，得分取归一化名次分 (n - p + 1) / n
+ *
+ * CombSUM 为各输入排序得分之和，CombMNZ 再乘以条目出现在的输入排序数。
+ */
+public class CombSumAggregator implements RankAggregator {
+
+    private final boolean mnz;
+
+    public CombSumAggregator(boolean mnz) {
+        this.mnz = mnz;
+    }
+
+    @Override
+    public void score(RankingDataset dataset, int query, AggregationWorkspace workspace) {
+        for (int r = dataset.firstRanking(query); r < dataset.endRanking(query); r++) {
+            int length = dataset.rankingLength(r);
+            int entry = dataset.entryOffset(r);
+            for (int p = 0; p < length; p++) {
+                workspace.add(dataset.itemAt(entry + p), (double) (length - p) / length);
+            }
+        }
+        if (mnz) {
+            for (int i = 0; i < workspace.touchedCount; i++) {
+                int item = workspace.touched[i];
+                workspace.score[item] *= workspace.hits[item];
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 遍历数据集文件（单个文本文件或包含多个文本文件的 ZIP），识别每个文件的类型后逐行回调
+ *
+ * 排序文件每行为 (query, voter, item, rank)，相关性文件每行为 (query, 0, item, relevance)。
+ * 类型先按文件名判断（名称含 rel 的为相关性文件），否则按表头（第四列含 rel）或首行第二列是否为 0 判断。
+ * 普通文件以内存映射方式扫描，ZIP 条目以固定缓冲区流式扫描。
+ */
+class DatasetFileWalker {
+
+    static final String KIND_RANKINGS = "rankings";
+    static final String KIND_QRELS = "qrels";
+
+    /**
+     * 数据行回调，Row 对象在回调之间复用
+     */
+    interface Sink {
+        void ranking(DelimitedRowScanner.Row row, double rank) throws IOException;
+
+        void judgment(DelimitedRowScanner.Row row, double relevance) throws IOException;
+    }
+
+    private final Sink sink;
+    private final List<String> signatures = new ArrayList<>();
+    private long rowCount;
+    private long malformedRowCount;
+    private boolean zip;
+
+    DatasetFileWalker(Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * @param name 原始文件名，存储中的文件可能以内容哈希命名，类型判断与格式描述使用该名称
+     */
+    void walk(Path file, String name) throws IOException {
+        if (isZip(file)) {
+            zip = true;
+            try (ZipInputStream in = new ZipInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                ZipEntry entry;
+                while ((entry = in.getNextEntry()) != null) {
+                    if (entry.isDirectory() || isHidden(entry.getName())) {
+                        continue;
+                    }
+                    FileScan scan = new FileScan(entry.getName());
+                    DelimitedRowScanner scanner = new DelimitedRowScanner(scan);
+                    scanner.scan(in);
+                    if (scan.kind != null) {
+                        signatures.add(scan.signature(scanner));
+                    }
+                }
+            }
+        } else {
+            FileScan scan = new FileScan(name);
+            DelimitedRowScanner scanner = new DelimitedRowScanner(scan);
+            scanner.scan(file);
+            signatures.add(scan.signature(scanner));
+        }
+    }
+
+    List<String> getSignatures() {
+        return signatures;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    long getMalformedRowCount() {
+        return malformedRowCount;
+    }
+
+    boolean isZip() {
+        return zip;
+    }
+
+    private static boolean isZip(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+        }
+    }
+
+    private static boolean isHidden(String name) {
+        String base = name.substring(name.lastIndexOf('/') + 1);
+        return name.startsWith("__MACOSX/") || base.startsWith(".");
+    }
+
+    private static boolean nameSuggestsQrels(String name) {
+        String base = name.substring(name.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        return base.contains("rel");
+    }
+
+    /**
+     * 单个文件的扫描状态：首行决定文件类型与是否有表头
+     */
+    private class FileScan implements DelimitedRowScanner.RowHandler {
+        private final String name;
+        private String kind;
+        private boolean header;
+
+        FileScan(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void row(DelimitedRowScanner.Row row) throws IOException {
+            if (kind == null) {
+                if (row.fieldCount() < 4) {
+                    malformedRowCount++;
+                    return;
+                }
+                header = !row.isNumeric(3);
+                if (nameSuggestsQrels(name)) {
+                    kind = KIND_QRELS;
+                } else if (header) {
+                    kind = row.string(3).toLowerCase(Locale.ROOT).contains("rel") ? KIND_QRELS : KIND_RANKINGS;
+                } else {
+                    kind = row.equalsAscii(1, "0") ? KIND_QRELS : KIND_RANKINGS;
+                }
+                if (header) {
+                    return;
+                }
+            }
+
+            double value = row.fieldCount() >= 4 ? row.number(3) : Double.NaN;
+            if (Double.isNaN(value)) {
+                malformedRowCount++;
+                return;
+            }
+            rowCount++;
+            if (KIND_QRELS.equals(kind)) {
+                sink.judgment(row, value);
+            } else {
+                sink.ranking(row, value);
+            }
+        }
+
+        String signature(DelimitedRowScanner scanner) {
+            return name + "=" + (kind != null ? kind : "unknown") + "/"
+                    + (scanner.getDelimiterName() != null ? scanner.getDelimiterName() : "empty")
+                    + (header ? "/header" : "");
+        }
+    }
+}
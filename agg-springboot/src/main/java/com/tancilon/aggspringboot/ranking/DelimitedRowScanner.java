@@ -0,0 +1,349 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 按行扫描逗号、制表符或空白分隔的文本文件
+ *
+ * 普通文件分段内存映射后直接在映射区上切分字段，ZIP 条目等输入流使用固定大小的缓冲区，
+ * 两种方式都不为每行创建字符串，内存占用与文件大小无关。分隔符由第一条非空行决定，
+ * 空行与 # 开头的注释行跳过，字段两侧的空格与引号会被去掉。
+ */
+public class DelimitedRowScanner {
+
+    public static final String DELIMITER_TAB = "tab";
+    public static final String DELIMITER_COMMA = "comma";
+    public static final String DELIMITER_WHITESPACE = "whitespace";
+
+    // 内存映射的分段大小，单行不得超过该长度
+    private static final int REGION_SIZE = 64 * 1024 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_FIELDS = 16;
+
+    /**
+     * 每行回调一次，Row 对象在回调之间复用，不能保存引用
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(Row row) throws IOException;
+    }
+
+    private final RowHandler handler;
+    private final Row row = new Row();
+    private byte delimiter;
+    private String delimiterName;
+    private long bytesScanned;
+
+    public DelimitedRowScanner(RowHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * 以内存映射方式扫描整个文件
+     */
+    public void scan(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(REGION_SIZE, size - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+                int consumed = parse(region, (int) length, last);
+                if (consumed == 0 && !last) {
+                    throw new IOException("Line longer than " + REGION_SIZE + " bytes at offset " + position);
+                }
+                // 末尾不完整的行留到下一段重新映射
+                position += consumed;
+                bytesScanned = position;
+            }
+        }
+    }
+
+    /**
+     * 扫描输入流，调用方负责关闭
+     */
+    public void scan(InputStream in) throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+        int filled = 0;
+        while (true) {
+            int n = in.read(buffer, filled, buffer.length - filled);
+            boolean eof = n < 0;
+            if (!eof) {
+                filled += n;
+                if (filled < buffer.length) {
+                    continue;
+                }
+            }
+            int consumed = parse(wrapped, filled, eof);
+            if (consumed == 0 && !eof && filled == buffer.length) {
+                throw new IOException("Line longer than " + STREAM_BUFFER_SIZE + " bytes");
+            }
+            bytesScanned += consumed;
+            System.arraycopy(buffer, consumed, buffer, 0, filled - consumed);
+            filled -= consumed;
+            if (eof) {
+                return;
+            }
+        }
+    }
+
+    public String getDelimiterName() {
+        return delimiterName;
+    }
+
+    public long getBytesScanned() {
+        return bytesScanned;
+    }
+
+    // 解析 [0, limit) 内的完整行，返回已处理的字节数；eof 为 true 时最后一行没有换行符也会处理
+    private int parse(ByteBuffer buffer, int limit, boolean eof) throws IOException {
+        int lineStart = 0;
+        int position = 0;
+        while (position < limit) {
+            if (buffer.get(position) == '\n') {
+                processLine(buffer, lineStart, position);
+                lineStart = position + 1;
+            }
+            position++;
+        }
+        if (eof && lineStart < limit) {
+            processLine(buffer, lineStart, limit);
+            lineStart = limit;
+        }
+        return lineStart;
+    }
+
+    private void processLine(ByteBuffer buffer, int start, int end) throws IOException {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        // 跳过 UTF-8 BOM
+        if (end - start >= 3 && buffer.get(start) == (byte) 0xEF && buffer.get(start + 1) == (byte) 0xBB
+                && buffer.get(start + 2) == (byte) 0xBF) {
+            start += 3;
+        }
+        while (start < end && isSpace(buffer.get(start))) {
+            start++;
+        }
+        if (start == end || buffer.get(start) == '#') {
+            return;
+        }
+        if (delimiterName == null) {
+            detectDelimiter(buffer, start, end);
+        }
+        split(buffer, start, end);
+        if (row.fieldCount > 0) {
+            handler.row(row);
+        }
+    }
+
+    private void detectDelimiter(ByteBuffer buffer, int start, int end) {
+        boolean comma = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '\t') {
+                delimiter = '\t';
+                delimiterName = DELIMITER_TAB;
+                return;
+            }
+            comma |= b == ',';
+        }
+        delimiter = comma ? (byte) ',' : (byte) ' ';
+        delimiterName = comma ? DELIMITER_COMMA : DELIMITER_WHITESPACE;
+    }
+
+    private void split(ByteBuffer buffer, int start, int end) {
+        row.buffer = buffer;
+        row.fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end && row.fieldCount < MAX_FIELDS; i++) {
+            boolean boundary = i == end || buffer.get(i) == delimiter
+                    || (delimiter == ' ' && buffer.get(i) == '\t');
+            if (!boundary) {
+                continue;
+            }
+            // 空白分隔时连续的空白视为一个分隔符
+            if (!(delimiter == ' ' && i == fieldStart)) {
+                addField(buffer, fieldStart, i);
+            }
+            fieldStart = i + 1;
+        }
+    }
+
+    private void addField(ByteBuffer buffer, int start, int end) {
+        while (start < end && isSpace(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isSpace(buffer.get(end - 1))) {
+            end--;
+        }
+        if (end - start >= 2 && buffer.get(start) == '"' && buffer.get(end - 1) == '"') {
+            start++;
+            end--;
+        }
+        row.starts[row.fieldCount] = start;
+        row.ends[row.fieldCount] = end;
+        row.fieldCount++;
+    }
+
+    /**
+     * 字节区间 [from, to) 的 64 位 FNV-1a 哈希，保证不为 0；二进制数据集按同一算法索引名称
+     */
+    static long hash(ByteBuffer buffer, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            hash ^= buffer.get(i) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash != 0 ? hash : 1;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /**
+     * 当前行的字段视图，按下标访问，不复制字节
+     */
+    public static class Row {
+        private ByteBuffer buffer;
+        private final int[] starts = new int[MAX_FIELDS];
+        private final int[] ends = new int[MAX_FIELDS];
+        private int fieldCount;
+
+        public int fieldCount() {
+            return fieldCount;
+        }
+
+        public int length(int field) {
+            return ends[field] - starts[field];
+        }
+
+        /**
+         * 字段内容的 64 位 FNV-1a 哈希，保证不为 0
+         */
+        public long hash(int field) {
+            return DelimitedRowScanner.hash(buffer, starts[field], ends[field]);
+        }
+
+        public boolean equalsAscii(int field, String value) {
+            if (length(field) != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (buffer.get(starts[field] + i) != value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 字段内容是否与 bytes 逐字节相同
+         */
+        public boolean equalsBytes(int field, byte[] bytes) {
+            if (length(field) != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (buffer.get(starts[field] + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 字段内容是否与 other 中 [from, to) 的字节相同
+         */
+        public boolean equalsBytes(int field, ByteBuffer other, int from, int to) {
+            if (length(field) != to - from) {
+                return false;
+            }
+            for (int i = 0; i < to - from; i++) {
+                if (buffer.get(starts[field] + i) != other.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public byte[] bytes(int field) {
+            byte[] bytes = new byte[length(field)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(starts[field] + i);
+            }
+            return bytes;
+        }
+
+        public String string(int field) {
+            return new String(bytes(field), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 是否为十进制数（可带符号、小数点与指数）
+         */
+        public boolean isNumeric(int field) {
+            int start = starts[field];
+            int end = ends[field];
+            if (start == end) {
+                return false;
+            }
+            boolean digit = false;
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    digit = true;
+                } else if (!(b == '.' || b == '-' || b == '+' || b == 'e' || b == 'E')) {
+                    return false;
+                }
+            }
+            return digit;
+        }
+
+        /**
+         * 解析数值，整数走快速路径，不是数字时返回 NaN
+         */
+        public double number(int field) {
+            int start = starts[field];
+            int end = ends[field];
+            if (start == end) {
+                return Double.NaN;
+            }
+            boolean negative = buffer.get(start) == '-';
+            int i = negative || buffer.get(start) == '+' ? start + 1 : start;
+            if (i == end || end - i > 18) {
+                return parseSlow(field);
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') {
+                    return parseSlow(field);
+                }
+                value = value * 10 + (b - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        private double parseSlow(int field) {
+            if (!isNumeric(field)) {
+                return Double.NaN;
+            }
+            try {
+                return Double.parseDouble(string(field));
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * ERR@k（Expected Reciprocal Rank）= Σ_i (1 / i) · R_i · Π_{j<i} (1 - R_j)
+ *
+ * 停留概率 R = (2^grade - 1) / 2^maxGrade，maxGrade 取查询内相关条目的最高等级。
+ */
+public class ErrKernel implements MetricKernel {
+
+    @Override
+    public String name() {
+        return "ERR";
+    }
+
+    @Override
+    public boolean isAtK() {
+        return true;
+    }
+
+    @Override
+    public void evaluate(int[] grades, int length, int[] idealGrades, int relevant, double[] out, int offset) {
+        double scale = 1.0 / (NdcgKernel.GAIN[idealGrades[0]] + 1);
+        double err = 0;
+        double remaining = 1;
+        for (int i = 0; i < K_MAX; i++) {
+            if (i < length && grades[i] > 0) {
+                double stop = NdcgKernel.GAIN[grades[i]] * scale;
+                err += remaining * stop / (i + 1);
+                remaining *= 1 - stop;
+            }
+            if ((i + 1) % K_STEP == 0) {
+                out[offset + (i + 1) / K_STEP - 1] = err;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.util.Arrays;
+
+/**
+ * long 键到 int 计数的开放寻址哈希表
+ *
+ * 用于在扫描大文件时按 64 位哈希统计去重数量与分组大小，也可直接作为 long 到 int 的映射使用。
+ * 键与值都存放在基本类型数组中，每个键约占 12 字节，不产生装箱对象。键 0 作为空槽标记，调用方需保证不会传入 0，
+ * 不存在的键读取为 0。
+ */
+public class LongCountMap {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+    private int threshold;
+
+    public LongCountMap() {
+        this(1024);
+    }
+
+    public LongCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * 计数加一并返回新的计数
+     */
+    public int increment(long key) {
+        int index = indexOf(key);
+        if (keys[index] == 0) {
+            keys[index] = key;
+            counts[index] = 1;
+            if (++size > threshold) {
+                rehash(keys.length << 1);
+            }
+            return 1;
+        }
+        return ++counts[index];
+    }
+
+    public void put(long key, int value) {
+        int index = indexOf(key);
+        if (keys[index] == 0) {
+            keys[index] = key;
+            if (++size > threshold) {
+                counts[index] = value;
+                rehash(keys.length << 1);
+                return;
+            }
+        }
+        counts[index] = value;
+    }
+
+    public int get(long key) {
+        int index = indexOf(key);
+        return keys[index] == 0 ? 0 : counts[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 所有计数值，顺序不确定
+     */
+    public int[] values() {
+        int[] values = new int[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                values[n++] = counts[i];
+            }
+        }
+        return values;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = (int) mix(key) & mask;
+        while (keys[index] != 0 && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
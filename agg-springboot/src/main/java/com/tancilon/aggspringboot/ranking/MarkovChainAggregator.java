@@ -0,0 +1,114 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.util.Arrays;
+
+/**
+ * MC4 马尔可夫链聚合（Dwork 等）
+ *
+ * 状态为查询下出现过的全部条目。当前位于条目 i 时，均匀随机选取一个条目 j，若多数输入排序认为 j 优于 i
+ * 则转移到 j，否则停留在 i；另以 TELEPORT 的概率均匀跳转，保证链遍历且平稳分布唯一。平稳分布概率越大名次越靠前。
+ * 输入排序为部分列表时，未出现的条目视为排在该列表所有条目之后，两个条目都未出现的列表不参与比较。
+ * 多数关系以稀疏邻接表（CSR）保存，平稳分布由幂迭代求得；构造邻接表需要 O(n^2 * 输入排序数) 次比较。
+ */
+public class MarkovChainAggregator implements RankAggregator {
+
+    private static final double TELEPORT = 0.05;
+    private static final int MAX_ITERATIONS = 200;
+    private static final double TOLERANCE = 1e-12;
+
+    private static final int POSITIONS = 0;
+    private static final int BALANCE = 1;
+    private static final int EDGE_STARTS = 2;
+    private static final int EDGES = 3;
+
+    @Override
+    public void score(RankingDataset dataset, int query, AggregationWorkspace workspace) {
+        int firstRanking = dataset.firstRanking(query);
+        int rankingCount = dataset.endRanking(query) - firstRanking;
+        for (int r = 0; r < rankingCount; r++) {
+            int length = dataset.rankingLength(firstRanking + r);
+            int entry = dataset.entryOffset(firstRanking + r);
+            for (int p = 0; p < length; p++) {
+                workspace.touch(dataset.itemAt(entry + p));
+            }
+        }
+        int n = workspace.touchedCount;
+        if (n == 0) {
+            return;
+        }
+
+        // positions[r * n + i]：条目 i 在第 r 个输入排序中的名次，未出现为 Integer.MAX_VALUE
+        int[] positions = workspace.ints(POSITIONS, rankingCount * n);
+        Arrays.fill(positions, 0, rankingCount * n, Integer.MAX_VALUE);
+        for (int r = 0; r < rankingCount; r++) {
+            int length = dataset.rankingLength(firstRanking + r);
+            int entry = dataset.entryOffset(firstRanking + r);
+            for (int p = 0; p < length; p++) {
+                positions[r * n + workspace.local[dataset.itemAt(entry + p)]] = p;
+            }
+        }
+
+        // i -> j 的边表示多数输入排序认为 j 优于 i
+        int[] balance = workspace.ints(BALANCE, n);
+        int[] edgeStarts = workspace.ints(EDGE_STARTS, n + 1);
+        int[] edges = workspace.ints(EDGES, n);
+        int edgeCount = 0;
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(balance, 0, n, 0);
+            for (int r = 0; r < rankingCount; r++) {
+                int base = r * n;
+                int position = positions[base + i];
+                for (int j = 0; j < n; j++) {
+                    int other = positions[base + j];
+                    if (other < position) {
+                        balance[j]++;
+                    } else if (position < other) {
+                        balance[j]--;
+                    }
+                }
+            }
+            edgeStarts[i] = edgeCount;
+            for (int j = 0; j < n; j++) {
+                if (balance[j] > 0) {
+                    if (edgeCount == edges.length) {
+                        int[] grown = workspace.ints(EDGES, edgeCount * 2);
+                        System.arraycopy(edges, 0, grown, 0, edgeCount);
+                        edges = grown;
+                    }
+                    edges[edgeCount++] = j;
+                }
+            }
+        }
+        edgeStarts[n] = edgeCount;
+
+        double[] current = workspace.doubles(0, n);
+        double[] next = workspace.doubles(1, n);
+        Arrays.fill(current, 0, n, 1.0 / n);
+        double walk = 1 - TELEPORT;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            Arrays.fill(next, 0, n, TELEPORT / n);
+            for (int i = 0; i < n; i++) {
+                double share = walk * current[i] / n;
+                int from = edgeStarts[i];
+                int to = edgeStarts[i + 1];
+                next[i] += walk * current[i] - share * (to - from);
+                for (int e = from; e < to; e++) {
+                    next[edges[e]] += share;
+                }
+            }
+            double delta = 0;
+            for (int i = 0; i < n; i++) {
+                delta += Math.abs(next[i] - current[i]);
+            }
+            double[] swap = current;
+            current = next;
+            next = swap;
+            if (delta < TOLERANCE) {
+                break;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            workspace.score[workspace.touched[i]] = current[i];
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * 评测指标的计算核
+ *
+ * 核只处理单个查询，输入为基本类型数组：输出排序各名次的相关等级（条目 id 已按数据集的相关性判断换算为等级，
+ * 未判断的条目为 0）以及全部相关条目按等级从高到低排列的理想排序。实现应无状态、不分配对象，可在多个线程间共享。
+ *
+ * 内置核通过 META-INF/services 注册，由 ServiceLoader 发现；随指标上传的插件 JAR 以同样方式声明实现，
+ * 在只能看到本接口的独立类加载器中加载。name() 与指标表中的指标名对应。
+ */
+public interface MetricKernel {
+
+    int K_STEP = 5;
+    int K_MAX = 100;
+    int K_COUNT = K_MAX / K_STEP;
+
+    /**
+     * 指标名，与指标表中的 name 一致
+     */
+    String name();
+
+    /**
+     * 是否为 @k 指标：是则对 k = K_STEP, 2 * K_STEP, ..., K_MAX 各输出一个值，否则每个查询输出一个值
+     */
+    boolean isAtK();
+
+    /**
+     * 计算单个查询
+     *
+     * @param grades      输出排序各名次的相关等级，前 length 个有效；@k 指标的 length 不超过 K_MAX
+     * @param length      输出排序的长度，查询没有输出时为 0
+     * @param idealGrades 相关条目的等级，从高到低排列，前 relevant 个有效
+     * @param relevant    相关条目数，总是大于 0
+     * @param out         @k 指标写入 out[offset + i]（i < K_COUNT，对应 k = (i + 1) * K_STEP），否则只写入 out[offset]
+     */
+    void evaluate(int[] grades, int length, int[] idealGrades, int relevant, double[] out, int offset);
+}
@@ -0,0 +1,47 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * NDCG@k = DCG@k / IDCG@k，增益 2^grade - 1，折损 1 / log2(i + 1)
+ */
+public class NdcgKernel implements MetricKernel {
+
+    // DISCOUNT[i] 为第 i + 1 名的折损
+    static final double[] DISCOUNT = new double[K_MAX];
+    static final double[] GAIN = new double[Byte.MAX_VALUE + 1];
+
+    static {
+        for (int i = 0; i < K_MAX; i++) {
+            DISCOUNT[i] = 1.0 / (Math.log(i + 2) / Math.log(2));
+        }
+        for (int g = 0; g < GAIN.length; g++) {
+            GAIN[g] = Math.pow(2, g) - 1;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "NDCG";
+    }
+
+    @Override
+    public boolean isAtK() {
+        return true;
+    }
+
+    @Override
+    public void evaluate(int[] grades, int length, int[] idealGrades, int relevant, double[] out, int offset) {
+        double dcg = 0;
+        double idcg = 0;
+        for (int i = 0; i < K_MAX; i++) {
+            if (i < length) {
+                dcg += GAIN[grades[i]] * DISCOUNT[i];
+            }
+            if (i < relevant) {
+                idcg += GAIN[idealGrades[i]] * DISCOUNT[i];
+            }
+            if ((i + 1) % K_STEP == 0) {
+                out[offset + (i + 1) / K_STEP - 1] = dcg / idcg;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * P@k = 前 k 名中的相关条目数 / k，输出不足 k 名时缺少的名次按不相关计
+ */
+public class PrecisionKernel implements MetricKernel {
+
+    @Override
+    public String name() {
+        return "P";
+    }
+
+    @Override
+    public boolean isAtK() {
+        return true;
+    }
+
+    @Override
+    public void evaluate(int[] grades, int length, int[] idealGrades, int relevant, double[] out, int offset) {
+        int hits = 0;
+        for (int i = 0; i < K_MAX; i++) {
+            if (i < length && grades[i] > 0) {
+                hits++;
+            }
+            if ((i + 1) % K_STEP == 0) {
+                out[offset + (i + 1) / K_STEP - 1] = (double) hits / (i + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 一条指标曲线的逐查询数值的紧凑编码
+ *
+ * 只保存参与评测的查询，按查询 id 升序排列。压缩前的布局：
+ * <pre>
+ * byte   版本
+ * byte   编码：QUANTIZED（[0, 1] 内的值量化为 16 位整数）或 FLOAT32（float 的位模式）
+ * varint 查询数 n
+ * varint 每个查询的数值个数 width（@k 指标为 K_COUNT，否则为 1）
+ * n 个 varint：查询 id 与前一个 id 之差减 1（第一个相对 -1）
+ * width * n 个 zigzag varint：按 k 逐行，每个值与同一查询上一个 k 的值之差（第一行相对 0）
+ * </pre>
+ * 同一查询的数值随 k 变化平缓，差值多为一两个字节；整体再经 Deflate 压缩。
+ * 解码结果为基本类型数组，下标为 kIndex * n + i，不为每个查询创建对象。
+ */
+public final class QueryScoreBlob {
+
+    public static final byte QUANTIZED = 0;
+    public static final byte FLOAT32 = 1;
+
+    private static final byte VERSION = 1;
+    private static final int QUANTIZED_MAX = 0xffff;
+
+    private final byte encoding;
+    private final int[] queries;
+    private final int width;
+    private final float[] values;
+
+    private QueryScoreBlob(byte encoding, int[] queries, int width, float[] values) {
+        this.encoding = encoding;
+        this.queries = queries;
+        this.width = width;
+        this.values = values;
+    }
+
+    /**
+     * 编码评测结果中一个指标核的逐查询数值
+     *
+     * @param quantize 为 true 且全部数值都在 [0, 1] 内时量化为 16 位，否则保存 float
+     */
+    public static byte[] encode(AtKEvaluation evaluation, int kernel, boolean quantize) {
+        int width = evaluation.width(kernel);
+        double[] source = evaluation.values[kernel];
+        int n = evaluation.evaluatedQueryCount();
+        int[] queries = new int[n];
+        int count = 0;
+        for (int q = 0; q < evaluation.queryCount(); q++) {
+            if (evaluation.evaluated[q]) {
+                queries[count++] = q;
+            }
+        }
+
+        byte encoding = quantize ? QUANTIZED : FLOAT32;
+        for (int i = 0; i < n && encoding == QUANTIZED; i++) {
+            for (int k = 0; k < width; k++) {
+                double value = source[queries[i] * width + k];
+                if (!(value >= 0 && value <= 1)) {
+                    encoding = FLOAT32;
+                    break;
+                }
+            }
+        }
+
+        VarintBuffer buffer = new VarintBuffer(16 + n * (width + 1) * 2);
+        buffer.writeByte(VERSION);
+        buffer.writeByte(encoding);
+        buffer.writeVarint(n);
+        buffer.writeVarint(width);
+        int previousQuery = -1;
+        for (int i = 0; i < n; i++) {
+            buffer.writeVarint(queries[i] - previousQuery - 1);
+            previousQuery = queries[i];
+        }
+        int[] previous = new int[n];
+        for (int k = 0; k < width; k++) {
+            for (int i = 0; i < n; i++) {
+                double value = source[queries[i] * width + k];
+                int code = encoding == QUANTIZED
+                        ? (int) Math.round(value * QUANTIZED_MAX)
+                        : Float.floatToIntBits((float) value);
+                int delta = code - previous[i];
+                buffer.writeVarint((delta << 1) ^ (delta >> 31));
+                previous[i] = code;
+            }
+        }
+        return deflate(buffer.bytes, buffer.size);
+    }
+
+    public static QueryScoreBlob decode(byte[] blob) {
+        byte[] data = inflate(blob);
+        int[] position = {0};
+        if (data[position[0]++] != VERSION) {
+            throw new IllegalArgumentException("Unsupported query score blob version: " + data[0]);
+        }
+        byte encoding = data[position[0]++];
+        int n = readVarint(data, position);
+        int width = readVarint(data, position);
+        int[] queries = new int[n];
+        int previousQuery = -1;
+        for (int i = 0; i < n; i++) {
+            queries[i] = previousQuery + readVarint(data, position) + 1;
+            previousQuery = queries[i];
+        }
+        float[] values = new float[width * n];
+        int[] previous = new int[n];
+        for (int k = 0; k < width; k++) {
+            for (int i = 0; i < n; i++) {
+                int zigzag = readVarint(data, position);
+                int code = previous[i] + ((zigzag >>> 1) ^ -(zigzag & 1));
+                previous[i] = code;
+                values[k * n + i] = encoding == QUANTIZED
+                        ? (float) code / QUANTIZED_MAX
+                        : Float.intBitsToFloat(code);
+            }
+        }
+        return new QueryScoreBlob(encoding, queries, width, values);
+    }
+
+    public byte encoding() {
+        return encoding;
+    }
+
+    public int queryCount() {
+        return queries.length;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    /**
+     * 第 i 个查询在数据集中的 id
+     */
+    public int query(int i) {
+        return queries[i];
+    }
+
+    public float value(int kIndex, int i) {
+        return values[kIndex * queries.length + i];
+    }
+
+    /**
+     * 某个 k 上全部查询的数值，顺序与 query(i) 一致
+     */
+    public float[] values(int kIndex) {
+        int n = queries.length;
+        return Arrays.copyOfRange(values, kIndex * n, kIndex * n + n);
+    }
+
+    /**
+     * 某个 k 上数值最低的 limit 个查询的位置 i，按数值升序、同值按查询 id 升序
+     */
+    public int[] lowest(int kIndex, int limit) {
+        int n = queries.length;
+        // 高 32 位为可比较的浮点位模式，低 32 位为位置，按 long 排序即按数值再按位置
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = (long) RankingDatasetWriter.sortableFloat(value(kIndex, i)) << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] lowest = new int[Math.min(limit, n)];
+        for (int j = 0; j < lowest.length; j++) {
+            lowest[j] = (int) keys[j];
+        }
+        return lowest;
+    }
+
+    private static byte[] deflate(byte[] data, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] blob) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blob);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(blob.length * 4);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(chunk);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated query score blob");
+                }
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt query score blob", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // 无符号 LEB128，按 32 位无符号整数读取
+    private static int readVarint(byte[] data, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = data[position[0]++];
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in query score blob");
+    }
+
+    private static final class VarintBuffer {
+        private byte[] bytes;
+        private int size;
+
+        VarintBuffer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 在 fork/join 线程池中对数据集的全部查询运行一个聚合算法
+ *
+ * 查询按区间拆分为任务，每个叶子任务借用一个工作区，用完归还；工作区数量不超过同时运行的任务数。
+ * 输出为以数据集 id 编码的 AggregatedRanking，可直接交给 AtKEvaluator 评测。
+ */
+public class RankAggregationRunner {
+
+    private static final int QUERIES_PER_TASK = 8;
+
+    private final RankingDataset dataset;
+    private final Queue<AggregationWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+
+    public RankAggregationRunner(RankingDataset dataset) {
+        this.dataset = dataset;
+    }
+
+    public AggregatedRanking run(RankAggregator aggregator, ForkJoinPool pool) {
+        int queryCount = dataset.queryCount();
+        int[][] perQuery = new int[queryCount][];
+        pool.invoke(new QueryRange(aggregator, perQuery, 0, queryCount));
+
+        int[] offsets = new int[queryCount + 1];
+        for (int q = 0; q < queryCount; q++) {
+            offsets[q + 1] = offsets[q] + perQuery[q].length;
+        }
+        int[] items = new int[offsets[queryCount]];
+        for (int q = 0; q < queryCount; q++) {
+            System.arraycopy(perQuery[q], 0, items, offsets[q], perQuery[q].length);
+        }
+        return new AggregatedRanking(offsets, items);
+    }
+
+    private class QueryRange extends RecursiveAction {
+        private final RankAggregator aggregator;
+        private final int[][] perQuery;
+        private final int from;
+        private final int to;
+
+        QueryRange(RankAggregator aggregator, int[][] perQuery, int from, int to) {
+            this.aggregator = aggregator;
+            this.perQuery = perQuery;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > QUERIES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new QueryRange(aggregator, perQuery, from, mid),
+                        new QueryRange(aggregator, perQuery, mid, to));
+                return;
+            }
+            AggregationWorkspace workspace = workspaces.poll();
+            if (workspace == null) {
+                workspace = new AggregationWorkspace(dataset.itemCount());
+            }
+            try {
+                for (int q = from; q < to; q++) {
+                    workspace.begin();
+                    aggregator.score(dataset, q, workspace);
+                    perQuery[q] = workspace.ranked();
+                }
+            } finally {
+                workspaces.offer(workspace);
+            }
+        }
+    }
+}
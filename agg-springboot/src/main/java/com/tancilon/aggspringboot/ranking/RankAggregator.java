@@ -0,0 +1,12 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * 单个查询的排序聚合算法
+ *
+ * 实现从 RankingDataset 读取查询下的全部输入排序，把每个条目的聚合得分写入工作区，得分越高名次越靠前。
+ * 实现本身无状态，可在多个线程间共享；所有临时数据都放在调用线程独占的工作区中。
+ */
+public interface RankAggregator {
+
+    void score(RankingDataset dataset, int query, AggregationWorkspace workspace);
+}
@@ -0,0 +1,347 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 二进制排序数据集的只读视图
+ *
+ * 文件整体内存映射，所有访问都是对映射区的绝对下标读取，不为条目创建对象，多线程可共享同一实例。
+ * 查询、投票者、条目均编码为从 0 开始的 int：每个查询下的输入排序连续存放并按投票者排序，
+ * 每条输入排序的条目按名次升序存放；相关性判断按查询分组、组内按条目 id 升序，等级为一个字节。
+ * 文件布局（小端序，各段按 8 字节对齐）：
+ * <pre>
+ * header             128 字节：魔数、版本、各类数量与各段偏移
+ * queryRankings      int[queryCount + 1]    查询 -> 输入排序下标范围
+ * rankingVoters      int[rankingCount]      输入排序 -> 投票者
+ * rankingOffsets     int[rankingCount + 1]  输入排序 -> 条目下标范围
+ * items              int[entryCount]        按名次排列的条目 id
+ * queryJudgments     int[queryCount + 1]    查询 -> 相关性判断下标范围
+ * judgedItems        int[judgmentCount]
+ * grades             byte[judgmentCount]
+ * queryNames / voterNames / itemNames      字符串表：int[count + 1] 字节偏移 + UTF-8 字节
+ * </pre>
+ */
+public class RankingDataset {
+
+    static final long MAGIC = 0x31304b4e52474741L; // "AGGRNK01"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 128;
+
+    // 头部字段位置
+    static final int QUERY_COUNT = 12;
+    static final int VOTER_COUNT = 16;
+    static final int ITEM_COUNT = 20;
+    static final int RANKING_COUNT = 24;
+    static final int ENTRY_COUNT = 32;
+    static final int JUDGMENT_COUNT = 40;
+    static final int SECTION_OFFSETS = 48;
+
+    // 段序号
+    static final int QUERY_RANKINGS = 0;
+    static final int RANKING_VOTERS = 1;
+    static final int RANKING_OFFSETS = 2;
+    static final int ITEMS = 3;
+    static final int QUERY_JUDGMENTS = 4;
+    static final int JUDGED_ITEMS = 5;
+    static final int GRADES = 6;
+    static final int QUERY_NAMES = 7;
+    static final int VOTER_NAMES = 8;
+    static final int ITEM_NAMES = 9;
+    static final int SECTION_COUNT = 10;
+
+    private final ByteBuffer buffer;
+    private final int queryCount;
+    private final int voterCount;
+    private final int itemCount;
+    private final int rankingCount;
+    private final int entryCount;
+    private final int judgmentCount;
+
+    private final IntBuffer queryRankings;
+    private final IntBuffer rankingVoters;
+    private final IntBuffer rankingOffsets;
+    private final IntBuffer items;
+    private final IntBuffer queryJudgments;
+    private final IntBuffer judgedItems;
+    private final int gradesOffset;
+    private final StringTable queryNames;
+    private final StringTable voterNames;
+    private final StringTable itemNames;
+
+    // 名称索引，首次按名称查找时建立
+    private volatile NameIndex queryIndex;
+    private volatile NameIndex itemIndex;
+
+    private RankingDataset(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getLong(0) != MAGIC) {
+            throw new IOException("Not a binary ranking dataset");
+        }
+        if (buffer.getInt(8) != VERSION) {
+            throw new IOException("Unsupported binary ranking dataset version " + buffer.getInt(8));
+        }
+        queryCount = buffer.getInt(QUERY_COUNT);
+        voterCount = buffer.getInt(VOTER_COUNT);
+        itemCount = buffer.getInt(ITEM_COUNT);
+        rankingCount = buffer.getInt(RANKING_COUNT);
+        entryCount = (int) buffer.getLong(ENTRY_COUNT);
+        judgmentCount = (int) buffer.getLong(JUDGMENT_COUNT);
+
+        queryRankings = ints(QUERY_RANKINGS, queryCount + 1);
+        rankingVoters = ints(RANKING_VOTERS, rankingCount);
+        rankingOffsets = ints(RANKING_OFFSETS, rankingCount + 1);
+        items = ints(ITEMS, entryCount);
+        queryJudgments = ints(QUERY_JUDGMENTS, queryCount + 1);
+        judgedItems = ints(JUDGED_ITEMS, judgmentCount);
+        gradesOffset = sectionOffset(GRADES);
+        queryNames = new StringTable(sectionOffset(QUERY_NAMES), queryCount);
+        voterNames = new StringTable(sectionOffset(VOTER_NAMES), voterCount);
+        itemNames = new StringTable(sectionOffset(ITEM_NAMES), itemCount);
+    }
+
+    /**
+     * 内存映射打开文件，映射在实例被回收后释放；单个文件不超过 2GB
+     */
+    public static RankingDataset open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary ranking dataset larger than 2GB: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return new RankingDataset(mapped);
+        }
+    }
+
+    public int queryCount() {
+        return queryCount;
+    }
+
+    public int voterCount() {
+        return voterCount;
+    }
+
+    public int itemCount() {
+        return itemCount;
+    }
+
+    public int rankingCount() {
+        return rankingCount;
+    }
+
+    public int entryCount() {
+        return entryCount;
+    }
+
+    public int judgmentCount() {
+        return judgmentCount;
+    }
+
+    /**
+     * 查询的第一条输入排序下标
+     */
+    public int firstRanking(int query) {
+        return queryRankings.get(query);
+    }
+
+    /**
+     * 查询的最后一条输入排序下标 + 1
+     */
+    public int endRanking(int query) {
+        return queryRankings.get(query + 1);
+    }
+
+    public int voter(int ranking) {
+        return rankingVoters.get(ranking);
+    }
+
+    public int rankingLength(int ranking) {
+        return rankingOffsets.get(ranking + 1) - rankingOffsets.get(ranking);
+    }
+
+    /**
+     * 输入排序中第 position 名（从 0 开始）的条目 id
+     */
+    public int item(int ranking, int position) {
+        return items.get(rankingOffsets.get(ranking) + position);
+    }
+
+    /**
+     * 输入排序在条目数组中的起始下标，配合 itemAt 顺序遍历时可省去一次偏移读取
+     */
+    public int entryOffset(int ranking) {
+        return rankingOffsets.get(ranking);
+    }
+
+    public int itemAt(int entry) {
+        return items.get(entry);
+    }
+
+    public int firstJudgment(int query) {
+        return queryJudgments.get(query);
+    }
+
+    public int endJudgment(int query) {
+        return queryJudgments.get(query + 1);
+    }
+
+    public int judgedItem(int judgment) {
+        return judgedItems.get(judgment);
+    }
+
+    public int grade(int judgment) {
+        return buffer.get(gradesOffset + judgment);
+    }
+
+    /**
+     * 查询下条目的相关性等级，未判断的条目视为 0
+     */
+    public int grade(int query, int item) {
+        int low = firstJudgment(query);
+        int high = endJudgment(query) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = judgedItems.get(mid);
+            if (value < item) {
+                low = mid + 1;
+            } else if (value > item) {
+                high = mid - 1;
+            } else {
+                return grade(mid);
+            }
+        }
+        return 0;
+    }
+
+    public String queryName(int query) {
+        return queryNames.get(query);
+    }
+
+    public String voterName(int voter) {
+        return voterNames.get(voter);
+    }
+
+    public String itemName(int item) {
+        return itemNames.get(item);
+    }
+
+    /**
+     * 按名称查找查询 id，不存在时返回 -1（线性查找，仅用于少量交互式查询）
+     */
+    public int findQuery(String name) {
+        for (int q = 0; q < queryCount; q++) {
+            if (queryNames.get(q).equals(name)) {
+                return q;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 按行中字段的内容查找查询 id，不存在时返回 -1
+     */
+    public int queryId(DelimitedRowScanner.Row row, int field) {
+        NameIndex index = queryIndex;
+        if (index == null) {
+            index = queryIndex = queryNames.index();
+        }
+        return index.find(row, field);
+    }
+
+    /**
+     * 按行中字段的内容查找条目 id，不存在时返回 -1
+     */
+    public int itemId(DelimitedRowScanner.Row row, int field) {
+        NameIndex index = itemIndex;
+        if (index == null) {
+            index = itemIndex = itemNames.index();
+        }
+        return index.find(row, field);
+    }
+
+    private int sectionOffset(int section) {
+        return (int) buffer.getLong(SECTION_OFFSETS + section * 8);
+    }
+
+    private IntBuffer ints(int section, int count) {
+        return buffer.slice(sectionOffset(section), count * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    private class StringTable {
+        private final int offsetsStart;
+        private final int bytesStart;
+        private final int count;
+
+        StringTable(int start, int count) {
+            this.count = count;
+            this.offsetsStart = start;
+            this.bytesStart = start + (count + 1) * 4;
+        }
+
+        String get(int index) {
+            return new String(bytes(index), StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes(int index) {
+            byte[] bytes = new byte[end(index) - start(index)];
+            buffer.get(start(index), bytes);
+            return bytes;
+        }
+
+        ByteBuffer buffer() {
+            return buffer;
+        }
+
+        // 名称字节在映射区中的范围
+        int start(int index) {
+            return bytesStart + buffer.getInt(offsetsStart + index * 4);
+        }
+
+        int end(int index) {
+            return bytesStart + buffer.getInt(offsetsStart + (index + 1) * 4);
+        }
+
+        // 并发首次调用时可能各建一份，结果相同，不加锁
+        NameIndex index() {
+            LongCountMap ids = new LongCountMap(count);
+            Map<ByteBuffer, Integer> collisions = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                long hash = DelimitedRowScanner.hash(buffer, start(i), end(i));
+                if (ids.get(hash) == 0) {
+                    ids.put(hash, i + 1);
+                } else {
+                    collisions.put(ByteBuffer.wrap(bytes(i)), i);
+                }
+            }
+            return new NameIndex(this, ids, collisions);
+        }
+    }
+
+    /**
+     * 名称哈希（与 DelimitedRowScanner.Row.hash 一致）-> id + 1；命中后逐字节比对名称，
+     * 哈希与其他名称相同的少数名称放在按内容查找的溢出表中
+     */
+    private record NameIndex(StringTable names, LongCountMap ids, Map<ByteBuffer, Integer> collisions) {
+
+        int find(DelimitedRowScanner.Row row, int field) {
+            int id = ids.get(row.hash(field)) - 1;
+            if (id < 0) {
+                return -1;
+            }
+            if (row.equalsBytes(field, names.buffer(), names.start(id), names.end(id))) {
+                return id;
+            }
+            return collisions.isEmpty() ? -1 : collisions.getOrDefault(ByteBuffer.wrap(row.bytes(field)), -1);
+        }
+    }
+}
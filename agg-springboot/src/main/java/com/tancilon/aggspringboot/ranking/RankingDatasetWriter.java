@@ -0,0 +1,424 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将文本格式的数据集文件转换为 RankingDataset 二进制格式
+ *
+ * 解析时名称按 64 位哈希映射为 int id，哈希命中后再逐字节比对，每个名称只保存一份原始字节；所有行以基本类型数组暂存，
+ * 然后按查询、投票者分组并按名次排序后一次写出。名次按 float 比较，同一条目在同一查询下的
+ * 重复相关性判断保留最高等级，等级截断到 byte 范围。
+ */
+public class RankingDatasetWriter implements DatasetFileWalker.Sink {
+
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private final Dictionary queries = new Dictionary();
+    private final Dictionary voters = new Dictionary();
+    private final Dictionary items;
+
+    // (query, voter) -> 输入排序 id + 1
+    private final LongCountMap rankingIds = new LongCountMap();
+    private int[] rankingQuery = new int[1024];
+    private int[] rankingVoter = new int[1024];
+    private int rankingCount;
+
+    // 排序行：输入排序 id、条目 id、名次
+    private int[] rowRanking;
+    private int[] rowItem;
+    private float[] rowRank;
+    private int rowCount;
+
+    // 相关性行：查询 id、条目 id、等级
+    private int[] judgmentQuery;
+    private int[] judgmentItem;
+    private byte[] judgmentGrade;
+    private int judgmentCount;
+
+    public RankingDatasetWriter() {
+        this(1024, 1024, 1024);
+    }
+
+    /**
+     * 按预估规模预分配缓冲区（可取自数据集概要），避免解析过程中反复扩容
+     */
+    public RankingDatasetWriter(long expectedRows, long expectedJudgments, int expectedItems) {
+        int rows = (int) Math.min(Math.max(expectedRows, 16), Integer.MAX_VALUE - 8);
+        int judgments = (int) Math.min(Math.max(expectedJudgments, 16), Integer.MAX_VALUE - 8);
+        rowRanking = new int[rows];
+        rowItem = new int[rows];
+        rowRank = new float[rows];
+        judgmentQuery = new int[judgments];
+        judgmentItem = new int[judgments];
+        judgmentGrade = new byte[judgments];
+        items = new Dictionary(Math.max(expectedItems, 16));
+    }
+
+    /**
+     * 解析数据集文件并写出二进制文件
+     *
+     * @param name 原始文件名，用于判断文件类型
+     */
+    public void convert(Path source, String name, Path target) throws IOException {
+        new DatasetFileWalker(this).walk(source, name);
+        write(target);
+    }
+
+    @Override
+    public void ranking(DelimitedRowScanner.Row row, double rank) {
+        int query = queries.id(row, 0);
+        int voter = voters.id(row, 1);
+        long key = ((long) query << 32 | voter) + 1;
+        int ranking = rankingIds.get(key) - 1;
+        if (ranking < 0) {
+            ranking = rankingCount++;
+            if (ranking == rankingQuery.length) {
+                rankingQuery = Arrays.copyOf(rankingQuery, ranking * 2);
+                rankingVoter = Arrays.copyOf(rankingVoter, ranking * 2);
+            }
+            rankingQuery[ranking] = query;
+            rankingVoter[ranking] = voter;
+            rankingIds.put(key, ranking + 1);
+        }
+
+        if (rowCount == rowRanking.length) {
+            int capacity = grow(rowCount);
+            rowRanking = Arrays.copyOf(rowRanking, capacity);
+            rowItem = Arrays.copyOf(rowItem, capacity);
+            rowRank = Arrays.copyOf(rowRank, capacity);
+        }
+        rowRanking[rowCount] = ranking;
+        rowItem[rowCount] = items.id(row, 2);
+        rowRank[rowCount] = (float) rank;
+        rowCount++;
+    }
+
+    @Override
+    public void judgment(DelimitedRowScanner.Row row, double relevance) {
+        if (judgmentCount == judgmentQuery.length) {
+            int capacity = grow(judgmentCount);
+            judgmentQuery = Arrays.copyOf(judgmentQuery, capacity);
+            judgmentItem = Arrays.copyOf(judgmentItem, capacity);
+            judgmentGrade = Arrays.copyOf(judgmentGrade, capacity);
+        }
+        judgmentQuery[judgmentCount] = queries.id(row, 0);
+        judgmentItem[judgmentCount] = items.id(row, 2);
+        judgmentGrade[judgmentCount] = (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, Math.round(relevance)));
+        judgmentCount++;
+    }
+
+    private void write(Path target) throws IOException {
+        int queryCount = queries.size();
+
+        // 输入排序按 (查询, 投票者) 排序：先按查询计数分桶，桶内按投票者排序
+        int[] queryRankings = new int[queryCount + 1];
+        for (int r = 0; r < rankingCount; r++) {
+            queryRankings[rankingQuery[r] + 1]++;
+        }
+        prefixSum(queryRankings);
+        long[] byVoter = new long[rankingCount];
+        int[] cursor = Arrays.copyOf(queryRankings, queryCount);
+        for (int r = 0; r < rankingCount; r++) {
+            byVoter[cursor[rankingQuery[r]]++] = (long) rankingVoter[r] << 32 | r;
+        }
+        int[] order = new int[rankingCount];
+        int[] voterOfRanking = new int[rankingCount];
+        for (int q = 0; q < queryCount; q++) {
+            Arrays.sort(byVoter, queryRankings[q], queryRankings[q + 1]);
+        }
+        for (int i = 0; i < rankingCount; i++) {
+            order[(int) byVoter[i]] = i;
+            voterOfRanking[i] = (int) (byVoter[i] >>> 32);
+        }
+        byVoter = null;
+
+        // 条目按输入排序分桶，桶内按 (名次, 条目) 排序
+        int[] rankingOffsets = new int[rankingCount + 1];
+        for (int i = 0; i < rowCount; i++) {
+            rankingOffsets[order[rowRanking[i]] + 1]++;
+        }
+        prefixSum(rankingOffsets);
+        long[] entries = new long[rowCount];
+        cursor = Arrays.copyOf(rankingOffsets, rankingCount);
+        for (int i = 0; i < rowCount; i++) {
+            entries[cursor[order[rowRanking[i]]]++] = (long) sortableFloat(rowRank[i]) << 32 | rowItem[i];
+        }
+        rowRanking = null;
+        rowRank = null;
+        for (int r = 0; r < rankingCount; r++) {
+            Arrays.sort(entries, rankingOffsets[r], rankingOffsets[r + 1]);
+        }
+        int[] itemIds = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            itemIds[i] = (int) entries[i];
+        }
+        entries = null;
+
+        // 相关性判断按查询分桶，桶内按条目排序，同一条目保留最高等级
+        int[] queryJudgments = new int[queryCount + 1];
+        for (int i = 0; i < judgmentCount; i++) {
+            queryJudgments[judgmentQuery[i] + 1]++;
+        }
+        prefixSum(queryJudgments);
+        long[] judged = new long[judgmentCount];
+        cursor = Arrays.copyOf(queryJudgments, queryCount);
+        for (int i = 0; i < judgmentCount; i++) {
+            judged[cursor[judgmentQuery[i]]++] = (long) judgmentItem[i] << 8 | (judgmentGrade[i] + 128);
+        }
+        int[] judgedItems = new int[judgmentCount];
+        byte[] grades = new byte[judgmentCount];
+        int kept = 0;
+        for (int q = 0; q < queryCount; q++) {
+            int from = queryJudgments[q];
+            int to = queryJudgments[q + 1];
+            Arrays.sort(judged, from, to);
+            queryJudgments[q] = kept;
+            for (int i = from; i < to; i++) {
+                int item = (int) (judged[i] >>> 8);
+                if (i + 1 < to && (int) (judged[i + 1] >>> 8) == item) {
+                    continue;
+                }
+                judgedItems[kept] = item;
+                grades[kept] = (byte) ((judged[i] & 0xff) - 128);
+                kept++;
+            }
+        }
+        queryJudgments[queryCount] = kept;
+
+        byte[][] queryNames = queries.encodedNames();
+        byte[][] voterNames = voters.encodedNames();
+        byte[][] itemNames = items.encodedNames();
+
+        long[] sizes = new long[RankingDataset.SECTION_COUNT];
+        sizes[RankingDataset.QUERY_RANKINGS] = 4L * (queryCount + 1);
+        sizes[RankingDataset.RANKING_VOTERS] = 4L * rankingCount;
+        sizes[RankingDataset.RANKING_OFFSETS] = 4L * (rankingCount + 1);
+        sizes[RankingDataset.ITEMS] = 4L * rowCount;
+        sizes[RankingDataset.QUERY_JUDGMENTS] = 4L * (queryCount + 1);
+        sizes[RankingDataset.JUDGED_ITEMS] = 4L * kept;
+        sizes[RankingDataset.GRADES] = kept;
+        sizes[RankingDataset.QUERY_NAMES] = stringTableSize(queryNames);
+        sizes[RankingDataset.VOTER_NAMES] = stringTableSize(voterNames);
+        sizes[RankingDataset.ITEM_NAMES] = stringTableSize(itemNames);
+        long[] offsets = new long[RankingDataset.SECTION_COUNT];
+        long position = RankingDataset.HEADER_SIZE;
+        for (int i = 0; i < sizes.length; i++) {
+            offsets[i] = position;
+            position = align(position + sizes[i]);
+        }
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("Dataset too large for the binary ranking format (" + position + " bytes)");
+        }
+
+        try (Output out = new Output(target)) {
+            out.putLong(RankingDataset.MAGIC);
+            out.putInt(RankingDataset.VERSION);
+            out.putInt(queryCount);
+            out.putInt(voters.size());
+            out.putInt(items.size());
+            out.putInt(rankingCount);
+            out.putInt(0);
+            out.putLong(rowCount);
+            out.putLong(kept);
+            for (long offset : offsets) {
+                out.putLong(offset);
+            }
+            out.padTo(offsets[0]);
+
+            out.putInts(queryRankings, queryCount + 1);
+            out.padTo(offsets[RankingDataset.RANKING_VOTERS]);
+            out.putInts(voterOfRanking, rankingCount);
+            out.padTo(offsets[RankingDataset.RANKING_OFFSETS]);
+            out.putInts(rankingOffsets, rankingCount + 1);
+            out.padTo(offsets[RankingDataset.ITEMS]);
+            out.putInts(itemIds, rowCount);
+            out.padTo(offsets[RankingDataset.QUERY_JUDGMENTS]);
+            out.putInts(queryJudgments, queryCount + 1);
+            out.padTo(offsets[RankingDataset.JUDGED_ITEMS]);
+            out.putInts(judgedItems, kept);
+            out.padTo(offsets[RankingDataset.GRADES]);
+            out.putBytes(grades, 0, kept);
+            out.padTo(offsets[RankingDataset.QUERY_NAMES]);
+            out.putStringTable(queryNames);
+            out.padTo(offsets[RankingDataset.VOTER_NAMES]);
+            out.putStringTable(voterNames);
+            out.padTo(offsets[RankingDataset.ITEM_NAMES]);
+            out.putStringTable(itemNames);
+            out.padTo(position);
+        }
+    }
+
+    private static int grow(int capacity) {
+        return (int) Math.min((long) capacity * 2, Integer.MAX_VALUE - 8);
+    }
+
+    private static void prefixSum(int[] counts) {
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+    }
+
+    // 保持数值顺序的 int 编码，负数翻转低位
+    static int sortableFloat(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    private static long stringTableSize(byte[][] names) {
+        long size = 4L * (names.length + 1);
+        for (byte[] name : names) {
+            size += name.length;
+        }
+        return size;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * 名称到 id 的字典，按字段哈希查找并逐字节比对名称，首次出现时才复制字节。
+     * 哈希相同而内容不同的名称极少，放入按内容查找的溢出表，不会被合并为同一个 id
+     */
+    private static class Dictionary {
+        private final LongCountMap ids;
+        private final List<byte[]> names;
+        private final Map<ByteBuffer, Integer> collisions = new HashMap<>();
+
+        Dictionary() {
+            this(1024);
+        }
+
+        Dictionary(int expectedSize) {
+            ids = new LongCountMap(expectedSize);
+            names = new ArrayList<>(expectedSize);
+        }
+
+        int id(DelimitedRowScanner.Row row, int field) {
+            long hash = row.hash(field);
+            int id = ids.get(hash) - 1;
+            if (id < 0) {
+                id = names.size();
+                names.add(row.bytes(field));
+                ids.put(hash, id + 1);
+                return id;
+            }
+            if (row.equalsBytes(field, names.get(id))) {
+                return id;
+            }
+            byte[] name = row.bytes(field);
+            Integer collided = collisions.get(ByteBuffer.wrap(name));
+            if (collided == null) {
+                collided = names.size();
+                names.add(name);
+                collisions.put(ByteBuffer.wrap(name), collided);
+            }
+            return collided;
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        byte[][] encodedNames() {
+            return names.toArray(new byte[0][]);
+        }
+    }
+
+    /**
+     * 小端序顺序写出，经固定大小的缓冲区写入文件
+     */
+    private static class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Output(Path target) throws IOException {
+            channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                putInt(values[i]);
+            }
+        }
+
+        void putBytes(byte[] values, int offset, int count) throws IOException {
+            while (count > 0) {
+                ensure(1);
+                int n = Math.min(count, buffer.remaining());
+                buffer.put(values, offset, n);
+                offset += n;
+                count -= n;
+                position += n;
+            }
+        }
+
+        void putStringTable(byte[][] names) throws IOException {
+            int offset = 0;
+            putInt(0);
+            for (byte[] name : names) {
+                offset += name.length;
+                putInt(offset);
+            }
+            for (byte[] name : names) {
+                putBytes(name, 0, name.length);
+            }
+        }
+
+        void padTo(long target) throws IOException {
+            while (position < target) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
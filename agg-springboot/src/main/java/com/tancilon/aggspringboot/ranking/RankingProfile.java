@@ -0,0 +1,35 @@
+package com.tancilon.aggspringboot.ranking;
+
+import lombok.Data;
+
+/**
+ * 数据集文件的统计概要
+ *
+ * 排序文件每行为 (query, voter, item, rank)，一个 (query, voter) 组合构成一条输入排序；
+ * 相关性文件每行为 (query, 0, item, relevance)。
+ */
+@Data
+public class RankingProfile {
+    // 各文件的格式描述，如 rank.csv=rankings/comma/header
+    private String formatSignature;
+    private long fileSize;
+    private long rowCount;
+    private long malformedRowCount;
+
+    private int queryCount;
+    private int voterCount;
+    private int rankingCount;
+    private int itemCount;
+
+    // 输入排序的长度分布
+    private int minListLength;
+    private int medianListLength;
+    private int p90ListLength;
+    private int maxListLength;
+    private double meanListLength;
+
+    private int judgedQueryCount;
+    private long judgmentCount;
+    private long relevantCount;
+    private int maxRelevance;
+}
@@ -0,0 +1,116 @@
+package com.tancilon.aggspringboot.ranking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单遍扫描数据集文件并生成统计概要
+ *
+ * 文件类型的识别见 DatasetFileWalker。去重计数按字段的 64 位哈希进行，不保存字段内容，
+ * 内存占用只与去重后的数量有关。
+ */
+public class RankingProfiler implements DatasetFileWalker.Sink {
+
+    private static final int MAX_SIGNATURE_ENTRIES = 32;
+
+    private final Accumulator rankings = new Accumulator();
+    private final Accumulator qrels = new Accumulator();
+
+    public RankingProfile profile(Path file) throws IOException {
+        return profile(file, file.getFileName().toString());
+    }
+
+    /**
+     * 扫描文件并返回统计概要
+     *
+     * @param name 原始文件名，存储中的文件可能以内容哈希命名，类型判断与格式描述使用该名称
+     */
+    public RankingProfile profile(Path file, String name) throws IOException {
+        DatasetFileWalker walker = new DatasetFileWalker(this);
+        walker.walk(file, name);
+        return result(walker, Files.size(file));
+    }
+
+    @Override
+    public void ranking(DelimitedRowScanner.Row row, double rank) {
+        rankings.add(row, rank);
+    }
+
+    @Override
+    public void judgment(DelimitedRowScanner.Row row, double relevance) {
+        qrels.add(row, relevance);
+    }
+
+    private RankingProfile result(DatasetFileWalker walker, long fileSize) {
+        RankingProfile profile = new RankingProfile();
+        List<String> signatures = walker.getSignatures();
+        StringBuilder signature = new StringBuilder(walker.isZip() ? "zip: " : "");
+        for (int i = 0; i < signatures.size() && i < MAX_SIGNATURE_ENTRIES; i++) {
+            signature.append(i > 0 ? "; " : "").append(signatures.get(i));
+        }
+        if (signatures.size() > MAX_SIGNATURE_ENTRIES) {
+            signature.append("; ... (").append(signatures.size()).append(" files)");
+        }
+        profile.setFormatSignature(signature.toString());
+        profile.setFileSize(fileSize);
+        profile.setRowCount(walker.getRowCount());
+        profile.setMalformedRowCount(walker.getMalformedRowCount());
+
+        profile.setQueryCount(rankings.queries.size() > 0 ? rankings.queries.size() : qrels.queries.size());
+        profile.setVoterCount(rankings.voters.size());
+        profile.setRankingCount(rankings.lists.size());
+        profile.setItemCount(rankings.items.size() > 0 ? rankings.items.size() : qrels.items.size());
+
+        int[] lengths = rankings.lists.values();
+        if (lengths.length > 0) {
+            Arrays.sort(lengths);
+            long total = 0;
+            for (int length : lengths) {
+                total += length;
+            }
+            profile.setMinListLength(lengths[0]);
+            profile.setMedianListLength(lengths[(lengths.length - 1) / 2]);
+            profile.setP90ListLength(lengths[(int) Math.ceil(lengths.length * 0.9) - 1]);
+            profile.setMaxListLength(lengths[lengths.length - 1]);
+            profile.setMeanListLength((double) total / lengths.length);
+        }
+
+        profile.setJudgedQueryCount(qrels.queries.size());
+        profile.setJudgmentCount(qrels.rows);
+        profile.setRelevantCount(qrels.positive);
+        profile.setMaxRelevance((int) Math.max(0, qrels.maxValue));
+        return profile;
+    }
+
+    /**
+     * 一类文件的累计统计
+     */
+    private static class Accumulator {
+        final LongCountMap queries = new LongCountMap();
+        final LongCountMap voters = new LongCountMap(64);
+        final LongCountMap items = new LongCountMap(1 << 16);
+        // (query, voter) -> 该输入排序的长度
+        final LongCountMap lists = new LongCountMap();
+        long rows;
+        long positive;
+        double maxValue = Double.NEGATIVE_INFINITY;
+
+        void add(DelimitedRowScanner.Row row, double value) {
+            long query = row.hash(0);
+            long voter = row.hash(1);
+            queries.increment(query);
+            voters.increment(voter);
+            items.increment(row.hash(2));
+            long list = query * 0x9e3779b97f4a7c15L + voter;
+            lists.increment(list != 0 ? list : 1);
+            rows++;
+            if (value > 0) {
+                positive++;
+            }
+            maxValue = Math.max(maxValue, value);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * Recall@k = 前 k 名中的相关条目数 / 相关条目总数
+ */
+public class RecallKernel implements MetricKernel {
+
+    @Override
+    public String name() {
+        return "Recall";
+    }
+
+    @Override
+    public boolean isAtK() {
+        return true;
+    }
+
+    @Override
+    public void evaluate(int[] grades, int length, int[] idealGrades, int relevant, double[] out, int offset) {
+        int hits = 0;
+        for (int i = 0; i < K_MAX; i++) {
+            if (i < length && grades[i] > 0) {
+                hits++;
+            }
+            if ((i + 1) % K_STEP == 0) {
+                out[offset + (i + 1) / K_STEP - 1] = (double) hits / relevant;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * 倒数排名融合（RRF）：第 p 名（从 1 开始）得 1 / (k + p) 分，k 通常取 60
+ */
+public class ReciprocalRankFusionAggregator implements RankAggregator {
+
+    public static final int DEFAULT_K = 60;
+
+    private final int k;
+
+    public ReciprocalRankFusionAggregator() {
+        this(DEFAULT_K);
+    }
+
+    public ReciprocalRankFusionAggregator(int k) {
+        this.k = k;
+    }
+
+    @Override
+    public void score(RankingDataset dataset, int query, AggregationWorkspace workspace) {
+        for (int r = dataset.firstRanking(query); r < dataset.endRanking(query); r++) {
+            int length = dataset.rankingLength(r);
+            int entry = dataset.entryOffset(r);
+            for (int p = 0; p < length; p++) {
+                workspace.add(dataset.itemAt(entry + p), 1.0 / (k + p + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.tancilon.aggspringboot.ranking;
+
+/**
+ * 第一个相关条目名次的倒数，在整条输出排序上计算，按查询平均即 MRR
+ */
+public class ReciprocalRankKernel implements MetricKernel {
+
+    @Override
+    public String name() {
+        return "MRR";
+    }
+
+    @Override
+    public boolean isAtK() {
+        return false;
+    }
+
+    @Override
+    public void evaluate(int[] grades, int length, int[] idealGrades, int relevant, double[] out, int offset) {
+        double value = 0;
+        for (int i = 0; i < length; i++) {
+            if (grades[i] > 0) {
+                value = 1.0 / (i + 1);
+                break;
+            }
+        }
+        out[offset] = value;
+    }
+}
@@ -0,0 +1,24 @@
+package com.tancilon.aggspringboot.repository;
+
+import com.tancilon.aggspringboot.entity.DatasetProfile;
+import com.tancilon.aggspringboot.enums.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DatasetProfileRepository extends JpaRepository<DatasetProfile, Long> {
+
+    Optional<DatasetProfile> findByDatasetId(Long datasetId);
+
+    List<DatasetProfile> findByStatusIn(Collection<JobStatus> statuses);
+
+    // 有文件但尚未生成概要的数据集
+    @Query("SELECT d.id FROM Dataset d WHERE d.fileUrl IS NOT NULL " +
+            "AND NOT EXISTS (SELECT p.id FROM DatasetProfile p WHERE p.datasetId = d.id)")
+    List<Long> findUnprofiledDatasetIds();
+}
@@ -0,0 +1,16 @@
+package com.tancilon.aggspringboot.repository;
+
+import com.tancilon.aggspringboot.entity.FileHandle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface FileHandleRepository extends JpaRepository<FileHandle, Long> {
+
+    @Query("SELECT h FROM FileHandle h JOIN FETCH h.storedObject WHERE h.handle = :handle")
+    Optional<FileHandle> findByHandle(@Param("handle") String handle);
+}
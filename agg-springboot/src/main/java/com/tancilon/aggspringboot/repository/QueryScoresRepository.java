@@ -0,0 +1,26 @@
+package com.tancilon.aggspringboot.repository;
+
+import com.tancilon.aggspringboot.entity.QueryScores;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface QueryScoresRepository extends JpaRepository<QueryScores, Long> {
+
+    Optional<QueryScores> findByDatasetIdAndMetricIdAndAlgorithmId(Long datasetId, Long metricId, Long algorithmId);
+
+    @Modifying
+    @Query("DELETE FROM QueryScores q WHERE q.metricId = :metricId")
+    int deleteByMetricId(@Param("metricId") Long metricId);
+
+    // 算法或数据集已不存在的记录
+    @Modifying
+    @Query("DELETE FROM QueryScores q WHERE q.algorithmId NOT IN (SELECT a.id FROM Algorithm a) "
+            + "OR q.datasetId NOT IN (SELECT d.id FROM Dataset d)")
+    int deleteOrphans();
+}
@@ -0,0 +1,13 @@
+package com.tancilon.aggspringboot.repository;
+
+import com.tancilon.aggspringboot.entity.ReferenceRanking;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReferenceRankingRepository extends JpaRepository<ReferenceRanking, Long> {
+
+    Optional<ReferenceRanking> findByAlgorithmIdAndDatasetId(Long algorithmId, Long datasetId);
+}
@@ -0,0 +1,27 @@
+package com.tancilon.aggspringboot.repository;
+
+import com.tancilon.aggspringboot.entity.ResultIngestionJob;
+import com.tancilon.aggspringboot.enums.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ResultIngestionJobRepository extends JpaRepository<ResultIngestionJob, Long> {
+
+    List<ResultIngestionJob> findByStatusInOrderByIdAsc(Collection<JobStatus> statuses);
+
+    // 仅当任务仍为 PENDING 时领取，返回 0 表示已被其他线程领取
+    @Transactional
+    @Modifying
+    @Query("UPDATE ResultIngestionJob j SET j.status = com.tancilon.aggspringboot.enums.JobStatus.RUNNING, " +
+            "j.startedAt = :startedAt WHERE j.id = :id AND j.status = com.tancilon.aggspringboot.enums.JobStatus.PENDING")
+    int claim(@Param("id") Long id, @Param("startedAt") LocalDateTime startedAt);
+}
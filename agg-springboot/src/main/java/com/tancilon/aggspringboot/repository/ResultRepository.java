@@ -2,27 +2,50 @@ package com.tancilon.aggspringboot.repository;
 
 import com.tancilon.aggspringboot.entity.Result;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ResultRepository extends JpaRepository<Result, Long> {
-    // 可以添加自定义查询方法
 
-    @Query("SELECT DISTINCT r.metricName FROM Result r WHERE r.dataset = :datasetId")
-    List<String> findDistinctMetricsByDataset(String datasetId);
-
-    List<Result> findByDatasetAndMetricName(String dataset, String metricName);
-
-    List<Result> findByAlgorithmAndMetricName(String algorithm, String metricName);
-
-    @Query("SELECT DISTINCT r.metricName FROM Result r WHERE r.algorithm = :algorithm")
-    List<String> findDistinctMetricNamesByAlgorithm(String algorithm);
-
-    List<Result> findByAlgorithmInAndDatasetInAndMetricName(
-            List<String> algorithms,
-            List<String> datasets,
-            String metricName);
-}
\ No newline at end of file
+    @Query("SELECT DISTINCT m.name FROM Result r JOIN r.metric m JOIN r.dataset d WHERE d.name = :datasetId")
+    List<String> findDistinctMetricsByDataset(@Param("datasetId") String datasetId);
+
+    // 一次查询多个数据集的可用指标，按指标创建顺序排列，返回 [数据集名称, 指标名称]
+    @Query("SELECT d.name, m.name FROM Result r JOIN r.dataset d JOIN r.metric m " +
+            "WHERE d.id IN :datasetIds GROUP BY d.name, m.id, m.name ORDER BY m.id")
+    List<Object[]> findDistinctMetricsByDatasetIds(@Param("datasetIds") Collection<Long> datasetIds);
+
+    @Query("SELECT DISTINCT m.name FROM Result r JOIN r.metric m JOIN r.algorithm a WHERE a.name = :algorithm")
+    List<String> findDistinctMetricNamesByAlgorithm(@Param("algorithm") String algorithm);
+
+    // 按导出条件流式读取数据点，返回 [算法名称, 数据集名称, 指标名称, k, 数值]（MySQL 下 fetchSize 取 Integer.MIN_VALUE 开启流式结果集）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT a.name, d.name, m.name, r.kValue, r.value FROM Result r " +
+            "JOIN r.algorithm a JOIN r.dataset d JOIN r.metric m " +
+            "WHERE a.name IN :algorithms AND d.name IN :datasets AND m.name = :metricName " +
+            "ORDER BY d.name, a.name, r.kValue")
+    Stream<Object[]> streamCells(
+            @Param("algorithms") Collection<String> algorithms,
+            @Param("datasets") Collection<String> datasets,
+            @Param("metricName") String metricName);
+
+    @Modifying
+    @Query("DELETE FROM Result r WHERE r.metric.id = :metricId")
+    int deleteByMetricId(@Param("metricId") Long metricId);
+
+    // 按写入顺序流式读取全部数据点，供内存立方体加载使用（MySQL 下 fetchSize 取 Integer.MIN_VALUE 开启流式结果集）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT a.name, d.name, m.name, r.kValue, r.value FROM Result r " +
+            "JOIN r.algorithm a JOIN r.dataset d JOIN r.metric m ORDER BY r.id")
+    Stream<Object[]> streamAllCells();
+}
@@ -0,0 +1,40 @@
+package com.tancilon.aggspringboot.repository;
+
+import com.tancilon.aggspringboot.entity.StoredObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, Long> {
+
+    Optional<StoredObject> findBySha256(String sha256);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StoredObject o SET o.refCount = o.refCount + :delta WHERE o.id = :id")
+    int adjustRefCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * 按内容摘要新建对象或为已有对象增加一个引用。唯一键上的行锁保持到事务提交，
+     * 相同内容的并发上传因此按提交顺序串行
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO stored_objects (sha256, size, ref_count, created_at) "
+            + "VALUES (:sha256, :size, 1, NOW()) "
+            + "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    int upsertReference(@Param("sha256") String sha256, @Param("size") long size);
+
+    boolean existsBySha256(String sha256);
+
+    @Modifying
+    @Query("UPDATE StoredObject o SET o.broken = true WHERE o.sha256 = :sha256")
+    int markBroken(@Param("sha256") String sha256);
+
+    @Modifying
+    @Query("UPDATE StoredObject o SET o.broken = false WHERE o.sha256 = :sha256 AND o.broken = true")
+    int clearBroken(@Param("sha256") String sha256);
+}
@@ -0,0 +1,130 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.enums.AggregationMethod;
+import com.tancilon.aggspringboot.event.DatasetBinaryReadyEvent;
+import com.tancilon.aggspringboot.ranking.AggregatedRanking;
+import com.tancilon.aggspringboot.ranking.RankAggregationRunner;
+import com.tancilon.aggspringboot.ranking.RankingDataset;
+import com.tancilon.aggspringboot.repository.AlgorithmRepository;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.vo.EvaluationVO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 内置排序聚合算法的执行
+ *
+ * 直接在数据集的二进制视图上运行 Borda、CombSUM、CombMNZ、RRF 与 MC4，查询在 fork/join 线程池中并行聚合，
+ * 聚合结果不落盘，直接交给 EvaluationService 计算 mAP@k 与 NDCG@k 并按需写入结果表。
+ * 开启 aggregation.baselines-on-upload 后，新数据集转换完成时自动为目录中已存在的内置算法生成基线结果。
+ */
+@Service
+public class AggregationService {
+    private static final Logger logger = LoggerFactory.getLogger(AggregationService.class);
+
+    private final DatasetRepository datasetRepository;
+    private final AlgorithmRepository algorithmRepository;
+    private final EvaluationService evaluationService;
+    private final boolean baselinesOnUpload;
+    private final ForkJoinPool pool;
+
+    public AggregationService(DatasetRepository datasetRepository,
+            AlgorithmRepository algorithmRepository,
+            EvaluationService evaluationService,
+            @Value("${aggregation.parallelism:0}") int parallelism,
+            @Value("${aggregation.baselines-on-upload:false}") boolean baselinesOnUpload) {
+        this.datasetRepository = datasetRepository;
+        this.algorithmRepository = algorithmRepository;
+        this.evaluationService = evaluationService;
+        this.baselinesOnUpload = baselinesOnUpload;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread =
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("aggregation-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 在数据集上运行聚合算法并评测，save 为 true 时以各算法的 algorithmName 写入结果表
+     */
+    public List<EvaluationVO> run(String datasetName, List<AggregationMethod> methods, boolean save)
+            throws IOException {
+        if (save) {
+            for (AggregationMethod method : methods) {
+                if (algorithmRepository.findByName(method.getAlgorithmName()).isEmpty()) {
+                    throw new IllegalStateException("Algorithm " + method.getAlgorithmName()
+                            + " is not in the catalog; add it before saving its results");
+                }
+            }
+        }
+        RankingDataset truth = evaluationService.openGroundTruth(datasetName);
+        List<EvaluationVO> evaluations = new ArrayList<>();
+        for (AggregationMethod method : methods) {
+            evaluations.add(run(truth, datasetName, method, save));
+        }
+        return evaluations;
+    }
+
+    /**
+     * 聚合数据集的全部查询
+     */
+    public AggregatedRanking aggregate(RankingDataset dataset, AggregationMethod method) {
+        return new RankAggregationRunner(dataset).run(method.getAggregator(), pool);
+    }
+
+    // 数据集转换完成后为目录中已有的内置算法生成基线结果，失败只记录日志
+    @EventListener
+    public void onDatasetBinaryReady(DatasetBinaryReadyEvent event) {
+        if (!baselinesOnUpload) {
+            return;
+        }
+        Dataset dataset = datasetRepository.findById(event.getDatasetId()).orElse(null);
+        if (dataset == null) {
+            return;
+        }
+        try {
+            RankingDataset truth = evaluationService.openGroundTruth(dataset.getName());
+            for (AggregationMethod method : AggregationMethod.values()) {
+                if (algorithmRepository.findByName(method.getAlgorithmName()).isPresent()) {
+                    run(truth, dataset.getName(), method, true);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Skipped baseline aggregation for dataset {}: {}", dataset.getName(), e.getMessage());
+        }
+    }
+
+    private EvaluationVO run(RankingDataset truth, String datasetName, AggregationMethod method, boolean save)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        AggregatedRanking ranking = aggregate(truth, method);
+        long aggregated = System.currentTimeMillis();
+        EvaluationVO vo = evaluationService.evaluate(method.getAlgorithmName(), datasetName, truth, ranking, save);
+        vo.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Aggregated {} with {} in {} ms ({} ms including evaluation)", datasetName,
+                method.getAlgorithmName(), aggregated - start, vo.getDurationMs());
+        return vo;
+    }
+}
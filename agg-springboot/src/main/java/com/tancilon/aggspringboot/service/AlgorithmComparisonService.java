@@ -0,0 +1,264 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.vo.AlgorithmComparisonVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 算法两两之间的胜 / 平 / 负矩阵
+ *
+ * 每组 (指标, k, 分类, 容差) 维护一份累计结果：以 PerformanceCube 中按算法排列的数值列为输入，
+ * 每个数据集只扫描一遍所有算法对，累加胜、平局数与差值之和。缓存的结果记录上次读取时立方体的写入计数，
+ * 再次请求时只重读此后有写入的数据集，先减去该列原来的贡献再加上新值，无需重新扫描全部数据集。
+ */
+@Service
+public class AlgorithmComparisonService {
+    private static final Logger logger = LoggerFactory.getLogger(AlgorithmComparisonService.class);
+
+    private final PerformanceCube performanceCube;
+    private final DatasetRepository datasetRepository;
+    private final int cacheEntries;
+
+    // 按访问顺序排列的累计结果，超过上限时淘汰最久未使用的
+    private final LinkedHashMap<String, PairwiseCounts> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    public AlgorithmComparisonService(PerformanceCube performanceCube,
+            DatasetRepository datasetRepository,
+            @Value("${algorithm-compare.cache-entries:32}") int cacheEntries) {
+        this.performanceCube = performanceCube;
+        this.datasetRepository = datasetRepository;
+        this.cacheEntries = cacheEntries;
+    }
+
+    /**
+     * @param k        为 null 时每个数据集上取各算法在全部 k 上的均值
+     * @param category 为 null 时比较全部数据集
+     */
+    public AlgorithmComparisonVO compare(String metric, Integer k, String category, double tolerance) {
+        if (!(tolerance >= 0) || Double.isInfinite(tolerance)) {
+            throw new IllegalArgumentException("tolerance must be a non-negative number");
+        }
+        Set<String> datasetNames = null;
+        if (category != null) {
+            datasetNames = new HashSet<>();
+            for (Dataset dataset : datasetRepository.findByCategory(category)) {
+                datasetNames.add(dataset.getName());
+            }
+            if (datasetNames.isEmpty()) {
+                throw new ResourceNotFoundException("No datasets in category: " + category);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        String key = String.join("\n", metric, String.valueOf(k), String.valueOf(category),
+                String.valueOf(tolerance));
+        PairwiseCounts counts;
+        synchronized (cache) {
+            counts = cache.computeIfAbsent(key, ignored -> new PairwiseCounts(metric, k, tolerance));
+            Iterator<String> eldest = cache.keySet().iterator();
+            while (cache.size() > cacheEntries && eldest.hasNext()) {
+                if (!eldest.next().equals(key)) {
+                    eldest.remove();
+                }
+            }
+        }
+
+        AlgorithmComparisonVO vo;
+        synchronized (counts) {
+            int updated = counts.refresh(datasetNames);
+            vo = counts.toVO();
+            logger.debug("Pairwise comparison of {}@{} refreshed {} datasets", metric, k, updated);
+        }
+        if (vo.getAlgorithms().isEmpty()) {
+            throw new ResourceNotFoundException("No results of metric " + metric + (k != null ? " at k = " + k : "")
+                    + (category != null ? " in category " + category : ""));
+        }
+        vo.setCategory(category);
+        vo.setDurationMs(System.currentTimeMillis() - start);
+        return vo;
+    }
+
+    /**
+     * 一组参数下的累计结果，wins / ties / differenceSums 按立方体中的算法编号索引
+     */
+    private class PairwiseCounts {
+        private final String metric;
+        private final Integer k;
+        private final double tolerance;
+
+        private long generation = -1;
+        private long stamp;
+        private Set<String> datasetFilter;
+        private List<String> algorithms = new ArrayList<>();
+        // 数据集 -> 已计入累计结果的数值列
+        private final Map<String, double[]> columns = new HashMap<>();
+        // 每个算法有数值的数据集数
+        private int[] datasetCounts = new int[0];
+        private int[][] wins = new int[0][];
+        private int[][] ties = new int[0][];
+        private double[][] differenceSums = new double[0][];
+
+        PairwiseCounts(String metric, Integer k, double tolerance) {
+            this.metric = metric;
+            this.k = k;
+            this.tolerance = tolerance;
+        }
+
+        // 读取上次以来有写入的数据集并更新累计结果，返回更新的数据集数
+        int refresh(Set<String> datasetNames) {
+            if (!Objects.equals(datasetNames, datasetFilter)) {
+                // 分类下的数据集有增减时整体重建
+                reset(generation);
+                datasetFilter = datasetNames;
+            }
+            PerformanceCube.ScoreColumns update = performanceCube.getScoreColumns(metric, k, datasetNames, stamp);
+            while (update.generation() != generation) {
+                reset(update.generation());
+                update = performanceCube.getScoreColumns(metric, k, datasetNames, 0);
+            }
+
+            grow(update.algorithms().size());
+            algorithms = update.algorithms();
+            for (int i = 0; i < update.datasets().size(); i++) {
+                double[] column = update.columns()[i];
+                double[] previous = columns.put(update.datasets().get(i), column);
+                if (previous != null) {
+                    apply(previous, -1);
+                }
+                apply(column, 1);
+            }
+            stamp = update.stamp();
+            return update.datasets().size();
+        }
+
+        private void reset(long newGeneration) {
+            generation = newGeneration;
+            stamp = 0;
+            algorithms = new ArrayList<>();
+            columns.clear();
+            datasetCounts = new int[0];
+            wins = new int[0][];
+            ties = new int[0][];
+            differenceSums = new double[0][];
+        }
+
+        private void grow(int size) {
+            if (size <= datasetCounts.length) {
+                return;
+            }
+            datasetCounts = Arrays.copyOf(datasetCounts, size);
+            wins = grow(wins, size);
+            ties = grow(ties, size);
+            differenceSums = Arrays.copyOf(differenceSums, size);
+            for (int i = 0; i < size; i++) {
+                differenceSums[i] = differenceSums[i] == null ? new double[size]
+                        : Arrays.copyOf(differenceSums[i], size);
+            }
+        }
+
+        private int[][] grow(int[][] matrix, int size) {
+            int[][] grown = Arrays.copyOf(matrix, size);
+            for (int i = 0; i < size; i++) {
+                grown[i] = grown[i] == null ? new int[size] : Arrays.copyOf(grown[i], size);
+            }
+            return grown;
+        }
+
+        // 把一个数据集的数值列计入（sign = 1）或移出（sign = -1）累计结果
+        private void apply(double[] column, int sign) {
+            for (int i = 0; i < column.length; i++) {
+                double first = column[i];
+                if (Double.isNaN(first)) {
+                    continue;
+                }
+                datasetCounts[i] += sign;
+                for (int j = i + 1; j < column.length; j++) {
+                    double second = column[j];
+                    if (Double.isNaN(second)) {
+                        continue;
+                    }
+                    double difference = first - second;
+                    if (Math.abs(difference) <= tolerance) {
+                        ties[i][j] += sign;
+                        ties[j][i] += sign;
+                    } else if (difference > 0) {
+                        wins[i][j] += sign;
+                    } else {
+                        wins[j][i] += sign;
+                    }
+                    differenceSums[i][j] += sign * difference;
+                    differenceSums[j][i] -= sign * difference;
+                }
+            }
+        }
+
+        // 只输出至少在一个数据集上有数值的算法
+        AlgorithmComparisonVO toVO() {
+            int[] present = new int[algorithms.size()];
+            int n = 0;
+            for (int a = 0; a < algorithms.size(); a++) {
+                if (datasetCounts[a] > 0) {
+                    present[n++] = a;
+                }
+            }
+            List<String> names = new ArrayList<>(n);
+            int[][] winMatrix = new int[n][n];
+            int[][] tieMatrix = new int[n][n];
+            int[][] lossMatrix = new int[n][n];
+            Double[][] meanDifference = new Double[n][n];
+            for (int i = 0; i < n; i++) {
+                int a = present[i];
+                names.add(algorithms.get(a));
+                for (int j = 0; j < n; j++) {
+                    int b = present[j];
+                    if (a == b) {
+                        continue;
+                    }
+                    winMatrix[i][j] = wins[a][b];
+                    tieMatrix[i][j] = ties[a][b];
+                    lossMatrix[i][j] = wins[b][a];
+                    int shared = wins[a][b] + ties[a][b] + wins[b][a];
+                    meanDifference[i][j] = shared > 0 ? differenceSums[a][b] / shared : null;
+                }
+            }
+
+            int datasets = 0;
+            for (double[] column : columns.values()) {
+                for (double value : column) {
+                    if (!Double.isNaN(value)) {
+                        datasets++;
+                        break;
+                    }
+                }
+            }
+
+            AlgorithmComparisonVO vo = new AlgorithmComparisonVO();
+            vo.setMetric(metric);
+            vo.setK(k);
+            vo.setTolerance(tolerance);
+            vo.setDatasets(datasets);
+            vo.setAlgorithms(names);
+            vo.setWins(winMatrix);
+            vo.setTies(tieMatrix);
+            vo.setLosses(lossMatrix);
+            vo.setMeanDifference(meanDifference);
+            return vo;
+        }
+    }
+}
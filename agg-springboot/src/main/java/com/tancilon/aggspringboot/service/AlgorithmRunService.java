@@ -0,0 +1,706 @@
+package com.tancilon.aggspringboot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tancilon.aggspringboot.config.StorageProperties;
+import com.tancilon.aggspringboot.dto.AlgorithmRunRequest;
+import com.tancilon.aggspringboot.entity.Algorithm;
+import com.tancilon.aggspringboot.entity.AlgorithmRunJob;
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.enums.JobStatus;
+import com.tancilon.aggspringboot.event.AlgorithmImplementationStoredEvent;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.ranking.RankingDataset;
+import com.tancilon.aggspringboot.repository.AlgorithmRepository;
+import com.tancilon.aggspringboot.repository.AlgorithmRunJobRepository;
+import com.tancilon.aggspringboot.repository.DatasetProfileRepository;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.vo.AlgorithmRunVO;
+import com.tancilon.aggspringboot.vo.EvaluationVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 在沙箱子进程中运行上传的算法实现并评测其输出
+ *
+ * 每个 (算法, 数据集) 对应一个任务，任务表即持久化队列，启动时重新提交上次未完成的任务；并发数默认等于 CPU 核数。
+ * 子进程由 bubblewrap 启动：用户、PID、网络、IPC、UTS、mount 命名空间全部独立，根目录是只读挂载系统目录
+ * （read-only-paths）拼成的私有根，看不到应用配置与上传目录；任务目录只读挂载为 /sandbox，只有其中的 output 可写，
+ * /tmp 为私有 tmpfs。每个任务进入 cgroup-root 下独立的 cgroup v2，以 memory.max、pids.max 限制内存与进程数，
+ * prlimit 再限制 CPU 时间与可写文件大小。任务结束或墙钟超时后通过 cgroup.kill 结束 cgroup 内的全部进程，
+ * 包括脱离父进程的后台进程；--die-with-parent 保证应用退出时沙箱随之结束。环境变量被清空。
+ * 输入为标准化的 rankings.csv（query,voter,item,rank），实现需将聚合结果写入 ranking.csv（query,item,rank），
+ * 两个路径作为命令行参数与环境变量 AGG_INPUT / AGG_OUTPUT 传入。标准输出与标准错误直接写入日志文件，
+ * 运行中即可按偏移增量读取。输出以不跟随符号链接的方式打开，交给 EvaluationService 评测，按任务设置写入结果表。
+ * <p>
+ * 支持的实现文件：.py（python3）、.jar（java -jar）、.sh（sh），或根目录含 main.py / run.sh 的 ZIP。
+ */
+@Service
+public class AlgorithmRunService {
+    private static final Logger logger = LoggerFactory.getLogger(AlgorithmRunService.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final int MAX_LOG_CHUNK = 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String INPUT_FILE = "rankings.csv";
+    private static final String OUTPUT_FILE = "ranking.csv";
+    private static final String[] ZIP_ENTRY_POINTS = {"main.py", "run.sh"};
+    private static final Path SANDBOX_ROOT = Paths.get("/sandbox");
+
+    private final AlgorithmRunJobRepository jobRepository;
+    private final AlgorithmRepository algorithmRepository;
+    private final DatasetRepository datasetRepository;
+    private final DatasetProfileRepository profileRepository;
+    private final FileStorageService fileStorageService;
+    private final RankingDatasetService rankingDatasetService;
+    private final EvaluationService evaluationService;
+    private final ObjectMapper objectMapper;
+    private final Path runsDir;
+    private final int cpuSeconds;
+    private final long memoryBytes;
+    private final long maxFileBytes;
+    private final int wallClockSeconds;
+    private final int maxProcesses;
+    private final int maxArchiveEntries;
+    private final long maxArchiveBytes;
+    private final List<String> readOnlyPaths;
+    private final Path cgroupRoot;
+    private final boolean requireIsolation;
+    private final boolean reviewOnUpload;
+    private final ExecutorService executor;
+
+    // 启动时探测 bubblewrap 能否创建命名空间、cgroup 根目录能否创建带内存与进程数限制的子 cgroup
+    private boolean isolationAvailable;
+
+    public AlgorithmRunService(AlgorithmRunJobRepository jobRepository,
+            AlgorithmRepository algorithmRepository,
+            DatasetRepository datasetRepository,
+            DatasetProfileRepository profileRepository,
+            FileStorageService fileStorageService,
+            RankingDatasetService rankingDatasetService,
+            EvaluationService evaluationService,
+            ObjectMapper objectMapper,
+            StorageProperties storageProperties,
+            @Value("${algorithm-runner.concurrency:0}") int concurrency,
+            @Value("${algorithm-runner.cpu-seconds:600}") int cpuSeconds,
+            @Value("${algorithm-runner.memory-mb:2048}") long memoryMb,
+            @Value("${algorithm-runner.max-file-mb:1024}") long maxFileMb,
+            @Value("${algorithm-runner.wall-clock-seconds:900}") int wallClockSeconds,
+            @Value("${algorithm-runner.max-processes:64}") int maxProcesses,
+            @Value("${algorithm-runner.max-archive-entries:10000}") int maxArchiveEntries,
+            @Value("${algorithm-runner.max-archive-mb:512}") long maxArchiveMb,
+            @Value("${algorithm-runner.read-only-paths:/usr,/bin,/sbin,/lib,/lib32,/lib64,/etc/alternatives,/etc/ld.so.cache}")
+            List<String> readOnlyPaths,
+            @Value("${algorithm-runner.cgroup-root:}") String cgroupRoot,
+            @Value("${algorithm-runner.require-isolation:true}") boolean requireIsolation,
+            @Value("${algorithm-runner.review-on-upload:false}") boolean reviewOnUpload) {
+        this.jobRepository = jobRepository;
+        this.algorithmRepository = algorithmRepository;
+        this.datasetRepository = datasetRepository;
+        this.profileRepository = profileRepository;
+        this.fileStorageService = fileStorageService;
+        this.rankingDatasetService = rankingDatasetService;
+        this.evaluationService = evaluationService;
+        this.objectMapper = objectMapper;
+        this.runsDir = Paths.get(storageProperties.getWorkDir(), "algorithm-runs").toAbsolutePath().normalize();
+        this.cpuSeconds = cpuSeconds;
+        this.memoryBytes = memoryMb * 1024 * 1024;
+        this.maxFileBytes = maxFileMb * 1024 * 1024;
+        this.wallClockSeconds = wallClockSeconds;
+        this.maxProcesses = maxProcesses;
+        this.maxArchiveEntries = maxArchiveEntries;
+        this.maxArchiveBytes = maxArchiveMb * 1024 * 1024;
+        this.readOnlyPaths = readOnlyPaths;
+        this.cgroupRoot = cgroupRoot.isBlank() ? null : Paths.get(cgroupRoot).toAbsolutePath().normalize();
+        this.requireIsolation = requireIsolation;
+        this.reviewOnUpload = reviewOnUpload;
+
+        int threads = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "algorithm-run-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(runsDir);
+        isolationAvailable = probe("bwrap", "--unshare-all", "--die-with-parent", "--ro-bind", "/", "/", "true")
+                && probe("prlimit", "--version")
+                && prepareCgroupRoot();
+        if (!isolationAvailable) {
+            logger.warn("bwrap/prlimit or a delegated cgroup v2 root (algorithm-runner.cgroup-root) is unavailable, "
+                    + "algorithm runs {}", requireIsolation ? "are disabled" : "will execute without isolation");
+        }
+    }
+
+    /**
+     * 为算法在指定数据集（为空时为全部带相关性判断的数据集）上各创建一个运行任务
+     */
+    public List<AlgorithmRunVO> submit(AlgorithmRunRequest request) {
+        Algorithm algorithm = algorithmRepository.findById(request.getAlgorithmId())
+                .orElseThrow(() -> new ResourceNotFoundException("Algorithm not found: " + request.getAlgorithmId()));
+        if (algorithm.getImplementationFilePath() == null) {
+            throw new IllegalStateException("Algorithm " + algorithm.getName() + " has no implementation file");
+        }
+        if (requireIsolation && !isolationAvailable) {
+            throw new IllegalStateException("Sandbox is not available on this host");
+        }
+
+        List<Dataset> datasets = new ArrayList<>();
+        if (request.getDatasets() == null || request.getDatasets().isEmpty()) {
+            for (Dataset dataset : datasetRepository.findAll()) {
+                if (dataset.getFileUrl() != null && hasJudgments(dataset)) {
+                    datasets.add(dataset);
+                }
+            }
+        } else {
+            for (String name : request.getDatasets()) {
+                Dataset dataset = datasetRepository.findByName(name);
+                if (dataset == null) {
+                    throw new ResourceNotFoundException("Dataset not found: " + name);
+                }
+                datasets.add(dataset);
+            }
+        }
+
+        List<AlgorithmRunVO> jobs = new ArrayList<>();
+        for (Dataset dataset : datasets) {
+            AlgorithmRunJob job = new AlgorithmRunJob();
+            job.setAlgorithmId(algorithm.getId());
+            job.setDatasetId(dataset.getId());
+            job.setStatus(JobStatus.PENDING);
+            job.setSaveResults(request.isSave());
+            job = jobRepository.save(job);
+            enqueue(job.getId());
+            jobs.add(toVO(job, algorithm.getName(), dataset.getName()));
+        }
+        logger.info("Queued {} sandbox runs for algorithm {}", jobs.size(), algorithm.getName());
+        return jobs;
+    }
+
+    public AlgorithmRunVO getJob(Long id) {
+        return toVO(findJob(id));
+    }
+
+    public List<AlgorithmRunVO> getJobsByAlgorithm(Long algorithmId) {
+        List<AlgorithmRunVO> jobs = new ArrayList<>();
+        for (AlgorithmRunJob job : jobRepository.findByAlgorithmIdOrderByIdDesc(algorithmId)) {
+            jobs.add(toVO(job));
+        }
+        return jobs;
+    }
+
+    /**
+     * 从 offset 开始读取任务日志，单次最多 MAX_LOG_CHUNK 字节；运行中的任务可按返回的偏移轮询增量
+     */
+    public byte[] readLog(Long id, long offset) throws IOException {
+        AlgorithmRunJob job = findJob(id);
+        if (job.getLogPath() == null || !Files.exists(Paths.get(job.getLogPath()))) {
+            return new byte[0];
+        }
+        try (RandomAccessFile file = new RandomAccessFile(job.getLogPath(), "r")) {
+            long start = Math.max(0, Math.min(offset, file.length()));
+            byte[] chunk = new byte[(int) Math.min(MAX_LOG_CHUNK, file.length() - start)];
+            file.seek(start);
+            file.readFully(chunk);
+            return chunk;
+        }
+    }
+
+    // 上传带实现文件的算法后自动提交评审运行
+    @EventListener
+    public void onImplementationStored(AlgorithmImplementationStoredEvent event) {
+        if (!reviewOnUpload || (requireIsolation && !isolationAvailable)) {
+            return;
+        }
+        AlgorithmRunRequest request = new AlgorithmRunRequest();
+        request.setAlgorithmId(event.getAlgorithmId());
+        try {
+            submit(request);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to queue review runs for algorithm {}: {}", event.getAlgorithmId(), e.getMessage());
+        }
+    }
+
+    // 重新提交上次停机时尚未完成的任务，RUNNING 状态的任务从头重跑
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingJobs() {
+        List<AlgorithmRunJob> jobs = jobRepository.findByStatusInOrderByIdAsc(
+                EnumSet.of(JobStatus.PENDING, JobStatus.RUNNING));
+        for (AlgorithmRunJob job : jobs) {
+            if (job.getStatus() == JobStatus.RUNNING) {
+                job.setStatus(JobStatus.PENDING);
+                job.setStartedAt(null);
+                jobRepository.save(job);
+            }
+            enqueue(job.getId());
+        }
+        if (!jobs.isEmpty()) {
+            logger.info("Resumed {} unfinished algorithm runs", jobs.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void enqueue(Long jobId) {
+        executor.execute(() -> run(jobId));
+    }
+
+    private void run(Long jobId) {
+        if (jobRepository.claim(jobId, LocalDateTime.now()) == 0) {
+            return;
+        }
+        AlgorithmRunJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Path workDir = runsDir.resolve(String.valueOf(jobId));
+        Path log = workDir.resolve("run.log");
+        try {
+            Algorithm algorithm = algorithmRepository.findById(job.getAlgorithmId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Algorithm not found: " + job.getAlgorithmId()));
+            Dataset dataset = datasetRepository.findById(job.getDatasetId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Dataset not found: " + job.getDatasetId()));
+            if (requireIsolation && !isolationAvailable) {
+                throw new IllegalStateException("Sandbox is not available on this host");
+            }
+
+            deleteRecursively(workDir);
+            Path inputDir = Files.createDirectories(workDir.resolve("input"));
+            Path outputDir = Files.createDirectories(workDir.resolve("output"));
+            Path implDir = Files.createDirectories(workDir.resolve("impl"));
+            job.setLogPath(log.toString());
+            jobRepository.save(job);
+
+            RankingDataset rankings = evaluationService.openGroundTruth(dataset.getName());
+            Path input = inputDir.resolve(INPUT_FILE);
+            writeInput(rankings, input);
+            Path output = outputDir.resolve(OUTPUT_FILE);
+            List<String> program = prepareImplementation(algorithm, implDir);
+
+            int exitCode = execute(program, workDir, log, input, output, dataset.getName(), jobId);
+            job.setExitCode(exitCode);
+            if (exitCode != 0) {
+                throw new IllegalStateException(describeExit(exitCode));
+            }
+            // 输出目录对沙箱可写，实现可能把 ranking.csv 换成指向任务目录之外的符号链接
+            if (!Files.isRegularFile(output, LinkOption.NOFOLLOW_LINKS)) {
+                throw new IllegalStateException("Implementation did not write " + OUTPUT_FILE + " as a regular file");
+            }
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(output, LinkOption.NOFOLLOW_LINKS))) {
+                EvaluationVO evaluation = evaluationService.evaluate(algorithm.getName(), dataset.getName(), in,
+                        Boolean.TRUE.equals(job.getSaveResults()));
+                job.setEvaluationJson(objectMapper.writeValueAsString(evaluation));
+            }
+            job.setStatus(JobStatus.SUCCEEDED);
+            job.setErrorMessage(null);
+            logger.info("Algorithm run {} of {} on {} succeeded in {} ms", jobId, algorithm.getName(),
+                    dataset.getName(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.warn("Algorithm run {} failed: {}", jobId, e.getMessage());
+            job.setStatus(JobStatus.FAILED);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            job.setErrorMessage(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        }
+
+        job.setDurationMs(System.currentTimeMillis() - start);
+        job.setFinishedAt(LocalDateTime.now());
+        jobRepository.save(job);
+        // 只保留日志，输入、输出与实现副本随任务结束删除
+        for (String dir : new String[] {"input", "output", "impl"}) {
+            try {
+                deleteRecursively(workDir.resolve(dir));
+            } catch (IOException e) {
+                logger.warn("Failed to clean up {} of algorithm run {}: {}", dir, jobId, e.getMessage());
+            }
+        }
+    }
+
+    private int execute(List<String> program, Path workDir, Path log, Path input, Path output, String datasetName,
+            Long jobId) throws IOException, InterruptedException {
+        Path cgroup = isolationAvailable ? createCgroup(jobId) : null;
+        List<String> command = buildCommand(program, workDir, input, output, datasetName, cgroup);
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                .redirectInput(ProcessBuilder.Redirect.from(new File("/dev/null")));
+        Map<String, String> environment = builder.environment();
+        environment.clear();
+        environment.put("PATH", "/usr/local/bin:/usr/bin:/bin");
+        if (cgroup == null) {
+            environment.put("HOME", workDir.toString());
+            environment.put("LANG", "C.UTF-8");
+            environment.put("AGG_INPUT", input.toString());
+            environment.put("AGG_OUTPUT", output.toString());
+            environment.put("AGG_DATASET", datasetName);
+        }
+
+        Process process = builder.start();
+        try {
+            if (!process.waitFor(wallClockSeconds, TimeUnit.SECONDS)) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+                process.waitFor(10, TimeUnit.SECONDS);
+                throw new IllegalStateException("Wall-clock limit of " + wallClockSeconds + " s exceeded");
+            }
+            if (cgroup != null && oomKills(cgroup) > 0) {
+                throw new IllegalStateException("Memory limit of " + memoryBytes / 1024 / 1024 + " MB exceeded");
+            }
+            return process.exitValue();
+        } finally {
+            // 实现可能留下后台进程（包括已脱离进程树的），随任务一起结束
+            if (cgroup != null) {
+                destroyCgroup(cgroup);
+            } else {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+            }
+        }
+    }
+
+    private List<String> buildCommand(List<String> program, Path workDir, Path input, Path output,
+            String datasetName, Path cgroup) {
+        List<String> command = new ArrayList<>();
+        if (cgroup == null) {
+            command.addAll(program);
+            command.add(input.toString());
+            command.add(output.toString());
+            return command;
+        }
+
+        // 先把 shell 自身移入任务的 cgroup 再 exec bwrap，沙箱内的所有进程从一开始就受 cgroup 限制
+        command.addAll(List.of("sh", "-c", "echo 0 > \"$1/cgroup.procs\" && shift && exec \"$@\"", "sh",
+                cgroup.toString()));
+        command.addAll(List.of("bwrap", "--unshare-all", "--die-with-parent", "--new-session",
+                "--uid", "65534", "--gid", "65534", "--clearenv"));
+        for (String path : readOnlyPaths) {
+            if (!path.isBlank()) {
+                command.addAll(List.of("--ro-bind-try", path.trim(), path.trim()));
+            }
+        }
+        command.addAll(List.of("--proc", "/proc", "--dev", "/dev", "--tmpfs", "/tmp",
+                "--ro-bind", workDir.toString(), SANDBOX_ROOT.toString(),
+                "--bind", output.getParent().toString(), sandboxPath(workDir, output.getParent()),
+                "--chdir", sandboxPath(workDir, output.getParent()),
+                "--setenv", "PATH", "/usr/local/bin:/usr/bin:/bin",
+                "--setenv", "HOME", "/tmp",
+                "--setenv", "LANG", "C.UTF-8",
+                "--setenv", "AGG_INPUT", sandboxPath(workDir, input),
+                "--setenv", "AGG_OUTPUT", sandboxPath(workDir, output),
+                "--setenv", "AGG_DATASET", datasetName,
+                "--"));
+        command.addAll(List.of("prlimit", "--cpu=" + cpuSeconds, "--fsize=" + maxFileBytes, "--core=0", "--"));
+        for (String argument : program) {
+            command.add(argument.startsWith(workDir.toString()) ? sandboxPath(workDir, Paths.get(argument)) : argument);
+        }
+        command.add(sandboxPath(workDir, input));
+        command.add(sandboxPath(workDir, output));
+        return command;
+    }
+
+    // 任务目录中的文件在沙箱内的路径
+    private static String sandboxPath(Path workDir, Path path) {
+        return SANDBOX_ROOT.resolve(workDir.relativize(path)).toString();
+    }
+
+    // cgroup 根目录须为委派给应用的 cgroup v2 目录，在其子树上启用 memory 与 pids 控制器
+    private boolean prepareCgroupRoot() {
+        if (cgroupRoot == null || !Files.isWritable(cgroupRoot.resolve("cgroup.subtree_control"))) {
+            return false;
+        }
+        try {
+            Files.writeString(cgroupRoot.resolve("cgroup.subtree_control"), "+memory +pids");
+            String controllers = Files.readString(cgroupRoot.resolve("cgroup.subtree_control"));
+            return controllers.contains("memory") && controllers.contains("pids");
+        } catch (IOException e) {
+            logger.warn("Cannot enable memory and pids controllers under {}: {}", cgroupRoot, e.getMessage());
+            return false;
+        }
+    }
+
+    private Path createCgroup(Long jobId) throws IOException {
+        Path cgroup = cgroupRoot.resolve("run-" + jobId);
+        if (Files.isDirectory(cgroup)) {
+            destroyCgroup(cgroup);
+        }
+        Files.createDirectory(cgroup);
+        Files.writeString(cgroup.resolve("memory.max"), Long.toString(memoryBytes));
+        Files.writeString(cgroup.resolve("pids.max"), Integer.toString(maxProcesses));
+        if (Files.exists(cgroup.resolve("memory.swap.max"))) {
+            Files.writeString(cgroup.resolve("memory.swap.max"), "0");
+        }
+        return cgroup;
+    }
+
+    private static long oomKills(Path cgroup) {
+        try {
+            for (String line : Files.readAllLines(cgroup.resolve("memory.events"))) {
+                if (line.startsWith("oom_kill ")) {
+                    return Long.parseLong(line.substring("oom_kill ".length()).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("Cannot read memory events of {}: {}", cgroup, e.getMessage());
+        }
+        return 0;
+    }
+
+    // 结束 cgroup 内的全部进程后删除 cgroup；内核不支持 cgroup.kill 时逐个结束 cgroup.procs 中的进程
+    private static void destroyCgroup(Path cgroup) {
+        Path procs = cgroup.resolve("cgroup.procs");
+        try {
+            for (int attempt = 0; attempt < 50; attempt++) {
+                List<String> pids = Files.readAllLines(procs);
+                if (pids.stream().allMatch(String::isBlank)) {
+                    break;
+                }
+                if (Files.exists(cgroup.resolve("cgroup.kill"))) {
+                    Files.writeString(cgroup.resolve("cgroup.kill"), "1");
+                } else {
+                    for (String pid : pids) {
+                        if (!pid.isBlank()) {
+                            ProcessHandle.of(Long.parseLong(pid.trim())).ifPresent(ProcessHandle::destroyForcibly);
+                        }
+                    }
+                }
+                Thread.sleep(100);
+            }
+            Files.deleteIfExists(cgroup);
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Failed to remove cgroup {}: {}", cgroup, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 将实现文件复制到任务目录（ZIP 解压），返回运行它的命令
+    private List<String> prepareImplementation(Algorithm algorithm, Path implDir) throws IOException {
+        Path source = fileStorageService.resolveFile(algorithm.getImplementationFilePath());
+        String name = Paths.get(fileStorageService.getDownloadFilename(algorithm.getImplementationFilePath()))
+                .getFileName().toString();
+        String extension = name.contains(".") ? name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT) : "";
+
+        if ("zip".equals(extension)) {
+            extract(source, implDir);
+            Path root = implDir;
+            try (Stream<Path> children = Files.list(implDir)) {
+                List<Path> entries = children.toList();
+                if (entries.size() == 1 && Files.isDirectory(entries.get(0))) {
+                    root = entries.get(0);
+                }
+            }
+            for (String entryPoint : ZIP_ENTRY_POINTS) {
+                Path entry = root.resolve(entryPoint);
+                if (Files.isRegularFile(entry)) {
+                    return interpreter(entryPoint.substring(entryPoint.lastIndexOf('.') + 1), entry);
+                }
+            }
+            throw new IllegalStateException("ZIP implementation must contain main.py or run.sh");
+        }
+        Path target = implDir.resolve("impl." + extension);
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        return interpreter(extension, target);
+    }
+
+    private static List<String> interpreter(String extension, Path entry) {
+        return switch (extension) {
+            case "py" -> List.of("python3", entry.toString());
+            case "jar" -> List.of("java", "-XX:+UseSerialGC", "-XX:ReservedCodeCacheSize=64m",
+                    "-XX:CompressedClassSpaceSize=64m", "-jar", entry.toString());
+            case "sh" -> List.of("sh", entry.toString());
+            default -> throw new IllegalStateException("Unsupported implementation file type: ." + extension);
+        };
+    }
+
+    // 解压在沙箱之外进行，条目数与解压后的总字节数都有上限；字节数按实际写出的数据累计，不信任条目头中的大小
+    private void extract(Path zip, Path target) throws IOException {
+        int entries = 0;
+        long remaining = maxArchiveBytes;
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        try (ZipInputStream in = new ZipInputStream(new BufferedInputStream(Files.newInputStream(zip)))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (++entries > maxArchiveEntries) {
+                    throw new IllegalStateException(
+                            "Implementation archive has more than " + maxArchiveEntries + " entries");
+                }
+                if (entry.getName().startsWith("__MACOSX/")) {
+                    continue;
+                }
+                Path path = target.resolve(entry.getName()).normalize();
+                if (!path.startsWith(target)) {
+                    throw new IllegalStateException("Invalid entry in implementation archive: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(path);
+                } else {
+                    Files.createDirectories(path.getParent());
+                    try (OutputStream out = Files.newOutputStream(path)) {
+                        int n;
+                        while ((n = in.read(buffer)) > 0) {
+                            remaining -= n;
+                            if (remaining < 0) {
+                                throw new IllegalStateException("Implementation archive expands to more than "
+                                        + maxArchiveBytes / (1024 * 1024) + " MB");
+                            }
+                            out.write(buffer, 0, n);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // 从二进制视图写出标准化的输入，名次从 1 开始
+    private static void writeInput(RankingDataset rankings, Path input) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+            writer.write("query,voter,item,rank\n");
+            for (int q = 0; q < rankings.queryCount(); q++) {
+                String query = rankings.queryName(q);
+                for (int r = rankings.firstRanking(q); r < rankings.endRanking(q); r++) {
+                    String voter = rankings.voterName(rankings.voter(r));
+                    int entry = rankings.entryOffset(r);
+                    for (int p = 0; p < rankings.rankingLength(r); p++) {
+                        writer.write(query);
+                        writer.write(',');
+                        writer.write(voter);
+                        writer.write(',');
+                        writer.write(rankings.itemName(rankings.itemAt(entry + p)));
+                        writer.write(',');
+                        writer.write(Integer.toString(p + 1));
+                        writer.write('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    private static String describeExit(int exitCode) {
+        if (exitCode > 128) {
+            return switch (exitCode - 128) {
+                case 24 -> "CPU time limit exceeded";
+                case 25 -> "File size limit exceeded";
+                case 9 -> "Killed (memory limit or external signal)";
+                default -> "Terminated by signal " + (exitCode - 128);
+            };
+        }
+        return "Implementation exited with code " + exitCode;
+    }
+
+    private boolean hasJudgments(Dataset dataset) {
+        return profileRepository.findByDatasetId(dataset.getId())
+                .map(profile -> profile.getJudgmentCount() == null || profile.getJudgmentCount() > 0)
+                .orElse(true);
+    }
+
+    private static boolean probe(String... command) {
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            return process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private AlgorithmRunJob findJob(Long id) {
+        return jobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Algorithm run not found: " + id));
+    }
+
+    private AlgorithmRunVO toVO(AlgorithmRunJob job) {
+        String algorithm = algorithmRepository.findById(job.getAlgorithmId()).map(Algorithm::getName).orElse(null);
+        String dataset = datasetRepository.findById(job.getDatasetId()).map(Dataset::getName).orElse(null);
+        return toVO(job, algorithm, dataset);
+    }
+
+    private AlgorithmRunVO toVO(AlgorithmRunJob job, String algorithm, String dataset) {
+        AlgorithmRunVO vo = new AlgorithmRunVO();
+        vo.setId(job.getId());
+        vo.setAlgorithmId(job.getAlgorithmId());
+        vo.setAlgorithm(algorithm);
+        vo.setDatasetId(job.getDatasetId());
+        vo.setDataset(dataset);
+        vo.setStatus(job.getStatus());
+        vo.setSaveResults(job.getSaveResults());
+        vo.setExitCode(job.getExitCode());
+        vo.setDurationMs(job.getDurationMs());
+        vo.setError(job.getErrorMessage());
+        vo.setCreatedAt(job.getCreatedAt());
+        vo.setStartedAt(job.getStartedAt());
+        vo.setFinishedAt(job.getFinishedAt());
+        if (job.getLogPath() != null) {
+            try {
+                Path log = Paths.get(job.getLogPath());
+                vo.setLogSize(Files.exists(log) ? Files.size(log) : 0L);
+            } catch (IOException e) {
+                vo.setLogSize(null);
+            }
+        }
+        if (job.getEvaluationJson() != null) {
+            try {
+                vo.setEvaluation(objectMapper.readValue(job.getEvaluationJson(), EvaluationVO.class));
+            } catch (IOException e) {
+                logger.warn("Unreadable evaluation of algorithm run {}: {}", job.getId(), e.getMessage());
+            }
+        }
+        return vo;
+    }
+}
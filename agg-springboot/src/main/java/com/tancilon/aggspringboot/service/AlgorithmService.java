@@ -3,6 +3,8 @@ package com.tancilon.aggspringboot.service;
 import com.tancilon.aggspringboot.entity.Algorithm;
 import com.tancilon.aggspringboot.repository.AlgorithmRepository;
 import com.tancilon.aggspringboot.config.StorageProperties;
+import com.tancilon.aggspringboot.event.AlgorithmImplementationStoredEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
@@ -11,17 +13,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
-import java.util.UUID;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.Arrays;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
-import java.util.ArrayList;
 import org.springframework.beans.factory.annotation.Autowired;
-import com.tancilon.aggspringboot.entity.Result;
-import com.tancilon.aggspringboot.repository.ResultRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,7 +28,16 @@ public class AlgorithmService {
     private final String algorithmImpDir;
 
     @Autowired
-    private ResultRepository resultRepository;
+    private PerformanceCube performanceCube;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private static final Logger logger = LoggerFactory.getLogger(AlgorithmService.class);
 
@@ -74,36 +76,25 @@ public class AlgorithmService {
                 throw new RuntimeException("Algorithm with name '" + algorithm.getName() + "' already exists");
             }
 
-            // 处理bib文件上传
+            // 处理bib文件上传，保存的是文件句柄，相同内容只存储一份
             if (bibFile != null && !bibFile.isEmpty()) {
-                String bibFileName = UUID.randomUUID() + "_" + bibFile.getOriginalFilename();
-                File bibFilePath = new File(bibDir, bibFileName);
-
-                System.out.println("Bib file details:");
-                System.out.println("Original name: " + bibFile.getOriginalFilename());
-                System.out.println("Size: " + bibFile.getSize());
-                System.out.println("Content type: " + bibFile.getContentType());
-                System.out.println("Target path: " + bibFilePath.getAbsolutePath());
-
-                bibFile.transferTo(bibFilePath);
-                algorithm.setBibFilePath("bib/" + bibFileName);
+                algorithm.setBibFilePath(fileStorageService.storeFile(bibFile));
+                logger.info("Bib file of algorithm {} stored as {}", algorithm.getName(), algorithm.getBibFilePath());
             }
 
             // 处理实现文件上传（可选）
             if (implementationFile != null && !implementationFile.isEmpty()) {
-                String implFileName = UUID.randomUUID() + "_" + implementationFile.getOriginalFilename();
-                File implFilePath = new File(algorithmImpDir, implFileName);
-
-                System.out.println("Implementation file details:");
-                System.out.println("Original name: " + implementationFile.getOriginalFilename());
-                System.out.println("Size: " + implementationFile.getSize());
-                System.out.println("Target path: " + implFilePath.getAbsolutePath());
-
-                implementationFile.transferTo(implFilePath);
-                algorithm.setImplementationFilePath("algorithmImp/" + implFileName);
+                algorithm.setImplementationFilePath(fileStorageService.storeFile(implementationFile));
+                logger.info("Implementation file of algorithm {} stored as {}", algorithm.getName(),
+                        algorithm.getImplementationFilePath());
             }
 
-            return algorithmRepository.save(algorithm);
+            Algorithm saved = algorithmRepository.save(algorithm);
+            dataVersionService.markChanged();
+            if (saved.getImplementationFilePath() != null) {
+                eventPublisher.publishEvent(new AlgorithmImplementationStoredEvent(saved.getId()));
+            }
+            return saved;
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to create algorithm: " + e.getMessage(), e);
@@ -134,51 +125,11 @@ public class AlgorithmService {
     public Map<String, Object> getAlgorithmPerformance(String algorithmId, String metricName) {
         logger.info("Getting performance data for algorithm: {}, metric: {}", algorithmId, metricName);
 
-        Map<String, Object> response = new HashMap<>();
-        List<Map<String, Object>> series = new ArrayList<>();
-        Set<Integer> kValues = new TreeSet<>(); // 使用TreeSet自动排序
-
-        // 从数据库获取该算法在指定指标下的所有结果
-        List<Result> results = resultRepository.findByAlgorithmAndMetricName(algorithmId, metricName);
-        logger.info("Found {} results", results.size());
-
-        // 按数据集分组处理数据
-        Map<String, List<Result>> datasetResults = results.stream()
-                .collect(Collectors.groupingBy(Result::getDataset));
-
-        logger.info("Processing {} datasets", datasetResults.size());
-
-        // 处理每个数据集的数据
-        datasetResults.forEach((dataset, datasetData) -> {
-            Map<String, Object> seriesItem = new HashMap<>();
-            seriesItem.put("name", dataset);
-
-            // 收集该数据集的所有数据点
-            Map<Integer, Double> kValueMap = datasetData.stream()
-                    .collect(Collectors.toMap(
-                            r -> r.getKValue() != null ? r.getKValue() : 0,
-                            Result::getValue,
-                            (v1, v2) -> v1));
-
-            // 收集所有k值
-            kValues.addAll(kValueMap.keySet());
-
-            // 按k值排序添加数据点
-            List<Double> sortedData = kValueMap.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .map(Map.Entry::getValue)
-                    .collect(Collectors.toList());
-
-            seriesItem.put("data", sortedData);
-            series.add(seriesItem);
-
-            logger.info("Processed dataset: {}, data points: {}", dataset, sortedData.size());
-        });
-
-        response.put("series", series);
-        response.put("xAxis", new ArrayList<>(kValues));
+        // 直接从内存立方体读取，不再访问数据库
+        Map<String, Object> response = performanceCube.getAlgorithmPerformance(algorithmId, metricName);
 
-        logger.info("Final response: series count={}, xAxis values={}", series.size(), kValues.size());
+        logger.info("Final response: series count={}, xAxis values={}",
+                ((List<?>) response.get("series")).size(), ((List<?>) response.get("xAxis")).size());
         return response;
     }
 }
\ No newline at end of file
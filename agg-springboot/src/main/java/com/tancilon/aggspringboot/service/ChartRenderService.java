@@ -0,0 +1,277 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.enums.ChartFormat;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartUtils;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.jfree.svg.SVGGraphics2D;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务端渲染 k 值曲线图（PNG / SVG / PDF）
+ *
+ * 数据取自 PerformanceCube，在固定大小的线程池中以 headless 方式渲染，排队已满时直接拒绝，
+ * 避免大量并发渲染占满 CPU 与内存。渲染结果按请求哈希加数据版本号缓存在内存中，
+ * 相同请求在数据未变更时直接返回缓存字节，并发的相同请求只渲染一次。
+ */
+@Service
+public class ChartRenderService {
+    private static final Logger logger = LoggerFactory.getLogger(ChartRenderService.class);
+
+    public static final int MIN_SIZE = 200;
+    public static final int MAX_SIZE = 4000;
+
+    // PDF 内嵌位图的放大倍数，保证打印清晰度
+    private static final int PDF_SCALE = 2;
+
+    private final PerformanceCube performanceCube;
+    private final DataVersionService dataVersionService;
+    private final ThreadPoolExecutor executor;
+    private final long renderTimeoutSeconds;
+    private final long maxCacheBytes;
+
+    // 按访问顺序排列的渲染结果缓存
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheBytes;
+
+    // 正在渲染的请求，相同键的并发请求共用一次渲染
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    public ChartRenderService(PerformanceCube performanceCube,
+            DataVersionService dataVersionService,
+            @Value("${chart-render.threads:2}") int threads,
+            @Value("${chart-render.queue-size:32}") int queueSize,
+            @Value("${chart-render.timeout-seconds:30}") long renderTimeoutSeconds,
+            @Value("${chart-render.cache-size-mb:64}") long cacheSizeMb) {
+        this.performanceCube = performanceCube;
+        this.dataVersionService = dataVersionService;
+        this.renderTimeoutSeconds = renderTimeoutSeconds;
+        this.maxCacheBytes = cacheSizeMb * 1024 * 1024;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "chart-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 渲染数据集在某指标下各算法的 k 值曲线
+     *
+     * @param algorithms 为空时包含该数据集下的全部算法
+     * @throws java.util.concurrent.RejectedExecutionException 渲染队列已满
+     */
+    public byte[] render(String dataset, String metricName, List<String> algorithms, ChartFormat format,
+            int width, int height) throws IOException, TimeoutException {
+        if (width < MIN_SIZE || width > MAX_SIZE || height < MIN_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("width and height must be between " + MIN_SIZE + " and " + MAX_SIZE);
+        }
+        // 算法去重排序，选择顺序不同的相同请求命中同一缓存，图例顺序也保持一致
+        List<String> selected = algorithms != null ? new ArrayList<>(new TreeSet<>(algorithms)) : List.of();
+        String key = key(dataset, metricName, selected, format, width, height);
+        synchronized (this) {
+            byte[] cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        CompletableFuture<byte[]> created = new CompletableFuture<>();
+        CompletableFuture<byte[]> future = inFlight.putIfAbsent(key, created);
+        if (future == null) {
+            future = created;
+            try {
+                executor.execute(() -> {
+                    try {
+                        byte[] bytes = draw(dataset, metricName, selected, format, width, height);
+                        put(key, bytes);
+                        created.complete(bytes);
+                    } catch (Throwable e) {
+                        created.completeExceptionally(e);
+                    } finally {
+                        inFlight.remove(key, created);
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.remove(key, created);
+                throw e;
+            }
+        }
+
+        try {
+            return future.get(renderTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Chart rendering interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Chart rendering failed", cause);
+        }
+    }
+
+    private byte[] draw(String dataset, String metricName, List<String> algorithms, ChartFormat format,
+            int width, int height) throws IOException {
+        long start = System.currentTimeMillis();
+        JFreeChart chart = createChart(dataset, metricName, algorithms);
+        byte[] bytes = switch (format) {
+            case PNG -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ChartUtils.writeChartAsPNG(out, chart, width, height);
+                yield out.toByteArray();
+            }
+            case SVG -> {
+                SVGGraphics2D graphics = new SVGGraphics2D(width, height);
+                chart.draw(graphics, new Rectangle(width, height));
+                yield graphics.getSVGDocument().getBytes(StandardCharsets.UTF_8);
+            }
+            case PDF -> toPdf(chart, width, height);
+        };
+        logger.info("Rendered {} chart for {} / {} ({} bytes) in {} ms", format, dataset, metricName,
+                bytes.length, System.currentTimeMillis() - start);
+        return bytes;
+    }
+
+    private JFreeChart createChart(String dataset, String metricName, List<String> algorithms) {
+        XYSeriesCollection collection = new XYSeriesCollection();
+        for (Map.Entry<String, double[][]> curve : performanceCube.getKCurves(dataset, metricName, algorithms)
+                .entrySet()) {
+            XYSeries series = new XYSeries(curve.getKey(), false, true);
+            for (double[] point : curve.getValue()) {
+                series.add(point[0], point[1]);
+            }
+            collection.addSeries(series);
+        }
+
+        JFreeChart chart = ChartFactory.createXYLineChart(dataset + " - " + metricName, "k", metricName,
+                collection, PlotOrientation.VERTICAL, true, false, false);
+        chart.setBackgroundPaint(Color.WHITE);
+        XYPlot plot = chart.getXYPlot();
+        plot.setBackgroundPaint(Color.WHITE);
+        plot.setDomainGridlinePaint(Color.LIGHT_GRAY);
+        plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+        XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, true);
+        for (int i = 0; i < collection.getSeriesCount(); i++) {
+            renderer.setSeriesStroke(i, new BasicStroke(2.0f));
+        }
+        plot.setRenderer(renderer);
+        return chart;
+    }
+
+    // PDFBox 没有 Graphics2D 实现，图表按倍率渲染为位图后无损嵌入，页面尺寸与图表一致
+    private byte[] toPdf(JFreeChart chart, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width * PDF_SCALE, height * PDF_SCALE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.scale(PDF_SCALE, PDF_SCALE);
+            chart.draw(graphics, new Rectangle(width, height));
+        } finally {
+            graphics.dispose();
+        }
+
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(new PDRectangle(width, height));
+            document.addPage(page);
+            PDImageXObject pdImage = LosslessFactory.createFromImage(document, image);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.drawImage(pdImage, 0, 0, width, height);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    // 写入缓存，先清理旧数据版本的结果，再按最近最少使用淘汰到上限以内
+    private synchronized void put(String key, byte[] bytes) {
+        if (bytes.length > maxCacheBytes) {
+            return;
+        }
+        byte[] previous = cache.put(key, bytes);
+        cacheBytes += bytes.length - (previous != null ? previous.length : 0);
+        String currentPrefix = dataVersionService.getVersion() + "-";
+        Iterator<Map.Entry<String, byte[]>> iterator = cache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, byte[]> entry = iterator.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            if (!entry.getKey().startsWith(currentPrefix) || cacheBytes > maxCacheBytes) {
+                iterator.remove();
+                cacheBytes -= entry.getValue().length;
+            }
+        }
+    }
+
+    private String key(String dataset, String metricName, List<String> algorithms, ChartFormat format,
+            int width, int height) {
+        StringBuilder canonical = new StringBuilder();
+        canonical.append("dataset=").append(dataset).append('\n');
+        canonical.append("metric=").append(metricName).append('\n');
+        canonical.append("algorithms=").append(algorithms).append('\n');
+        canonical.append("format=").append(format).append('\n');
+        canonical.append("size=").append(width).append('x').append(height);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return dataVersionService.getVersion() + "-" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.config.StorageProperties;
+import com.tancilon.aggspringboot.dto.DatasetCreateDTO;
+import com.tancilon.aggspringboot.dto.UploadInitDTO;
+import com.tancilon.aggspringboot.entity.UploadSession;
+import com.tancilon.aggspringboot.enums.UploadStatus;
+import com.tancilon.aggspringboot.exception.ResourceAlreadyExistsException;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.repository.UploadSessionRepository;
+import com.tancilon.aggspringboot.vo.DatasetVO;
+import com.tancilon.aggspringboot.vo.UploadSessionVO;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 大数据集的分片续传上传
+ *
+ * 创建会话时按总大小预分配文件。每个分片以 PUT 流式写入该分片独立的临时文件，同时计算 SHA-256，
+ * 与客户端必须提供的校验和一致后才复制到预分配文件的对应偏移并记入位图，校验失败的重传不会覆盖已写好的数据；
+ * 断线后查询会话即可得到缺失分片继续上传。全部分片到齐后，文件整体移交 DatasetService 创建数据集。
+ * 整个过程只使用固定大小的缓冲区，内存占用与文件大小无关。
+ * 分片写入预分配文件时持有会话的共享锁，完成与放弃上传持有独占锁：二者会等待进行中的分片写完，
+ * 状态改变后再到达的分片被拒绝，移交存储的文件不会再被改写。
+ */
+@Service
+public class ChunkedUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SESSION_LOCK_STRIPES = 64;
+
+    private final UploadSessionRepository sessionRepository;
+    private final DatasetRepository datasetRepository;
+    private final DatasetService datasetService;
+    private final TransactionTemplate transactionTemplate;
+    private final Path uploadDir;
+    private final int defaultChunkSize;
+    private final long maxSize;
+    private final Duration expireAfter;
+
+    // 按会话 id 分段的读写锁，分片写入共享，完成与放弃独占
+    private final ReadWriteLock[] sessionLocks = new ReadWriteLock[SESSION_LOCK_STRIPES];
+
+    public ChunkedUploadService(UploadSessionRepository sessionRepository,
+            DatasetRepository datasetRepository,
+            DatasetService datasetService,
+            PlatformTransactionManager transactionManager,
+            StorageProperties storageProperties,
+            @Value("${chunked-upload.chunk-size-mb:8}") int defaultChunkSizeMb,
+            @Value("${chunked-upload.max-size-gb:50}") long maxSizeGb,
+            @Value("${chunked-upload.expire-hours:24}") long expireHours) {
+        this.sessionRepository = sessionRepository;
+        this.datasetRepository = datasetRepository;
+        this.datasetService = datasetService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.uploadDir = Paths.get(storageProperties.getWorkDir(), "chunked").toAbsolutePath().normalize();
+        this.defaultChunkSize = defaultChunkSizeMb * 1024 * 1024;
+        this.maxSize = maxSizeGb * 1024 * 1024 * 1024;
+        this.expireAfter = Duration.ofHours(expireHours);
+        for (int i = 0; i < sessionLocks.length; i++) {
+            sessionLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(uploadDir);
+    }
+
+    /**
+     * 创建上传会话并预分配文件
+     */
+    public UploadSessionVO init(UploadInitDTO dto) throws IOException {
+        if (dto.getName() == null || dto.getName().isBlank() || dto.getFilename() == null
+                || dto.getFilename().isBlank()) {
+            throw new IllegalArgumentException("name and filename are required");
+        }
+        if (dto.getTotalSize() == null || dto.getTotalSize() <= 0 || dto.getTotalSize() > maxSize) {
+            throw new IllegalArgumentException("totalSize must be between 1 and " + maxSize + " bytes");
+        }
+        if (datasetRepository.existsByName(dto.getName())) {
+            throw new ResourceAlreadyExistsException("Dataset with name '" + dto.getName() + "' already exists");
+        }
+        int chunkSize = dto.getChunkSize() != null ? dto.getChunkSize() : defaultChunkSize;
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException(
+                    "chunkSize must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE + " bytes");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setStatus(UploadStatus.IN_PROGRESS);
+        session.setDatasetName(dto.getName());
+        session.setCategory(dto.getCategory());
+        session.setDescription(dto.getDescription());
+        session.setFilename(dto.getFilename());
+        session.setContentType(dto.getContentType());
+        session.setTotalSize(dto.getTotalSize());
+        session.setChunkSize(chunkSize);
+        session.setReceivedChunks(new byte[0]);
+        session.setReceivedBytes(0L);
+
+        // 预分配为稀疏文件，各分片可按任意顺序写入
+        try (RandomAccessFile file = new RandomAccessFile(partFile(session.getId()).toFile(), "rw")) {
+            file.setLength(dto.getTotalSize());
+        }
+        session = sessionRepository.save(session);
+        logger.info("Created upload session {} for dataset {} ({} bytes, chunk size {})",
+                session.getId(), dto.getName(), dto.getTotalSize(), chunkSize);
+        return toVO(session);
+    }
+
+    public UploadSessionVO getSession(String uploadId) {
+        return toVO(findSession(uploadId));
+    }
+
+    /**
+     * 写入一个分片：offset 必须对齐分片边界，长度必须等于分片大小（最后一片除外）
+     *
+     * @param sha256 客户端计算的分片 SHA-256（十六进制），必填
+     */
+    public UploadSessionVO writeChunk(String uploadId, long offset, String sha256, InputStream body)
+            throws IOException {
+        UploadSession session = findSession(uploadId);
+        if (session.getStatus() != UploadStatus.IN_PROGRESS) {
+            throw new IllegalStateException("Upload " + uploadId + " is already completed");
+        }
+        int chunkSize = session.getChunkSize();
+        long totalSize = session.getTotalSize();
+        if (offset < 0 || offset >= totalSize || offset % chunkSize != 0) {
+            throw new IllegalArgumentException("offset must be a multiple of " + chunkSize + " within the file");
+        }
+        if (sha256 == null || sha256.isBlank()) {
+            throw new IllegalArgumentException("The SHA-256 of the chunk is required");
+        }
+        int index = (int) (offset / chunkSize);
+        long expected = Math.min(chunkSize, totalSize - offset);
+
+        // 先写入分片自己的临时文件并计算摘要，校验通过后再复制到预分配文件，避免错误的重传覆盖已收到的数据
+        Path chunkFile = uploadDir.resolve(UUID.fromString(uploadId) + "." + index + "." + UUID.randomUUID() + ".chunk");
+        try {
+            MessageDigest digest = sha256();
+            long written = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (OutputStream out = Files.newOutputStream(chunkFile, StandardOpenOption.CREATE_NEW)) {
+                int n;
+                while ((n = body.read(buffer)) > 0) {
+                    if (written + n > expected) {
+                        throw new IllegalArgumentException(
+                                "Chunk " + index + " is larger than " + expected + " bytes");
+                    }
+                    digest.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                    written += n;
+                }
+            }
+            if (written != expected) {
+                throw new IllegalArgumentException(
+                        "Chunk " + index + " has " + written + " bytes, expected " + expected);
+            }
+            if (!sha256.equalsIgnoreCase(HexFormat.of().formatHex(digest.digest()))) {
+                throw new IllegalArgumentException("Checksum mismatch for chunk " + index);
+            }
+
+            Lock lock = lockFor(uploadId).readLock();
+            lock.lock();
+            try {
+                // 接收分片期间会话可能已完成或被放弃，持锁后重新确认再写入预分配文件
+                if (findSession(uploadId).getStatus() != UploadStatus.IN_PROGRESS) {
+                    throw new IllegalStateException("Upload " + uploadId + " is already completed");
+                }
+                try (FileChannel source = FileChannel.open(chunkFile, StandardOpenOption.READ);
+                        FileChannel target = FileChannel.open(partFile(uploadId), StandardOpenOption.WRITE)) {
+                    long copied = 0;
+                    while (copied < written) {
+                        copied += source.transferTo(copied, written - copied, target.position(offset + copied));
+                    }
+                    target.force(false);
+                }
+                return toVO(markReceived(uploadId, index, expected));
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(chunkFile);
+        }
+    }
+
+    private UploadSession markReceived(String uploadId, int index, long chunkBytes) {
+        return transactionTemplate.execute(status -> {
+            UploadSession locked = sessionRepository.findByIdForUpdate(uploadId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Upload session not found: " + uploadId));
+            BitSet received = BitSet.valueOf(locked.getReceivedChunks());
+            if (!received.get(index)) {
+                received.set(index);
+                locked.setReceivedChunks(received.toByteArray());
+                locked.setReceivedBytes(locked.getReceivedBytes() + chunkBytes);
+            }
+            return sessionRepository.save(locked);
+        });
+    }
+
+    /**
+     * 所有分片到齐后创建数据集，文件移入存储，会话标记为完成
+     */
+    public DatasetVO complete(String uploadId) {
+        // 等待进行中的分片写完后再改状态，之后到达的分片会被拒绝
+        Lock lock = lockFor(uploadId).writeLock();
+        lock.lock();
+        UploadSession session;
+        try {
+            session = transactionTemplate.execute(status -> {
+                UploadSession locked = sessionRepository.findByIdForUpdate(uploadId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Upload session not found: " + uploadId));
+                if (locked.getStatus() != UploadStatus.IN_PROGRESS) {
+                    throw new IllegalStateException("Upload " + uploadId + " is already completed");
+                }
+                if (!missingChunks(locked).isEmpty()) {
+                    throw new IllegalStateException("Upload " + uploadId + " still has missing chunks");
+                }
+                locked.setStatus(UploadStatus.COMPLETED);
+                return sessionRepository.save(locked);
+            });
+        } finally {
+            lock.unlock();
+        }
+
+        DatasetCreateDTO dto = new DatasetCreateDTO();
+        dto.setName(session.getDatasetName());
+        dto.setCategory(session.getCategory());
+        dto.setDescription(session.getDescription());
+        try {
+            DatasetVO dataset = datasetService.createDataset(dto, partFile(uploadId), session.getFilename(),
+                    session.getContentType());
+            logger.info("Upload session {} completed as dataset {}", uploadId, dataset.getName());
+            return dataset;
+        } catch (RuntimeException e) {
+            // 创建失败时恢复会话；存储只在成功后才取走文件，失败时文件仍在原处，可重试
+            session.setStatus(UploadStatus.IN_PROGRESS);
+            sessionRepository.save(session);
+            throw e;
+        }
+    }
+
+    /**
+     * 放弃上传，删除会话与临时文件；已完成（或正在移交存储）的上传不能放弃
+     */
+    public void abort(String uploadId) throws IOException {
+        Lock lock = lockFor(uploadId).writeLock();
+        lock.lock();
+        try {
+            UploadSession session = findSession(uploadId);
+            if (session.getStatus() != UploadStatus.IN_PROGRESS) {
+                throw new IllegalStateException("Upload " + uploadId + " is already completed");
+            }
+            sessionRepository.delete(session);
+            Files.deleteIfExists(partFile(uploadId));
+        } finally {
+            lock.unlock();
+        }
+        logger.info("Upload session {} aborted", uploadId);
+    }
+
+    // 定期清理长时间无进展的会话，以及进程中断时遗留的分片临时文件
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+    public void cleanupExpiredSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(expireAfter);
+        for (UploadSession session : sessionRepository.findByStatusAndUpdatedAtBefore(UploadStatus.IN_PROGRESS,
+                cutoff)) {
+            try {
+                abort(session.getId());
+            } catch (Exception e) {
+                logger.warn("Failed to clean up upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        sweepOrphanedChunks(cutoff.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // 正在接收的分片文件持续被写入，超过会话过期时间仍未修改的即为遗留文件
+    private void sweepOrphanedChunks(Instant cutoff) {
+        int deleted = 0;
+        try (DirectoryStream<Path> chunks = Files.newDirectoryStream(uploadDir, "*.chunk")) {
+            for (Path chunk : chunks) {
+                try {
+                    if (Files.getLastModifiedTime(chunk).toInstant().isBefore(cutoff) && Files.deleteIfExists(chunk)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    logger.warn("Failed to delete orphaned chunk {}: {}", chunk, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to list chunk files in {}: {}", uploadDir, e.getMessage());
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} orphaned chunk files", deleted);
+        }
+    }
+
+    private ReadWriteLock lockFor(String uploadId) {
+        return sessionLocks[Math.floorMod(uploadId.hashCode(), sessionLocks.length)];
+    }
+
+    private UploadSession findSession(String uploadId) {
+        return sessionRepository.findById(uploadId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload session not found: " + uploadId));
+    }
+
+    private Path partFile(String uploadId) {
+        // 会话 id 由服务端生成，这里仍按 UUID 解析，防止路径穿越
+        return uploadDir.resolve(UUID.fromString(uploadId) + ".part");
+    }
+
+    private List<Integer> missingChunks(UploadSession session) {
+        BitSet received = BitSet.valueOf(session.getReceivedChunks());
+        int totalChunks = totalChunks(session);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = received.nextClearBit(0); i < totalChunks; i = received.nextClearBit(i + 1)) {
+            missing.add(i);
+        }
+        return missing;
+    }
+
+    private int totalChunks(UploadSession session) {
+        return (int) ((session.getTotalSize() + session.getChunkSize() - 1) / session.getChunkSize());
+    }
+
+    private UploadSessionVO toVO(UploadSession session) {
+        UploadSessionVO vo = new UploadSessionVO();
+        vo.setUploadId(session.getId());
+        vo.setStatus(session.getStatus());
+        vo.setTotalSize(session.getTotalSize());
+        vo.setChunkSize(session.getChunkSize());
+        vo.setTotalChunks(totalChunks(session));
+        vo.setReceivedBytes(session.getReceivedBytes());
+        vo.setMissingChunks(missingChunks(session));
+        return vo;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.stats.RankTests;
+import com.tancilon.aggspringboot.vo.CriticalDifferenceVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 跨数据集的临界差分析
+ *
+ * 从 PerformanceCube 取出指标在某 k 上的 算法 × 数据集 矩阵，只保留所选算法都有结果的数据集，
+ * 在每个数据集内按数值排秩后做 Friedman 检验、Nemenyi 临界差与 Holm 校正的两两比较，整个过程只访问内存。
+ */
+@Service
+public class CriticalDifferenceService {
+    private static final Logger logger = LoggerFactory.getLogger(CriticalDifferenceService.class);
+
+    private final PerformanceCube performanceCube;
+
+    public CriticalDifferenceService(PerformanceCube performanceCube) {
+        this.performanceCube = performanceCube;
+    }
+
+    /**
+     * @param algorithmNames 参与比较的算法，为空时取该指标下有结果的全部算法
+     */
+    public CriticalDifferenceVO analyze(String metric, Integer k, Collection<String> algorithmNames, double alpha) {
+        if (!(alpha > 0 && alpha < 1)) {
+            throw new IllegalArgumentException("alpha must be between 0 and 1");
+        }
+        long start = System.currentTimeMillis();
+        PerformanceCube.ScoreMatrix matrix = performanceCube.getScoreMatrix(metric, k);
+        if (matrix.algorithms().isEmpty()) {
+            throw new ResourceNotFoundException("No results of metric " + metric
+                    + (k != null ? " at k = " + k : ""));
+        }
+
+        int[] selected = select(matrix, algorithmNames);
+        if (selected.length < 2) {
+            throw new IllegalArgumentException("Choose at least 2 algorithms");
+        }
+
+        // 只保留所选算法都有数值的数据集，转置为 scores[dataset][algorithm]
+        List<double[]> rows = new ArrayList<>();
+        for (int d = 0; d < matrix.datasets().size(); d++) {
+            double[] row = new double[selected.length];
+            boolean complete = true;
+            for (int i = 0; i < selected.length && complete; i++) {
+                row[i] = matrix.values()[selected[i]][d];
+                complete = !Double.isNaN(row[i]);
+            }
+            if (complete) {
+                rows.add(row);
+            }
+        }
+        int skipped = matrix.datasets().size() - rows.size();
+        if (rows.size() < 2) {
+            throw new IllegalStateException("Only " + rows.size() + " datasets have results of all " + selected.length
+                    + " algorithms, choose fewer algorithms");
+        }
+        double[][] scores = rows.toArray(new double[0][]);
+
+        RankTests.Friedman friedman = RankTests.friedman(scores);
+        RankTests.Nemenyi nemenyi = RankTests.nemenyi(selected.length, scores.length, alpha);
+        List<RankTests.Comparison> comparisons = RankTests.holm(friedman.averageRanks(), scores.length);
+
+        CriticalDifferenceVO vo = new CriticalDifferenceVO();
+        vo.setMetric(metric);
+        vo.setK(k);
+        vo.setAlpha(alpha);
+        vo.setDatasets(scores.length);
+        vo.setSkippedDatasets(skipped);
+        vo.setRanks(toRanks(matrix, selected, scores, friedman.averageRanks()));
+        vo.setFriedman(toFriedman(friedman));
+
+        CriticalDifferenceVO.Nemenyi nemenyiVO = new CriticalDifferenceVO.Nemenyi();
+        nemenyiVO.setCriticalQ(nemenyi.criticalQ());
+        nemenyiVO.setCriticalDifference(nemenyi.criticalDifference());
+        vo.setNemenyi(nemenyiVO);
+        vo.setCliques(toCliques(vo.getRanks(), nemenyi.criticalDifference()));
+
+        List<CriticalDifferenceVO.Comparison> comparisonVOs = new ArrayList<>(comparisons.size());
+        for (RankTests.Comparison comparison : comparisons) {
+            CriticalDifferenceVO.Comparison comparisonVO = new CriticalDifferenceVO.Comparison();
+            comparisonVO.setAlgorithmA(matrix.algorithms().get(selected[comparison.first()]));
+            comparisonVO.setAlgorithmB(matrix.algorithms().get(selected[comparison.second()]));
+            comparisonVO.setRankDifference(friedman.averageRanks()[comparison.first()]
+                    - friedman.averageRanks()[comparison.second()]);
+            comparisonVO.setZ(comparison.z());
+            comparisonVO.setUnadjustedP(comparison.pValue());
+            comparisonVO.setHolmP(comparison.adjustedPValue());
+            comparisonVO.setSignificant(comparison.adjustedPValue() < alpha);
+            comparisonVOs.add(comparisonVO);
+        }
+        vo.setComparisons(comparisonVOs);
+
+        vo.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Critical difference analysis of {}@{}: {} algorithms over {} datasets in {} ms", metric, k,
+                selected.length, scores.length, vo.getDurationMs());
+        return vo;
+    }
+
+    // 所选算法在矩阵中的行号
+    private static int[] select(PerformanceCube.ScoreMatrix matrix, Collection<String> algorithmNames) {
+        if (algorithmNames == null || algorithmNames.isEmpty()) {
+            int[] all = new int[matrix.algorithms().size()];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        return algorithmNames.stream().distinct().mapToInt(name -> {
+            int index = matrix.algorithms().indexOf(name);
+            if (index < 0) {
+                throw new ResourceNotFoundException("No results of algorithm " + name + " for this metric");
+            }
+            return index;
+        }).toArray();
+    }
+
+    private static List<CriticalDifferenceVO.AlgorithmRank> toRanks(PerformanceCube.ScoreMatrix matrix,
+            int[] selected, double[][] scores, double[] averageRanks) {
+        List<CriticalDifferenceVO.AlgorithmRank> ranks = new ArrayList<>(selected.length);
+        for (int i = 0; i < selected.length; i++) {
+            double sum = 0;
+            for (double[] row : scores) {
+                sum += row[i];
+            }
+            CriticalDifferenceVO.AlgorithmRank rank = new CriticalDifferenceVO.AlgorithmRank();
+            rank.setAlgorithm(matrix.algorithms().get(selected[i]));
+            rank.setAverageRank(averageRanks[i]);
+            rank.setMeanValue(sum / scores.length);
+            ranks.add(rank);
+        }
+        ranks.sort((a, b) -> Double.compare(a.getAverageRank(), b.getAverageRank()));
+        return ranks;
+    }
+
+    private static CriticalDifferenceVO.Friedman toFriedman(RankTests.Friedman friedman) {
+        CriticalDifferenceVO.Friedman vo = new CriticalDifferenceVO.Friedman();
+        vo.setChiSquare(friedman.chiSquare());
+        vo.setDegreesOfFreedom(friedman.degreesOfFreedom());
+        vo.setChiSquareP(friedman.chiSquareP());
+        vo.setImanDavenportF(friedman.imanDavenportF());
+        vo.setDenominatorDegreesOfFreedom(friedman.denominatorDegreesOfFreedom());
+        vo.setImanDavenportP(friedman.imanDavenportP());
+        return vo;
+    }
+
+    // 按平均秩排序后，从每个算法向后延伸到平均秩差小于临界差的最后一个算法，只保留不被前一组包含的最大组
+    private static List<CriticalDifferenceVO.Clique> toCliques(List<CriticalDifferenceVO.AlgorithmRank> ranks,
+            double criticalDifference) {
+        List<CriticalDifferenceVO.Clique> cliques = new ArrayList<>();
+        int lastEnd = 0;
+        for (int i = 0; i < ranks.size(); i++) {
+            int end = i;
+            while (end + 1 < ranks.size()
+                    && ranks.get(end + 1).getAverageRank() - ranks.get(i).getAverageRank() < criticalDifference) {
+                end++;
+            }
+            if (end > i && end > lastEnd) {
+                List<String> members = new ArrayList<>();
+                for (int j = i; j <= end; j++) {
+                    members.add(ranks.get(j).getAlgorithm());
+                }
+                CriticalDifferenceVO.Clique clique = new CriticalDifferenceVO.Clique();
+                clique.setFromRank(ranks.get(i).getAverageRank());
+                clique.setToRank(ranks.get(end).getAverageRank());
+                clique.setAlgorithms(members);
+                cliques.add(clique);
+                lastEnd = end;
+            }
+        }
+        return cliques;
+    }
+}
@@ -0,0 +1,93 @@
+package com.tancilon.aggspringboot.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局数据版本号
+ *
+ * 结果、数据集、算法、指标任一写操作提交后递增。读接口先取得版本快照，客户端携带的 If-None-Match
+ * 或 If-Modified-Since 仍有效时直接返回 304，不执行任何查询；否则读取数据，成功时以快照生成强 ETag
+ * 与 Last-Modified。参数错误、资源不存在等错误响应不带 ETag，客户端不会把错误当作可复用的缓存。
+ */
+@Service
+public class DataVersionService {
+
+    // 以启动时间作为初始版本，避免重启后版本号重复导致客户端沿用旧数据
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * 读取数据之前的版本；先读 lastModified，并发写入时宁可让客户端多验证一次
+     */
+    public Snapshot snapshot() {
+        long modified = lastModified;
+        return new Snapshot(version.get(), modified);
+    }
+
+    /**
+     * 标记数据已变更；处于事务中时在提交后才递增，避免读到新版本号却拿到旧数据
+     */
+    public void markChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+
+    private void increment() {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+
+    public record Snapshot(long version, long lastModified) {
+
+        public String eTag() {
+            return "\"v" + version + "\"";
+        }
+
+        /**
+         * 按快照校验条件请求；只读取请求头，不向响应写入 ETag，未命中时错误响应仍不带 ETag
+         */
+        public boolean isNotModified(HttpServletRequest request) {
+            return new ServletWebRequest(request).checkNotModified(eTag(), lastModified);
+        }
+
+        /**
+         * 条件请求命中时的 304 响应
+         */
+        public <T> ResponseEntity<T> notModified() {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache()).eTag(eTag()).lastModified(lastModified).build();
+        }
+
+        /**
+         * 读接口成功时的响应：no-cache 并带上快照的 ETag 与 Last-Modified
+         */
+        public ResponseEntity.BodyBuilder ok() {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag()).lastModified(lastModified);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.entity.DatasetProfile;
+import com.tancilon.aggspringboot.enums.JobStatus;
+import com.tancilon.aggspringboot.event.DatasetBinaryReadyEvent;
+import com.tancilon.aggspringboot.event.DatasetFileStoredEvent;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.ranking.RankingProfile;
+import com.tancilon.aggspringboot.ranking.RankingProfiler;
+import com.tancilon.aggspringboot.repository.DatasetProfileRepository;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.vo.DatasetProfileVO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据集文件统计
+ *
+ * 数据集文件写入并提交后，由后台线程单遍扫描文件（普通文件使用内存映射），统计查询数、输入排序数、
+ * 排序长度分布、去重条目数与格式特征，结果保存在 dataset_profiles 表中。详情页直接读取概要，
+ * 随后按统计出的规模预分配缓冲区，将文件转换为二进制排序格式供评测与聚合使用。
+ */
+@Service
+public class DatasetProfileService {
+    private static final Logger logger = LoggerFactory.getLogger(DatasetProfileService.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final DatasetProfileRepository profileRepository;
+    private final DatasetRepository datasetRepository;
+    private final FileStorageService fileStorageService;
+    private final RankingDatasetService rankingDatasetService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService executor;
+
+    // 已排队或正在扫描的数据集，避免重复提交
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    // 扫描期间文件又被替换的数据集，本轮结束后重新扫描
+    private final Set<Long> rescan = ConcurrentHashMap.newKeySet();
+
+    public DatasetProfileService(DatasetProfileRepository profileRepository,
+            DatasetRepository datasetRepository,
+            FileStorageService fileStorageService,
+            RankingDatasetService rankingDatasetService,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${dataset-profile.worker-threads:1}") int workerThreads) {
+        this.profileRepository = profileRepository;
+        this.datasetRepository = datasetRepository;
+        this.fileStorageService = fileStorageService;
+        this.rankingDatasetService = rankingDatasetService;
+        this.eventPublisher = eventPublisher;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "dataset-profile-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // 提交回调中仍绑定着已完成的事务，这里不写库，概要行由后台线程创建
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDatasetFileStored(DatasetFileStoredEvent event) {
+        enqueue(event.getDatasetId());
+    }
+
+    /**
+     * 将数据集标记为待统计并提交后台扫描
+     */
+    public DatasetProfileVO requestProfile(Long datasetId) {
+        Dataset dataset = datasetRepository.findById(datasetId)
+                .orElseThrow(() -> new ResourceNotFoundException("Dataset not found: " + datasetId));
+        if (dataset.getFileUrl() == null) {
+            throw new IllegalStateException("Dataset " + dataset.getName() + " has no file");
+        }
+        DatasetProfile profile = profileRepository.findByDatasetId(datasetId).orElseGet(DatasetProfile::new);
+        profile.setDatasetId(datasetId);
+        if (!queued.contains(datasetId)) {
+            profile.setStatus(JobStatus.PENDING);
+            profile.setErrorMessage(null);
+            profile = profileRepository.save(profile);
+            enqueue(datasetId);
+        }
+        return toVO(profile);
+    }
+
+    public DatasetProfileVO getProfile(Long datasetId) {
+        return profileRepository.findByDatasetId(datasetId)
+                .map(this::toVO)
+                .orElseThrow(() -> new ResourceNotFoundException("Profile not found for dataset: " + datasetId));
+    }
+
+    /**
+     * 已完成且与当前文件一致的统计概要，供评测阶段预估数据规模
+     */
+    public Optional<DatasetProfile> findCompletedProfile(Dataset dataset) {
+        return profileRepository.findByDatasetId(dataset.getId())
+                .filter(profile -> profile.getStatus() == JobStatus.SUCCEEDED)
+                .filter(profile -> dataset.getFileUrl() != null && dataset.getFileUrl().equals(profile.getFileUrl()));
+    }
+
+    // 重新提交上次未完成的统计，并补齐此前上传、尚无概要的数据集
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeProfiling() {
+        List<DatasetProfile> unfinished = profileRepository.findByStatusIn(
+                EnumSet.of(JobStatus.PENDING, JobStatus.RUNNING));
+        for (DatasetProfile profile : unfinished) {
+            enqueue(profile.getDatasetId());
+        }
+        List<Long> missing = profileRepository.findUnprofiledDatasetIds();
+        for (Long datasetId : missing) {
+            enqueue(datasetId);
+        }
+        if (!unfinished.isEmpty() || !missing.isEmpty()) {
+            logger.info("Queued {} dataset profiles ({} resumed, {} missing)",
+                    unfinished.size() + missing.size(), unfinished.size(), missing.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 已在队列中时只做标记，避免扫描中途替换的文件被旧结果覆盖后不再统计
+    private synchronized void enqueue(Long datasetId) {
+        if (!queued.add(datasetId)) {
+            rescan.add(datasetId);
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                // 开始前的替换都会被本轮读到，只有之后的替换才需要重新扫描
+                rescan.remove(datasetId);
+                run(datasetId);
+            } finally {
+                finished(datasetId);
+            }
+        });
+    }
+
+    private synchronized void finished(Long datasetId) {
+        queued.remove(datasetId);
+        if (rescan.remove(datasetId)) {
+            enqueue(datasetId);
+        }
+    }
+
+    private void run(Long datasetId) {
+        Dataset dataset = datasetRepository.findById(datasetId).orElse(null);
+        if (dataset == null || dataset.getFileUrl() == null) {
+            return;
+        }
+        DatasetProfile profile = profileRepository.findByDatasetId(datasetId).orElseGet(DatasetProfile::new);
+        profile.setDatasetId(datasetId);
+        profile.setStatus(JobStatus.RUNNING);
+        profile.setFileUrl(dataset.getFileUrl());
+        profile = profileRepository.save(profile);
+
+        long start = System.currentTimeMillis();
+        try {
+            Path file = fileStorageService.resolveFile(dataset.getFileUrl());
+            RankingProfile result = new RankingProfiler().profile(file,
+                    fileStorageService.getDownloadFilename(dataset.getFileUrl()));
+            BeanUtils.copyProperties(result, profile);
+            profile.setStatus(JobStatus.SUCCEEDED);
+            profile.setErrorMessage(null);
+            logger.info("Profiled dataset {}: {} rows, {} queries, {} rankings, {} items in {} ms",
+                    dataset.getName(), result.getRowCount(), result.getQueryCount(), result.getRankingCount(),
+                    result.getItemCount(), System.currentTimeMillis() - start);
+            convertToBinary(dataset, profile);
+        } catch (Exception e) {
+            logger.error("Failed to profile dataset {}", dataset.getName(), e);
+            profile.setStatus(JobStatus.FAILED);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            profile.setErrorMessage(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        }
+        profile.setDurationMs(System.currentTimeMillis() - start);
+        profile.setProfiledAt(LocalDateTime.now());
+        profileRepository.save(profile);
+        if (profile.getStatus() == JobStatus.SUCCEEDED && profile.getBinarySize() != null) {
+            eventPublisher.publishEvent(new DatasetBinaryReadyEvent(datasetId));
+        }
+    }
+
+    // 按统计结果预分配缓冲区转换为二进制格式，失败不影响统计概要本身
+    private void convertToBinary(Dataset dataset, DatasetProfile profile) {
+        try {
+            profile.setBinarySize(rankingDatasetService.convert(dataset, profile));
+        } catch (Exception e) {
+            logger.error("Failed to convert dataset {} to binary ranking format", dataset.getName(), e);
+            profile.setBinarySize(null);
+            String message = "Binary conversion failed: " + e.getMessage();
+            profile.setErrorMessage(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        }
+    }
+
+    private DatasetProfileVO toVO(DatasetProfile profile) {
+        DatasetProfileVO vo = new DatasetProfileVO();
+        BeanUtils.copyProperties(profile, vo);
+        vo.setError(profile.getErrorMessage());
+        return vo;
+    }
+}
@@ -22,6 +22,7 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 
 import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.exception.ResourceAlreadyExistsException;
 import com.tancilon.aggspringboot.entity.MetricScore;
 import com.tancilon.aggspringboot.repository.DatasetRepository;
 import com.tancilon.aggspringboot.vo.CategoryStatsVO;
@@ -29,6 +30,8 @@ import com.tancilon.aggspringboot.vo.DatasetVO;
 import com.tancilon.aggspringboot.vo.MetricScoreVO;
 import com.tancilon.aggspringboot.dto.DatasetCreateDTO;
 import com.tancilon.aggspringboot.service.FileStorageService;
+import com.tancilon.aggspringboot.event.DatasetFileStoredEvent;
+import org.springframework.context.ApplicationEventPublisher;
 
 @Service
 @Transactional(readOnly = true)
@@ -42,6 +45,12 @@ public class DatasetService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Page<DatasetVO> getDatasets(Pageable pageable, String category) {
         logger.info("Fetching datasets: page={}, size={}, category={}", pageable.getPageNumber(),
                 pageable.getPageSize(), category);
@@ -72,26 +81,49 @@ public class DatasetService {
         try {
             // 保存文件
             String fileUrl = fileStorageService.storeFile(file);
-
-            // 创建数据集实体
-            Dataset dataset = new Dataset();
-            dataset.setName(dto.getName());
-            dataset.setCategory(dto.getCategory());
-            dataset.setDescription(dto.getDescription());
-            dataset.setFileUrl(fileUrl);
-            // createdAt 字段会由 @CreationTimestamp 自动填充
-
-            // 保存到数据库
-            dataset = datasetRepository.save(dataset);
-            logger.info("Dataset created with id: {}", dataset.getId());
-
-            return convertToVO(dataset);
+            return saveDataset(dto, fileUrl);
         } catch (Exception e) {
             logger.error("Error creating dataset", e);
             throw new RuntimeException("Failed to create dataset", e);
         }
     }
 
+    /**
+     * 以分片上传拼好的文件创建数据集，文件直接移入存储，不再复制
+     */
+    @Transactional
+    public DatasetVO createDataset(DatasetCreateDTO dto, Path file, String filename, String contentType) {
+        if (datasetRepository.existsByName(dto.getName())) {
+            throw new ResourceAlreadyExistsException("Dataset with name '" + dto.getName() + "' already exists");
+        }
+        try {
+            String fileUrl = fileStorageService.storeFile(file, filename, contentType);
+            return saveDataset(dto, fileUrl);
+        } catch (IOException e) {
+            logger.error("Error creating dataset from uploaded file", e);
+            throw new RuntimeException("Failed to create dataset", e);
+        }
+    }
+
+    private DatasetVO saveDataset(DatasetCreateDTO dto, String fileUrl) {
+        // 创建数据集实体
+        Dataset dataset = new Dataset();
+        dataset.setName(dto.getName());
+        dataset.setCategory(dto.getCategory());
+        dataset.setDescription(dto.getDescription());
+        dataset.setFileUrl(fileUrl);
+        // createdAt 字段会由 @CreationTimestamp 自动填充
+
+        // 保存到数据库
+        dataset = datasetRepository.save(dataset);
+        logger.info("Dataset created with id: {}", dataset.getId());
+        dataVersionService.markChanged();
+        // 提交后在后台统计文件内容
+        eventPublisher.publishEvent(new DatasetFileStoredEvent(dataset.getId()));
+
+        return convertToVO(dataset);
+    }
+
     private DatasetVO convertToVO(Dataset dataset) {
         DatasetVO vo = new DatasetVO();
         BeanUtils.copyProperties(dataset, vo);
@@ -143,7 +175,12 @@ public class DatasetService {
                 dataset.setFileUrl(fileUrl);
             }
 
-            return datasetRepository.save(dataset);
+            Dataset saved = datasetRepository.save(dataset);
+            dataVersionService.markChanged();
+            if (saved.getFileUrl() != null) {
+                eventPublisher.publishEvent(new DatasetFileStoredEvent(saved.getId()));
+            }
+            return saved;
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to create dataset: " + e.getMessage(), e);
@@ -0,0 +1,225 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.dto.ResultSubmitDTO;
+import com.tancilon.aggspringboot.entity.Algorithm;
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.ranking.AggregatedRanking;
+import com.tancilon.aggspringboot.ranking.AggregatedRankingReader;
+import com.tancilon.aggspringboot.ranking.AtKEvaluation;
+import com.tancilon.aggspringboot.ranking.AtKEvaluator;
+import com.tancilon.aggspringboot.ranking.MetricKernel;
+import com.tancilon.aggspringboot.ranking.RankingDataset;
+import com.tancilon.aggspringboot.repository.AlgorithmRepository;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.repository.MetricRepository;
+import com.tancilon.aggspringboot.vo.EvaluationVO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务端评测
+ *
+ * 以数据集二进制文件中的相关性判断为基准，对算法的聚合排序输出计算指标表中所有有计算核的指标
+ * （@k 指标取 k = 5, 10, ..., 100），查询在独立的 fork/join 线程池中并行评测。结果组装为与上传接口相同的提交格式，经 ResultIngestionService 写入，
+ * 校验、upsert、数据版本与缓存刷新都与客户端上传一致；写入的排序同时保存为抽样复核的基准，
+ * 逐查询数值保存为压缩块供下钻分析。
+ */
+@Service
+public class EvaluationService {
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationService.class);
+
+    private final DatasetRepository datasetRepository;
+    private final AlgorithmRepository algorithmRepository;
+    private final RankingDatasetService rankingDatasetService;
+    private final ResultIngestionService resultIngestionService;
+    private final ReferenceRankingService referenceRankingService;
+    private final MetricRepository metricRepository;
+    private final MetricKernelRegistry metricKernelRegistry;
+    private final QueryScoreService queryScoreService;
+    private final ForkJoinPool pool;
+
+    public EvaluationService(DatasetRepository datasetRepository,
+            AlgorithmRepository algorithmRepository,
+            RankingDatasetService rankingDatasetService,
+            ResultIngestionService resultIngestionService,
+            ReferenceRankingService referenceRankingService,
+            MetricRepository metricRepository,
+            MetricKernelRegistry metricKernelRegistry,
+            QueryScoreService queryScoreService,
+            @Value("${evaluation.parallelism:0}") int parallelism) {
+        this.datasetRepository = datasetRepository;
+        this.algorithmRepository = algorithmRepository;
+        this.rankingDatasetService = rankingDatasetService;
+        this.resultIngestionService = resultIngestionService;
+        this.referenceRankingService = referenceRankingService;
+        this.metricRepository = metricRepository;
+        this.metricKernelRegistry = metricKernelRegistry;
+        this.queryScoreService = queryScoreService;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread =
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("evaluation-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 评测算法在数据集上的聚合排序输出，save 为 true 时写入结果表
+     *
+     * @param body 文本格式的聚合排序输出，格式见 AggregatedRankingReader
+     */
+    public EvaluationVO evaluate(String algorithm, String datasetName, InputStream body, boolean save)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        if (algorithmRepository.findByName(algorithm).isEmpty()) {
+            throw new ResourceNotFoundException("Algorithm not found: " + algorithm);
+        }
+        RankingDataset truth = openGroundTruth(datasetName);
+
+        AggregatedRankingReader reader = new AggregatedRankingReader(truth);
+        AggregatedRanking ranking = reader.read(body);
+        if (reader.getRowCount() == 0) {
+            throw new IllegalArgumentException("No ranking rows match the queries of dataset " + datasetName);
+        }
+        EvaluationVO vo = evaluate(algorithm, datasetName, truth, ranking, save);
+        vo.setRowCount(reader.getRowCount());
+        vo.setMalformedRows(reader.getMalformedRowCount());
+        vo.setUnknownQueryRows(reader.getUnknownQueryRowCount());
+        vo.setUnknownItemRows(reader.getUnknownItemRowCount());
+        vo.setDuplicateRows(reader.getDuplicateRowCount());
+        vo.setDurationMs(System.currentTimeMillis() - start);
+        return vo;
+    }
+
+    /**
+     * 评测已按数据集 id 编码的聚合排序（来自上传文件或内置聚合算法），save 为 true 时写入结果表
+     */
+    public EvaluationVO evaluate(String algorithm, String datasetName, RankingDataset truth,
+            AggregatedRanking ranking, boolean save) throws IOException {
+        long start = System.currentTimeMillis();
+        AtKEvaluation evaluation = evaluate(truth, ranking);
+        if (evaluation.evaluatedQueryCount() == 0) {
+            throw new IllegalStateException("Dataset " + datasetName + " has no query with relevant items");
+        }
+
+        EvaluationVO vo = new EvaluationVO();
+        vo.setAlgorithm(algorithm);
+        vo.setDataset(datasetName);
+        vo.setEvaluatedQueries(evaluation.evaluatedQueryCount());
+        int missing = 0;
+        for (int q = 0; q < evaluation.queryCount(); q++) {
+            if (evaluation.isEvaluated(q) && ranking.length(q) == 0) {
+                missing++;
+            }
+        }
+        vo.setMissingQueries(missing);
+        vo.setRowCount(ranking.entryCount());
+        vo.setMetrics(toMetrics(evaluation));
+
+        if (save) {
+            ResultSubmitDTO submission = new ResultSubmitDTO();
+            submission.setAlgorithm(algorithm);
+            submission.setDataset(datasetName);
+            submission.setMetrics(new LinkedHashMap<>(vo.getMetrics()));
+            vo.setIngestion(resultIngestionService.ingest(submission));
+            storeDetails(algorithm, datasetName, ranking, evaluation);
+        }
+        vo.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Evaluated {} on {}: {} queries, {} entries in {} ms", algorithm, datasetName,
+                evaluation.evaluatedQueryCount(), ranking.entryCount(), vo.getDurationMs());
+        return vo;
+    }
+
+    /**
+     * 在评测线程池中以指标表中有计算核的指标评测全部查询
+     */
+    public AtKEvaluation evaluate(RankingDataset truth, AggregatedRanking ranking) {
+        return new AtKEvaluator(truth, getKernels()).evaluate(ranking, pool);
+    }
+
+    /**
+     * 指标表中有计算核的指标，一个都没有时无法评测
+     */
+    public List<MetricKernel> getKernels() {
+        List<MetricKernel> kernels = metricKernelRegistry.kernels(metricRepository.findAll());
+        if (kernels.isEmpty()) {
+            throw new IllegalStateException("No metric in the catalog has an evaluation kernel");
+        }
+        return kernels;
+    }
+
+    /**
+     * 打开数据集的二进制视图作为评测基准，数据集没有相关性判断时无法评测
+     */
+    public RankingDataset openGroundTruth(String datasetName) throws IOException {
+        Dataset dataset = datasetRepository.findByName(datasetName);
+        if (dataset == null) {
+            throw new ResourceNotFoundException("Dataset not found: " + datasetName);
+        }
+        RankingDataset truth = rankingDatasetService.open(dataset);
+        if (truth.judgmentCount() == 0) {
+            throw new IllegalStateException("Dataset " + datasetName + " has no relevance judgments");
+        }
+        return truth;
+    }
+
+    // 写入结果的排序保存为复核基准，逐查询数值保存供下钻分析；保存失败不影响已写入的结果
+    private void storeDetails(String algorithm, String datasetName, AggregatedRanking ranking,
+            AtKEvaluation evaluation) {
+        Algorithm entity = algorithmRepository.findByName(algorithm).orElse(null);
+        Dataset dataset = datasetRepository.findByName(datasetName);
+        if (entity == null || dataset == null) {
+            return;
+        }
+        try {
+            referenceRankingService.store(entity.getId(), dataset, ranking);
+        } catch (Exception e) {
+            logger.warn("Failed to store reference ranking of {} on {}: {}", algorithm, datasetName, e.getMessage());
+        }
+        try {
+            queryScoreService.store(entity.getId(), dataset, evaluation);
+        } catch (Exception e) {
+            logger.warn("Failed to store per-query scores of {} on {}: {}", algorithm, datasetName, e.getMessage());
+        }
+    }
+
+    // 与结果上传格式一致：@k 指标为 k -> 值，其他指标直接为数值
+    private Map<String, Object> toMetrics(AtKEvaluation evaluation) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (int m = 0; m < evaluation.kernelCount(); m++) {
+            MetricKernel kernel = evaluation.kernel(m);
+            if (kernel.isAtK()) {
+                Map<Integer, Double> values = new LinkedHashMap<>();
+                for (int i = 0; i < AtKEvaluator.K_COUNT; i++) {
+                    values.put(AtKEvaluator.k(i), evaluation.mean(m, i));
+                }
+                metrics.put(kernel.name(), values);
+            } else {
+                metrics.put(kernel.name(), evaluation.mean(m, 0));
+            }
+        }
+        return metrics;
+    }
+}
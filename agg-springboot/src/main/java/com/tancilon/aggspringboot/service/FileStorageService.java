@@ -1,41 +1,94 @@
 package com.tancilon.aggspringboot.service;
 
+import org.springframework.core.Ordered;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.HexFormat;
 import java.util.UUID;
 import com.tancilon.aggspringboot.config.StorageProperties;
+import com.tancilon.aggspringboot.entity.FileHandle;
+import com.tancilon.aggspringboot.entity.StoredObject;
+import com.tancilon.aggspringboot.repository.FileHandleRepository;
+import com.tancilon.aggspringboot.repository.StoredObjectRepository;
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
-import org.springframework.util.FileSystemUtils;
-import com.tancilon.aggspringboot.dto.DownloadResultsRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * 上传文件存储
+ *
+ * 新上传的文件按内容寻址：写盘时一次读取同时计算 SHA-256，对象存放在 objects/{前两位}/{三四位}/{sha256}，
+ * 内容相同的上传只保存一份，通过 StoredObject 的引用计数管理。实体中保存的是逻辑句柄
+ * files/{句柄}/{原始文件名}，旧数据中的 uploads 相对路径仍按原方式解析。
+ * 对象记录随调用方的事务一起提交，文件在提交后才移入对象目录；事务回滚时不留下没有记录的对象文件。
+ * 提交后放置对象文件与引用归零后删除对象文件在同一内容摘要的锁内进行，二者不会交错。
+ */
 @Service
 public class FileStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+
+    private static final String HANDLE_PREFIX = "files/";
+    private static final String OBJECTS_DIR = "objects";
+    private static final int MAX_FILENAME_LENGTH = 180;
+    private static final int OBJECT_LOCK_STRIPES = 64;
 
     private Path fileStorageLocation;
+    private Path objectsLocation;
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate newTransactionTemplate;
+
+    // 按内容摘要分段的锁，放置与删除同一对象文件时互斥
+    private final Object[] objectLocks = new Object[OBJECT_LOCK_STRIPES];
 
     @Autowired
     private StorageProperties storageProperties;
 
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private FileHandleRepository fileHandleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @PostConstruct
     public void init() {
         this.fileStorageLocation = Paths.get(storageProperties.getUploadDir())
                 .toAbsolutePath().normalize();
+        this.objectsLocation = this.fileStorageLocation.resolve(OBJECTS_DIR);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < objectLocks.length; i++) {
+            objectLocks[i] = new Object();
+        }
         try {
             Files.createDirectories(this.fileStorageLocation);
             // 创建子目录
             Files.createDirectories(this.fileStorageLocation.resolve("bib"));
             Files.createDirectories(this.fileStorageLocation.resolve("algorithmImp"));
             Files.createDirectories(this.fileStorageLocation.resolve("metricImp"));
+            Files.createDirectories(this.objectsLocation.resolve("tmp"));
         } catch (IOException e) {
             throw new RuntimeException("Could not create upload directory", e);
         }
@@ -46,30 +99,234 @@ public class FileStorageService {
     }
 
     public String storeFile(MultipartFile file) {
-        try {
-            // 生成唯一文件名
-            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
+        try (InputStream in = file.getInputStream()) {
+            return storeFile(in, file.getOriginalFilename(), file.getContentType());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store file", e);
+        }
+    }
 
-            // 保存文件
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * 保存文件内容并返回新的逻辑句柄，内容在事务提交后移入对象目录
+     */
+    public String storeFile(InputStream content, String originalFilename, String contentType) throws IOException {
+        // 边写临时文件边计算摘要，只读取一遍上传内容
+        Path temp = objectsLocation.resolve("tmp").resolve(UUID.randomUUID().toString());
+        MessageDigest digest = sha256();
+        long size;
+        try (DigestInputStream in = new DigestInputStream(content, digest)) {
+            size = Files.copy(in, temp);
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
 
-            return fileName;
-        } catch (Exception e) {
-            throw new RuntimeException("Could not store file", e);
+        return register(temp, true, sha256, size, sanitize(originalFilename), contentType);
+    }
+
+    /**
+     * 将已写好的文件（如工作目录中合并完成的分片上传）移入存储并返回新的逻辑句柄。
+     * 事务提交后源文件不再存在；失败或回滚时源文件保持原样，调用方可以重试
+     */
+    public String storeFile(Path source, String originalFilename, String contentType) throws IOException {
+        MessageDigest digest = sha256();
+        long size;
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
         }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+
+        return register(source, false, sha256, size, sanitize(originalFilename), contentType);
     }
 
-    public Resource loadFileAsResource(String fileName) {
+    /**
+     * 为内容对象增加引用并新建句柄。对象行以 upsert 写入，行锁持有到调用方事务提交，
+     * 相同内容的并发上传不会重复创建对象；文件在提交后放入对象目录，回滚时只清理临时文件
+     *
+     * @param deleteOnRollback 源文件是否为本服务写出的临时文件，回滚时需要删除
+     */
+    private String register(Path source, boolean deleteOnRollback, String sha256, long size, String filename,
+            String contentType) {
+        return transactionTemplate.execute(status -> {
+            Path objectPath = objectPath(sha256);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // 先于提交后的事件监听执行，监听方读取文件时对象已经就位
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    place(source, deleteOnRollback, sha256);
+                }
+
+                @Override
+                public void afterCompletion(int completion) {
+                    if (completion != STATUS_COMMITTED && deleteOnRollback) {
+                        deleteQuietly(source);
+                    }
+                }
+            });
+
+            if (storedObjectRepository.upsertReference(sha256, size) > 1) {
+                logger.info("Deduplicated upload {} against stored object {}", filename, sha256);
+            }
+            StoredObject object = storedObjectRepository.findBySha256(sha256)
+                    .orElseThrow(() -> new IllegalStateException("Stored object " + sha256 + " is missing"));
+
+            FileHandle handle = new FileHandle();
+            handle.setHandle(UUID.randomUUID().toString());
+            handle.setStoredObject(object);
+            handle.setOriginalFilename(filename);
+            handle.setContentType(contentType);
+            fileHandleRepository.save(handle);
+            return HANDLE_PREFIX + handle.getHandle() + "/" + filename;
+        });
+    }
+
+    // 提交后放置对象文件：对象目录中已有相同内容时直接丢弃源文件；
+    // 放置失败时记录已提交，只能将对象标记为损坏，读取时报错，相同内容再次上传时重新放置
+    private void place(Path source, boolean temporary, String sha256) {
+        Path objectPath = objectPath(sha256);
+        synchronized (lockFor(sha256)) {
+            if (Files.exists(objectPath)) {
+                deleteQuietly(source);
+                return;
+            }
+            try {
+                Files.createDirectories(objectPath.getParent());
+                moveIntoStore(source, objectPath);
+            } catch (IOException e) {
+                logger.error("Failed to place stored object {}, marking it broken", objectPath, e);
+                if (temporary) {
+                    deleteQuietly(source);
+                }
+                newTransactionTemplate.executeWithoutResult(s -> storedObjectRepository.markBroken(sha256));
+                return;
+            }
+            newTransactionTemplate.executeWithoutResult(s -> {
+                if (storedObjectRepository.clearBroken(sha256) > 0) {
+                    logger.info("Repaired broken stored object {}", sha256);
+                }
+            });
+        }
+    }
+
+    private Object lockFor(String sha256) {
+        return objectLocks[Integer.parseInt(sha256.substring(0, 2), 16) % objectLocks.length];
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete temporary file {}: {}", file, e.getMessage());
+        }
+    }
+
+    // 源文件可能在另一文件系统上（如工作目录中的分片上传），无法原子移动时先复制到对象目录的临时区
+    private void moveIntoStore(Path source, Path objectPath) throws IOException {
         try {
-            if (fileName == null || fileName.trim().isEmpty()) {
-                throw new RuntimeException("File name cannot be null or empty");
+            Files.move(source, objectPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Path staged = objectsLocation.resolve("tmp").resolve(UUID.randomUUID().toString());
+            try {
+                Files.copy(source, staged);
+                Files.move(staged, objectPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+        }
+    }
+
+    /**
+     * 释放一个文件引用：句柄引用计数归零时在事务提交后删除对象文件，旧路径直接删除文件
+     */
+    public void release(String fileName) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            return;
+        }
+        String handle = handleOf(fileName);
+        if (handle == null) {
+            try {
+                Files.deleteIfExists(resolveFile(fileName));
+            } catch (Exception e) {
+                logger.warn("Failed to delete file {}: {}", fileName, e.getMessage());
             }
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> fileHandleRepository.findByHandle(handle)
+                .ifPresent(fileHandle -> {
+                    StoredObject object = fileHandle.getStoredObject();
+                    fileHandleRepository.delete(fileHandle);
+                    fileHandleRepository.flush();
+                    storedObjectRepository.adjustRefCount(object.getId(), -1);
+                    StoredObject current = storedObjectRepository.findById(object.getId()).orElse(null);
+                    if (current != null && current.getRefCount() <= 0) {
+                        storedObjectRepository.delete(current);
+                        String sha256 = current.getSha256();
+                        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                            @Override
+                            public void afterCommit() {
+                                deleteUnreferenced(sha256);
+                            }
+                        });
+                    }
+                }));
+    }
 
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            if (!filePath.startsWith(this.fileStorageLocation)) {
-                throw new RuntimeException("File path is outside of upload directory");
+    // 调用方事务提交后删除对象文件；检查与删除在摘要锁内完成，其间提交的相同内容上传会在之后重新放置文件
+    private void deleteUnreferenced(String sha256) {
+        Path objectPath = objectPath(sha256);
+        synchronized (lockFor(sha256)) {
+            Boolean reused = newTransactionTemplate.execute(s -> storedObjectRepository.existsBySha256(sha256));
+            if (Boolean.TRUE.equals(reused)) {
+                return;
             }
+            try {
+                Files.deleteIfExists(objectPath);
+            } catch (IOException e) {
+                logger.warn("Failed to delete stored object {}: {}", objectPath, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 将存储的逻辑句柄或相对路径解析为上传目录内的文件，拒绝越出上传目录的路径
+     */
+    public Path resolveFile(String fileName) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new RuntimeException("File name cannot be null or empty");
+        }
+
+        String handle = handleOf(fileName);
+        if (handle != null) {
+            FileHandle fileHandle = fileHandleRepository.findByHandle(handle)
+                    .orElseThrow(() -> new RuntimeException("File handle not found: " + handle));
+            StoredObject object = fileHandle.getStoredObject();
+            if (Boolean.TRUE.equals(object.getBroken())) {
+                throw new IllegalStateException("Stored file of " + handle + " is missing, upload it again");
+            }
+            return objectPath(object.getSha256());
+        }
+
+        Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+        if (!filePath.startsWith(this.fileStorageLocation)) {
+            throw new RuntimeException("File path is outside of upload directory");
+        }
+        return filePath;
+    }
+
+    /**
+     * 下载时使用的文件名：句柄与旧路径均取最后一段
+     */
+    public String getDownloadFilename(String fileName) {
+        return fileName.substring(fileName.lastIndexOf('/') + 1);
+    }
+
+    public Resource loadFileAsResource(String fileName) {
+        try {
+            Path filePath = resolveFile(fileName);
 
             Resource resource = new UrlResource(filePath.toUri());
             if (resource.exists()) {
@@ -82,4 +339,34 @@ public class FileStorageService {
             throw new RuntimeException(message, e);
         }
     }
-}
\ No newline at end of file
+
+    private Path objectPath(String sha256) {
+        return objectsLocation.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    // files/{句柄}/{文件名} 形式返回句柄，否则返回 null
+    private String handleOf(String fileName) {
+        if (!fileName.startsWith(HANDLE_PREFIX)) {
+            return null;
+        }
+        int end = fileName.indexOf('/', HANDLE_PREFIX.length());
+        return end < 0 ? fileName.substring(HANDLE_PREFIX.length()) : fileName.substring(HANDLE_PREFIX.length(), end);
+    }
+
+    private String sanitize(String originalFilename) {
+        String name = originalFilename == null ? "" : originalFilename.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1).trim();
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+            name = "file";
+        }
+        return name.length() > MAX_FILENAME_LENGTH ? name.substring(name.length() - MAX_FILENAME_LENGTH) : name;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
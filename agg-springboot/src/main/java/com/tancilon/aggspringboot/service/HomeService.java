@@ -0,0 +1,73 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.repository.AlgorithmRepository;
+import com.tancilon.aggspringboot.repository.ResultRepository;
+import com.tancilon.aggspringboot.vo.DatasetVO;
+import com.tancilon.aggspringboot.vo.HomeSnapshotVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 首页数据聚合：一次返回数据集分页、各数据集的可用指标与首个指标的性能曲线以及分类统计，
+ * 替代前端逐个数据集请求指标和曲线的 2N+1 次调用。
+ */
+@Service
+@Transactional(readOnly = true)
+public class HomeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HomeService.class);
+
+    @Autowired
+    private DatasetService datasetService;
+
+    @Autowired
+    private ResultRepository resultRepository;
+
+    @Autowired
+    private AlgorithmRepository algorithmRepository;
+
+    @Autowired
+    private PerformanceCube performanceCube;
+
+    public HomeSnapshotVO getSnapshot(Pageable pageable, String category) {
+        Page<DatasetVO> datasets = datasetService.getDatasets(pageable, category);
+
+        // 当前页所有数据集的可用指标，一次查询
+        Map<String, List<String>> datasetMetrics = new LinkedHashMap<>();
+        List<Long> datasetIds = datasets.getContent().stream()
+                .map(DatasetVO::getId)
+                .collect(Collectors.toList());
+        if (!datasetIds.isEmpty()) {
+            for (Object[] row : resultRepository.findDistinctMetricsByDatasetIds(datasetIds)) {
+                datasetMetrics.computeIfAbsent((String) row[0], name -> new ArrayList<>()).add((String) row[1]);
+            }
+        }
+
+        // 首个指标的性能曲线直接从内存立方体读取
+        Map<String, Map<String, Object>> datasetPerformance = new LinkedHashMap<>();
+        datasetMetrics.forEach((datasetName, metrics) -> datasetPerformance.put(datasetName,
+                performanceCube.getDatasetMetricPerformance(datasetName, metrics.get(0))));
+
+        HomeSnapshotVO snapshot = new HomeSnapshotVO();
+        snapshot.setDatasets(datasets);
+        snapshot.setDatasetMetrics(datasetMetrics);
+        snapshot.setDatasetPerformance(datasetPerformance);
+        snapshot.setDatasetCategories(datasetService.getCategoryStats());
+        snapshot.setAlgorithmCategories(algorithmRepository.findAllCategoriesWithCount());
+
+        logger.info("Built home snapshot: {} datasets, {} with results",
+                datasets.getNumberOfElements(), datasetMetrics.size());
+        return snapshot;
+    }
+}
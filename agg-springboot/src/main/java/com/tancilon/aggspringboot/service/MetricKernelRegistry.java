@@ -0,0 +1,226 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.entity.Metric;
+import com.tancilon.aggspringboot.ranking.MetricKernel;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 指标计算核的注册表
+ *
+ * 内置核在启动时通过 ServiceLoader 从应用自身的 META-INF/services 发现；指标上传的实现文件为 JAR 时，
+ * 第一次用到该指标时把 JAR 加载到独立的 URLClassLoader 中，以 ServiceLoader 查找其中声明的核。
+ * 插件类加载器的父加载器只暴露 JDK 与 MetricKernel 接口本身，插件看不到也无法覆盖应用的其他类；
+ * 插件必须声明与指标同名的核，同名时插件优先于内置核。
+ *
+ * 插件代码在应用进程内以应用的权限运行，类加载器不构成安全边界，而上传指标的接口没有鉴权。
+ * 因此默认不加载插件；开启后也只加载 SHA-256 在 metric-kernels.trusted-sha256 中的 JAR，
+ * 即管理员审核过内容并显式登记的插件，其余上传的 JAR 一律忽略，指标按名称回退到内置核。
+ */
+@Service
+public class MetricKernelRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MetricKernelRegistry.class);
+
+    private static final String AT_K_TYPE = "at-k";
+
+    private final FileStorageService fileStorageService;
+    private final boolean loadPlugins;
+    private final Set<String> trustedSha256 = new HashSet<>();
+    private final Map<String, MetricKernel> builtIn = new LinkedHashMap<>();
+
+    // 指标名 -> 已加载的插件，实现文件变化时重新加载
+    private final Map<String, Plugin> plugins = new ConcurrentHashMap<>();
+
+    public MetricKernelRegistry(FileStorageService fileStorageService,
+            @Value("${metric-kernels.load-plugins:false}") boolean loadPlugins,
+            @Value("${metric-kernels.trusted-sha256:}") String[] trustedSha256) {
+        this.fileStorageService = fileStorageService;
+        this.loadPlugins = loadPlugins;
+        for (String sha256 : trustedSha256) {
+            if (!sha256.isBlank()) {
+                this.trustedSha256.add(sha256.trim().toLowerCase());
+            }
+        }
+        for (MetricKernel kernel : ServiceLoader.load(MetricKernel.class, MetricKernel.class.getClassLoader())) {
+            if (builtIn.putIfAbsent(kernel.name(), kernel) != null) {
+                logger.warn("Duplicate built-in metric kernel {} ignored: {}", kernel.name(),
+                        kernel.getClass().getName());
+            }
+        }
+        logger.info("Registered built-in metric kernels: {}", builtIn.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (String name : List.copyOf(plugins.keySet())) {
+            unload(name);
+        }
+    }
+
+    public Collection<MetricKernel> getBuiltInKernels() {
+        return builtIn.values();
+    }
+
+    /**
+     * 指标对应的计算核：优先取随指标上传的插件 JAR，其次按指标名取内置核
+     */
+    public Optional<MetricKernel> find(Metric metric) {
+        if (loadPlugins && isPluginJar(metric.getImplementationFile())) {
+            try {
+                return Optional.of(loadPlugin(metric));
+            } catch (Exception e) {
+                logger.warn("Failed to load metric plugin of {}: {}", metric.getName(), e.getMessage());
+            }
+        }
+        return Optional.ofNullable(builtIn.get(metric.getName()));
+    }
+
+    /**
+     * 指标是否为 @k 指标：有计算核时以核的声明为准，否则按指标类型是否为 at-k 判断
+     */
+    public boolean isAtK(Metric metric) {
+        return find(metric).map(MetricKernel::isAtK).orElse(AT_K_TYPE.equalsIgnoreCase(metric.getType()));
+    }
+
+    /**
+     * 给定指标中有计算核的部分，保持原有顺序
+     */
+    public List<MetricKernel> kernels(List<Metric> metrics) {
+        List<MetricKernel> kernels = new ArrayList<>();
+        for (Metric metric : metrics) {
+            find(metric).ifPresent(kernels::add);
+        }
+        return kernels;
+    }
+
+    /**
+     * 卸载指标的插件并关闭其类加载器
+     */
+    public void unload(String metricName) {
+        Plugin plugin = plugins.remove(metricName);
+        if (plugin != null) {
+            try {
+                plugin.loader().close();
+            } catch (IOException e) {
+                logger.warn("Failed to close plugin class loader of {}: {}", metricName, e.getMessage());
+            }
+        }
+    }
+
+    private boolean isPluginJar(String implementationFile) {
+        return implementationFile != null && implementationFile.toLowerCase().endsWith(".jar");
+    }
+
+    private MetricKernel loadPlugin(Metric metric) throws IOException {
+        Plugin cached = plugins.get(metric.getName());
+        if (cached != null && cached.implementationFile().equals(metric.getImplementationFile())) {
+            return cached.kernel();
+        }
+        synchronized (this) {
+            cached = plugins.get(metric.getName());
+            if (cached != null && cached.implementationFile().equals(metric.getImplementationFile())) {
+                return cached.kernel();
+            }
+            unload(metric.getName());
+
+            Path jar = fileStorageService.resolveFile(metric.getImplementationFile());
+            if (!Files.isRegularFile(jar)) {
+                throw new IOException("Implementation file not found: " + metric.getImplementationFile());
+            }
+            // 按实际内容校验，句柄或文件被替换后不会沿用旧的审核结果
+            String sha256 = sha256(jar);
+            if (!trustedSha256.contains(sha256)) {
+                throw new IOException("Plugin " + sha256 + " is not listed in metric-kernels.trusted-sha256");
+            }
+            // 存储对象没有扩展名，URLClassLoader 对不以 / 结尾的 URL 一律按 JAR 打开
+            URLClassLoader loader = new URLClassLoader("metric-" + metric.getName(),
+                    new URL[]{jar.toUri().toURL()}, new KernelApiClassLoader());
+            try {
+                MetricKernel kernel = selectKernel(metric.getName(), loader);
+                plugins.put(metric.getName(), new Plugin(metric.getImplementationFile(), loader, kernel));
+                logger.info("Loaded metric kernel {} for {} from {}", kernel.getClass().getName(),
+                        metric.getName(), metric.getImplementationFile());
+                return kernel;
+            } catch (RuntimeException | LinkageError e) {
+                loader.close();
+                throw new IOException("Invalid metric plugin: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 只取与指标同名的核：结果按核的 name() 归档，名称不符的核会顶替其他指标
+    private MetricKernel selectKernel(String metricName, ClassLoader loader) {
+        List<MetricKernel> found = new ArrayList<>();
+        try {
+            for (MetricKernel kernel : ServiceLoader.load(MetricKernel.class, loader)) {
+                found.add(kernel);
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return found.stream()
+                .filter(kernel -> metricName.equals(kernel.name()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Plugin declares " + found.size()
+                        + " metric kernels, none named " + metricName));
+    }
+
+    private record Plugin(String implementationFile, URLClassLoader loader, MetricKernel kernel) {
+    }
+
+    /**
+     * 插件类加载器的父加载器：只委派 JDK 的类与 MetricKernel 接口，应用的其他类和资源对插件不可见
+     */
+    private static class KernelApiClassLoader extends ClassLoader {
+
+        KernelApiClassLoader() {
+            super("metric-kernel-api", ClassLoader.getPlatformClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(MetricKernel.class.getName())) {
+                return MetricKernel.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+}
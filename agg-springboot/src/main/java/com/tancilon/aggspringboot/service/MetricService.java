@@ -5,17 +5,21 @@ import java.lang.String;
 import java.lang.Long;
 import com.tancilon.aggspringboot.entity.Metric;
 import com.tancilon.aggspringboot.repository.MetricRepository;
+import com.tancilon.aggspringboot.repository.ResultRepository;
+import com.tancilon.aggspringboot.repository.QueryScoresRepository;
+import com.tancilon.aggspringboot.event.ResultsDeletedEvent;
 import com.tancilon.aggspringboot.config.StorageProperties;
 import com.tancilon.aggspringboot.exception.ResourceAlreadyExistsException;
 import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
-import java.util.UUID;
 import java.util.Map;
 import java.util.HashMap;
 import com.tancilon.aggspringboot.dto.MetricInfo;
@@ -31,6 +35,24 @@ public class MetricService {
     @Autowired
     private MetricRepository metricRepository;
 
+    @Autowired
+    private ResultRepository resultRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private MetricKernelRegistry metricKernelRegistry;
+
+    @Autowired
+    private QueryScoresRepository queryScoresRepository;
+
     private final StorageProperties storageProperties;
     private final String uploadDir;
     private final String metricImpDir;
@@ -70,35 +92,20 @@ public class MetricService {
                 throw new ResourceAlreadyExistsException("Metric with name " + metric.getName() + " already exists");
             }
 
-            // 处理实现文件上传
+            // 处理实现文件上传，保存的是文件句柄
             if (implementationFile != null && !implementationFile.isEmpty()) {
-                String fileName = UUID.randomUUID() + "_" + implementationFile.getOriginalFilename();
-                String relativePath = "metricImp/" + fileName;
-                File filePath = new File(uploadDir, relativePath);
-
-                // 打印详细的调试信息
-                System.out.println("Implementation file details:");
-                System.out.println("Original name: " + implementationFile.getOriginalFilename());
-                System.out.println("Size: " + implementationFile.getSize());
-                System.out.println("Content type: " + implementationFile.getContentType());
-                System.out.println("Target path: " + filePath.getAbsolutePath());
-
-                // 确保目标目录存在
-                if (!filePath.getParentFile().exists()) {
-                    filePath.getParentFile().mkdirs();
-                }
-
-                // 保存文件
-                implementationFile.transferTo(filePath);
-
-                // 设置相对路径
-                metric.setImplementationFile(relativePath); // 存储相对路径
-
-                System.out.println("File saved successfully at: " + filePath.getAbsolutePath());
-                System.out.println("Implementation file path set to: " + metric.getImplementationFile());
+                metric.setImplementationFile(fileStorageService.storeFile(implementationFile));
+                logger.info("Implementation file of metric {} stored as {}", metric.getName(),
+                        metric.getImplementationFile());
             }
 
-            return metricRepository.save(metric);
+            Metric saved = metricRepository.save(metric);
+            dataVersionService.markChanged();
+            // 实现文件为 JAR 时尝试加载其中的计算核，加载失败只记录日志，文件仍可供下载
+            metricKernelRegistry.unload(saved.getName());
+            metricKernelRegistry.find(saved).ifPresent(kernel -> logger.info("Metric {} is evaluated by {}",
+                    saved.getName(), kernel.getClass().getName()));
+            return saved;
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to create metric: " + e.getMessage(), e);
@@ -110,22 +117,24 @@ public class MetricService {
                 .orElseThrow(() -> new ResourceNotFoundException("Metric not found with id: " + id));
     }
 
+    @Transactional
     public void deleteMetric(Long id) {
         Metric metric = getMetricById(id);
 
-        // 删除实现文件
+        // results 表通过外键引用指标，需先删除该指标的结果
+        int deleted = resultRepository.deleteByMetricId(id);
+        logger.info("Deleted {} results of metric {}", deleted, metric.getName());
+        eventPublisher.publishEvent(new ResultsDeletedEvent(metric.getName()));
+        queryScoresRepository.deleteByMetricId(id);
+
+        // 释放实现文件，内容对象无其他引用时才删除
         if (metric.getImplementationFile() != null) {
-            try {
-                File file = new File(uploadDir, metric.getImplementationFile());
-                if (file.exists()) {
-                    file.delete();
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            fileStorageService.release(metric.getImplementationFile());
         }
 
         metricRepository.deleteById(id);
+        metricKernelRegistry.unload(metric.getName());
+        dataVersionService.markChanged();
     }
 
     public boolean existsByName(String name) {
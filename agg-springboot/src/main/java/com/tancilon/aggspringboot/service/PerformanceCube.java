@@ -0,0 +1,727 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.event.ResultsDeletedEvent;
+import com.tancilon.aggspringboot.event.ResultsSavedEvent;
+import com.tancilon.aggspringboot.repository.ResultRepository;
+import com.tancilon.aggspringboot.vo.LeaderboardEntryVO;
+import com.tancilon.aggspringboot.vo.LeaderboardVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 结果数据的内存列式立方体
+ *
+ * 算法、数据集、指标名称按字典编码为 int，数值存放在按 (metric, dataset) 划分的 double[] 块中，
+ * 块内按 algorithm * kStride + kSlot 排布，NaN 表示缺失。首次读取时从数据库全量加载，
+ * 之后在结果写入事务提交后增量刷新，图表接口无需再访问数据库。
+ */
+@Component
+public class PerformanceCube {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceCube.class);
+
+    // 固定类型指标没有 k 值，统一记为 0，与原有分组逻辑保持一致
+    private static final int FIXED_K = 0;
+
+    private final ResultRepository resultRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NameDictionary algorithms = new NameDictionary();
+    private final NameDictionary datasets = new NameDictionary();
+    private final NameDictionary metrics = new NameDictionary();
+
+    // k 值字典：槽位 -> k
+    private int[] kValues = new int[8];
+    private int kCount;
+    // 每个算法在块内占用的槽位数
+    private int kStride = 8;
+
+    // [metric][dataset] -> 数值块
+    private double[][][] blocks = new double[0][][];
+
+    // [metric][dataset][kSlot] -> 排行榜，首次查询时构建，之后随写入增量维护
+    private RankedList[][][] rankings = new RankedList[0][][];
+
+    // 数值变化的累计次数，以及 [metric][dataset] 最后一次变化时的计数，供增量计算只重读有变化的数据集
+    private long modifications;
+    private long[][] columnStamps = new long[0][];
+    // 清空重载后字典编号会变化，增量结果需要整体重建
+    private long generation;
+
+    private volatile boolean loaded;
+
+    public PerformanceCube(ResultRepository resultRepository, PlatformTransactionManager transactionManager) {
+        this.resultRepository = resultRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 不同算法在同一数据集、同一指标下的性能曲线
+     */
+    public Map<String, Object> getDatasetMetricPerformance(String dataset, String metricName) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            ChartData chart = new ChartData();
+            double[] block = block(metrics.find(metricName), datasets.find(dataset));
+            if (block != null) {
+                for (int a = 0; a < algorithms.size(); a++) {
+                    chart.addSeries(algorithms.name(a), block, a);
+                }
+            }
+            return chart.toResponse();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 同一算法在不同数据集、同一指标下的性能曲线
+     */
+    public Map<String, Object> getAlgorithmPerformance(String algorithm, String metricName) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            ChartData chart = new ChartData();
+            int a = algorithms.find(algorithm);
+            int m = metrics.find(metricName);
+            if (a >= 0 && m >= 0) {
+                for (int d = 0; d < datasets.size(); d++) {
+                    double[] block = block(m, d);
+                    if (block != null) {
+                        chart.addSeries(datasets.name(d), block, a);
+                    }
+                }
+            }
+            return chart.toResponse();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 指定算法在某数据集、指标下的 (k, 数值) 曲线，按 k 升序；algorithmNames 为空时返回全部算法
+     */
+    public Map<String, double[][]> getKCurves(String dataset, String metricName, Collection<String> algorithmNames) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Map<String, double[][]> curves = new LinkedHashMap<>();
+            double[] block = block(metrics.find(metricName), datasets.find(dataset));
+            if (block == null) {
+                return curves;
+            }
+            List<String> names = new ArrayList<>();
+            if (algorithmNames == null || algorithmNames.isEmpty()) {
+                for (int a = 0; a < algorithms.size(); a++) {
+                    names.add(algorithms.name(a));
+                }
+            } else {
+                names.addAll(algorithmNames);
+            }
+
+            int[] orderedSlots = slotsOrderedByK();
+            for (String name : names) {
+                int a = algorithms.find(name);
+                if (a < 0 || (a + 1) * kStride > block.length) {
+                    continue;
+                }
+                List<double[]> points = new ArrayList<>();
+                for (int slot : orderedSlots) {
+                    double value = block[a * kStride + slot];
+                    if (!Double.isNaN(value)) {
+                        points.add(new double[] { kValues[slot], value });
+                    }
+                }
+                if (!points.isEmpty()) {
+                    curves.put(name, points.toArray(new double[0][]));
+                }
+            }
+            return curves;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 指标在某 k 值下的 算法 × 数据集 数值矩阵，values[algorithm][dataset]，NaN 表示缺失；
+     * k 为 null 时取固定类型指标的数值，只保留至少有一个数值的算法与数据集
+     */
+    public ScoreMatrix getScoreMatrix(String metricName, Integer k) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int m = metrics.find(metricName);
+            int slot = findKSlot(k != null ? k : FIXED_K);
+            if (m < 0 || slot < 0) {
+                return new ScoreMatrix(List.of(), List.of(), new double[0][]);
+            }
+            double[][] values = new double[algorithms.size()][datasets.size()];
+            boolean[] usedAlgorithms = new boolean[algorithms.size()];
+            boolean[] usedDatasets = new boolean[datasets.size()];
+            for (double[] row : values) {
+                Arrays.fill(row, Double.NaN);
+            }
+            for (int d = 0; d < datasets.size(); d++) {
+                double[] block = block(m, d);
+                if (block == null) {
+                    continue;
+                }
+                for (int a = 0; a * kStride < block.length; a++) {
+                    double value = block[a * kStride + slot];
+                    if (!Double.isNaN(value)) {
+                        values[a][d] = value;
+                        usedAlgorithms[a] = true;
+                        usedDatasets[d] = true;
+                    }
+                }
+            }
+            return compact(values, usedAlgorithms, usedDatasets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 指标在各数据集上按算法排列的数值列，columns[i][algorithm] 对应 datasets[i]，算法下标即 algorithms 中的位置；
+     * k 为 null 时取每个单元格在全部 k 上的均值。只返回 since 之后有写入的数据集，datasetNames 为 null 时不限数据集
+     */
+    public ScoreColumns getScoreColumns(String metricName, Integer k, Collection<String> datasetNames, long since) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            List<String> algorithmNames = new ArrayList<>(algorithms.size());
+            for (int a = 0; a < algorithms.size(); a++) {
+                algorithmNames.add(algorithms.name(a));
+            }
+            List<String> changedDatasets = new ArrayList<>();
+            List<double[]> columns = new ArrayList<>();
+            int m = metrics.find(metricName);
+            int slot = k != null ? findKSlot(k) : -1;
+            if (m < 0 || m >= columnStamps.length || columnStamps[m] == null || (k != null && slot < 0)) {
+                return new ScoreColumns(generation, modifications, algorithmNames, changedDatasets, new double[0][]);
+            }
+
+            long[] stamps = columnStamps[m];
+            for (int d = 0; d < stamps.length; d++) {
+                if (stamps[d] <= since || (datasetNames != null && !datasetNames.contains(datasets.name(d)))) {
+                    continue;
+                }
+                double[] column = new double[algorithms.size()];
+                Arrays.fill(column, Double.NaN);
+                double[] block = block(m, d);
+                for (int a = 0; block != null && a * kStride < block.length; a++) {
+                    column[a] = slot >= 0 ? block[a * kStride + slot] : meanOverK(block, a);
+                }
+                changedDatasets.add(datasets.name(d));
+                columns.add(column);
+            }
+            return new ScoreColumns(generation, modifications, algorithmNames, changedDatasets,
+                    columns.toArray(new double[0][]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 某数据集、指标、k 值下的算法排行榜（默认按数值降序），支持分页
+     */
+    public LeaderboardVO getLeaderboard(String dataset, String metricName, int k, boolean ascending,
+            int page, int size) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            RankedList ranking = ranking(metrics.find(metricName), datasets.find(dataset), findKSlot(k));
+            if (ranking != null) {
+                return toLeaderboard(dataset, metricName, k, ranking, ascending, page, size);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 排行榜尚未构建，升级为写锁后从数值块排序构建一次
+        lock.writeLock().lock();
+        try {
+            int m = metrics.find(metricName);
+            int d = datasets.find(dataset);
+            int slot = findKSlot(k);
+            RankedList ranking = ranking(m, d, slot);
+            if (ranking == null) {
+                ranking = buildRanking(m, d, slot);
+            }
+            return toLeaderboard(dataset, metricName, k, ranking, ascending, page, size);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onResultsSaved(ResultsSavedEvent event) {
+        lock.writeLock().lock();
+        try {
+            // 尚未加载时无需处理，首次读取会从数据库加载到已提交的数据
+            if (!loaded) {
+                return;
+            }
+            ResultBatch batch = event.getBatch();
+            for (int i = 0; i < batch.size(); i++) {
+                put(batch.algorithm(i), batch.dataset(i), batch.metric(i), batch.k(i), batch.value(i));
+            }
+            logger.info("Performance cube refreshed with {} results", batch.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 删除结果较少发生，直接清空，下次读取时重新加载
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onResultsDeleted(ResultsDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            algorithms.clear();
+            datasets.clear();
+            metrics.clear();
+            kCount = 0;
+            blocks = new double[0][][];
+            rankings = new RankedList[0][][];
+            columnStamps = new long[0][];
+            generation++;
+            loaded = false;
+            logger.info("Performance cube invalidated after results of metric {} were deleted", event.getMetricName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            int[] count = new int[1];
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = resultRepository.streamAllCells()) {
+                    rows.forEach(row -> {
+                        put((String) row[0], (String) row[1], (String) row[2], (Integer) row[3], (Double) row[4]);
+                        count[0]++;
+                    });
+                }
+            });
+            loaded = true;
+            logger.info("Performance cube loaded {} results ({} algorithms, {} datasets, {} metrics) in {} ms",
+                    count[0], algorithms.size(), datasets.size(), metrics.size(),
+                    System.currentTimeMillis() - start);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(String algorithm, String dataset, String metricName, Integer k, Double value) {
+        if (algorithm == null || dataset == null || metricName == null || value == null) {
+            return;
+        }
+        int a = algorithms.intern(algorithm);
+        int d = datasets.intern(dataset);
+        int m = metrics.intern(metricName);
+        int slot = kSlot(k != null ? k : FIXED_K);
+
+        double[] block = blockForWrite(m, d, a);
+        int index = a * kStride + slot;
+        // 同一数据点重复提交时以最后写入的值为准，与数据库中的 upsert 语义一致
+        if (Double.compare(block[index], value) != 0) {
+            block[index] = value;
+            stamp(m, d);
+            RankedList ranking = ranking(m, d, slot);
+            if (ranking != null) {
+                ranking.update(a, value);
+            }
+        }
+    }
+
+    private void stamp(int m, int d) {
+        if (m >= columnStamps.length) {
+            columnStamps = Arrays.copyOf(columnStamps, metrics.size());
+        }
+        if (columnStamps[m] == null) {
+            columnStamps[m] = new long[datasets.size()];
+        } else if (d >= columnStamps[m].length) {
+            columnStamps[m] = Arrays.copyOf(columnStamps[m], datasets.size());
+        }
+        columnStamps[m][d] = ++modifications;
+    }
+
+    private double[] block(int m, int d) {
+        if (m < 0 || d < 0 || m >= blocks.length || blocks[m] == null || d >= blocks[m].length) {
+            return null;
+        }
+        return blocks[m][d];
+    }
+
+    private double[] blockForWrite(int m, int d, int a) {
+        if (m >= blocks.length) {
+            blocks = Arrays.copyOf(blocks, metrics.size());
+        }
+        if (blocks[m] == null) {
+            blocks[m] = new double[datasets.size()][];
+        } else if (d >= blocks[m].length) {
+            blocks[m] = Arrays.copyOf(blocks[m], datasets.size());
+        }
+
+        double[] block = blocks[m][d];
+        int required = (a + 1) * kStride;
+        if (block == null || block.length < required) {
+            int length = Math.max(required, algorithms.size() * kStride);
+            double[] grown = new double[length];
+            Arrays.fill(grown, Double.NaN);
+            if (block != null) {
+                System.arraycopy(block, 0, grown, 0, block.length);
+            }
+            block = grown;
+            blocks[m][d] = block;
+        }
+        return block;
+    }
+
+    private RankedList ranking(int m, int d, int slot) {
+        if (m < 0 || d < 0 || slot < 0 || m >= rankings.length || rankings[m] == null
+                || d >= rankings[m].length || rankings[m][d] == null || slot >= rankings[m][d].length) {
+            return null;
+        }
+        return rankings[m][d][slot];
+    }
+
+    private RankedList buildRanking(int m, int d, int slot) {
+        RankedList ranking = new RankedList();
+        double[] block = block(m, d);
+        if (block == null || slot < 0) {
+            // 没有任何数据时返回空榜，但不缓存，避免为无效参数占用内存
+            return ranking;
+        }
+        for (int a = 0; a * kStride < block.length; a++) {
+            double value = block[a * kStride + slot];
+            if (!Double.isNaN(value)) {
+                ranking.update(a, value);
+            }
+        }
+
+        if (m >= rankings.length) {
+            rankings = Arrays.copyOf(rankings, metrics.size());
+        }
+        if (rankings[m] == null) {
+            rankings[m] = new RankedList[datasets.size()][];
+        } else if (d >= rankings[m].length) {
+            rankings[m] = Arrays.copyOf(rankings[m], datasets.size());
+        }
+        if (rankings[m][d] == null) {
+            rankings[m][d] = new RankedList[kCount];
+        } else if (slot >= rankings[m][d].length) {
+            rankings[m][d] = Arrays.copyOf(rankings[m][d], kCount);
+        }
+        rankings[m][d][slot] = ranking;
+        return ranking;
+    }
+
+    private LeaderboardVO toLeaderboard(String dataset, String metricName, int k, RankedList ranking,
+            boolean ascending, int page, int size) {
+        int total = ranking.size();
+        int from = (int) Math.min((long) page * size, total);
+        int to = Math.min(from + size, total);
+
+        List<LeaderboardEntryVO> entries = new ArrayList<>(to - from);
+        for (int position = from; position < to; position++) {
+            int index = ascending ? total - 1 - position : position;
+            entries.add(new LeaderboardEntryVO(ranking.rankAt(index, ascending),
+                    algorithms.name(ranking.algorithmAt(index)), ranking.valueAt(index)));
+        }
+
+        LeaderboardVO leaderboard = new LeaderboardVO();
+        leaderboard.setDataset(dataset);
+        leaderboard.setMetric(metricName);
+        leaderboard.setK(k);
+        leaderboard.setTotal(total);
+        leaderboard.setPage(page);
+        leaderboard.setSize(size);
+        leaderboard.setEntries(entries);
+        return leaderboard;
+    }
+
+    // 去掉没有数值的行与列
+    private ScoreMatrix compact(double[][] values, boolean[] usedAlgorithms, boolean[] usedDatasets) {
+        List<String> algorithmNames = new ArrayList<>();
+        List<String> datasetNames = new ArrayList<>();
+        int[] datasetIds = new int[usedDatasets.length];
+        for (int d = 0; d < usedDatasets.length; d++) {
+            if (usedDatasets[d]) {
+                datasetIds[datasetNames.size()] = d;
+                datasetNames.add(datasets.name(d));
+            }
+        }
+        List<double[]> rows = new ArrayList<>();
+        for (int a = 0; a < usedAlgorithms.length; a++) {
+            if (!usedAlgorithms[a]) {
+                continue;
+            }
+            double[] row = new double[datasetNames.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = values[a][datasetIds[i]];
+            }
+            algorithmNames.add(algorithms.name(a));
+            rows.add(row);
+        }
+        return new ScoreMatrix(algorithmNames, datasetNames, rows.toArray(new double[0][]));
+    }
+
+    private double meanOverK(double[] block, int a) {
+        double sum = 0;
+        int count = 0;
+        for (int slot = 0; slot < kCount; slot++) {
+            double value = block[a * kStride + slot];
+            if (!Double.isNaN(value)) {
+                sum += value;
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    private int findKSlot(int k) {
+        for (int i = 0; i < kCount; i++) {
+            if (kValues[i] == k) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int kSlot(int k) {
+        int slot = findKSlot(k);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (kCount == kStride) {
+            restride(kStride * 2);
+        }
+        if (kCount == kValues.length) {
+            kValues = Arrays.copyOf(kValues, kValues.length * 2);
+        }
+        kValues[kCount] = k;
+        return kCount++;
+    }
+
+    // k 值数量超过单行容量时，按新的行宽重新排布所有块
+    private void restride(int newStride) {
+        for (double[][] datasetBlocks : blocks) {
+            if (datasetBlocks == null) {
+                continue;
+            }
+            for (int d = 0; d < datasetBlocks.length; d++) {
+                double[] block = datasetBlocks[d];
+                if (block == null) {
+                    continue;
+                }
+                int rows = block.length / kStride;
+                double[] restrided = new double[rows * newStride];
+                Arrays.fill(restrided, Double.NaN);
+                for (int row = 0; row < rows; row++) {
+                    System.arraycopy(block, row * kStride, restrided, row * newStride, kStride);
+                }
+                datasetBlocks[d] = restrided;
+            }
+        }
+        kStride = newStride;
+    }
+
+    // 按 k 值升序排列的槽位
+    private int[] slotsOrderedByK() {
+        Integer[] slots = new Integer[kCount];
+        for (int i = 0; i < kCount; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, (s1, s2) -> Integer.compare(kValues[s1], kValues[s2]));
+        int[] ordered = new int[kCount];
+        for (int i = 0; i < kCount; i++) {
+            ordered[i] = slots[i];
+        }
+        return ordered;
+    }
+
+    /**
+     * 算法 × 数据集 数值矩阵的快照，values[algorithm][dataset]，NaN 表示缺失
+     */
+    public record ScoreMatrix(List<String> algorithms, List<String> datasets, double[][] values) {
+    }
+
+    /**
+     * 自 since 起有写入的数值列；generation 变化时此前取得的列已失效，stamp 作为下次增量读取的 since
+     */
+    public record ScoreColumns(long generation, long stamp, List<String> algorithms, List<String> datasets,
+            double[][] columns) {
+    }
+
+    /**
+     * 组装前端图表所需的 series / xAxis 结构
+     */
+    private class ChartData {
+        private final int[] orderedSlots = slotsOrderedByK();
+        private final boolean[] usedSlots = new boolean[kCount];
+        private final List<Map<String, Object>> series = new ArrayList<>();
+
+        void addSeries(String name, double[] block, int row) {
+            int offset = row * kStride;
+            if (offset >= block.length) {
+                return;
+            }
+            List<Double> data = new ArrayList<>();
+            for (int slot : orderedSlots) {
+                double value = block[offset + slot];
+                if (!Double.isNaN(value)) {
+                    data.add(value);
+                    usedSlots[slot] = true;
+                }
+            }
+            if (data.isEmpty()) {
+                return;
+            }
+            Map<String, Object> seriesItem = new HashMap<>();
+            seriesItem.put("name", name);
+            seriesItem.put("data", data);
+            series.add(seriesItem);
+        }
+
+        Map<String, Object> toResponse() {
+            List<Integer> xAxis = new ArrayList<>();
+            for (int slot : orderedSlots) {
+                if (usedSlots[slot]) {
+                    xAxis.add(kValues[slot]);
+                }
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("series", series);
+            response.put("xAxis", xAxis);
+            return response;
+        }
+    }
+
+    /**
+     * 按数值降序排列的算法列表，写入时通过二分查找定位并移动元素，无需整体重排
+     */
+    private static class RankedList {
+        private int[] algorithmIds = new int[8];
+        private double[] values = new double[8];
+        private int size;
+
+        void update(int algorithm, double value) {
+            for (int i = 0; i < size; i++) {
+                if (algorithmIds[i] == algorithm) {
+                    System.arraycopy(algorithmIds, i + 1, algorithmIds, i, size - i - 1);
+                    System.arraycopy(values, i + 1, values, i, size - i - 1);
+                    size--;
+                    break;
+                }
+            }
+            if (size == algorithmIds.length) {
+                algorithmIds = Arrays.copyOf(algorithmIds, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            // 插入到最后一个不小于 value 的元素之后，同分时先到先排
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] >= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            System.arraycopy(algorithmIds, low, algorithmIds, low + 1, size - low);
+            System.arraycopy(values, low, values, low + 1, size - low);
+            algorithmIds[low] = algorithm;
+            values[low] = value;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int algorithmAt(int index) {
+            return algorithmIds[index];
+        }
+
+        double valueAt(int index) {
+            return values[index];
+        }
+
+        // 竞赛排名：名次为排在前面且数值更优的元素个数 + 1
+        int rankAt(int index, boolean ascending) {
+            if (!ascending) {
+                int first = index;
+                while (first > 0 && values[first - 1] == values[index]) {
+                    first--;
+                }
+                return first + 1;
+            }
+            int last = index;
+            while (last < size - 1 && values[last + 1] == values[index]) {
+                last++;
+            }
+            return size - last;
+        }
+    }
+
+    private static class NameDictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        int intern(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        int find(String name) {
+            Integer id = ids.get(name);
+            return id != null ? id : -1;
+        }
+
+        String name(int id) {
+            return names.get(id);
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        void clear() {
+            ids.clear();
+            names.clear();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.entity.Algorithm;
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.entity.Metric;
+import com.tancilon.aggspringboot.entity.QueryScores;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.ranking.AtKEvaluation;
+import com.tancilon.aggspringboot.ranking.AtKEvaluator;
+import com.tancilon.aggspringboot.ranking.MetricKernel;
+import com.tancilon.aggspringboot.ranking.QueryScoreBlob;
+import com.tancilon.aggspringboot.ranking.RankingDataset;
+import com.tancilon.aggspringboot.repository.AlgorithmRepository;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.repository.MetricRepository;
+import com.tancilon.aggspringboot.repository.QueryScoresRepository;
+import com.tancilon.aggspringboot.vo.QueryScoreDistributionVO;
+import com.tancilon.aggspringboot.vo.QueryScoreHistogramVO;
+import com.tancilon.aggspringboot.vo.QueryScoreVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 逐查询数值的存取与下钻分析
+ *
+ * 服务端评测写入结果时，每个指标的逐查询数值按曲线编码为一个压缩块（格式见 QueryScoreBlob）存入 query_scores，
+ * 与结果表的汇总值并列，一条曲线只占一行，体积约为按 double 原样保存的十分之一。
+ * 分析接口直接在解码后的基本类型数组上计算分布、直方图与数值最低的查询。
+ */
+@Service
+public class QueryScoreService {
+    private static final Logger logger = LoggerFactory.getLogger(QueryScoreService.class);
+
+    private static final int MAX_BINS = 1000;
+
+    private final QueryScoresRepository queryScoresRepository;
+    private final AlgorithmRepository algorithmRepository;
+    private final DatasetRepository datasetRepository;
+    private final MetricRepository metricRepository;
+    private final RankingDatasetService rankingDatasetService;
+    private final DataVersionService dataVersionService;
+    private final boolean quantize;
+
+    public QueryScoreService(QueryScoresRepository queryScoresRepository,
+            AlgorithmRepository algorithmRepository,
+            DatasetRepository datasetRepository,
+            MetricRepository metricRepository,
+            RankingDatasetService rankingDatasetService,
+            DataVersionService dataVersionService,
+            @Value("${query-scores.quantize:true}") boolean quantize) {
+        this.queryScoresRepository = queryScoresRepository;
+        this.algorithmRepository = algorithmRepository;
+        this.datasetRepository = datasetRepository;
+        this.metricRepository = metricRepository;
+        this.rankingDatasetService = rankingDatasetService;
+        this.dataVersionService = dataVersionService;
+        this.quantize = quantize;
+    }
+
+    /**
+     * 保存或替换评测结果中每个指标的逐查询数值
+     */
+    @Transactional
+    public void store(Long algorithmId, Dataset dataset, AtKEvaluation evaluation) {
+        long bytes = 0;
+        for (int m = 0; m < evaluation.kernelCount(); m++) {
+            MetricKernel kernel = evaluation.kernel(m);
+            Metric metric = metricRepository.findByName(kernel.name()).orElse(null);
+            if (metric == null) {
+                continue;
+            }
+            QueryScores scores = queryScoresRepository
+                    .findByDatasetIdAndMetricIdAndAlgorithmId(dataset.getId(), metric.getId(), algorithmId)
+                    .orElseGet(QueryScores::new);
+            scores.setAlgorithmId(algorithmId);
+            scores.setDatasetId(dataset.getId());
+            scores.setMetricId(metric.getId());
+            scores.setDatasetFileUrl(dataset.getFileUrl());
+            scores.setQueryCount(evaluation.evaluatedQueryCount());
+            scores.setKCount(evaluation.width(m));
+            scores.setScores(QueryScoreBlob.encode(evaluation, m, quantize));
+            queryScoresRepository.save(scores);
+            bytes += scores.getScores().length;
+        }
+        // 显著性检验等基于逐查询数值的缓存按数据版本失效
+        dataVersionService.markChanged();
+        logger.debug("Stored per-query scores of algorithm {} on dataset {}: {} metrics, {} bytes", algorithmId,
+                dataset.getName(), evaluation.kernelCount(), bytes);
+    }
+
+    /**
+     * 定期删除算法或数据集已被删除的逐查询数值。query_scores 只以 id 引用算法与数据集，没有外键随之级联删除
+     */
+    @Scheduled(fixedDelayString = "PT6H", initialDelayString = "PT10M")
+    @Transactional
+    public void deleteOrphans() {
+        int deleted = queryScoresRepository.deleteOrphans();
+        if (deleted > 0) {
+            logger.info("Deleted {} per-query score curves of removed algorithms or datasets", deleted);
+        }
+    }
+
+    /**
+     * 指标在 k 上的逐查询数值分布，非 @k 指标忽略 k
+     */
+    public QueryScoreDistributionVO getDistribution(String algorithm, String dataset, String metric, Integer k) {
+        Curve curve = load(algorithm, dataset, metric, k);
+        float[] values = curve.blob().values(curve.kIndex());
+        int n = values.length;
+
+        QueryScoreDistributionVO vo = new QueryScoreDistributionVO();
+        vo.setAlgorithm(curve.algorithm());
+        vo.setDataset(curve.dataset().getName());
+        vo.setMetric(curve.metric());
+        vo.setK(curve.k());
+        vo.setQueryCount(n);
+        if (n == 0) {
+            return vo;
+        }
+        double sum = 0;
+        double sumSquares = 0;
+        int zeros = 0;
+        for (float value : values) {
+            sum += value;
+            sumSquares += (double) value * value;
+            if (value == 0) {
+                zeros++;
+            }
+        }
+        double mean = sum / n;
+        Arrays.sort(values);
+        vo.setMean(mean);
+        vo.setStandardDeviation(n > 1 ? Math.sqrt(Math.max(0, (sumSquares - n * mean * mean) / (n - 1))) : 0.0);
+        vo.setMin((double) values[0]);
+        vo.setP25(quantile(values, 0.25));
+        vo.setMedian(quantile(values, 0.5));
+        vo.setP75(quantile(values, 0.75));
+        vo.setMax((double) values[n - 1]);
+        vo.setZeroCount(zeros);
+        return vo;
+    }
+
+    /**
+     * 逐查询数值的直方图；数值都在 [0, 1] 内时以 [0, 1] 为范围，否则以实际最小、最大值为范围
+     */
+    public QueryScoreHistogramVO getHistogram(String algorithm, String dataset, String metric, Integer k,
+            int bins) {
+        if (bins < 1 || bins > MAX_BINS) {
+            throw new IllegalArgumentException("bins must be between 1 and " + MAX_BINS);
+        }
+        Curve curve = load(algorithm, dataset, metric, k);
+        float[] values = curve.blob().values(curve.kIndex());
+        double min = 0;
+        double max = 1;
+        for (float value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        double width = (max - min) / bins;
+        int[] counts = new int[bins];
+        for (float value : values) {
+            int bin = width > 0 ? (int) ((value - min) / width) : 0;
+            counts[Math.min(bin, bins - 1)]++;
+        }
+
+        QueryScoreHistogramVO vo = new QueryScoreHistogramVO();
+        vo.setAlgorithm(curve.algorithm());
+        vo.setDataset(curve.dataset().getName());
+        vo.setMetric(curve.metric());
+        vo.setK(curve.k());
+        vo.setMin(min);
+        vo.setMax(max);
+        vo.setBinWidth(width);
+        vo.setCounts(counts);
+        return vo;
+    }
+
+    /**
+     * 数值最低的 limit 个查询，按数值升序
+     */
+    public List<QueryScoreVO> getWorstQueries(String algorithm, String dataset, String metric, Integer k,
+            int limit) throws IOException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        Curve curve = load(algorithm, dataset, metric, k);
+        RankingDataset rankingDataset = rankingDatasetService.open(curve.dataset());
+        QueryScoreBlob blob = curve.blob();
+        List<QueryScoreVO> worst = new ArrayList<>();
+        for (int i : blob.lowest(curve.kIndex(), limit)) {
+            QueryScoreVO vo = new QueryScoreVO();
+            vo.setQuery(rankingDataset.queryName(blob.query(i)));
+            vo.setValue((double) blob.value(curve.kIndex(), i));
+            worst.add(vo);
+        }
+        return worst;
+    }
+
+    /**
+     * 读取并解码 (算法, 数据集, 指标) 的逐查询数值，k 换算为曲线中的下标，非 @k 指标忽略 k
+     */
+    public Curve load(String algorithmName, String datasetName, String metricName, Integer k) {
+        Algorithm algorithm = algorithmRepository.findByName(algorithmName)
+                .orElseThrow(() -> new ResourceNotFoundException("Algorithm not found: " + algorithmName));
+        Dataset dataset = datasetRepository.findByName(datasetName);
+        if (dataset == null) {
+            throw new ResourceNotFoundException("Dataset not found: " + datasetName);
+        }
+        Metric metric = metricRepository.findByName(metricName)
+                .orElseThrow(() -> new ResourceNotFoundException("Metric not found: " + metricName));
+        QueryScores scores = queryScoresRepository
+                .findByDatasetIdAndMetricIdAndAlgorithmId(dataset.getId(), metric.getId(), algorithm.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("No per-query scores of " + metricName + " for "
+                        + algorithmName + " on " + datasetName));
+        if (!scores.getDatasetFileUrl().equals(dataset.getFileUrl())) {
+            throw new IllegalStateException("Per-query scores of " + algorithmName + " on " + datasetName
+                    + " predate the current dataset file, re-run the evaluation");
+        }
+
+        QueryScoreBlob blob = QueryScoreBlob.decode(scores.getScores());
+        if (blob.width() == 1) {
+            return new Curve(algorithm.getName(), dataset, metric.getName(), null, 0, blob);
+        }
+        if (k == null) {
+            throw new IllegalArgumentException("k is required for metric " + metricName);
+        }
+        int kIndex = AtKEvaluator.kIndex(k);
+        if (kIndex < 0 || kIndex >= blob.width()) {
+            throw new IllegalArgumentException("Unsupported k: " + k);
+        }
+        return new Curve(algorithm.getName(), dataset, metric.getName(), k, kIndex, blob);
+    }
+
+    // 已排序数组的分位数，相邻两值间线性插值
+    private static double quantile(float[] sorted, double p) {
+        double position = p * (sorted.length - 1);
+        int lower = (int) position;
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    public record Curve(String algorithm, Dataset dataset, String metric, Integer k, int kIndex,
+            QueryScoreBlob blob) {
+    }
+}
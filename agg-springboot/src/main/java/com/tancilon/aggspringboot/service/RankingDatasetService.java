@@ -0,0 +1,183 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.config.StorageProperties;
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.entity.DatasetProfile;
+import com.tancilon.aggspringboot.ranking.RankingDataset;
+import com.tancilon.aggspringboot.ranking.RankingDatasetWriter;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 数据集的二进制排序格式
+ *
+ * 数据集文件统计完成后转换一次，写入 rankings/{内容哈希}.rnk，内容相同的文件共用同一份转换结果。
+ * 评测与聚合直接内存映射读取二进制文件，不再重复解析文本；已打开的文件按路径缓存。
+ * 数据集换用新文件后，旧文件的映射在下次打开该数据集时移出缓存，不再被任何数据集引用的二进制文件定期删除。
+ */
+@Service
+public class RankingDatasetService {
+    private static final Logger logger = LoggerFactory.getLogger(RankingDatasetService.class);
+
+    private static final String SUFFIX = ".rnk";
+    private static final Pattern SHA256_NAME = Pattern.compile("[0-9a-f]{64}");
+    // 最近写入的文件可能属于刚提交、正在转换的数据集，清理时跳过
+    private static final Duration CLEANUP_GRACE = Duration.ofHours(1);
+
+    private final FileStorageService fileStorageService;
+    private final DatasetRepository datasetRepository;
+    private final Path binaryDir;
+    private final Map<Path, RankingDataset> opened = new ConcurrentHashMap<>();
+    // 数据集 id -> 最近一次打开的二进制文件
+    private final Map<Long, Path> datasetTargets = new ConcurrentHashMap<>();
+
+    public RankingDatasetService(FileStorageService fileStorageService, DatasetRepository datasetRepository,
+            StorageProperties storageProperties) {
+        this.fileStorageService = fileStorageService;
+        this.datasetRepository = datasetRepository;
+        this.binaryDir = Paths.get(storageProperties.getWorkDir(), "rankings").toAbsolutePath().normalize();
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(binaryDir);
+    }
+
+    /**
+     * 将数据集文件转换为二进制格式，已存在时直接返回；profile 不为 null 时按其规模预分配缓冲区
+     *
+     * @return 二进制文件大小
+     */
+    public long convert(Dataset dataset, DatasetProfile profile) throws IOException {
+        Path source = fileStorageService.resolveFile(dataset.getFileUrl());
+        Path target = binaryPath(dataset.getFileUrl(), source);
+        if (Files.exists(target)) {
+            return Files.size(target);
+        }
+
+        long start = System.currentTimeMillis();
+        RankingDatasetWriter writer;
+        if (profile != null && profile.getRowCount() != null) {
+            // 概要的行数包含相关性判断行，排序行需扣除
+            long judgments = profile.getJudgmentCount() != null ? profile.getJudgmentCount() : 0;
+            writer = new RankingDatasetWriter(profile.getRowCount() - judgments, judgments,
+                    profile.getItemCount() != null ? profile.getItemCount() : 0);
+        } else {
+            writer = new RankingDatasetWriter();
+        }
+        Path temp = binaryDir.resolve(UUID.randomUUID() + ".tmp");
+        try {
+            writer.convert(source, fileStorageService.getDownloadFilename(dataset.getFileUrl()), temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        long size = Files.size(target);
+        logger.info("Converted dataset {} to binary ranking format ({} bytes) in {} ms",
+                dataset.getName(), size, System.currentTimeMillis() - start);
+        return size;
+    }
+
+    /**
+     * 打开数据集的二进制视图，尚未转换时先同步转换
+     */
+    public RankingDataset open(Dataset dataset) throws IOException {
+        if (dataset.getFileUrl() == null) {
+            throw new IllegalStateException("Dataset " + dataset.getName() + " has no file");
+        }
+        Path source = fileStorageService.resolveFile(dataset.getFileUrl());
+        Path target = binaryPath(dataset.getFileUrl(), source);
+        Path previous = dataset.getId() != null ? datasetTargets.put(dataset.getId(), target) : null;
+        if (previous != null && !previous.equals(target) && !datasetTargets.containsValue(previous)) {
+            opened.remove(previous);
+        }
+        RankingDataset cached = opened.get(target);
+        if (cached != null) {
+            return cached;
+        }
+        if (!Files.exists(target)) {
+            convert(dataset, null);
+        }
+        RankingDataset rankingDataset = RankingDataset.open(target);
+        opened.put(target, rankingDataset);
+        return rankingDataset;
+    }
+
+    /**
+     * 删除不再被任何数据集引用的二进制文件与中断转换留下的临时文件，并移出其映射
+     */
+    @Scheduled(fixedDelayString = "PT6H", initialDelayString = "PT15M")
+    public void deleteStaleFiles() {
+        Set<Path> live = new HashSet<>();
+        for (Dataset dataset : datasetRepository.findAll()) {
+            if (dataset.getFileUrl() == null) {
+                continue;
+            }
+            try {
+                live.add(binaryPath(dataset.getFileUrl(), fileStorageService.resolveFile(dataset.getFileUrl())));
+            } catch (RuntimeException e) {
+                // 无法确定全部在用的文件时不删除任何文件
+                logger.warn("Skipping binary ranking cleanup, cannot resolve file of dataset {}: {}",
+                        dataset.getName(), e.getMessage());
+                return;
+            }
+        }
+        opened.keySet().retainAll(live);
+
+        Instant cutoff = Instant.now().minus(CLEANUP_GRACE);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(binaryDir)) {
+            for (Path file : files) {
+                if (!live.contains(file) && Files.isRegularFile(file)
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to clean up binary ranking files: {}", e.getMessage());
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} unused binary ranking files", deleted);
+        }
+    }
+
+    // 内容寻址的对象直接使用其 SHA-256，旧路径按文件引用计算
+    private Path binaryPath(String fileUrl, Path source) {
+        String name = source.getFileName().toString();
+        String key = SHA256_NAME.matcher(name).matches() ? name : sha256(fileUrl);
+        return binaryDir.resolve(key + SUFFIX);
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
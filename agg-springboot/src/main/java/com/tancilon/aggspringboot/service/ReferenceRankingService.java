@@ -0,0 +1,119 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.config.StorageProperties;
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.entity.ReferenceRanking;
+import com.tancilon.aggspringboot.ranking.AggregatedRanking;
+import com.tancilon.aggspringboot.repository.ReferenceRankingRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 复核基准排序的存取
+ *
+ * 服务端评测并写入结果时保存所评测的聚合排序，文件为 references/{算法 id}-{数据集 id}.agr，
+ * 内容为小端序的 int：查询数、条目数、查询偏移 int[查询数 + 1]、条目 id int[条目数]。
+ */
+@Service
+public class ReferenceRankingService {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceRankingService.class);
+
+    private final ReferenceRankingRepository referenceRepository;
+    private final Path referenceDir;
+
+    public ReferenceRankingService(ReferenceRankingRepository referenceRepository,
+            StorageProperties storageProperties) {
+        this.referenceRepository = referenceRepository;
+        this.referenceDir = Paths.get(storageProperties.getWorkDir(), "references").toAbsolutePath().normalize();
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(referenceDir);
+    }
+
+    /**
+     * 保存或替换 (算法, 数据集) 的基准排序
+     */
+    public void store(Long algorithmId, Dataset dataset, AggregatedRanking ranking) throws IOException {
+        Path target = referenceDir.resolve(algorithmId + "-" + dataset.getId() + ".agr");
+        Path temp = referenceDir.resolve(UUID.randomUUID() + ".tmp");
+        try {
+            int queryCount = ranking.queryCount();
+            int entryCount = ranking.entryCount();
+            ByteBuffer buffer = ByteBuffer.allocate(4 * (2 + queryCount + 1 + entryCount))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(queryCount).putInt(entryCount);
+            for (int q = 0; q < queryCount; q++) {
+                buffer.putInt(ranking.start(q));
+            }
+            buffer.putInt(entryCount);
+            for (int e = 0; e < entryCount; e++) {
+                buffer.putInt(ranking.itemAt(e));
+            }
+            buffer.flip();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        ReferenceRanking reference = referenceRepository.findByAlgorithmIdAndDatasetId(algorithmId, dataset.getId())
+                .orElseGet(ReferenceRanking::new);
+        reference.setAlgorithmId(algorithmId);
+        reference.setDatasetId(dataset.getId());
+        reference.setDatasetFileUrl(dataset.getFileUrl());
+        reference.setPath(target.toString());
+        reference.setEntryCount(ranking.entryCount());
+        referenceRepository.save(reference);
+    }
+
+    /**
+     * 读取仍与数据集当前文件一致的基准排序
+     */
+    public Optional<AggregatedRanking> load(Long algorithmId, Dataset dataset) throws IOException {
+        Optional<ReferenceRanking> reference =
+                referenceRepository.findByAlgorithmIdAndDatasetId(algorithmId, dataset.getId());
+        if (reference.isEmpty()) {
+            return Optional.empty();
+        }
+        Path path = Paths.get(reference.get().getPath());
+        if (!reference.get().getDatasetFileUrl().equals(dataset.getFileUrl()) || !Files.exists(path)) {
+            logger.info("Dropping stale reference ranking of algorithm {} on dataset {}", algorithmId,
+                    dataset.getName());
+            referenceRepository.delete(reference.get());
+            Files.deleteIfExists(path);
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        int queryCount = buffer.getInt();
+        int entryCount = buffer.getInt();
+        IntBuffer ints = buffer.asIntBuffer();
+        int[] offsets = new int[queryCount + 1];
+        int[] items = new int[entryCount];
+        ints.get(offsets);
+        ints.get(items);
+        return Optional.of(new AggregatedRanking(offsets, items));
+    }
+}
@@ -0,0 +1,82 @@
+package com.tancilon.aggspringboot.service;
+
+/**
+ * 列式的结果数据块：写库时使用外键 id，刷新内存读模型时使用名称
+ *
+ * 名称数组中同一提交的算法、数据集、指标共享同一个 String 实例，不会按行复制。
+ */
+public class ResultBatch {
+    private final String[] algorithms;
+    private final String[] datasets;
+    private final String[] metrics;
+    private final long[] algorithmIds;
+    private final long[] datasetIds;
+    private final long[] metricIds;
+    private final int[] kValues;
+    private final double[] values;
+    private int size;
+
+    public ResultBatch(int capacity) {
+        algorithms = new String[capacity];
+        datasets = new String[capacity];
+        metrics = new String[capacity];
+        algorithmIds = new long[capacity];
+        datasetIds = new long[capacity];
+        metricIds = new long[capacity];
+        kValues = new int[capacity];
+        values = new double[capacity];
+    }
+
+    public void add(String algorithm, long algorithmId, String dataset, long datasetId,
+            String metric, long metricId, int k, double value) {
+        algorithms[size] = algorithm;
+        datasets[size] = dataset;
+        metrics[size] = metric;
+        algorithmIds[size] = algorithmId;
+        datasetIds[size] = datasetId;
+        metricIds[size] = metricId;
+        kValues[size] = k;
+        values[size] = value;
+        size++;
+    }
+
+    public boolean isFull() {
+        return size == values.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String algorithm(int i) {
+        return algorithms[i];
+    }
+
+    public String dataset(int i) {
+        return datasets[i];
+    }
+
+    public String metric(int i) {
+        return metrics[i];
+    }
+
+    public long algorithmId(int i) {
+        return algorithmIds[i];
+    }
+
+    public long datasetId(int i) {
+        return datasetIds[i];
+    }
+
+    public long metricId(int i) {
+        return metricIds[i];
+    }
+
+    public int k(int i) {
+        return kValues[i];
+    }
+
+    public double value(int i) {
+        return values[i];
+    }
+}
@@ -0,0 +1,228 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.config.StorageProperties;
+import com.tancilon.aggspringboot.dto.DownloadResultsRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * 结果导出的磁盘缓存
+ *
+ * 以导出请求的规范化哈希加全局数据版本号作为键，文件名为 {版本号}-{哈希}.zip。
+ * 未命中时导出内容一边写入响应一边写入缓存文件，完整写完后才原子地放入缓存；
+ * 数据变更后旧版本的文件不会再被命中，写入新文件时顺带清理，其余按最近最少使用与总大小上限淘汰。
+ */
+@Component
+public class ResultExportCache {
+    private static final Logger logger = LoggerFactory.getLogger(ResultExportCache.class);
+
+    private static final String SUFFIX = ".zip";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final DataVersionService dataVersionService;
+    private final Path cacheDir;
+    private final long maxBytes;
+
+    // 按访问顺序排列的缓存文件索引，键为文件名
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ResultExportCache(DataVersionService dataVersionService,
+            StorageProperties storageProperties,
+            @Value("${export-cache.max-size-mb:512}") long maxSizeMb) {
+        this.dataVersionService = dataVersionService;
+        this.cacheDir = Paths.get(storageProperties.getWorkDir(), "export-cache");
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    // 数据版本号以启动时间为初值，上次运行留下的文件不会再被命中，启动时直接清空
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(cacheDir);
+        int deleted = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX) || name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Cleared {} stale files from export cache", deleted);
+        }
+    }
+
+    /**
+     * 计算导出请求在当前数据版本下的缓存键
+     *
+     * 算法、数据集、k 值去重排序后参与哈希，选择顺序不同的相同导出命中同一文件。
+     */
+    public String key(DownloadResultsRequest request) {
+        StringBuilder canonical = new StringBuilder();
+        canonical.append("metric=").append(request.getMetric()).append('\n');
+        canonical.append("algorithms=").append(sorted(request.getSelectedAlgorithms())).append('\n');
+        canonical.append("datasets=").append(sorted(request.getSelectedDatasets())).append('\n');
+        canonical.append("k=").append(sorted(request.getSelectedKValues())).append('\n');
+        canonical.append("csv=").append(request.isIncludeCSV());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return dataVersionService.getVersion() + "-" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 打开缓存文件，未命中返回 null
+     *
+     * 在与淘汰相同的锁内打开，返回后即使文件被淘汰删除，已打开的通道仍可读完整内容。
+     */
+    public synchronized FileChannel open(String key) throws IOException {
+        String name = key + SUFFIX;
+        if (entries.get(name) == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(cacheDir.resolve(name), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            totalBytes -= entries.remove(name);
+            return null;
+        }
+    }
+
+    /**
+     * 生成导出内容，同时写入响应与缓存文件；生成失败时丢弃缓存文件
+     */
+    public void store(String key, OutputStream out, ExportWriter writer) throws IOException {
+        Path temp = cacheDir.resolve(UUID.randomUUID() + TEMP_SUFFIX);
+        boolean complete = false;
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            writer.write(new TeeOutputStream(out, file));
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        String name = key + SUFFIX;
+        Path target = cacheDir.resolve(name);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long size = Files.size(target);
+        synchronized (this) {
+            Long previous = entries.put(name, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            evict(name);
+        }
+    }
+
+    // 先清理旧数据版本的文件，再按最近最少使用淘汰到总大小上限以内，刚写入的文件保留
+    private void evict(String keep) {
+        String currentPrefix = dataVersionService.getVersion() + "-";
+        List<String> removed = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            if (!entry.getKey().startsWith(currentPrefix) || totalBytes > maxBytes) {
+                iterator.remove();
+                totalBytes -= entry.getValue();
+                removed.add(entry.getKey());
+            }
+        }
+        for (String name : removed) {
+            try {
+                Files.deleteIfExists(cacheDir.resolve(name));
+            } catch (IOException e) {
+                logger.warn("Failed to delete cached export {}: {}", name, e.getMessage());
+            }
+        }
+        if (!removed.isEmpty()) {
+            logger.info("Evicted {} cached exports, {} bytes in use", removed.size(), totalBytes);
+        }
+    }
+
+    private static List<String> sorted(List<?> values) {
+        TreeSet<String> set = new TreeSet<>();
+        if (values != null) {
+            for (Object value : values) {
+                set.add(String.valueOf(value));
+            }
+        }
+        return new ArrayList<>(set);
+    }
+
+    /**
+     * 导出内容的生成逻辑
+     */
+    @FunctionalInterface
+    public interface ExportWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static class TeeOutputStream extends FilterOutputStream {
+        private final OutputStream branch;
+
+        TeeOutputStream(OutputStream out, OutputStream branch) {
+            super(out);
+            this.branch = branch;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            branch.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            branch.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+            branch.flush();
+        }
+
+        // 响应流由容器关闭，这里只关闭缓存文件
+        @Override
+        public void close() throws IOException {
+            flush();
+            branch.close();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.config.StorageProperties;
+import com.tancilon.aggspringboot.entity.ResultIngestionJob;
+import com.tancilon.aggspringboot.enums.JobStatus;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.repository.ResultIngestionJobRepository;
+import com.tancilon.aggspringboot.vo.IngestionJobVO;
+import com.tancilon.aggspringboot.vo.IngestionReportVO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步结果上传
+ *
+ * 请求体原样落盘后记录为 PENDING 任务并立即返回任务 id，由固定大小的后台线程池调用
+ * ResultIngestionService 完成解析与写库，请求线程不再等待整个上传处理完。
+ * 任务表即队列，启动时会重新提交上次未完成的任务；写库是幂等 upsert，重复执行不会产生脏数据。
+ */
+@Service
+public class ResultIngestionJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ResultIngestionJobService.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final ResultIngestionJobRepository jobRepository;
+    private final ResultIngestionService ingestionService;
+    private final Path spoolDir;
+    private final ExecutorService executor;
+
+    // 运行中任务已读取的字节数与截至最近一个数据块的写入统计，仅保存在内存中，避免在写库事务内频繁更新任务行
+    private final Map<Long, Progress> progress = new ConcurrentHashMap<>();
+
+    public ResultIngestionJobService(ResultIngestionJobRepository jobRepository,
+            ResultIngestionService ingestionService,
+            StorageProperties storageProperties,
+            @Value("${ingestion.worker-threads:2}") int workerThreads) {
+        this.jobRepository = jobRepository;
+        this.ingestionService = ingestionService;
+        this.spoolDir = Paths.get(storageProperties.getWorkDir(), "ingestion-jobs");
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "result-ingestion-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 将请求体落盘并创建任务，返回任务状态
+     */
+    public IngestionJobVO submit(InputStream body) throws IOException {
+        Files.createDirectories(spoolDir);
+        Path payload = spoolDir.resolve(UUID.randomUUID() + ".json");
+        long size = Files.copy(body, payload);
+
+        ResultIngestionJob job = new ResultIngestionJob();
+        job.setStatus(JobStatus.PENDING);
+        job.setPayloadPath(payload.toString());
+        job.setPayloadSize(size);
+        try {
+            job = jobRepository.save(job);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(payload);
+            throw e;
+        }
+
+        logger.info("Queued result ingestion job {} ({} bytes)", job.getId(), size);
+        enqueue(job.getId());
+        return toVO(job);
+    }
+
+    public IngestionJobVO getJob(Long id) {
+        ResultIngestionJob job = jobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Ingestion job not found: " + id));
+        return toVO(job);
+    }
+
+    // 重新提交上次停机时尚未完成的任务；RUNNING 状态的任务其写库事务已随进程退出回滚
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingJobs() {
+        List<ResultIngestionJob> jobs = jobRepository.findByStatusInOrderByIdAsc(
+                EnumSet.of(JobStatus.PENDING, JobStatus.RUNNING));
+        for (ResultIngestionJob job : jobs) {
+            if (job.getStatus() == JobStatus.RUNNING) {
+                job.setStatus(JobStatus.PENDING);
+                job.setStartedAt(null);
+                jobRepository.save(job);
+            }
+            enqueue(job.getId());
+        }
+        if (!jobs.isEmpty()) {
+            logger.info("Resumed {} unfinished result ingestion jobs", jobs.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void enqueue(Long jobId) {
+        executor.execute(() -> run(jobId));
+    }
+
+    private void run(Long jobId) {
+        if (jobRepository.claim(jobId, LocalDateTime.now()) == 0) {
+            return;
+        }
+        ResultIngestionJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        Path payload = Paths.get(job.getPayloadPath());
+        Progress current = new Progress();
+        progress.put(jobId, current);
+        IngestionReportVO report = null;
+        try (InputStream in = new CountingInputStream(
+                new BufferedInputStream(Files.newInputStream(payload)), current.bytesRead)) {
+            report = ingestionService.ingest(in, batchReport -> current.report = batchReport);
+        } catch (Exception e) {
+            if (report == null) {
+                // 写库事务在任何异常时整体回滚，失败的任务没有写入任何数据点
+                logger.error("Result ingestion job {} failed, no results were written", jobId, e);
+                String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                job.setStatus(JobStatus.FAILED);
+                job.setErrorMessage(truncate("Rolled back, no results were written: " + message));
+                job.setInserted(0);
+                job.setUpdated(0);
+                job.setUnchanged(0);
+            } else {
+                // 写库已提交，只是关闭请求体文件时出错
+                logger.warn("Failed to close payload of ingestion job {}: {}", jobId, e.getMessage());
+            }
+        } finally {
+            progress.remove(jobId);
+        }
+
+        if (report != null) {
+            job.setStatus(JobStatus.SUCCEEDED);
+            job.setInserted(report.getInserted());
+            job.setUpdated(report.getUpdated());
+            job.setUnchanged(report.getUnchanged());
+            logger.info("Result ingestion job {} finished: {} inserted, {} updated, {} unchanged",
+                    jobId, report.getInserted(), report.getUpdated(), report.getUnchanged());
+        }
+
+        job.setFinishedAt(LocalDateTime.now());
+        jobRepository.save(job);
+        try {
+            Files.deleteIfExists(payload);
+        } catch (IOException e) {
+            logger.warn("Failed to delete payload of ingestion job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private IngestionJobVO toVO(ResultIngestionJob job) {
+        IngestionJobVO vo = new IngestionJobVO();
+        vo.setId(job.getId());
+        vo.setStatus(job.getStatus());
+        vo.setPayloadSize(job.getPayloadSize());
+        vo.setCreatedAt(job.getCreatedAt());
+        vo.setStartedAt(job.getStartedAt());
+        vo.setFinishedAt(job.getFinishedAt());
+        vo.setError(job.getErrorMessage());
+
+        long size = job.getPayloadSize() != null ? job.getPayloadSize() : 0;
+        Progress current = progress.get(job.getId());
+        if (job.getStatus() == JobStatus.SUCCEEDED) {
+            vo.setBytesProcessed(size);
+            vo.setProgress(1.0);
+        } else {
+            long processed = current != null ? Math.min(current.bytesRead.get(), size) : 0;
+            vo.setBytesProcessed(processed);
+            vo.setProgress(size > 0 ? (double) processed / size : 0.0);
+        }
+        if (job.getStatus() == JobStatus.SUCCEEDED || job.getStatus() == JobStatus.FAILED) {
+            // 成功时为已提交的统计；失败时事务已回滚，统计为 0
+            IngestionReportVO report = new IngestionReportVO();
+            report.setInserted(job.getInserted() != null ? job.getInserted() : 0);
+            report.setUpdated(job.getUpdated() != null ? job.getUpdated() : 0);
+            report.setUnchanged(job.getUnchanged() != null ? job.getUnchanged() : 0);
+            vo.setReport(report);
+        } else {
+            // 运行中为截至最近一个数据块的统计，提交前仍可能整体回滚
+            vo.setReport(current != null ? current.report : null);
+        }
+        return vo;
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static class Progress {
+        private final AtomicLong bytesRead = new AtomicLong();
+        private volatile IngestionReportVO report;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count.addAndGet(skipped);
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.tancilon.aggspringboot.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tancilon.aggspringboot.dto.ResultSubmitDTO;
+import com.tancilon.aggspringboot.event.ResultsSavedEvent;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.repository.AlgorithmRepository;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.repository.MetricRepository;
+import com.tancilon.aggspringboot.entity.Algorithm;
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.entity.Metric;
+import com.tancilon.aggspringboot.vo.IngestionReportVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 结果上传的流式入库
+ *
+ * 请求体（单个对象或对象数组）由 JsonParser 逐 token 解析，指标直接转换为列式的 ResultBatch，
+ * 不构建 DTO 与 Result 实体；每满 BATCH_SIZE 行以一次 JDBC 批量 upsert 写库，整个请求在同一事务内完成，
+ * 任何异常（包括读取请求体的 IOException）都会回滚已写入的数据块。
+ * 写库前按唯一键查出已有数值，只写入新增或数值变化的数据点，重复提交不会产生额外写入。
+ * 写入统计按不同的数据点计数：同一请求中重复出现的数据点只计一次，以请求前的数值与最终写入的数值比较。
+ */
+@Service
+public class ResultIngestionService {
+    private static final Logger logger = LoggerFactory.getLogger(ResultIngestionService.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    // 以 (dataset_id, metric_id, algorithm_id, k_value) 唯一键 upsert，重复提交以最后写入的值为准；
+    // 只有新增或数值变化的行会被写入，覆盖时清除此前的复核结论
+    private static final String UPSERT_RESULT = "INSERT INTO results "
+            + "(algorithm_id, dataset_id, metric_id, k_value, value, created_at) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE value = VALUES(value), "
+            + "verification_status = NULL, verified_value = NULL, verified_at = NULL";
+
+    // 汇总值变化后此前保存的逐查询数值不再与之对应，随 upsert 一并删除；服务端评测写入结果后会重新保存
+    private static final String DELETE_QUERY_SCORES = "DELETE FROM query_scores "
+            + "WHERE algorithm_id = ? AND dataset_id = ? AND metric_id = ?";
+
+    private static final String SELECT_EXISTING = "SELECT algorithm_id, dataset_id, metric_id, k_value, value "
+            + "FROM results WHERE dataset_id IN (:datasetIds) AND metric_id IN (:metricIds) "
+            + "AND algorithm_id IN (:algorithmIds)";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private AlgorithmRepository algorithmRepository;
+
+    @Autowired
+    private DatasetRepository datasetRepository;
+
+    @Autowired
+    private MetricRepository metricRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    /**
+     * 解析并写入结果，返回新增、更新、未变化的数据点数量
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public IngestionReportVO ingest(InputStream body) throws IOException {
+        return ingest(body, null);
+    }
+
+    /**
+     * 同上，每写完一个数据块以截至目前的统计回调 onBatch；统计在事务提交前只反映进度，失败时全部回滚
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public IngestionReportVO ingest(InputStream body, Consumer<IngestionReportVO> onBatch) throws IOException {
+        Ingestion ingestion = new Ingestion(onBatch);
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                    ingestion.readSubmission(parser);
+                }
+                if (token != JsonToken.END_ARRAY) {
+                    throw new IllegalArgumentException("Expected a result object or the end of the array");
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                ingestion.readSubmission(parser);
+            } else {
+                throw new IllegalArgumentException("Expected a result object or an array of result objects");
+            }
+            // 请求体只能包含一个对象或数组，之后的内容一律拒绝
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Unexpected content after the results");
+            }
+        }
+        ingestion.flush();
+
+        IngestionReportVO report = ingestion.report();
+        if (ingestion.written) {
+            dataVersionService.markChanged();
+        }
+        logger.info("Ingested {} result rows from {} submissions: {} inserted, {} updated, {} unchanged",
+                report.getTotal(), ingestion.submissions, report.getInserted(), report.getUpdated(),
+                report.getUnchanged());
+        return report;
+    }
+
+    /**
+     * 写入服务端生成的一组结果，与上传的请求体走同一条解析、校验与写库路径
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public IngestionReportVO ingest(ResultSubmitDTO submission) throws IOException {
+        return ingest(new ByteArrayInputStream(objectMapper.writeValueAsBytes(submission)));
+    }
+
+    /**
+     * 与库中已有数值比较后写入一个数据块，只写入新增或数值变化的数据点，返回是否写入了数据
+     *
+     * 块内按提交顺序处理，同一数据点出现多次时后者覆盖前者。outcomes 记录每个数据点在本次请求之前的数值
+     * 与最后提交的数值，跨数据块累计；tally 随之按数据点的当前类别计数。
+     */
+    private boolean writeBatch(ResultBatch batch, Map<Cell, Outcome> outcomes, Tally tally) {
+        Map<Cell, Double> current = findExisting(batch);
+        Map<Cell, Integer> changed = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Cell cell = new Cell(batch.algorithmId(i), batch.datasetId(i), batch.metricId(i), batch.k(i));
+            boolean existed = current.containsKey(cell);
+            Double previous = current.put(cell, batch.value(i));
+            Outcome outcome = outcomes.get(cell);
+            if (outcome == null) {
+                outcome = new Outcome(existed, previous);
+                outcomes.put(cell, outcome);
+            } else {
+                tally.remove(outcome);
+            }
+            outcome.value = batch.value(i);
+            tally.add(outcome);
+            // 库中为 NULL 的数值与任何提交的数值都不相同
+            if (previous != null && Double.compare(previous, batch.value(i)) == 0) {
+                continue;
+            }
+            changed.put(cell, i);
+        }
+        if (changed.isEmpty()) {
+            return false;
+        }
+
+        ResultBatch writes = new ResultBatch(changed.size());
+        for (int i : changed.values()) {
+            writes.add(batch.algorithm(i), batch.algorithmId(i), batch.dataset(i), batch.datasetId(i),
+                    batch.metric(i), batch.metricId(i), batch.k(i), batch.value(i));
+        }
+        upsertBatch(writes);
+        return true;
+    }
+
+    // 按块内出现的算法、数据集、指标 id 查出已有数值，走唯一键 (dataset_id, metric_id, ...) 前缀
+    private Map<Cell, Double> findExisting(ResultBatch batch) {
+        Set<Long> algorithmIds = new HashSet<>();
+        Set<Long> datasetIds = new HashSet<>();
+        Set<Long> metricIds = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            algorithmIds.add(batch.algorithmId(i));
+            datasetIds.add(batch.datasetId(i));
+            metricIds.add(batch.metricId(i));
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("algorithmIds", algorithmIds)
+                .addValue("datasetIds", datasetIds)
+                .addValue("metricIds", metricIds);
+
+        Map<Cell, Double> existing = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_EXISTING, params, rs -> {
+            // wasNull 针对最近读取的列，需紧跟在读取数值之后
+            double value = rs.getDouble(5);
+            Double existingValue = rs.wasNull() ? null : value;
+            existing.put(new Cell(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getInt(4)), existingValue);
+        });
+        return existing;
+    }
+
+    private void upsertBatch(ResultBatch batch) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.batchUpdate(UPSERT_RESULT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, batch.algorithmId(i));
+                ps.setLong(2, batch.datasetId(i));
+                ps.setLong(3, batch.metricId(i));
+                ps.setInt(4, batch.k(i));
+                ps.setDouble(5, batch.value(i));
+                ps.setTimestamp(6, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+
+        Set<List<Long>> curves = new LinkedHashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            curves.add(List.of(batch.algorithmId(i), batch.datasetId(i), batch.metricId(i)));
+        }
+        jdbcTemplate.batchUpdate(DELETE_QUERY_SCORES, curves.stream().map(List::toArray).toList());
+        // 事务提交后增量刷新内存立方体
+        eventPublisher.publishEvent(new ResultsSavedEvent(batch));
+    }
+
+    /**
+     * 单次请求的解析状态：名称到 id 的缓存与当前未写库的数据块
+     */
+    private class Ingestion {
+        private final Map<String, Long> algorithmIds = new HashMap<>();
+        private final Map<String, Long> datasetIds = new HashMap<>();
+        private final Map<String, Long> metricIds = new HashMap<>();
+        private final Map<Cell, Outcome> outcomes = new HashMap<>();
+        private final Tally tally = new Tally();
+        private final Consumer<IngestionReportVO> onBatch;
+        private ResultBatch batch = new ResultBatch(BATCH_SIZE);
+        private int submissions;
+        private boolean written;
+
+        Ingestion(Consumer<IngestionReportVO> onBatch) {
+            this.onBatch = onBatch;
+        }
+
+        // 同一提交对象内指标可能先于 algorithm/dataset 字段出现，先暂存，对象结束时再落入数据块
+        private final PendingRows pending = new PendingRows();
+
+        void readSubmission(JsonParser parser) throws IOException {
+            String algorithm = null;
+            String dataset = null;
+            pending.clear();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("algorithm".equals(field)) {
+                    algorithm = parser.getValueAsString();
+                } else if ("dataset".equals(field)) {
+                    dataset = parser.getValueAsString();
+                } else if ("metrics".equals(field) && value == JsonToken.START_OBJECT) {
+                    readMetrics(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (algorithm == null || dataset == null) {
+                throw new IllegalArgumentException("Each result must specify algorithm and dataset");
+            }
+            long algorithmId = algorithmIds.computeIfAbsent(algorithm, this::resolveAlgorithm);
+            long datasetId = datasetIds.computeIfAbsent(dataset, this::resolveDataset);
+            for (int i = 0; i < pending.size; i++) {
+                batch.add(algorithm, algorithmId, dataset, datasetId,
+                        pending.metrics[i], pending.metricIds[i], pending.kValues[i], pending.values[i]);
+                if (batch.isFull()) {
+                    flush();
+                }
+            }
+            submissions++;
+        }
+
+        private void readMetrics(JsonParser parser) throws IOException {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String metricName = parser.getCurrentName();
+                long metricId = metricIds.computeIfAbsent(metricName, this::resolveMetric);
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT) {
+                    // @k 类型的指标
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        int k = Integer.parseInt(parser.getCurrentName());
+                        parser.nextToken();
+                        pending.add(metricName, metricId, k, readNumber(parser, metricName));
+                    }
+                } else {
+                    // 固定类型的指标，k 记为 0
+                    pending.add(metricName, metricId, 0, readNumber(parser, metricName));
+                }
+            }
+        }
+
+        private double readNumber(JsonParser parser, String metricName) throws IOException {
+            if (!parser.currentToken().isNumeric()) {
+                throw new IllegalArgumentException("Value of metric " + metricName + " must be a number");
+            }
+            return parser.getDoubleValue();
+        }
+
+        void flush() {
+            if (batch.size() == 0) {
+                return;
+            }
+            written |= writeBatch(batch, outcomes, tally);
+            batch = new ResultBatch(BATCH_SIZE);
+            if (onBatch != null) {
+                onBatch.accept(tally.report());
+            }
+        }
+
+        IngestionReportVO report() {
+            return tally.report();
+        }
+
+        private Long resolveAlgorithm(String name) {
+            return algorithmRepository.findByName(name)
+                    .map(Algorithm::getId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Algorithm not found: " + name));
+        }
+
+        private Long resolveDataset(String name) {
+            Dataset dataset = datasetRepository.findByName(name);
+            if (dataset == null) {
+                throw new ResourceNotFoundException("Dataset not found: " + name);
+            }
+            return dataset.getId();
+        }
+
+        private Long resolveMetric(String name) {
+            return metricRepository.findByName(name)
+                    .map(Metric::getId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Metric not found: " + name));
+        }
+    }
+
+    private record Cell(long algorithmId, long datasetId, long metricId, int k) {
+    }
+
+    // 数据点在请求之前是否存在及其数值（库中可能为 NULL），以及本次请求最后提交的数值
+    private static class Outcome {
+        private final boolean existed;
+        private final Double before;
+        private double value;
+
+        Outcome(boolean existed, Double before) {
+            this.existed = existed;
+            this.before = before;
+        }
+    }
+
+    // 每个数据点计一次：请求前不存在为新增，最终数值与请求前相同为未变化，否则为更新
+    private static class Tally {
+        private int inserted;
+        private int updated;
+        private int unchanged;
+
+        void add(Outcome outcome) {
+            count(outcome, 1);
+        }
+
+        // 数据点再次出现、数值可能改变前先撤销原来的类别
+        void remove(Outcome outcome) {
+            count(outcome, -1);
+        }
+
+        private void count(Outcome outcome, int delta) {
+            if (!outcome.existed) {
+                inserted += delta;
+            } else if (outcome.before != null && Double.compare(outcome.before, outcome.value) == 0) {
+                unchanged += delta;
+            } else {
+                updated += delta;
+            }
+        }
+
+        IngestionReportVO report() {
+            IngestionReportVO report = new IngestionReportVO();
+            report.setInserted(inserted);
+            report.setUpdated(updated);
+            report.setUnchanged(unchanged);
+            return report;
+        }
+    }
+
+    private static class PendingRows {
+        private String[] metrics = new String[64];
+        private long[] metricIds = new long[64];
+        private int[] kValues = new int[64];
+        private double[] values = new double[64];
+        private int size;
+
+        void add(String metric, long metricId, int k, double value) {
+            if (size == values.length) {
+                int capacity = size * 2;
+                metrics = java.util.Arrays.copyOf(metrics, capacity);
+                metricIds = java.util.Arrays.copyOf(metricIds, capacity);
+                kValues = java.util.Arrays.copyOf(kValues, capacity);
+                values = java.util.Arrays.copyOf(values, capacity);
+            }
+            metrics[size] = metric;
+            metricIds[size] = metricId;
+            kValues[size] = k;
+            values[size] = value;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
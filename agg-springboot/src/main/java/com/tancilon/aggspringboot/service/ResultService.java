@@ -3,8 +3,6 @@ package com.tancilon.aggspringboot.service;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
-import com.tancilon.aggspringboot.dto.ResultSubmitDTO;
-import com.tancilon.aggspringboot.entity.Result;
 import com.tancilon.aggspringboot.repository.ResultRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,48 +11,41 @@ import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Set;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.stream.Stream;
 import java.util.TreeSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.stream.Collectors;
 import java.io.IOException;
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.Optional;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
-import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
-import org.springframework.util.FileSystemUtils;
 import org.springframework.core.io.ResourceLoader;
 import com.tancilon.aggspringboot.dto.DownloadResultsRequest;
 import com.tancilon.aggspringboot.entity.Algorithm;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
 import com.tancilon.aggspringboot.repository.AlgorithmRepository;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.repository.MetricRepository;
+import com.tancilon.aggspringboot.vo.LeaderboardVO;
 import org.springframework.core.io.ResourceLoader;
 import com.tancilon.aggspringboot.config.StorageProperties;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
-import org.jfree.chart.ChartFactory;
-import org.jfree.chart.JFreeChart;
-import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
-import org.jfree.chart.ChartUtils;
-import java.awt.Color;
-import java.awt.BasicStroke;
-import java.nio.file.Paths;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.util.FileSystemUtils;
 
 @Service
 public class ResultService {
     private static final Logger logger = LoggerFactory.getLogger(ResultService.class);
+    private static final int ZIP_BUFFER_SIZE = 64 * 1024;
 
     @Autowired
     private ResultRepository resultRepository;
@@ -66,72 +57,19 @@ public class ResultService {
     private StorageProperties storageProperties;
 
     @Autowired
-    private ResourceLoader resourceLoader;
-
-    @Transactional
-    public void saveResults(ResultSubmitDTO submitData) {
-        List<Result> results = new ArrayList<>();
-
-        // 判断是否为批量数据
-        if (submitData instanceof List) {
-            // 处理批量数据
-            @SuppressWarnings("unchecked")
-            List<ResultSubmitDTO> batchData = (List<ResultSubmitDTO>) submitData;
+    private FileStorageService fileStorageService;
 
-            for (ResultSubmitDTO data : batchData) {
-                processResult(data, results);
-            }
-
-            logger.info("Processing batch upload with {} entries", batchData.size());
-        } else {
-            // 处理单个数据
-            processResult(submitData, results);
-            logger.info("Processing single upload for algorithm: {}, dataset: {}",
-                    submitData.getAlgorithm(), submitData.getDataset());
-        }
-
-        // 批量保存结果
-        if (!results.isEmpty()) {
-            resultRepository.saveAll(results);
-            logger.info("Successfully saved {} results", results.size());
-        } else {
-            logger.warn("No results to save");
-        }
-    }
+    @Autowired
+    private ResourceLoader resourceLoader;
 
-    private void processResult(ResultSubmitDTO data, List<Result> results) {
-        data.getMetrics().forEach((metricName, metricValue) -> {
-            if (metricValue instanceof Map) {
-                // 处理 @k 类型的指标
-                @SuppressWarnings("unchecked")
-                Map<String, Object> kValues = (Map<String, Object>) metricValue;
-                kValues.forEach((k, value) -> {
-                    Result result = new Result();
-                    result.setAlgorithm(data.getAlgorithm());
-                    result.setDataset(data.getDataset());
-                    result.setMetricName(metricName);
-                    result.setKValue(Integer.parseInt(k));
-                    // 确保性能值是 Double 类型
-                    result.setValue(((Number) value).doubleValue());
-                    results.add(result);
+    @Autowired
+    private PerformanceCube performanceCube;
 
-                    logger.debug("Created @k result: algorithm={}, dataset={}, metric={}, k={}, value={}",
-                            data.getAlgorithm(), data.getDataset(), metricName, k, value);
-                });
-            } else {
-                // 处理固定类型的指标
-                Result result = new Result();
-                result.setAlgorithm(data.getAlgorithm());
-                result.setDataset(data.getDataset());
-                result.setMetricName(metricName);
-                result.setValue(((Number) metricValue).doubleValue());
-                results.add(result);
+    @Autowired
+    private MetricRepository metricRepository;
 
-                logger.debug("Created fixed result: algorithm={}, dataset={}, metric={}, value={}",
-                        data.getAlgorithm(), data.getDataset(), metricName, metricValue);
-            }
-        });
-    }
+    @Autowired
+    private MetricKernelRegistry metricKernelRegistry;
 
     // 获取数据集的可用指标列表
     public List<String> getAvailableMetrics(String datasetId) {
@@ -143,55 +81,20 @@ public class ResultService {
     public Map<String, Object> getDatasetMetricPerformance(String datasetId, String metricName) {
         logger.info("Getting performance data for dataset: {}, metric: {}", datasetId, metricName);
 
-        // 获取该数据集在特定指标下的所有结果
-        List<Result> results = resultRepository.findByDatasetAndMetricName(datasetId, metricName);
-        logger.info("Found {} results", results.size());
-
-        // 构建性能数据响应
-        Map<String, Object> response = new HashMap<>();
-        List<Map<String, Object>> series = new ArrayList<>();
-        Set<Integer> kValues = new TreeSet<>(); // 使用TreeSet自动排序
-
-        // 按算法分组处理数据
-        Map<String, List<Result>> algorithmResults = results.stream()
-                .collect(Collectors.groupingBy(Result::getAlgorithm));
-
-        logger.info("Processing {} algorithms", algorithmResults.size());
-
-        // 处理每个算法的数据
-        algorithmResults.forEach((algorithm, algorithmData) -> {
-            Map<String, Object> seriesItem = new HashMap<>();
-            seriesItem.put("name", algorithm);
-
-            // 收集该算法的所有数据点
-            Map<Integer, Double> kValueMap = algorithmData.stream()
-                    .collect(Collectors.toMap(
-                            r -> r.getKValue() != null ? r.getKValue() : 0,
-                            Result::getValue,
-                            (v1, v2) -> v1));
+        // 直接从内存立方体读取，不再访问数据库
+        Map<String, Object> response = performanceCube.getDatasetMetricPerformance(datasetId, metricName);
 
-            // 收集所有k值
-            kValues.addAll(kValueMap.keySet());
-
-            // 按k值排序添加数据点
-            List<Double> sortedData = kValueMap.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .map(Map.Entry::getValue)
-                    .collect(Collectors.toList());
-
-            seriesItem.put("data", sortedData);
-            series.add(seriesItem);
-
-            logger.info("Processed algorithm: {}, data points: {}", algorithm, sortedData.size());
-        });
-
-        response.put("series", series);
-        response.put("xAxis", new ArrayList<>(kValues));
-
-        logger.info("Final response: series count={}, xAxis values={}", series.size(), kValues.size());
+        logger.info("Final response: series count={}, xAxis values={}",
+                ((List<?>) response.get("series")).size(), ((List<?>) response.get("xAxis")).size());
         return response;
     }
 
+    // 获取数据集在特定指标、k 值下的算法排行榜
+    public LeaderboardVO getLeaderboard(String datasetId, String metricName, int k, boolean ascending,
+            int page, int size) {
+        return performanceCube.getLeaderboard(datasetId, metricName, k, ascending, page, size);
+    }
+
     public List<String> findDistinctMetricNamesByAlgorithm(String algorithm) {
         return resultRepository.findDistinctMetricNamesByAlgorithm(algorithm);
     }
@@ -203,97 +106,88 @@ public class ResultService {
         return metrics;
     }
 
-    public Resource generateResultsZip(DownloadResultsRequest request) throws IOException {
-        logger.info("Generating results zip with config: {}", request);
+    /**
+     * 校验导出请求，在开始写响应之前发现错误，使客户端仍能收到错误状态码
+     */
+    public void validateDownloadRequest(DownloadResultsRequest request) {
+        if (request.getMetric() == null || request.getSelectedAlgorithms() == null
+                || request.getSelectedDatasets() == null) {
+            throw new IllegalArgumentException("metric, selectedAlgorithms and selectedDatasets are required");
+        }
+        for (String algorithmName : request.getSelectedAlgorithms()) {
+            if (algorithmRepository.findByName(algorithmName).isEmpty()) {
+                throw new ResourceNotFoundException("Algorithm not found: " + algorithmName);
+            }
+        }
+    }
+
+    /**
+     * 将导出结果直接写入 ZIP 输出流：CSV 行边查询边写，bib 文件直接拷入条目，不产生任何临时文件
+     */
+    @Transactional(readOnly = true)
+    public void writeResultsZip(DownloadResultsRequest request, OutputStream out) throws IOException {
+        logger.info("Streaming results zip with config: {}", request);
 
         if (request.getSelectedKValues() == null) {
             request.setSelectedKValues(new ArrayList<>());
         }
 
-        Path tempDir = Files.createTempDirectory("results_");
-        try {
-            // 生成 CSV 文件
-            if (request.isIncludeCSV()) {
-                generateCSVData(request.getMetric(),
-                        request.getSelectedAlgorithms(),
-                        request.getSelectedDatasets(),
-                        request.getSelectedKValues(),
-                        tempDir.resolve("results.csv"));
-            }
-
-            // 添加选中算法的 bib 文件
-            Path bibDir = tempDir.resolve("references");
-            Files.createDirectories(bibDir);
-            for (String algorithmName : request.getSelectedAlgorithms()) {
-                Algorithm algorithm = algorithmRepository.findByName(algorithmName)
-                        .orElseThrow(() -> new RuntimeException("Algorithm not found: " + algorithmName));
+        ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(out, ZIP_BUFFER_SIZE));
+        // 写入 CSV 文件
+        if (request.isIncludeCSV()) {
+            zos.putNextEntry(new ZipEntry("results.csv"));
+            writeCSVData(request.getMetric(),
+                    request.getSelectedAlgorithms(),
+                    request.getSelectedDatasets(),
+                    request.getSelectedKValues(),
+                    zos);
+            zos.closeEntry();
+        }
 
-                if (algorithm.getBibFilePath() != null && !algorithm.getBibFilePath().isEmpty()) {
-                    // 从存储路径读取 BibTeX 文件内容
-                    Path sourceBibPath = Paths.get(storageProperties.getUploadDir(), algorithm.getBibFilePath());
-                    if (Files.exists(sourceBibPath)) {
-                        Path bibFile = bibDir.resolve(algorithmName + ".bib");
-                        Files.copy(sourceBibPath, bibFile, StandardCopyOption.REPLACE_EXISTING);
-                    }
+        // 添加选中算法的 bib 文件
+        for (String algorithmName : request.getSelectedAlgorithms()) {
+            Algorithm algorithm = algorithmRepository.findByName(algorithmName)
+                    .orElseThrow(() -> new ResourceNotFoundException("Algorithm not found: " + algorithmName));
+
+            if (algorithm.getBibFilePath() != null && !algorithm.getBibFilePath().isEmpty()) {
+                // 从存储路径读取 BibTeX 文件内容
+                Path sourceBibPath = fileStorageService.resolveFile(algorithm.getBibFilePath());
+                if (Files.exists(sourceBibPath)) {
+                    zos.putNextEntry(new ZipEntry("references/" + algorithmName + ".bib"));
+                    Files.copy(sourceBibPath, zos);
+                    zos.closeEntry();
                 }
             }
-
-            // 创建 ZIP 文件
-            Path zipFile = Files.createTempFile("results_", ".zip");
-            try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipFile))) {
-                Files.walk(tempDir)
-                        .filter(path -> !Files.isDirectory(path))
-                        .forEach(path -> {
-                            ZipEntry zipEntry = new ZipEntry(tempDir.relativize(path).toString());
-                            try {
-                                zos.putNextEntry(zipEntry);
-                                Files.copy(path, zos);
-                                zos.closeEntry();
-                            } catch (IOException e) {
-                                throw new RuntimeException(e);
-                            }
-                        });
-            }
-
-            return new FileSystemResource(zipFile.toFile());
-        } catch (Exception e) {
-            logger.error("Error generating results zip", e);
-            throw e;
-        } finally {
-            FileSystemUtils.deleteRecursively(tempDir);
         }
+        zos.finish();
+        zos.flush();
     }
 
-    public void generateCSVData(String metric, List<String> algorithms, List<String> datasets,
-            List<Integer> selectedKValues, Path outputPath)
-            throws IOException {
-        // 获取基础数据
-        List<Result> results = resultRepository.findByAlgorithmInAndDatasetInAndMetricName(
-                algorithms, datasets, metric);
-
-        // 根据是否是@k指标过滤数据
-        boolean isAtKMetric = metric.equals("mAP") || metric.equals("NDCG");
-        List<Result> filteredResults = results.stream()
-                .filter(result -> {
-                    // 如果是@k指标，只返回选中的K值的数据
-                    if (isAtKMetric && result.getKValue() != null) {
-                        return selectedKValues.contains(result.getKValue());
-                    }
-                    // 非@k指标返回所有数据
-                    return true;
-                })
-                .collect(Collectors.toList());
-
-        try (CSVPrinter printer = new CSVPrinter(Files.newBufferedWriter(outputPath),
-                CSVFormat.Builder.create().setHeader("Algorithm", "Dataset", "Metric", "K", "Value").build())) {
-            for (Result result : filteredResults) {
-                printer.printRecord(
-                        result.getAlgorithm(),
-                        result.getDataset(),
-                        result.getMetricName(),
-                        isAtKMetric ? result.getKValue() : "NULL", // 非@k指标时输出"NULL"
-                        result.getValue());
+    private void writeCSVData(String metric, List<String> algorithms, List<String> datasets,
+            List<Integer> selectedKValues, OutputStream out) throws IOException {
+        // 根据是否是@k指标过滤数据，以指标计算核的声明为准，没有计算核时看指标类型
+        boolean isAtKMetric = metricRepository.findByName(metric)
+                .map(metricKernelRegistry::isAtK)
+                .orElse(false);
+        Set<Integer> kFilter = new HashSet<>(selectedKValues);
+
+        // 不关闭 printer，关闭会连带关闭 ZIP 流，只在结束时 flush
+        CSVPrinter printer = new CSVPrinter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                CSVFormat.Builder.create().setHeader("Algorithm", "Dataset", "Metric", "K", "Value").build());
+        try (Stream<Object[]> rows = resultRepository.streamCells(algorithms, datasets, metric)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                Integer k = (Integer) row[3];
+                // 如果是@k指标，只返回选中的K值的数据；非@k指标返回所有数据
+                if (isAtKMetric && k != null && !kFilter.contains(k)) {
+                    continue;
+                }
+                printer.printRecord(row[0], row[1], row[2],
+                        isAtKMetric ? k : "NULL", // 非@k指标时输出"NULL"
+                        row[4]);
             }
         }
+        printer.flush();
     }
 }
\ No newline at end of file
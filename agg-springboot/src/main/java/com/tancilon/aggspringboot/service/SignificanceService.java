@@ -0,0 +1,262 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.ranking.QueryScoreBlob;
+import com.tancilon.aggspringboot.stats.PairedTests;
+import com.tancilon.aggspringboot.stats.Resampling;
+import com.tancilon.aggspringboot.vo.SignificanceVO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 算法间的配对显著性检验
+ *
+ * 以两个算法在同一数据集、指标、k 上的逐查询数值（见 QueryScoreService）按查询配对，计算配对 t 检验、
+ * Wilcoxon 符号秩检验、符号翻转随机化检验与差值均值的 bootstrap 置信区间。重抽样在独立的 fork/join 线程池中并行，
+ * 随机数种子固定，相同输入总得到相同结果，因此结果按数据版本缓存，数据变更后自然失效。
+ * 接口没有鉴权，单次请求的重抽样次数设有上限；相同参数的并发请求只计算一次，其余请求等待同一结果。
+ */
+@Service
+public class SignificanceService {
+    private static final Logger logger = LoggerFactory.getLogger(SignificanceService.class);
+
+    private final QueryScoreService queryScoreService;
+    private final DataVersionService dataVersionService;
+    private final int defaultPermutations;
+    private final int defaultBootstrapSamples;
+    private final int maxIterations;
+    private final long seed;
+    private final int cacheEntries;
+    private final ForkJoinPool pool;
+
+    // 按访问顺序排列的检验结果缓存，键以数据版本开头
+    private final LinkedHashMap<String, SignificanceVO> cache = new LinkedHashMap<>(16, 0.75f, true);
+    // 正在计算的检验，相同键的请求等待同一结果
+    private final Map<String, CompletableFuture<SignificanceVO>> inFlight = new HashMap<>();
+
+    public SignificanceService(QueryScoreService queryScoreService,
+            DataVersionService dataVersionService,
+            @Value("${significance.parallelism:0}") int parallelism,
+            @Value("${significance.permutations:10000}") int defaultPermutations,
+            @Value("${significance.bootstrap-samples:10000}") int defaultBootstrapSamples,
+            @Value("${significance.max-iterations:100000}") int maxIterations,
+            @Value("${significance.seed:20240229}") long seed,
+            @Value("${significance.cache-entries:512}") int cacheEntries) {
+        this.queryScoreService = queryScoreService;
+        this.dataVersionService = dataVersionService;
+        this.defaultPermutations = defaultPermutations;
+        this.defaultBootstrapSamples = defaultBootstrapSamples;
+        this.maxIterations = maxIterations;
+        this.seed = seed;
+        this.cacheEntries = cacheEntries;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread =
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("significance-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 比较两个算法，差值为 algorithmA - algorithmB
+     *
+     * @param permutations     随机化检验次数，null 时取配置的默认值
+     * @param bootstrapSamples bootstrap 重抽样次数，null 时取配置的默认值
+     */
+    public SignificanceVO compare(String dataset, String metric, Integer k, String algorithmA, String algorithmB,
+            Integer permutations, Integer bootstrapSamples, double confidence) {
+        int permutationCount = permutations != null ? permutations : defaultPermutations;
+        int bootstrapCount = bootstrapSamples != null ? bootstrapSamples : defaultBootstrapSamples;
+        if (permutationCount < 1 || permutationCount > maxIterations
+                || bootstrapCount < 1 || bootstrapCount > maxIterations) {
+            throw new IllegalArgumentException("Iterations must be between 1 and " + maxIterations);
+        }
+        if (!(confidence > 0 && confidence < 1)) {
+            throw new IllegalArgumentException("confidence must be between 0 and 1");
+        }
+        if (algorithmA.equals(algorithmB)) {
+            throw new IllegalArgumentException("Choose two different algorithms");
+        }
+
+        // 先取版本号再读数据：计算期间数据变更时结果以旧版本入缓存，不会被新请求命中
+        String key = dataVersionService.getVersion() + "-" + String.join("\n", dataset, metric, String.valueOf(k),
+                algorithmA, algorithmB, String.valueOf(permutationCount), String.valueOf(bootstrapCount),
+                String.valueOf(confidence));
+        CompletableFuture<SignificanceVO> computation = new CompletableFuture<>();
+        CompletableFuture<SignificanceVO> pending;
+        synchronized (this) {
+            SignificanceVO cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            pending = inFlight.putIfAbsent(key, computation);
+        }
+        if (pending != null) {
+            return await(pending);
+        }
+        try {
+            SignificanceVO vo = compute(dataset, metric, k, algorithmA, algorithmB, permutationCount, bootstrapCount,
+                    confidence);
+            put(key, vo);
+            computation.complete(vo);
+            return vo;
+        } catch (RuntimeException | Error e) {
+            computation.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                inFlight.remove(key);
+            }
+        }
+    }
+
+    // 等待其他请求的计算结果，失败时抛出原异常，调用方按同样的方式映射状态码
+    private static SignificanceVO await(CompletableFuture<SignificanceVO> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private SignificanceVO compute(String dataset, String metric, Integer k, String algorithmA, String algorithmB,
+            int permutationCount, int bootstrapCount, double confidence) {
+        long start = System.currentTimeMillis();
+        QueryScoreService.Curve a = queryScoreService.load(algorithmA, dataset, metric, k);
+        QueryScoreService.Curve b = queryScoreService.load(algorithmB, dataset, metric, k);
+        double[][] paired = pair(a, b);
+        double[] differences = paired[2];
+        int n = differences.length;
+        if (n < 2) {
+            throw new IllegalStateException("Only " + n + " queries are scored for both algorithms");
+        }
+
+        SignificanceVO vo = new SignificanceVO();
+        vo.setDataset(a.dataset().getName());
+        vo.setMetric(a.metric());
+        vo.setK(a.k());
+        vo.setAlgorithmA(a.algorithm());
+        vo.setAlgorithmB(b.algorithm());
+        vo.setPairedQueries(n);
+        vo.setMeanA(mean(paired[0]));
+        vo.setMeanB(mean(paired[1]));
+        vo.setMeanDifference(mean(differences));
+
+        PairedTests.TTest t = PairedTests.tTest(differences);
+        SignificanceVO.TTest studentT = new SignificanceVO.TTest();
+        studentT.setStatistic(t.statistic());
+        studentT.setDegreesOfFreedom(t.degreesOfFreedom());
+        studentT.setTwoSidedP(t.pValue());
+        vo.setStudentT(studentT);
+
+        PairedTests.Wilcoxon w = PairedTests.wilcoxon(differences);
+        SignificanceVO.Wilcoxon wilcoxon = new SignificanceVO.Wilcoxon();
+        wilcoxon.setStatistic(w.statistic());
+        wilcoxon.setNonZero(w.nonZero());
+        wilcoxon.setZ(w.z());
+        wilcoxon.setTwoSidedP(w.pValue());
+        wilcoxon.setExact(w.exact());
+        vo.setWilcoxon(wilcoxon);
+
+        Resampling.PermutationTest p = Resampling.permutationTest(differences, permutationCount, seed, pool);
+        SignificanceVO.Permutation permutation = new SignificanceVO.Permutation();
+        permutation.setIterations(p.iterations());
+        permutation.setTwoSidedP(p.pValue());
+        vo.setPermutation(permutation);
+
+        Resampling.BootstrapInterval ci = Resampling.bootstrapInterval(differences, bootstrapCount, confidence,
+                seed, pool);
+        SignificanceVO.Bootstrap bootstrap = new SignificanceVO.Bootstrap();
+        bootstrap.setIterations(ci.iterations());
+        bootstrap.setConfidence(ci.confidence());
+        bootstrap.setLower(ci.lower());
+        bootstrap.setUpper(ci.upper());
+        vo.setBootstrap(bootstrap);
+
+        vo.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Compared {} and {} on {}/{}@{} over {} queries in {} ms", algorithmA, algorithmB, dataset,
+                metric, k, n, vo.getDurationMs());
+        return vo;
+    }
+
+    // 按查询 id 归并两条曲线（均按 id 升序），返回 {a 的数值, b 的数值, 差值}
+    private static double[][] pair(QueryScoreService.Curve a, QueryScoreService.Curve b) {
+        QueryScoreBlob left = a.blob();
+        QueryScoreBlob right = b.blob();
+        int capacity = Math.min(left.queryCount(), right.queryCount());
+        double[] valuesA = new double[capacity];
+        double[] valuesB = new double[capacity];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.queryCount() && j < right.queryCount()) {
+            int compare = Integer.compare(left.query(i), right.query(j));
+            if (compare < 0) {
+                i++;
+            } else if (compare > 0) {
+                j++;
+            } else {
+                valuesA[n] = left.value(a.kIndex(), i++);
+                valuesB[n] = right.value(b.kIndex(), j++);
+                n++;
+            }
+        }
+        double[] differences = new double[n];
+        for (int q = 0; q < n; q++) {
+            differences[q] = valuesA[q] - valuesB[q];
+        }
+        return new double[][]{ Arrays.copyOf(valuesA, n), Arrays.copyOf(valuesB, n), differences };
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    // 写入缓存，先清理旧数据版本的结果，再按最近最少使用淘汰到上限以内
+    private synchronized void put(String key, SignificanceVO vo) {
+        cache.put(key, vo);
+        String currentPrefix = dataVersionService.getVersion() + "-";
+        Iterator<Map.Entry<String, SignificanceVO>> iterator = cache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, SignificanceVO> entry = iterator.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            if (!entry.getKey().startsWith(currentPrefix) || cache.size() > cacheEntries) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.entity.Algorithm;
+import com.tancilon.aggspringboot.entity.Dataset;
+import com.tancilon.aggspringboot.enums.VerificationStatus;
+import com.tancilon.aggspringboot.exception.ResourceNotFoundException;
+import com.tancilon.aggspringboot.ranking.AggregatedRanking;
+import com.tancilon.aggspringboot.ranking.AtKEvaluation;
+import com.tancilon.aggspringboot.ranking.AtKEvaluator;
+import com.tancilon.aggspringboot.ranking.MetricKernel;
+import com.tancilon.aggspringboot.ranking.RankingDataset;
+import com.tancilon.aggspringboot.repository.AlgorithmRepository;
+import com.tancilon.aggspringboot.repository.DatasetRepository;
+import com.tancilon.aggspringboot.vo.VerificationReportVO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 结果的抽样复核
+ *
+ * 对存在基准排序（服务端评测时保存）的 (算法, 数据集)，随机抽取部分查询与 k 值用指标的计算核重新计算各 @k 指标，
+ * 以抽样均值估计全量均值，与结果表中的数值比较：偏差不超过 max(tolerance, z * 标准误差) 记为 VERIFIED，
+ * 否则记为 DEVIATED，并保存估计值。标准误差含有限总体修正，抽满全部查询时退化为精确比较。
+ * 后台以最低优先级的单线程按固定间隔每次复核一组尚未复核的结果，不做全量评测；复核失败的组在选取时排除，
+ * 经过 verification.retry-failed-minutes 后才重新参与选取。
+ */
+@Service
+public class VerificationService {
+    private static final Logger logger = LoggerFactory.getLogger(VerificationService.class);
+
+    private static final String K_FILTER = "r.k_value BETWEEN " + AtKEvaluator.K_STEP + " AND " + AtKEvaluator.K_MAX
+            + " AND MOD(r.k_value, " + AtKEvaluator.K_STEP + ") = 0";
+
+    private static final String SELECT_CANDIDATES = "SELECT r.algorithm_id, r.dataset_id FROM results r "
+            + "JOIN reference_rankings rr ON rr.algorithm_id = r.algorithm_id AND rr.dataset_id = r.dataset_id "
+            + "JOIN metrics m ON m.id = r.metric_id "
+            + "WHERE r.verification_status IS NULL AND m.name IN (%s) AND " + K_FILTER + "%s "
+            + "GROUP BY r.algorithm_id, r.dataset_id ORDER BY MIN(r.id) LIMIT 1";
+
+    private static final String SELECT_ROWS = "SELECT r.id, m.name, r.k_value, r.value, r.verification_status, "
+            + "r.verified_value FROM results r JOIN metrics m ON m.id = r.metric_id "
+            + "WHERE r.algorithm_id = ? AND r.dataset_id = ? AND m.name IN (%s) AND " + K_FILTER + " "
+            + "ORDER BY m.name, r.k_value";
+
+    // 只在数值未被并发覆盖时写入结论
+    private static final String UPDATE_ROW = "UPDATE results SET verification_status = ?, verified_value = ?, "
+            + "verified_at = ? WHERE id = ? AND value = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AlgorithmRepository algorithmRepository;
+    private final DatasetRepository datasetRepository;
+    private final RankingDatasetService rankingDatasetService;
+    private final ReferenceRankingService referenceRankingService;
+    private final EvaluationService evaluationService;
+    private final boolean enabled;
+    private final int sampleQueries;
+    private final int sampleK;
+    private final double tolerance;
+    private final double z;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // 复核失败的 (算法, 数据集) -> 失败时间，到期前在选取时排除
+    private final Map<Pair, Long> failedPairs = new ConcurrentHashMap<>();
+    private final long retryFailedMillis;
+
+    public VerificationService(JdbcTemplate jdbcTemplate,
+            AlgorithmRepository algorithmRepository,
+            DatasetRepository datasetRepository,
+            RankingDatasetService rankingDatasetService,
+            ReferenceRankingService referenceRankingService,
+            EvaluationService evaluationService,
+            @Value("${verification.enabled:true}") boolean enabled,
+            @Value("${verification.sample-queries:50}") int sampleQueries,
+            @Value("${verification.sample-k:4}") int sampleK,
+            @Value("${verification.tolerance:0.0001}") double tolerance,
+            @Value("${verification.z:3.0}") double z,
+            @Value("${verification.retry-failed-minutes:360}") long retryFailedMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.algorithmRepository = algorithmRepository;
+        this.datasetRepository = datasetRepository;
+        this.rankingDatasetService = rankingDatasetService;
+        this.referenceRankingService = referenceRankingService;
+        this.evaluationService = evaluationService;
+        this.enabled = enabled;
+        this.sampleQueries = sampleQueries;
+        this.sampleK = sampleK;
+        this.tolerance = tolerance;
+        this.z = z;
+        this.retryFailedMillis = TimeUnit.MINUTES.toMillis(retryFailedMinutes);
+
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "result-verification");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 上一轮尚未结束时跳过本轮
+    @Scheduled(initialDelayString = "${verification.interval-ms:30000}",
+            fixedDelayString = "${verification.interval-ms:30000}")
+    public void verifyInBackground() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                verifyNextPair();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * 复核 (算法, 数据集) 的全部 at-k 结果，重新抽样并覆盖此前的结论
+     */
+    public VerificationReportVO verify(String algorithmName, String datasetName) throws IOException {
+        Algorithm algorithm = algorithmRepository.findByName(algorithmName)
+                .orElseThrow(() -> new ResourceNotFoundException("Algorithm not found: " + algorithmName));
+        Dataset dataset = datasetRepository.findByName(datasetName);
+        if (dataset == null) {
+            throw new ResourceNotFoundException("Dataset not found: " + datasetName);
+        }
+        return verify(algorithm, dataset, false);
+    }
+
+    /**
+     * 结果表中已保存的复核结论，estimate 为复核时的估计值
+     */
+    public VerificationReportVO getStatus(String algorithmName, String datasetName) {
+        Algorithm algorithm = algorithmRepository.findByName(algorithmName)
+                .orElseThrow(() -> new ResourceNotFoundException("Algorithm not found: " + algorithmName));
+        Dataset dataset = datasetRepository.findByName(datasetName);
+        if (dataset == null) {
+            throw new ResourceNotFoundException("Dataset not found: " + datasetName);
+        }
+        VerificationReportVO report = new VerificationReportVO();
+        report.setAlgorithm(algorithm.getName());
+        report.setDataset(dataset.getName());
+        for (Row row : findRows(algorithm.getId(), dataset.getId())) {
+            VerificationReportVO.Entry entry = new VerificationReportVO.Entry();
+            entry.setMetric(row.metric);
+            entry.setK(row.k);
+            entry.setValue(row.value);
+            entry.setEstimate(row.verifiedValue);
+            entry.setStatus(row.status);
+            report.getEntries().add(entry);
+        }
+        return report;
+    }
+
+    private void verifyNextPair() {
+        List<String> metrics = atKMetrics();
+        if (metrics.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        failedPairs.values().removeIf(failedAt -> now - failedAt >= retryFailedMillis);
+
+        // 在 SQL 中排除近期失败的组，失败的组再多也不会挡住其他待复核的结果
+        List<Pair> excluded = new ArrayList<>(failedPairs.keySet());
+        List<Object> params = new ArrayList<>(metrics);
+        StringBuilder exclusion = new StringBuilder();
+        if (!excluded.isEmpty()) {
+            exclusion.append(" AND (r.algorithm_id, r.dataset_id) NOT IN (");
+            for (int i = 0; i < excluded.size(); i++) {
+                exclusion.append(i > 0 ? ", " : "").append("(?, ?)");
+                params.add(excluded.get(i).algorithmId());
+                params.add(excluded.get(i).datasetId());
+            }
+            exclusion.append(")");
+        }
+        List<Map<String, Object>> candidates = jdbcTemplate.queryForList(
+                String.format(SELECT_CANDIDATES, placeholders(metrics.size()), exclusion), params.toArray());
+        for (Map<String, Object> candidate : candidates) {
+            long algorithmId = ((Number) candidate.get("algorithm_id")).longValue();
+            long datasetId = ((Number) candidate.get("dataset_id")).longValue();
+            try {
+                Algorithm algorithm = algorithmRepository.findById(algorithmId).orElseThrow();
+                Dataset dataset = datasetRepository.findById(datasetId).orElseThrow();
+                VerificationReportVO report = verify(algorithm, dataset, true);
+                long deviated = report.getEntries().stream()
+                        .filter(entry -> entry.getStatus() == VerificationStatus.DEVIATED).count();
+                logger.info("Verified {} results of {} on {} from {} sampled queries, {} deviated",
+                        report.getEntries().size(), algorithm.getName(), dataset.getName(),
+                        report.getSampledQueries(), deviated);
+            } catch (Exception e) {
+                failedPairs.put(new Pair(algorithmId, datasetId), System.currentTimeMillis());
+                logger.warn("Skipping verification of algorithm {} on dataset {}: {}", algorithmId, datasetId,
+                        e.getMessage());
+            }
+        }
+    }
+
+    private VerificationReportVO verify(Algorithm algorithm, Dataset dataset, boolean unverifiedOnly)
+            throws IOException {
+        AggregatedRanking ranking = referenceRankingService.load(algorithm.getId(), dataset)
+                .orElseThrow(() -> new IllegalStateException("No reference ranking for " + algorithm.getName()
+                        + " on " + dataset.getName()));
+        RankingDataset truth = rankingDatasetService.open(dataset);
+        List<MetricKernel> kernels = evaluationService.getKernels().stream().filter(MetricKernel::isAtK).toList();
+        AtKEvaluator evaluator = new AtKEvaluator(truth, kernels);
+
+        VerificationReportVO report = new VerificationReportVO();
+        report.setAlgorithm(algorithm.getName());
+        report.setDataset(dataset.getName());
+
+        List<Row> rows = new ArrayList<>();
+        Set<Integer> kValues = new LinkedHashSet<>();
+        for (Row row : findRows(algorithm.getId(), dataset.getId())) {
+            if (!unverifiedOnly || row.status == null) {
+                rows.add(row);
+                kValues.add(row.k);
+            }
+        }
+        if (rows.isEmpty()) {
+            return report;
+        }
+        // 后台线程与请求线程会同时复核，每次复核使用独立的随机数生成器
+        SplittableRandom random = new SplittableRandom();
+        Set<Integer> sampledK = sample(new ArrayList<>(kValues), sampleK, random);
+
+        // 只从有相关条目的查询中抽样，与全量评测的平均范围一致
+        int[] population = new int[truth.queryCount()];
+        int populationSize = 0;
+        for (int q = 0; q < truth.queryCount(); q++) {
+            if (evaluator.hasRelevant(q)) {
+                population[populationSize++] = q;
+            }
+        }
+        if (populationSize == 0) {
+            throw new IllegalStateException("Dataset " + dataset.getName() + " has no query with relevant items");
+        }
+        int n = sampleQueries > 0 ? Math.min(sampleQueries, populationSize) : populationSize;
+        for (int i = 0; i < n; i++) {
+            int j = i + random.nextInt(populationSize - i);
+            int swap = population[i];
+            population[i] = population[j];
+            population[j] = swap;
+        }
+        int[] queries = Arrays.copyOf(population, n);
+        AtKEvaluation evaluation = evaluator.evaluate(ranking, queries);
+        report.setSampledQueries(n);
+        report.setTotalQueries(populationSize);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Row row : rows) {
+            if (!sampledK.contains(row.k)) {
+                continue;
+            }
+            int kernel = evaluation.kernelIndex(row.metric);
+            int kIndex = AtKEvaluator.kIndex(row.k);
+            double sum = 0;
+            double sumSquares = 0;
+            for (int q : queries) {
+                double value = evaluation.value(kernel, q, kIndex);
+                sum += value;
+                sumSquares += value * value;
+            }
+            double mean = sum / n;
+            double standardError = 0;
+            if (n < populationSize && n > 1) {
+                double variance = Math.max(0, (sumSquares - n * mean * mean) / (n - 1));
+                standardError = Math.sqrt(variance / n * (populationSize - n) / (populationSize - 1.0));
+            }
+            double allowed = Math.max(tolerance, z * standardError);
+            VerificationStatus status = Math.abs(row.value - mean) <= allowed
+                    ? VerificationStatus.VERIFIED : VerificationStatus.DEVIATED;
+            jdbcTemplate.update(UPDATE_ROW, status.name(), mean, now, row.id, row.value);
+
+            VerificationReportVO.Entry entry = new VerificationReportVO.Entry();
+            entry.setMetric(row.metric);
+            entry.setK(row.k);
+            entry.setValue(row.value);
+            entry.setEstimate(mean);
+            entry.setStandardError(standardError);
+            entry.setTolerance(allowed);
+            entry.setStatus(status);
+            report.getEntries().add(entry);
+        }
+        return report;
+    }
+
+    private List<Row> findRows(Long algorithmId, Long datasetId) {
+        List<String> metrics = atKMetrics();
+        if (metrics.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(algorithmId);
+        args.add(datasetId);
+        args.addAll(metrics);
+        return jdbcTemplate.query(String.format(SELECT_ROWS, placeholders(metrics.size())), (rs, i) -> {
+            Row row = new Row();
+            row.id = rs.getLong(1);
+            row.metric = rs.getString(2);
+            row.k = rs.getInt(3);
+            row.value = rs.getDouble(4);
+            String status = rs.getString(5);
+            row.status = status != null ? VerificationStatus.valueOf(status) : null;
+            double verified = rs.getDouble(6);
+            row.verifiedValue = rs.wasNull() ? null : verified;
+            return row;
+        }, args.toArray());
+    }
+
+    // 指标表中有 @k 计算核的指标名，只有这些指标能复核
+    private List<String> atKMetrics() {
+        try {
+            return evaluationService.getKernels().stream()
+                    .filter(MetricKernel::isAtK)
+                    .map(MetricKernel::name)
+                    .toList();
+        } catch (IllegalStateException e) {
+            return List.of();
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // 无放回抽取 count 个（count 不大于 0 时全取）
+    private static Set<Integer> sample(List<Integer> values, int count, SplittableRandom random) {
+        if (count <= 0 || count >= values.size()) {
+            return new LinkedHashSet<>(values);
+        }
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(values.size() - i);
+            values.set(j, values.set(i, values.get(j)));
+        }
+        return new LinkedHashSet<>(values.subList(0, count));
+    }
+
+    private record Pair(long algorithmId, long datasetId) {
+    }
+
+    private static class Row {
+        long id;
+        String metric;
+        int k;
+        double value;
+        VerificationStatus status;
+        Double verifiedValue;
+    }
+}
@@ -0,0 +1,133 @@
+package com.tancilon.aggspringboot.stats;
+
+import java.util.Arrays;
+
+/**
+ * 配对样本的参数与秩检验，输入为逐查询的差值 d = a - b，p 值均为双侧
+ */
+public final class PairedTests {
+
+    // 非零差值不超过该数且没有并列时用精确分布，否则用带并列修正与连续性修正的正态近似
+    private static final int WILCOXON_EXACT_LIMIT = 50;
+
+    private PairedTests() {
+    }
+
+    public record TTest(double statistic, double degreesOfFreedom, double pValue) {
+    }
+
+    public record Wilcoxon(double statistic, int nonZero, double z, double pValue, boolean exact) {
+    }
+
+    /**
+     * 配对 t 检验：t = mean(d) / (sd(d) / sqrt(n))，自由度 n - 1
+     */
+    public static TTest tTest(double[] differences) {
+        int n = differences.length;
+        if (n < 2) {
+            throw new IllegalArgumentException("A paired t-test needs at least 2 pairs");
+        }
+        double mean = 0;
+        for (double d : differences) {
+            mean += d;
+        }
+        mean /= n;
+        double squares = 0;
+        for (double d : differences) {
+            squares += (d - mean) * (d - mean);
+        }
+        double standardError = Math.sqrt(squares / (n - 1) / n);
+        double df = n - 1;
+        if (standardError == 0) {
+            // 差值全部相同：为 0 时没有差异，否则差异确定
+            return mean == 0
+                    ? new TTest(0, df, 1)
+                    : new TTest(Math.copySign(Double.POSITIVE_INFINITY, mean), df, 0);
+        }
+        double t = mean / standardError;
+        return new TTest(t, df, Distributions.studentTTwoSided(t, df));
+    }
+
+    /**
+     * Wilcoxon 符号秩检验：去掉零差值，按 |d| 排秩（并列取平均秩），统计量 W+ 为正差值的秩和
+     */
+    public static Wilcoxon wilcoxon(double[] differences) {
+        int n = 0;
+        int positives = 0;
+        double[] magnitudes = new double[differences.length];
+        double[] positive = new double[differences.length];
+        for (double d : differences) {
+            if (d != 0) {
+                magnitudes[n++] = Math.abs(d);
+            }
+            if (d > 0) {
+                positive[positives++] = d;
+            }
+        }
+        if (n == 0) {
+            return new Wilcoxon(0, 0, 0, 1, true);
+        }
+        magnitudes = Arrays.copyOf(magnitudes, n);
+        Arrays.sort(magnitudes);
+        // 正差值单独排序，与 |d| 同步推进即可得到每个并列组中的正差值个数
+        Arrays.sort(positive, 0, positives);
+        int p = 0;
+
+        // 并列组取平均秩，同时累计并列修正项 Σ(t^3 - t)
+        double tieCorrection = 0;
+        double positiveRankSum = 0;
+        boolean ties = false;
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j + 1 < n && magnitudes[j + 1] == magnitudes[i]) {
+                j++;
+            }
+            int size = j - i + 1;
+            if (size > 1) {
+                ties = true;
+                tieCorrection += (double) size * size * size - size;
+            }
+            int groupPositives = 0;
+            while (p < positives && positive[p] <= magnitudes[i]) {
+                groupPositives++;
+                p++;
+            }
+            double rank = (i + j) / 2.0 + 1;
+            positiveRankSum += rank * groupPositives;
+            i = j + 1;
+        }
+
+        double mean = n * (n + 1) / 4.0;
+        double variance = n * (n + 1) * (2.0 * n + 1) / 24 - tieCorrection / 48;
+        double z = variance > 0 ? (positiveRankSum - mean) / Math.sqrt(variance) : 0;
+        if (!ties && n <= WILCOXON_EXACT_LIMIT) {
+            return new Wilcoxon(positiveRankSum, n, z, exactWilcoxonPValue(n, (int) positiveRankSum), true);
+        }
+        double corrected = Math.max(0, Math.abs(positiveRankSum - mean) - 0.5);
+        double correctedZ = variance > 0 ? corrected / Math.sqrt(variance) : 0;
+        return new Wilcoxon(positiveRankSum, n, z, Math.min(1, Distributions.erfc(correctedZ / Math.sqrt(2))),
+                false);
+    }
+
+    // 无并列时 W+ 的精确分布：counts[w] 为秩和等于 w 的子集数，逐个加入秩 1..n 递推
+    private static double exactWilcoxonPValue(int n, int statistic) {
+        int max = n * (n + 1) / 2;
+        double[] counts = new double[max + 1];
+        counts[0] = 1;
+        for (int rank = 1; rank <= n; rank++) {
+            for (int w = max; w >= rank; w--) {
+                counts[w] += counts[w - rank];
+            }
+        }
+        double total = Math.pow(2, n);
+        double lower = 0;
+        for (int w = 0; w <= statistic; w++) {
+            lower += counts[w];
+        }
+        double upper = 0;
+        for (int w = statistic; w <= max; w++) {
+            upper += counts[w];
+        }
+        return Math.min(1, 2 * Math.min(lower, upper) / total);
+    }
+}
@@ -0,0 +1,167 @@
+package com.tancilon.aggspringboot.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 多个算法在多个数据集上的秩检验（Demšar 2006）
+ *
+ * 输入为 scores[dataset][algorithm]，数值越大越好，每个数据集内排秩（最好为 1，并列取平均秩），
+ * 在平均秩上做 Friedman 检验、Nemenyi 临界差与 Holm 校正的两两比较，p 值均为双侧。
+ */
+public final class RankTests {
+
+    private RankTests() {
+    }
+
+    public record Friedman(double[] averageRanks, int datasets, double chiSquare, double degreesOfFreedom,
+            double chiSquareP, double imanDavenportF, double denominatorDegreesOfFreedom, double imanDavenportP) {
+    }
+
+    public record Nemenyi(double criticalQ, double criticalDifference) {
+    }
+
+    public record Comparison(int first, int second, double z, double pValue, double adjustedPValue) {
+    }
+
+    /**
+     * Friedman 检验：χ² = 12N / (k(k+1)) · [ΣR_j² - k(k+1)²/4]，并列按 1 - Σ(t³-t) / (N(k³-k)) 修正；
+     * Iman-Davenport F = (N-1)χ² / (N(k-1) - χ²)，自由度 (k-1, (k-1)(N-1))
+     */
+    public static Friedman friedman(double[][] scores) {
+        int n = scores.length;
+        if (n < 2) {
+            throw new IllegalArgumentException("The Friedman test needs at least 2 datasets");
+        }
+        int k = scores[0].length;
+        if (k < 2) {
+            throw new IllegalArgumentException("The Friedman test needs at least 2 algorithms");
+        }
+
+        double[] rankSums = new double[k];
+        double[] sorted = new double[k];
+        double tieSum = 0;
+        for (double[] row : scores) {
+            System.arraycopy(row, 0, sorted, 0, k);
+            Arrays.sort(sorted);
+            for (int a = 0; a < k; a++) {
+                // 升序数组中与该值相等的区间 [lower, upper]，降序名次的平均值为 k - (lower + upper) / 2
+                int lower = firstIndexOf(sorted, row[a]);
+                int upper = lastIndexOf(sorted, row[a]);
+                rankSums[a] += k - (lower + upper) / 2.0;
+                // 大小为 t 的并列组中每个算法各计一次 t² - 1，合计 t³ - t
+                int t = upper - lower + 1;
+                tieSum += (double) t * t - 1;
+            }
+        }
+
+        double[] averageRanks = new double[k];
+        double squares = 0;
+        for (int a = 0; a < k; a++) {
+            averageRanks[a] = rankSums[a] / n;
+            squares += averageRanks[a] * averageRanks[a];
+        }
+        double df = k - 1;
+        double chiSquare = 12.0 * n / (k * (k + 1.0)) * (squares - k * (k + 1.0) * (k + 1.0) / 4);
+        double correction = 1 - tieSum / (n * ((double) k * k * k - k));
+        // 所有数据集上全部并列时没有可比较的信息
+        chiSquare = correction > 0 ? Math.max(0, chiSquare / correction) : 0;
+
+        double denominatorDf = df * (n - 1);
+        double denominator = n * df - chiSquare;
+        double f = denominator > 0 ? (n - 1) * chiSquare / denominator : Double.POSITIVE_INFINITY;
+        return new Friedman(averageRanks, n, chiSquare, df, Distributions.chiSquareUpper(chiSquare, df),
+                f, denominatorDf, Distributions.fUpper(f, df, denominatorDf));
+    }
+
+    /**
+     * Nemenyi 临界差 CD = q_α · sqrt(k(k+1) / (6N))，q_α 为学生化极差分布的 1-α 分位数除以 √2
+     */
+    public static Nemenyi nemenyi(int algorithms, int datasets, double alpha) {
+        double q = Distributions.studentizedRangeQuantile(1 - alpha, algorithms) / Math.sqrt(2);
+        return new Nemenyi(q, q * standardError(algorithms, datasets));
+    }
+
+    /**
+     * 平均秩的两两比较：z = (R_i - R_j) / sqrt(k(k+1) / (6N))，p 值按 Holm 逐步法校正
+     */
+    public static List<Comparison> holm(double[] averageRanks, int datasets) {
+        int k = averageRanks.length;
+        double se = standardError(k, datasets);
+        int m = k * (k - 1) / 2;
+        int[] firsts = new int[m];
+        int[] seconds = new int[m];
+        double[] zs = new double[m];
+        double[] pValues = new double[m];
+        int c = 0;
+        for (int i = 0; i < k; i++) {
+            for (int j = i + 1; j < k; j++) {
+                firsts[c] = i;
+                seconds[c] = j;
+                zs[c] = (averageRanks[i] - averageRanks[j]) / se;
+                pValues[c] = Math.min(1, Distributions.erfc(Math.abs(zs[c]) / Math.sqrt(2)));
+                c++;
+            }
+        }
+
+        double[] adjusted = holmAdjust(pValues);
+        List<Comparison> comparisons = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            comparisons.add(new Comparison(firsts[i], seconds[i], zs[i], pValues[i], adjusted[i]));
+        }
+        return comparisons;
+    }
+
+    /**
+     * Holm 逐步法校正：按 p 值升序，第 i 个（从 0 计）乘以 m - i，再取前缀最大值保证单调
+     */
+    static double[] holmAdjust(double[] pValues) {
+        int m = pValues.length;
+        Integer[] order = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(pValues[x], pValues[y]));
+        double[] adjusted = new double[m];
+        double running = 0;
+        for (int i = 0; i < m; i++) {
+            int index = order[i];
+            running = Math.max(running, Math.min(1, (m - i) * pValues[index]));
+            adjusted[index] = running;
+        }
+        return adjusted;
+    }
+
+    private static double standardError(int algorithms, int datasets) {
+        return Math.sqrt(algorithms * (algorithms + 1.0) / (6.0 * datasets));
+    }
+
+    private static int firstIndexOf(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lastIndexOf(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+}
@@ -0,0 +1,146 @@
+package com.tancilon.aggspringboot.stats;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 配对差值上的重抽样检验，在 fork/join 线程池中并行
+ *
+ * 重抽样次数按区间二分为任务，每次二分时由父任务的 SplittableRandom 分裂出子任务的随机数生成器。
+ * 分裂只发生在确定的任务树结构上、每个生成器只被一个任务使用，结果只取决于种子，与线程数和调度无关。
+ */
+public final class Resampling {
+
+    private static final int ITERATIONS_PER_TASK = 512;
+
+    private Resampling() {
+    }
+
+    public record PermutationTest(int iterations, double pValue) {
+    }
+
+    public record BootstrapInterval(int iterations, double confidence, double lower, double upper) {
+    }
+
+    /**
+     * 配对随机化检验：原假设下差值的符号可交换，每次随机翻转各差值的符号，
+     * p = (|Σd*| >= |Σd| 的次数 + 1) / (次数 + 1)
+     */
+    public static PermutationTest permutationTest(double[] differences, int iterations, long seed,
+            ForkJoinPool pool) {
+        double observed = 0;
+        double scale = 0;
+        for (double d : differences) {
+            observed += d;
+            scale += Math.abs(d);
+        }
+        // 浮点累加顺序不同带来的误差不应把相等的统计量判为更小
+        double threshold = Math.abs(observed) - 1e-12 * scale;
+        long extreme = pool.invoke(new SignFlipTask(differences, threshold, 0, iterations,
+                new SplittableRandom(seed)));
+        return new PermutationTest(iterations, (extreme + 1.0) / (iterations + 1.0));
+    }
+
+    /**
+     * 差值均值的 bootstrap 百分位置信区间：每次有放回地抽取 n 个查询并求差值均值
+     */
+    public static BootstrapInterval bootstrapInterval(double[] differences, int iterations, double confidence,
+            long seed, ForkJoinPool pool) {
+        double[] means = new double[iterations];
+        pool.invoke(new BootstrapTask(differences, means, 0, iterations, new SplittableRandom(seed)));
+        Arrays.sort(means);
+        double alpha = (1 - confidence) / 2;
+        return new BootstrapInterval(iterations, confidence, percentile(means, alpha), percentile(means, 1 - alpha));
+    }
+
+    // 已排序数组的分位数，相邻两值间线性插值
+    private static double percentile(double[] sorted, double p) {
+        double position = p * (sorted.length - 1);
+        int lower = (int) position;
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    private static class SignFlipTask extends RecursiveTask<Long> {
+        private final double[] differences;
+        private final double threshold;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        SignFlipTask(double[] differences, double threshold, int from, int to, SplittableRandom random) {
+            this.differences = differences;
+            this.threshold = threshold;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > ITERATIONS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                SignFlipTask left = new SignFlipTask(differences, threshold, from, mid, random.split());
+                SignFlipTask right = new SignFlipTask(differences, threshold, mid, to, random);
+                left.fork();
+                long count = right.compute();
+                return count + left.join();
+            }
+            long count = 0;
+            int n = differences.length;
+            for (int iteration = from; iteration < to; iteration++) {
+                double sum = 0;
+                // 每个随机 long 提供 64 个符号位
+                for (int i = 0; i < n; i += 64) {
+                    long signs = random.nextLong();
+                    int end = Math.min(i + 64, n);
+                    for (int j = i; j < end; j++) {
+                        sum += (signs & 1) == 0 ? differences[j] : -differences[j];
+                        signs >>>= 1;
+                    }
+                }
+                if (Math.abs(sum) >= threshold) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static class BootstrapTask extends RecursiveAction {
+        private final double[] differences;
+        private final double[] means;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        BootstrapTask(double[] differences, double[] means, int from, int to, SplittableRandom random) {
+            this.differences = differences;
+            this.means = means;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ITERATIONS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BootstrapTask(differences, means, from, mid, random.split()),
+                        new BootstrapTask(differences, means, mid, to, random));
+                return;
+            }
+            int n = differences.length;
+            for (int iteration = from; iteration < to; iteration++) {
+                double sum = 0;
+                for (int i = 0; i < n; i++) {
+                    sum += differences[random.nextInt(n)];
+                }
+                means[iteration] = sum / n;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 算法两两之间在全部数据集上的胜 / 平 / 负统计，矩阵行列均按 algorithms 的顺序，
+ * wins[i][j] 为算法 i 优于算法 j 的数据集数，meanDifference[i][j] 为两者都有结果的数据集上 i - j 的均值
+ */
+@Data
+public class AlgorithmComparisonVO {
+    private String metric;
+    // 为 null 时每个数据集上取各算法在全部 k 上的均值
+    private Integer k;
+    private String category;
+    // 差值的绝对值不超过该值时记为平局
+    private Double tolerance;
+    private Integer datasets;
+
+    private List<String> algorithms;
+    private int[][] wins;
+    private int[][] ties;
+    private int[][] losses;
+    // 没有共同数据集时为 null
+    private Double[][] meanDifference;
+
+    private Long durationMs;
+}
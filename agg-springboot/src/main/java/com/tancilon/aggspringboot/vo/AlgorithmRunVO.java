@@ -0,0 +1,29 @@
+package com.tancilon.aggspringboot.vo;
+
+import com.tancilon.aggspringboot.enums.JobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 算法沙箱运行任务的状态
+ */
+@Data
+public class AlgorithmRunVO {
+    private Long id;
+    private Long algorithmId;
+    private String algorithm;
+    private Long datasetId;
+    private String dataset;
+    private JobStatus status;
+    private Boolean saveResults;
+    private Integer exitCode;
+    // 当前日志大小，可作为下一次读取日志的起始偏移
+    private Long logSize;
+    private Long durationMs;
+    private EvaluationVO evaluation;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
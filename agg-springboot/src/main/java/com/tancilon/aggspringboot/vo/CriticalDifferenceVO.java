@@ -0,0 +1,74 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 多个算法在多个数据集上的 Friedman 检验与临界差图数据，名次越小越好
+ */
+@Data
+public class CriticalDifferenceVO {
+    private String metric;
+    // 固定类型指标为 null
+    private Integer k;
+    private Double alpha;
+
+    // 参与比较的数据集数，以及因缺少部分算法的结果而被跳过的数据集数
+    private Integer datasets;
+    private Integer skippedDatasets;
+
+    // 按平均秩升序
+    private List<AlgorithmRank> ranks;
+    private Friedman friedman;
+    private Nemenyi nemenyi;
+    // 平均秩差异不超过临界差的算法组，对应图中的横线
+    private List<Clique> cliques;
+    private List<Comparison> comparisons;
+
+    private Long durationMs;
+
+    @Data
+    public static class AlgorithmRank {
+        private String algorithm;
+        private Double averageRank;
+        private Double meanValue;
+    }
+
+    @Data
+    public static class Friedman {
+        private Double chiSquare;
+        private Double degreesOfFreedom;
+        private Double chiSquareP;
+        // Iman-Davenport 修正的 F 统计量，自由度为 (degreesOfFreedom, denominatorDegreesOfFreedom)
+        private Double imanDavenportF;
+        private Double denominatorDegreesOfFreedom;
+        private Double imanDavenportP;
+    }
+
+    @Data
+    public static class Nemenyi {
+        private Double criticalQ;
+        private Double criticalDifference;
+    }
+
+    @Data
+    public static class Clique {
+        private Double fromRank;
+        private Double toRank;
+        private List<String> algorithms;
+    }
+
+    @Data
+    public static class Comparison {
+        // 平均秩差 algorithmA - algorithmB 及其 z 值
+        private String algorithmA;
+        private String algorithmB;
+        private Double rankDifference;
+        private Double z;
+        private Double unadjustedP;
+        // Holm 校正后的 p 值，小于 alpha 时差异显著
+        private Double holmP;
+        private Boolean significant;
+    }
+}
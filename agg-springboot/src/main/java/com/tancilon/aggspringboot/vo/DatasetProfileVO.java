@@ -0,0 +1,36 @@
+package com.tancilon.aggspringboot.vo;
+
+import com.tancilon.aggspringboot.enums.JobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据集文件的统计概要
+ */
+@Data
+public class DatasetProfileVO {
+    private Long datasetId;
+    private JobStatus status;
+    private String formatSignature;
+    private Long fileSize;
+    private Long rowCount;
+    private Long malformedRowCount;
+    private Integer queryCount;
+    private Integer voterCount;
+    private Integer rankingCount;
+    private Integer itemCount;
+    private Integer minListLength;
+    private Integer medianListLength;
+    private Integer p90ListLength;
+    private Integer maxListLength;
+    private Double meanListLength;
+    private Integer judgedQueryCount;
+    private Long judgmentCount;
+    private Long relevantCount;
+    private Integer maxRelevance;
+    private Long binarySize;
+    private Long durationMs;
+    private String error;
+    private LocalDateTime profiledAt;
+}
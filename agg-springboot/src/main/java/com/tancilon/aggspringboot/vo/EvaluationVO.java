@@ -0,0 +1,34 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 一次服务端评测的结果
+ */
+@Data
+public class EvaluationVO {
+    private String algorithm;
+    private String dataset;
+
+    // 参与平均的查询数（有相关条目的查询）
+    private Integer evaluatedQueries;
+    // 参与平均但没有输出的查询数，按 0 计入
+    private Integer missingQueries;
+
+    // 聚合排序的条目数，上传时为输出文件中被采用的数据行数
+    private Integer rowCount;
+    // 格式错误、查询不在数据集中、条目不在数据集中、重复条目的行数
+    private Long malformedRows;
+    private Long unknownQueryRows;
+    private Long unknownItemRows;
+    private Long duplicateRows;
+
+    // 指标名 -> (k -> 值)，非 @k 指标直接为数值
+    private Map<String, Object> metrics;
+
+    // 写入结果表的统计，save=false 时为 null
+    private IngestionReportVO ingestion;
+    private Long durationMs;
+}
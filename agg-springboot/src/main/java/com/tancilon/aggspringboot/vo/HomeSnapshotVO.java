@@ -0,0 +1,19 @@
+package com.tancilon.aggspringboot.vo;
+
+import com.tancilon.aggspringboot.dto.CategoryStats;
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class HomeSnapshotVO {
+    private Page<DatasetVO> datasets;
+    // 数据集名称 -> 可用指标列表
+    private Map<String, List<String>> datasetMetrics;
+    // 数据集名称 -> 第一个指标的性能曲线
+    private Map<String, Map<String, Object>> datasetPerformance;
+    private List<CategoryStatsVO> datasetCategories;
+    private List<CategoryStats> algorithmCategories;
+}
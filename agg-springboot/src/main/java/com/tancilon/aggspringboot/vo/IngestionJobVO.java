@@ -0,0 +1,26 @@
+package com.tancilon.aggspringboot.vo;
+
+import com.tancilon.aggspringboot.enums.JobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步结果上传任务的状态
+ */
+@Data
+public class IngestionJobVO {
+    private Long id;
+    private JobStatus status;
+    private Long payloadSize;
+    // 已解析的请求体字节数，仅运行中的任务实时更新
+    private Long bytesProcessed;
+    // 0 ~ 1 之间的进度
+    private Double progress;
+    // 写入统计：运行中为截至最近一个数据块的数量，失败的任务已整体回滚，统计为 0
+    private IngestionReportVO report;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
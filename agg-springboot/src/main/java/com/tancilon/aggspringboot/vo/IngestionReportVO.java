@@ -0,0 +1,20 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.Data;
+
+/**
+ * 一次结果上传的写入统计
+ */
+@Data
+public class IngestionReportVO {
+    // 新增的数据点
+    private int inserted;
+    // 数值发生变化而被覆盖的数据点
+    private int updated;
+    // 与已有数值相同、未写库的数据点
+    private int unchanged;
+
+    public int getTotal() {
+        return inserted + updated + unchanged;
+    }
+}
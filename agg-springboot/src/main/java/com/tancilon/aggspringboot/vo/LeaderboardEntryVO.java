@@ -0,0 +1,15 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntryVO {
+    // 并列时名次相同（1, 2, 2, 4）
+    private int rank;
+    private String algorithm;
+    private Double value;
+}
@@ -0,0 +1,15 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class LeaderboardVO {
+    private String dataset;
+    private String metric;
+    private Integer k;
+    private int total;
+    private int page;
+    private int size;
+    private List<LeaderboardEntryVO> entries;
+}
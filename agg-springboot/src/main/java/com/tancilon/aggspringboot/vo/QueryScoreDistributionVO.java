@@ -0,0 +1,26 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.Data;
+
+/**
+ * 指标在某个 k 上的逐查询数值分布
+ */
+@Data
+public class QueryScoreDistributionVO {
+    private String algorithm;
+    private String dataset;
+    private String metric;
+    // 非 @k 指标为 null
+    private Integer k;
+
+    private Integer queryCount;
+    private Double mean;
+    private Double standardDeviation;
+    private Double min;
+    private Double p25;
+    private Double median;
+    private Double p75;
+    private Double max;
+    // 数值为 0 的查询数
+    private Integer zeroCount;
+}
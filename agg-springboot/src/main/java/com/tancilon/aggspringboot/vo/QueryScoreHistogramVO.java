@@ -0,0 +1,19 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.Data;
+
+/**
+ * 逐查询数值的直方图，第 i 个区间为 [min + i * binWidth, min + (i + 1) * binWidth)，最后一个区间包含 max
+ */
+@Data
+public class QueryScoreHistogramVO {
+    private String algorithm;
+    private String dataset;
+    private String metric;
+    private Integer k;
+
+    private Double min;
+    private Double max;
+    private Double binWidth;
+    private int[] counts;
+}
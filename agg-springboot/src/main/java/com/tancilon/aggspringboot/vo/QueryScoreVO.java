@@ -0,0 +1,12 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.Data;
+
+/**
+ * 单个查询的数值
+ */
+@Data
+public class QueryScoreVO {
+    private String query;
+    private Double value;
+}
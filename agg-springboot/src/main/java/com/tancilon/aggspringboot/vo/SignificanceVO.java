@@ -0,0 +1,62 @@
+package com.tancilon.aggspringboot.vo;
+
+import lombok.Data;
+
+/**
+ * 两个算法在同一数据集、指标、k 上的配对显著性检验，差值为 algorithmA - algorithmB
+ */
+@Data
+public class SignificanceVO {
+    private String dataset;
+    private String metric;
+    // 非 @k 指标为 null
+    private Integer k;
+    private String algorithmA;
+    private String algorithmB;
+
+    // 两个算法都有数值的查询数
+    private Integer pairedQueries;
+    private Double meanA;
+    private Double meanB;
+    private Double meanDifference;
+
+    private TTest studentT;
+    private Wilcoxon wilcoxon;
+    private Permutation permutation;
+    private Bootstrap bootstrap;
+
+    private Long durationMs;
+
+    @Data
+    public static class TTest {
+        private Double statistic;
+        private Double degreesOfFreedom;
+        private Double twoSidedP;
+    }
+
+    @Data
+    public static class Wilcoxon {
+        // 正差值的秩和 W+ 与去掉零差值后的查询数
+        private Double statistic;
+        private Integer nonZero;
+        private Double z;
+        private Double twoSidedP;
+        // 是否用精确分布计算 p 值
+        private Boolean exact;
+    }
+
+    @Data
+    public static class Permutation {
+        private Integer iterations;
+        private Double twoSidedP;
+    }
+
+    @Data
+    public static class Bootstrap {
+        // 差值均值的百分位置信区间
+        private Integer iterations;
+        private Double confidence;
+        private Double lower;
+        private Double upper;
+    }
+}
@@ -0,0 +1,21 @@
+package com.tancilon.aggspringboot.vo;
+
+import com.tancilon.aggspringboot.enums.UploadStatus;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 分片上传会话的状态，客户端据此续传缺失的分片
+ */
+@Data
+public class UploadSessionVO {
+    private String uploadId;
+    private UploadStatus status;
+    private Long totalSize;
+    private Integer chunkSize;
+    private Integer totalChunks;
+    private Long receivedBytes;
+    // 尚未接收的分片序号，分片 i 的偏移量为 i * chunkSize
+    private List<Integer> missingChunks;
+}
@@ -0,0 +1,33 @@
+package com.tancilon.aggspringboot.vo;
+
+import com.tancilon.aggspringboot.enums.VerificationStatus;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次抽样复核的结果
+ */
+@Data
+public class VerificationReportVO {
+    private String algorithm;
+    private String dataset;
+    // 抽样的查询数与参与平均的查询总数
+    private Integer sampledQueries;
+    private Integer totalQueries;
+    private List<Entry> entries = new ArrayList<>();
+
+    @Data
+    public static class Entry {
+        private String metric;
+        private Integer k;
+        // 提交的数值
+        private Double value;
+        // 抽样估计值、估计的标准误差与判定使用的容差
+        private Double estimate;
+        private Double standardError;
+        private Double tolerance;
+        private VerificationStatus status;
+    }
+}
@@ -0,0 +1,290 @@
+package com.tancilon.aggspringboot.web;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 文件下载的统一发送逻辑
+ *
+ * 支持 ETag / Last-Modified 条件请求、If-Range、单段与多段 Range（multipart/byteranges），
+ * 文件内容优先交给 Tomcat sendfile 由内核发送，否则使用 FileChannel.transferTo。
+ * 上传文件写入后不再修改，ETag 由文件名、大小与修改时间生成，内容寻址的对象直接使用其 SHA-256，无需读取文件内容。
+ */
+@Component
+public class FileSender {
+
+    // 超过该段数的 Range 请求按整个文件返回，避免大量小分段放大开销
+    private static final int MAX_RANGES = 16;
+
+    private static final Pattern SHA256_NAME = Pattern.compile("[0-9a-f]{64}");
+
+    // Tomcat sendfile 约定的请求属性
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 按 GET/HEAD 语义发送文件
+     *
+     * @param contentDisposition 为 null 时不设置 Content-Disposition
+     */
+    public void send(Path file, String contentDisposition, CacheControl cacheControl,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        // HTTP 日期精确到秒
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+        String etag = etag(file, length, lastModified);
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        if (cacheControl != null && cacheControl.getHeaderValue() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+        if (contentDisposition != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.CONTENT_DISPOSITION);
+        }
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String contentType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        boolean head = HttpMethod.HEAD.matches(request.getMethod());
+
+        List<long[]> ranges = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+            ranges = parseRanges(rangeHeader, length);
+            if (ranges == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (ranges.isEmpty() || ranges.size() > MAX_RANGES) {
+                ranges = null;
+            }
+        }
+
+        if (ranges == null) {
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if (!head) {
+                transfer(file, 0, length, request, response);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + length);
+            response.setContentLengthLong(range[1] - range[0] + 1);
+            if (!head) {
+                transfer(file, range[0], range[1] - range[0] + 1, request, response);
+            }
+            return;
+        }
+
+        // 多段 Range：multipart/byteranges，每段带独立的 Content-Type 与 Content-Range
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + range[1] - range[0] + 1;
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) {
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] range = ranges.get(i);
+                out.write(partHeaders.get(i));
+                transferTo(channel, range[0], range[1] - range[0] + 1, target);
+            }
+        }
+        out.write(closing);
+    }
+
+    /**
+     * 发送文件的一段内容，响应头由调用方设置
+     */
+    public void transfer(Path file, long start, long count, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, count, response);
+        }
+    }
+
+    /**
+     * 从调用方已打开的通道发送一段内容，不走 sendfile（sendfile 按文件名重新打开，文件可能已被删除）
+     */
+    public void transfer(FileChannel channel, long start, long count, HttpServletResponse response)
+            throws IOException {
+        transferTo(channel, start, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    private void transferTo(FileChannel channel, long start, long count, WritableByteChannel target)
+            throws IOException {
+        long position = start;
+        long end = start + count;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                throw new IOException("File truncated while sending");
+            }
+            position += sent;
+        }
+    }
+
+    // 按内容寻址的对象以 SHA-256 命名，直接作为强 ETag
+    private String etag(Path file, long length, long lastModified) {
+        String name = file.getFileName().toString();
+        if (SHA256_NAME.matcher(name).matches()) {
+            return "\"" + name + "\"";
+        }
+        return "\"" + Integer.toHexString(name.hashCode())
+                + "-" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    // If-None-Match 优先于 If-Modified-Since
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesETag(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    // If-Range 与当前版本不一致时忽略 Range，返回整个文件
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified <= date;
+    }
+
+    private boolean matchesETag(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 解析 Range 头，返回闭区间 [start, end] 列表
+     *
+     * 语法无法识别时返回空列表（按整个文件处理），所有分段都超出文件范围时返回 null（416）。
+     */
+    private List<long[]> parseRanges(String header, long length) {
+        List<long[]> ranges = new ArrayList<>();
+        if (!header.startsWith("bytes=")) {
+            return ranges;
+        }
+        boolean anyValid = false;
+        for (String spec : header.substring("bytes=".length()).split(",")) {
+            String part = spec.trim();
+            int dash = part.indexOf('-');
+            if (dash < 0) {
+                return new ArrayList<>();
+            }
+            long start;
+            long end;
+            try {
+                if (dash == 0) {
+                    // 后缀形式：最后 n 个字节
+                    long suffix = Long.parseLong(part.substring(1));
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(part.substring(0, dash));
+                    end = dash == part.length() - 1 ? Long.MAX_VALUE : Long.parseLong(part.substring(dash + 1));
+                    if (end < start) {
+                        return new ArrayList<>();
+                    }
+                    end = Math.min(end, length - 1);
+                }
+            } catch (NumberFormatException e) {
+                return new ArrayList<>();
+            }
+            if (start >= length) {
+                continue;
+            }
+            anyValid = true;
+            ranges.add(new long[] { start, end });
+        }
+        return anyValid ? ranges : null;
+    }
+}
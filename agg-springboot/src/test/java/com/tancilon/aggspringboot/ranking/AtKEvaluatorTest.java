@@ -0,0 +1,207 @@
+package com.tancilon.aggspringboot.ranking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 手算的 AP@k 与 NDCG@k 对照：二元与分级判断、没有相关条目的查询、没有输出的查询以及重复条目
+ */
+class AtKEvaluatorTest {
+
+    private static final String RANKINGS = """
+            query,voter,item,rank
+            q1,v1,a,1
+            q1,v1,b,2
+            q1,v1,c,3
+            q1,v1,i,4
+            q2,v1,d,1
+            q2,v1,e,2
+            q2,v1,x,3
+            q3,v1,g,1
+            q4,v1,h,1
+            """;
+
+    // q1 二元判断，3 个相关条目；q2 分级判断；q3 没有相关条目；q4 有相关条目但算法没有输出
+    private static final String QRELS = """
+            q1 0 a 1
+            q1 0 c 1
+            q1 0 i 1
+            q2 0 d 3
+            q2 0 e 1
+            q2 0 f 0
+            q3 0 g 0
+            q4 0 h 2
+            """;
+
+    // q1 中 a 重复出现，只保留第 1 名；u1、u2 不在数据集中但占据名次，i 因此落在第 6 名
+    private static final String OUTPUT = """
+            query,item,rank
+            q1,a,1
+            q1,b,2
+            q1,a,3
+            q1,c,4
+            q1,u1,5
+            q1,u2,6
+            q1,i,7
+            q2,e,1
+            q2,d,2
+            q2,x,3
+            q3,g,1
+            """;
+
+    private static final double LOG2_3 = Math.log(3) / Math.log(2);
+
+    @TempDir
+    Path directory;
+
+    private RankingDataset dataset;
+    private AtKEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataset = convert();
+        evaluator = new AtKEvaluator(dataset, List.of(new AveragePrecisionKernel(), new NdcgKernel()));
+    }
+
+    @Test
+    void readerDropsRepeatedItems() throws IOException {
+        AggregatedRankingReader reader = new AggregatedRankingReader(dataset);
+        AggregatedRanking ranking = reader.read(input());
+        assertEquals(1, reader.getDuplicateRowCount());
+        assertEquals(2, reader.getUnknownItemRowCount());
+
+        int q1 = dataset.findQuery("q1");
+        assertEquals(6, ranking.length(q1));
+        assertEquals("a", dataset.itemName(ranking.itemAt(ranking.start(q1))));
+        assertEquals(-1, ranking.itemAt(ranking.start(q1) + 3));
+        assertEquals("i", dataset.itemName(ranking.itemAt(ranking.start(q1) + 5)));
+        assertEquals(0, ranking.length(dataset.findQuery("q4")));
+    }
+
+    @Test
+    void averagePrecisionWithFewerRelevantThanK() throws IOException {
+        AtKEvaluation evaluation = evaluate();
+        int q1 = dataset.findQuery("q1");
+        // 相关条目在第 1、3、6 名；分母为 min(3, k)
+        assertEquals((1 + 2 / 3.0) / 3, evaluation.value(0, q1, kIndex(5)), 1e-12);
+        assertEquals((1 + 2 / 3.0 + 3 / 6.0) / 3, evaluation.value(0, q1, kIndex(10)), 1e-12);
+        assertEquals((1 + 2 / 3.0 + 3 / 6.0) / 3, evaluation.value(0, q1, kIndex(100)), 1e-12);
+
+        // 分级判断中等级大于 0 的都算相关，e、d 占据前两名
+        assertEquals(1, evaluation.value(0, dataset.findQuery("q2"), kIndex(5)), 1e-12);
+    }
+
+    @Test
+    void ndcgWithGradedJudgments() throws IOException {
+        AtKEvaluation evaluation = evaluate();
+        int q2 = dataset.findQuery("q2");
+        // 输出 e(1), d(3), x(未判断)；理想排序 d(3), e(1)；增益 2^g - 1，第 i 名折损 1 / log2(i + 1)
+        double dcg = 1 + 7 / LOG2_3;
+        double idcg = 7 + 1 / LOG2_3;
+        assertEquals(dcg / idcg, evaluation.value(1, q2, kIndex(5)), 1e-12);
+        assertEquals(dcg / idcg, evaluation.value(1, q2, kIndex(20)), 1e-12);
+
+        int q1 = dataset.findQuery("q1");
+        // 二元判断：前 5 名命中第 1、3 名，理想排序前 3 名全部相关
+        double idcg5 = 1 + 1 / LOG2_3 + 0.5;
+        assertEquals((1 + 0.5) / idcg5, evaluation.value(1, q1, kIndex(5)), 1e-12);
+        double dcg10 = 1 + 0.5 + 1 / (Math.log(7) / Math.log(2));
+        assertEquals(dcg10 / idcg5, evaluation.value(1, q1, kIndex(10)), 1e-12);
+    }
+
+    @Test
+    void queriesWithoutRelevantItemsAreExcluded() throws IOException {
+        AtKEvaluation evaluation = evaluate();
+        int q3 = dataset.findQuery("q3");
+        assertFalse(evaluator.hasRelevant(q3));
+        assertFalse(evaluation.isEvaluated(q3));
+        assertEquals(0, evaluation.value(0, q3, kIndex(5)), 0);
+        assertEquals(3, evaluation.evaluatedQueryCount());
+    }
+
+    @Test
+    void judgedQueriesWithoutOutputScoreZero() throws IOException {
+        AtKEvaluation evaluation = evaluate();
+        int q4 = dataset.findQuery("q4");
+        assertTrue(evaluation.isEvaluated(q4));
+        for (int k = 0; k < AtKEvaluator.K_COUNT; k++) {
+            assertEquals(0, evaluation.value(0, q4, k), 0);
+            assertEquals(0, evaluation.value(1, q4, k), 0);
+        }
+
+        // q4 计入平均，分母为 3
+        double ap1 = (1 + 2 / 3.0) / 3;
+        assertEquals((ap1 + 1 + 0) / 3, evaluation.mean(0, kIndex(5)), 1e-12);
+        double ndcg1 = 1.5 / (1 + 1 / LOG2_3 + 0.5);
+        double ndcg2 = (1 + 7 / LOG2_3) / (7 + 1 / LOG2_3);
+        assertEquals((ndcg1 + ndcg2 + 0) / 3, evaluation.mean(1, kIndex(5)), 1e-12);
+    }
+
+    @Test
+    void sampledQueriesMatchFullEvaluation() throws IOException {
+        AtKEvaluation full = evaluate();
+        int q1 = dataset.findQuery("q1");
+        int q4 = dataset.findQuery("q4");
+        AtKEvaluation sampled = evaluator.evaluate(new AggregatedRankingReader(dataset).read(input()),
+                new int[]{ q4, q1 });
+        assertEquals(2, sampled.evaluatedQueryCount());
+        assertFalse(sampled.isEvaluated(dataset.findQuery("q2")));
+        for (int m = 0; m < 2; m++) {
+            for (int k = 0; k < AtKEvaluator.K_COUNT; k++) {
+                assertEquals(full.value(m, q1, k), sampled.value(m, q1, k), 0);
+                assertEquals(full.value(m, q4, k), sampled.value(m, q4, k), 0);
+            }
+        }
+    }
+
+    @Test
+    void kIndexMapping() {
+        assertEquals(0, AtKEvaluator.kIndex(5));
+        assertEquals(AtKEvaluator.K_COUNT - 1, AtKEvaluator.kIndex(AtKEvaluator.K_MAX));
+        assertEquals(-1, AtKEvaluator.kIndex(7));
+        assertEquals(-1, AtKEvaluator.kIndex(0));
+        assertEquals(-1, AtKEvaluator.kIndex(AtKEvaluator.K_MAX + AtKEvaluator.K_STEP));
+        assertEquals(10, AtKEvaluator.k(1));
+    }
+
+    private AtKEvaluation evaluate() throws IOException {
+        return evaluator.evaluate(new AggregatedRankingReader(dataset).read(input()), ForkJoinPool.commonPool());
+    }
+
+    private static ByteArrayInputStream input() {
+        return new ByteArrayInputStream(OUTPUT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int kIndex(int k) {
+        return AtKEvaluator.kIndex(k);
+    }
+
+    private RankingDataset convert() throws IOException {
+        Path source = directory.resolve("dataset.zip");
+        try (OutputStream out = Files.newOutputStream(source); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("rankings.csv"));
+            zip.write(RANKINGS.getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("qrels.txt"));
+            zip.write(QRELS.getBytes(StandardCharsets.UTF_8));
+        }
+        Path target = directory.resolve("dataset.rnk");
+        new RankingDatasetWriter().convert(source, "dataset.zip", target);
+        return RankingDataset.open(target);
+    }
+}
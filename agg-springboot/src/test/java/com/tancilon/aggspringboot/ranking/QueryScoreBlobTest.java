@@ -0,0 +1,125 @@
+package com.tancilon.aggspringboot.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 逐查询数值的编码与解码往返
+ */
+class QueryScoreBlobTest {
+
+    // 参与评测的查询，间隔跨过单字节 varint 的范围
+    private static final int[] EVALUATED = { 0, 3, 4, 200, 1000 };
+
+    @Test
+    void quantizedRoundTrip() {
+        AtKEvaluation evaluation = evaluation(new NdcgKernel(), 1001);
+        for (int i = 0; i < EVALUATED.length; i++) {
+            for (int k = 0; k < AtKEvaluator.K_COUNT; k++) {
+                set(evaluation, 0, EVALUATED[i], k, (i + 1) * (k + 1) / 101.0);
+            }
+        }
+
+        QueryScoreBlob blob = QueryScoreBlob.decode(encode(evaluation, true));
+        assertEquals(QueryScoreBlob.QUANTIZED, blob.encoding());
+        assertEquals(AtKEvaluator.K_COUNT, blob.width());
+        assertEquals(EVALUATED.length, blob.queryCount());
+        for (int i = 0; i < EVALUATED.length; i++) {
+            assertEquals(EVALUATED[i], blob.query(i));
+            for (int k = 0; k < AtKEvaluator.K_COUNT; k++) {
+                // 16 位量化的误差不超过半个刻度
+                assertEquals(evaluation.value(0, EVALUATED[i], k), blob.value(k, i), 0.5 / 0xffff + 1e-7);
+            }
+        }
+    }
+
+    @Test
+    void outOfRangeValuesFallBackToFloat() {
+        AtKEvaluation evaluation = evaluation(new ReciprocalRankKernel(), 1001);
+        double[] values = { 0.25, 1.5, 0, 0.125, 1 };
+        for (int i = 0; i < EVALUATED.length; i++) {
+            set(evaluation, 0, EVALUATED[i], 0, values[i]);
+        }
+
+        QueryScoreBlob blob = QueryScoreBlob.decode(encode(evaluation, true));
+        assertEquals(QueryScoreBlob.FLOAT32, blob.encoding());
+        assertEquals(1, blob.width());
+        float[] expected = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            expected[i] = (float) values[i];
+        }
+        assertArrayEquals(expected, blob.values(0));
+    }
+
+    @Test
+    void float32DeltaOverflowRoundTrip() {
+        // 相邻 k 的位模式在最大正数、最大负数、负零、NaN 与无穷之间跳变，差值超出 int 范围后按补码回绕
+        double[] pattern = { Float.MAX_VALUE, -Float.MAX_VALUE, -0.0, Float.MAX_VALUE, Double.NaN,
+                Double.NEGATIVE_INFINITY, Float.MIN_VALUE, Double.POSITIVE_INFINITY, -Float.MIN_VALUE };
+        AtKEvaluation evaluation = evaluation(new NdcgKernel(), 1001);
+        for (int i = 0; i < EVALUATED.length; i++) {
+            for (int k = 0; k < AtKEvaluator.K_COUNT; k++) {
+                set(evaluation, 0, EVALUATED[i], k, pattern[(i + k) % pattern.length]);
+            }
+        }
+
+        QueryScoreBlob blob = QueryScoreBlob.decode(encode(evaluation, false));
+        assertEquals(QueryScoreBlob.FLOAT32, blob.encoding());
+        for (int i = 0; i < EVALUATED.length; i++) {
+            for (int k = 0; k < AtKEvaluator.K_COUNT; k++) {
+                float expected = (float) pattern[(i + k) % pattern.length];
+                assertEquals(Float.floatToIntBits(expected), Float.floatToIntBits(blob.value(k, i)),
+                        "query " + EVALUATED[i] + " k index " + k);
+            }
+        }
+    }
+
+    @Test
+    void lowestOrdersByValueThenQuery() {
+        AtKEvaluation evaluation = evaluation(new ReciprocalRankKernel(), 1001);
+        double[] values = { 0.5, 0.25, 1, 0.25, 0 };
+        for (int i = 0; i < EVALUATED.length; i++) {
+            set(evaluation, 0, EVALUATED[i], 0, values[i]);
+        }
+        QueryScoreBlob blob = QueryScoreBlob.decode(encode(evaluation, true));
+        assertArrayEquals(new int[]{ 4, 1, 3 }, blob.lowest(0, 3));
+        assertEquals(EVALUATED.length, blob.lowest(0, 100).length);
+    }
+
+    @Test
+    void emptyEvaluationRoundTrip() {
+        QueryScoreBlob blob = QueryScoreBlob.decode(encode(evaluation(new NdcgKernel(), 3), true));
+        assertEquals(0, blob.queryCount());
+        assertEquals(0, blob.values(0).length);
+    }
+
+    @Test
+    void corruptBlobIsRejected() {
+        AtKEvaluation evaluation = evaluation(new NdcgKernel(), 1001);
+        set(evaluation, 0, 3, 0, 0.5);
+        byte[] encoded = encode(evaluation, true);
+        assertThrows(IllegalArgumentException.class,
+                () -> QueryScoreBlob.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> QueryScoreBlob.decode(new byte[]{ 1, 2, 3, 4 }));
+    }
+
+    private static AtKEvaluation evaluation(MetricKernel kernel, int queryCount) {
+        return new AtKEvaluation(new MetricKernel[]{ kernel }, queryCount);
+    }
+
+    private static void set(AtKEvaluation evaluation, int kernel, int query, int kIndex, double value) {
+        evaluation.evaluated[query] = true;
+        evaluation.values[kernel][query * evaluation.width(kernel) + kIndex] = value;
+    }
+
+    // 与评测流程一致，汇总后再编码
+    private static byte[] encode(AtKEvaluation evaluation, boolean quantize) {
+        evaluation.summarize();
+        return QueryScoreBlob.encode(evaluation, 0, quantize);
+    }
+}
@@ -0,0 +1,189 @@
+package com.tancilon.aggspringboot.ranking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 在三个输入排序（其中一个为部分列表）上手算 Borda、CombSUM / CombMNZ、RRF 与 MC4 的得分
+ */
+class RankAggregatorTest {
+
+    // q1：v1 = a,b,c；v2 = b,a,c；v3 = a,c（缺 b）。q2：d、e 互换，得分并列
+    private static final String RANKINGS = """
+            query,voter,item,rank
+            q1,v1,a,1
+            q1,v1,b,2
+            q1,v1,c,3
+            q1,v2,b,1
+            q1,v2,a,2
+            q1,v2,c,3
+            q1,v3,a,1
+            q1,v3,c,2
+            q2,v1,d,1
+            q2,v1,e,2
+            q2,v2,e,1
+            q2,v2,d,2
+            """;
+
+    private static final String QRELS = """
+            q1 0 a 1
+            q2 0 d 1
+            """;
+
+    @TempDir
+    Path directory;
+
+    private RankingDataset dataset;
+    private AggregationWorkspace workspace;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataset = convert();
+        workspace = new AggregationWorkspace(dataset.itemCount());
+    }
+
+    @Test
+    void borda() {
+        // 长度 3 的列表依次得 3、2、1 分，长度 2 的列表得 2、1 分
+        score(new BordaAggregator(), "q1");
+        assertEquals(3 + 2 + 2, score("a"), 0);
+        assertEquals(2 + 3, score("b"), 0);
+        assertEquals(1 + 1 + 1, score("c"), 0);
+        assertEquals(List.of("a", "b", "c"), ranked());
+    }
+
+    @Test
+    void combSumAndCombMnz() {
+        // 归一化名次分 (n - p + 1) / n
+        score(new CombSumAggregator(false), "q1");
+        assertEquals(1 + 2 / 3.0 + 1, score("a"), 1e-12);
+        assertEquals(2 / 3.0 + 1, score("b"), 1e-12);
+        assertEquals(1 / 3.0 + 1 / 3.0 + 1 / 2.0, score("c"), 1e-12);
+        assertEquals(List.of("a", "b", "c"), ranked());
+
+        // CombMNZ 再乘以出现次数：b 只出现 2 次，被出现 3 次的 c 超过
+        score(new CombSumAggregator(true), "q1");
+        assertEquals(3 * (1 + 2 / 3.0 + 1), score("a"), 1e-12);
+        assertEquals(2 * (2 / 3.0 + 1), score("b"), 1e-12);
+        assertEquals(3 * (1 / 3.0 + 1 / 3.0 + 1 / 2.0), score("c"), 1e-12);
+        assertEquals(List.of("a", "c", "b"), ranked());
+    }
+
+    @Test
+    void reciprocalRankFusion() {
+        // k = 60 时各名次的分数接近，c 的三次出现超过 b 的两次
+        score(new ReciprocalRankFusionAggregator(), "q1");
+        assertEquals(1 / 61.0 + 1 / 62.0 + 1 / 61.0, score("a"), 1e-12);
+        assertEquals(1 / 62.0 + 1 / 61.0, score("b"), 1e-12);
+        assertEquals(1 / 63.0 + 1 / 63.0 + 1 / 62.0, score("c"), 1e-12);
+        assertEquals(List.of("a", "c", "b"), ranked());
+
+        // k = 0 时靠前名次的权重大得多，b 的一次第 1 名胜过 c 的三次靠后名次
+        score(new ReciprocalRankFusionAggregator(0), "q1");
+        assertEquals(1 + 1 / 2.0 + 1, score("a"), 1e-12);
+        assertEquals(1 / 2.0 + 1, score("b"), 1e-12);
+        assertEquals(1 / 3.0 + 1 / 3.0 + 1 / 2.0, score("c"), 1e-12);
+        assertEquals(List.of("a", "b", "c"), ranked());
+    }
+
+    @Test
+    void markovChainStationaryDistribution() {
+        // 多数关系：a 优于 b（2:1，v3 中缺失的 b 排在末尾），a 优于 c（3:0），b 优于 c（2:1）
+        // 边 b -> a、c -> a、c -> b，每条边的转移概率为 w / 3，w = 0.95，另以 t = 0.05 均匀跳转：
+        // π_c = t / (3 - w)，π_b = (t + w·π_c) / (3 - 2w)，π_a = 1 - π_b - π_c
+        score(new MarkovChainAggregator(), "q1");
+        double walk = 0.95;
+        double teleport = 0.05;
+        double c = teleport / (3 - walk);
+        double b = (teleport + walk * c) / (3 - 2 * walk);
+        assertEquals(c, score("c"), 1e-9);
+        assertEquals(b, score("b"), 1e-9);
+        assertEquals(1 - b - c, score("a"), 1e-9);
+        assertEquals(10 / 11.0, score("a"), 1e-9);
+        assertEquals(List.of("a", "b", "c"), ranked());
+    }
+
+    @Test
+    void tiesBreakByItemIdAndWorkspaceIsReused() {
+        score(new BordaAggregator(), "q1");
+        // 同一工作区切换到 q2，q1 的得分不带入
+        score(new BordaAggregator(), "q2");
+        assertEquals(3, score("d"), 0);
+        assertEquals(3, score("e"), 0);
+        assertEquals(List.of("d", "e"), ranked());
+
+        score(new MarkovChainAggregator(), "q2");
+        assertEquals(0.5, score("d"), 1e-9);
+        assertEquals(0.5, score("e"), 1e-9);
+        assertEquals(List.of("d", "e"), ranked());
+    }
+
+    @Test
+    void runnerMatchesSingleQueryScoring() {
+        AggregatedRanking ranking = new RankAggregationRunner(dataset)
+                .run(new CombSumAggregator(true), ForkJoinPool.commonPool());
+        assertEquals(List.of("a", "c", "b"), names(ranking, dataset.findQuery("q1")));
+        assertEquals(List.of("d", "e"), names(ranking, dataset.findQuery("q2")));
+    }
+
+    private void score(RankAggregator aggregator, String query) {
+        workspace.begin();
+        aggregator.score(dataset, dataset.findQuery(query), workspace);
+    }
+
+    private double score(String item) {
+        return workspace.score[itemId(item)];
+    }
+
+    private List<String> ranked() {
+        List<String> names = new ArrayList<>();
+        for (int item : workspace.ranked()) {
+            names.add(dataset.itemName(item));
+        }
+        return names;
+    }
+
+    private List<String> names(AggregatedRanking ranking, int query) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < ranking.length(query); i++) {
+            names.add(dataset.itemName(ranking.itemAt(ranking.start(query) + i)));
+        }
+        return names;
+    }
+
+    private int itemId(String name) {
+        for (int i = 0; i < dataset.itemCount(); i++) {
+            if (dataset.itemName(i).equals(name)) {
+                return i;
+            }
+        }
+        throw new AssertionError("No item " + name);
+    }
+
+    private RankingDataset convert() throws IOException {
+        Path source = directory.resolve("dataset.zip");
+        try (OutputStream out = Files.newOutputStream(source); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("rankings.csv"));
+            zip.write(RANKINGS.getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("qrels.txt"));
+            zip.write(QRELS.getBytes(StandardCharsets.UTF_8));
+        }
+        Path target = directory.resolve("dataset.rnk");
+        new RankingDatasetWriter().convert(source, "dataset.zip", target);
+        return RankingDataset.open(target);
+    }
+}
@@ -0,0 +1,136 @@
+package com.tancilon.aggspringboot.ranking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 文本数据集转换为 .rnk 文件后再读回
+ */
+class RankingDatasetTest {
+
+    private static final String RANKINGS = """
+            query,voter,item,rank
+            q2,v1,b,2
+            q2,v1,a,1
+            q1,v2,c,1
+            q1,v1,a,3
+            q1,v1,查询词,1
+            q1,v1,b,2.5
+            q2,v0,c,1
+            """;
+
+    private static final String QRELS = """
+            q1 0 a 1
+            q1 0 查询词 3
+            q2 0 c 2
+            q1 0 a 2
+            q2 0 d 300
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripThroughBinaryFormat() throws IOException {
+        RankingDataset dataset = convert();
+
+        assertEquals(2, dataset.queryCount());
+        assertEquals(3, dataset.voterCount());
+        assertEquals(5, dataset.itemCount());
+        assertEquals(4, dataset.rankingCount());
+        assertEquals(7, dataset.entryCount());
+        // q1 下 a 的重复判断只保留一条
+        assertEquals(4, dataset.judgmentCount());
+
+        // 排序文件中先出现 q2，id 按首次出现的顺序分配
+        int q2 = dataset.findQuery("q2");
+        int q1 = dataset.findQuery("q1");
+        assertEquals(0, q2);
+        assertEquals(1, q1);
+        assertEquals(-1, dataset.findQuery("q3"));
+
+        // 查询下的输入排序按投票者 id 排列，条目按名次升序
+        assertEquals(List.of("v1:a,b", "v0:c"), rankings(dataset, q2));
+        assertEquals(List.of("v1:查询词,b,a", "v2:c"), rankings(dataset, q1));
+
+        // 同一条目的重复判断保留最高等级，等级截断到 byte 范围
+        assertEquals(2, dataset.grade(q1, itemId(dataset, "a")));
+        assertEquals(3, dataset.grade(q1, itemId(dataset, "查询词")));
+        assertEquals(0, dataset.grade(q1, itemId(dataset, "b")));
+        assertEquals(2, dataset.grade(q2, itemId(dataset, "c")));
+        assertEquals(Byte.MAX_VALUE, dataset.grade(q2, itemId(dataset, "d")));
+    }
+
+    @Test
+    void lookupsByRowMatchNames() throws IOException {
+        RankingDataset dataset = convert();
+        List<int[]> ids = new ArrayList<>();
+        DelimitedRowScanner scanner = new DelimitedRowScanner(
+                row -> ids.add(new int[]{ dataset.queryId(row, 0), dataset.itemId(row, 1) }));
+        scanner.scan(new ByteArrayInputStream("q1,查询词\nq2,d\nq3,a\nq1,e\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(4, ids.size());
+        assertEquals("q1", dataset.queryName(ids.get(0)[0]));
+        assertEquals("查询词", dataset.itemName(ids.get(0)[1]));
+        assertEquals("q2", dataset.queryName(ids.get(1)[0]));
+        assertEquals("d", dataset.itemName(ids.get(1)[1]));
+        assertEquals(-1, ids.get(2)[0]);
+        assertEquals(-1, ids.get(3)[1]);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = directory.resolve("other.bin");
+        Files.write(file, new byte[256]);
+        assertThrows(IOException.class, () -> RankingDataset.open(file));
+    }
+
+    private RankingDataset convert() throws IOException {
+        Path source = directory.resolve("dataset.zip");
+        try (OutputStream out = Files.newOutputStream(source); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("rankings.csv"));
+            zip.write(RANKINGS.getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("qrels.txt"));
+            zip.write(QRELS.getBytes(StandardCharsets.UTF_8));
+        }
+        Path target = directory.resolve("dataset.rnk");
+        new RankingDatasetWriter().convert(source, "dataset.zip", target);
+        return RankingDataset.open(target);
+    }
+
+    // 每条输入排序格式化为 "投票者:条目,条目"
+    private static List<String> rankings(RankingDataset dataset, int query) {
+        List<String> rankings = new ArrayList<>();
+        for (int r = dataset.firstRanking(query); r < dataset.endRanking(query); r++) {
+            List<String> items = new ArrayList<>();
+            for (int p = 0; p < dataset.rankingLength(r); p++) {
+                items.add(dataset.itemName(dataset.item(r, p)));
+            }
+            rankings.add(dataset.voterName(dataset.voter(r)) + ":" + String.join(",", items));
+        }
+        return rankings;
+    }
+
+    private static int itemId(RankingDataset dataset, String name) {
+        for (int i = 0; i < dataset.itemCount(); i++) {
+            if (dataset.itemName(i).equals(name)) {
+                return i;
+            }
+        }
+        throw new AssertionError("No item " + name);
+    }
+}
@@ -0,0 +1,124 @@
+package com.tancilon.aggspringboot.service;
+
+import com.tancilon.aggspringboot.event.ResultsSavedEvent;
+import com.tancilon.aggspringboot.repository.ResultRepository;
+import com.tancilon.aggspringboot.vo.AlgorithmComparisonVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 增量刷新后的胜 / 平 / 负矩阵与从头构建的结果一致，差值恰好等于容差时记为平局
+ */
+class AlgorithmComparisonServiceTest {
+
+    private static final String METRIC = "mAP";
+    private static final int K = 10;
+    // 取二进制可精确表示的数值，差值恰好落在容差边界上
+    private static final double TOLERANCE = 0.25;
+
+    private PerformanceCube cube;
+    private AlgorithmComparisonService incremental;
+
+    @BeforeEach
+    void setUp() {
+        // 数据库中没有结果，立方体加载为空后只通过写入事件更新
+        cube = new PerformanceCube(mock(ResultRepository.class), mock(PlatformTransactionManager.class));
+        cube.getScoreColumns(METRIC, K, null, 0);
+        incremental = new AlgorithmComparisonService(cube, null, 32);
+
+        save("D1", "A", 0.5);
+        save("D1", "B", 0.25);
+        save("D1", "C", 0.75);
+        save("D2", "A", 0.75);
+        save("D2", "B", 0.25);
+        save("D3", "A", 0.5);
+        save("D3", "B", 0.5);
+        save("D3", "C", 0.125);
+    }
+
+    @Test
+    void differenceEqualToToleranceIsATie() {
+        AlgorithmComparisonVO vo = incremental.compare(METRIC, K, null, TOLERANCE);
+        assertEquals(List.of("A", "B", "C"), vo.getAlgorithms());
+        assertEquals(3, vo.getDatasets());
+        // D1 上 A - B = 0.25、A - C = -0.25 都是平局；D2 上 A 胜 B；D3 上 A、B 都胜 C
+        assertArrayEquals(new int[][]{ { 0, 1, 1 }, { 0, 0, 1 }, { 0, 1, 0 } }, vo.getWins());
+        assertArrayEquals(new int[][]{ { 0, 2, 1 }, { 2, 0, 0 }, { 1, 0, 0 } }, vo.getTies());
+        assertArrayEquals(new int[][]{ { 0, 0, 0 }, { 1, 0, 1 }, { 1, 1, 0 } }, vo.getLosses());
+        assertEquals((0.25 + 0.5 + 0) / 3, vo.getMeanDifference()[0][1], 1e-12);
+        assertEquals((-0.25 + 0.375) / 2, vo.getMeanDifference()[0][2], 1e-12);
+
+        // 容差略小于差值时边界上的平局变为胜负
+        AlgorithmComparisonVO strict = incremental.compare(METRIC, K, null, Math.nextDown(TOLERANCE));
+        assertArrayEquals(new int[][]{ { 0, 2, 1 }, { 0, 0, 1 }, { 1, 1, 0 } }, strict.getWins());
+        assertArrayEquals(new int[][]{ { 0, 1, 0 }, { 1, 0, 0 }, { 0, 0, 0 } }, strict.getTies());
+    }
+
+    @Test
+    void refreshAfterOneDatasetChangesMatchesRebuild() {
+        incremental.compare(METRIC, K, null, TOLERANCE);
+
+        // 只改写 D1：A 与 B 由平局变为 A 胜，B 与 C 的差值变为 -0.25 成为平局，A 与 C 仍差 0.25
+        save("D1", "A", 1.0);
+        save("D1", "B", 0.5);
+        AlgorithmComparisonVO refreshed = incremental.compare(METRIC, K, null, TOLERANCE);
+        assertMatchesRebuild(refreshed);
+        assertArrayEquals(new int[][]{ { 0, 2, 1 }, { 0, 0, 1 }, { 0, 0, 0 } }, refreshed.getWins());
+        assertArrayEquals(new int[][]{ { 0, 1, 1 }, { 1, 0, 1 }, { 1, 1, 0 } }, refreshed.getTies());
+
+        // 新算法只出现在 D2，矩阵扩容后仍与重建一致
+        save("D2", "E", 0.5);
+        refreshed = incremental.compare(METRIC, K, null, TOLERANCE);
+        assertMatchesRebuild(refreshed);
+        assertEquals(List.of("A", "B", "C", "E"), refreshed.getAlgorithms());
+        assertEquals(0, refreshed.getWins()[3][2]);
+        assertNull(refreshed.getMeanDifference()[3][2]);
+        // D2 上 A - E = 0.25、E - B = 0.25 均为平局
+        assertEquals(1, refreshed.getTies()[0][3]);
+        assertEquals(1, refreshed.getTies()[3][1]);
+    }
+
+    @Test
+    void refreshOfMeanOverKMatchesRebuild() {
+        incremental.compare(METRIC, null, null, TOLERANCE);
+        save("D3", "C", 0.625);
+        save("D3", "B", 0.25);
+        assertMatchesRebuild(incremental.compare(METRIC, null, null, TOLERANCE));
+    }
+
+    private void assertMatchesRebuild(AlgorithmComparisonVO refreshed) {
+        AlgorithmComparisonVO rebuilt = new AlgorithmComparisonService(cube, null, 32)
+                .compare(refreshed.getMetric(), refreshed.getK(), null, refreshed.getTolerance());
+        assertEquals(rebuilt.getAlgorithms(), refreshed.getAlgorithms());
+        assertEquals(rebuilt.getDatasets(), refreshed.getDatasets());
+        assertArrayEquals(rebuilt.getWins(), refreshed.getWins());
+        assertArrayEquals(rebuilt.getTies(), refreshed.getTies());
+        assertArrayEquals(rebuilt.getLosses(), refreshed.getLosses());
+        // 差值之和先减后加，允许浮点舍入误差
+        Double[][] expected = rebuilt.getMeanDifference();
+        Double[][] actual = refreshed.getMeanDifference();
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected.length; j++) {
+                if (expected[i][j] == null) {
+                    assertNull(actual[i][j]);
+                } else {
+                    assertEquals(expected[i][j], actual[i][j], 1e-12);
+                }
+            }
+        }
+    }
+
+    private void save(String dataset, String algorithm, double value) {
+        ResultBatch batch = new ResultBatch(1);
+        batch.add(algorithm, 0, dataset, 0, METRIC, 0, K, value);
+        cube.onResultsSaved(new ResultsSavedEvent(batch));
+    }
+}
@@ -0,0 +1,74 @@
+package com.tancilon.aggspringboot.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 与 t、χ²、F 与正态分布表中的临界值对照
+ */
+class DistributionsTest {
+
+    @Test
+    void logGammaMatchesFactorials() {
+        assertEquals(Math.log(24), Distributions.logGamma(5), 1e-12);
+        assertEquals(Math.log(362880), Distributions.logGamma(10), 1e-12);
+        assertEquals(0.5 * Math.log(Math.PI), Distributions.logGamma(0.5), 1e-12);
+        // 反射公式分支：Γ(-0.5) = -2√π
+        assertEquals(Math.log(2 * Math.sqrt(Math.PI)), Distributions.logGamma(-0.5), 1e-12);
+    }
+
+    @Test
+    void normalCdfMatchesTable() {
+        assertEquals(0.5, Distributions.normalCdf(0), 1e-7);
+        assertEquals(0.975, Distributions.normalCdf(1.959963985), 1e-7);
+        assertEquals(0.005, Distributions.normalCdf(-2.575829304), 1e-7);
+        assertEquals(0.841344746, Distributions.normalCdf(1), 1e-7);
+    }
+
+    @Test
+    void studentTMatchesTable() {
+        // 双侧 5% 与 1% 临界值
+        assertEquals(0.05, Distributions.studentTTwoSided(12.70620474, 1), 1e-8);
+        assertEquals(0.05, Distributions.studentTTwoSided(2.228138852, 10), 1e-8);
+        assertEquals(0.05, Distributions.studentTTwoSided(-2.042272456, 30), 1e-8);
+        assertEquals(0.01, Distributions.studentTTwoSided(4.032142984, 5), 1e-8);
+        assertEquals(0.01, Distributions.studentTTwoSided(3.249835542, 9), 1e-8);
+        assertEquals(1, Distributions.studentTTwoSided(0, 7), 1e-12);
+        assertEquals(0, Distributions.studentTTwoSided(Double.POSITIVE_INFINITY, 7), 0);
+    }
+
+    @Test
+    void chiSquareMatchesTable() {
+        assertEquals(0.05, Distributions.chiSquareUpper(3.841458821, 1), 1e-8);
+        assertEquals(0.05, Distributions.chiSquareUpper(5.991464547, 2), 1e-8);
+        assertEquals(0.05, Distributions.chiSquareUpper(11.07049769, 5), 1e-8);
+        assertEquals(0.05, Distributions.chiSquareUpper(18.30703805, 10), 1e-8);
+        assertEquals(0.01, Distributions.chiSquareUpper(11.34486673, 3), 1e-8);
+        assertEquals(0.01, Distributions.chiSquareUpper(37.56623478, 20), 1e-8);
+        // 自由度为 2 时 Q = e^(-x/2)
+        assertEquals(Math.exp(-3), Distributions.chiSquareUpper(6, 2), 1e-12);
+        assertEquals(1, Distributions.chiSquareUpper(0, 4), 0);
+    }
+
+    @Test
+    void fMatchesTable() {
+        assertEquals(0.05, Distributions.fUpper(4.102821015, 2, 10), 1e-8);
+        assertEquals(0.05, Distributions.fUpper(2.710889837, 5, 20), 1e-8);
+        assertEquals(0.01, Distributions.fUpper(5.411951086, 4, 12), 1e-8);
+        // 分子自由度为 2 时 P(F >= f) = (1 + 2f / d2)^(-d2 / 2)
+        assertEquals(Math.pow(2.5, -4), Distributions.fUpper(6, 2, 8), 1e-12);
+        assertEquals(1, Distributions.fUpper(0, 3, 39), 0);
+        assertEquals(0, Distributions.fUpper(Double.POSITIVE_INFINITY, 3, 39), 0);
+    }
+
+    @Test
+    void regularizedBetaIsSymmetric() {
+        // I_x(a, b) = 1 - I_{1-x}(b, a)，I_x(1, 1) = x
+        assertEquals(0.3, Distributions.regularizedBeta(0.3, 1, 1), 1e-12);
+        assertEquals(1 - Distributions.regularizedBeta(0.7, 4.5, 2),
+                Distributions.regularizedBeta(0.3, 2, 4.5), 1e-12);
+        assertEquals(0, Distributions.regularizedBeta(0, 2, 3), 0);
+        assertEquals(1, Distributions.regularizedBeta(1, 2, 3), 0);
+    }
+}
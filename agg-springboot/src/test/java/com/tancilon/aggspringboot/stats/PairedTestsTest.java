@@ -0,0 +1,69 @@
+package com.tancilon.aggspringboot.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 与 R 的 t.test / wilcox.test 在同一数据上的结果对照
+ */
+class PairedTestsTest {
+
+    // Student (1908) 的睡眠数据，两种药物的增眠时间之差
+    private static final double[] SLEEP = { 1.2, 2.4, 1.3, 1.3, 0.0, 1.0, 1.8, 0.8, 4.6, 1.4 };
+
+    @Test
+    void tTestOnSleepData() {
+        // t.test(extra ~ group, data = sleep, paired = TRUE): t = 4.0621, df = 9, p = 0.002833
+        PairedTests.TTest t = PairedTests.tTest(SLEEP);
+        assertEquals(4.062128, t.statistic(), 1e-6);
+        assertEquals(9, t.degreesOfFreedom(), 0);
+        assertEquals(0.002832890, t.pValue(), 1e-8);
+    }
+
+    @Test
+    void tTestOnConstantDifferences() {
+        assertEquals(1, PairedTests.tTest(new double[]{ 0, 0, 0 }).pValue(), 0);
+        PairedTests.TTest t = PairedTests.tTest(new double[]{ -0.5, -0.5 });
+        assertEquals(Double.NEGATIVE_INFINITY, t.statistic(), 0);
+        assertEquals(0, t.pValue(), 0);
+        assertThrows(IllegalArgumentException.class, () -> PairedTests.tTest(new double[]{ 1 }));
+    }
+
+    @Test
+    void wilcoxonNormalApproximationOnSleepData() {
+        // 有零差值与并列，wilcox.test(..., paired = TRUE, exact = FALSE): V = 45, p = 0.009091
+        PairedTests.Wilcoxon w = PairedTests.wilcoxon(SLEEP);
+        assertFalse(w.exact());
+        assertEquals(45, w.statistic(), 0);
+        assertEquals(9, w.nonZero());
+        assertEquals(0.009091, w.pValue(), 1e-6);
+    }
+
+    @Test
+    void wilcoxonExactDistribution() {
+        // W+ = 13，{1..5} 中秩和不小于 13 的子集有 3 个，p = 2 * 3 / 32
+        PairedTests.Wilcoxon w = PairedTests.wilcoxon(new double[]{ 1, -2, 3, 4, 5 });
+        assertTrue(w.exact());
+        assertEquals(13, w.statistic(), 0);
+        assertEquals(0.1875, w.pValue(), 1e-12);
+
+        // 全部为正时 p = 2 / 2^n
+        w = PairedTests.wilcoxon(new double[]{ 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8 });
+        assertEquals(36, w.statistic(), 0);
+        assertEquals(2 / 256.0, w.pValue(), 1e-12);
+
+        // 对称的样本 p 值为 1
+        assertEquals(1, PairedTests.wilcoxon(new double[]{ -1, 1, -2, 2 }).pValue(), 1e-12);
+    }
+
+    @Test
+    void wilcoxonWithoutNonZeroDifferences() {
+        PairedTests.Wilcoxon w = PairedTests.wilcoxon(new double[]{ 0, 0 });
+        assertEquals(0, w.nonZero());
+        assertEquals(1, w.pValue(), 0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.tancilon.aggspringboot.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 与 Demšar (2006) 的临界值表、算例以及手算的 Friedman / Holm 结果对照
+ */
+class RankTestsTest {
+
+    // Demšar 表 5(a)：Nemenyi 检验的 q_0.05 与 q_0.10，k = 2..10
+    private static final double[] Q_05 = { 1.960, 2.343, 2.569, 2.728, 2.850, 2.949, 3.031, 3.102, 3.164 };
+    private static final double[] Q_10 = { 1.645, 2.052, 2.291, 2.459, 2.589, 2.693, 2.780, 2.855, 2.920 };
+
+    // 5 个数据集上的 3 个算法，最后一个数据集有并列
+    private static final double[][] SCORES = {
+            { 0.9, 0.8, 0.7 },
+            { 0.9, 0.7, 0.8 },
+            { 0.8, 0.9, 0.7 },
+            { 0.9, 0.8, 0.7 },
+            { 0.9, 0.8, 0.8 } };
+
+    @Test
+    void nemenyiCriticalValuesMatchDemsarTable() {
+        for (int k = 2; k <= 10; k++) {
+            assertEquals(Q_05[k - 2], RankTests.nemenyi(k, 10, 0.05).criticalQ(), 1e-3, "q_0.05 at k = " + k);
+            assertEquals(Q_10[k - 2], RankTests.nemenyi(k, 10, 0.10).criticalQ(), 1e-3, "q_0.10 at k = " + k);
+        }
+        // k = 2 时为正态分位数
+        assertEquals(1.959964, RankTests.nemenyi(2, 10, 0.05).criticalQ(), 1e-5);
+        assertEquals(1.959964 * Math.sqrt(2), Distributions.studentizedRangeQuantile(0.95, 2), 1e-5);
+    }
+
+    @Test
+    void criticalDifferenceOfDemsarExample() {
+        // C4.5 的 4 个变体在 14 个数据集上：CD_0.05 = 1.25，CD_0.10 = 1.12
+        RankTests.Nemenyi nemenyi = RankTests.nemenyi(4, 14, 0.05);
+        assertEquals(nemenyi.criticalQ() * Math.sqrt(4 * 5 / (6.0 * 14)), nemenyi.criticalDifference(), 1e-12);
+        assertEquals(1.25, nemenyi.criticalDifference(), 5e-3);
+        assertEquals(1.12, RankTests.nemenyi(4, 14, 0.10).criticalDifference(), 5e-3);
+    }
+
+    @Test
+    void friedmanWithTies() {
+        // 平均秩 (1.2, 2.1, 2.7)；χ² = 5.7 / (1 - 6 / 120) = 6，自由度 2 时 p = e^-3
+        RankTests.Friedman friedman = RankTests.friedman(SCORES);
+        assertArrayEquals(new double[]{ 1.2, 2.1, 2.7 }, friedman.averageRanks(), 1e-12);
+        assertEquals(5, friedman.datasets());
+        assertEquals(6, friedman.chiSquare(), 1e-12);
+        assertEquals(2, friedman.degreesOfFreedom(), 0);
+        assertEquals(Math.exp(-3), friedman.chiSquareP(), 1e-9);
+        // F = 4 · 6 / (5 · 2 - 6) = 6，自由度 (2, 8) 时 p = 2.5^-4
+        assertEquals(6, friedman.imanDavenportF(), 1e-12);
+        assertEquals(8, friedman.denominatorDegreesOfFreedom(), 0);
+        assertEquals(Math.pow(2.5, -4), friedman.imanDavenportP(), 1e-9);
+    }
+
+    @Test
+    void friedmanWithoutInformation() {
+        RankTests.Friedman friedman = RankTests.friedman(new double[][]{ { 1, 1 }, { 0.5, 0.5 } });
+        assertEquals(0, friedman.chiSquare(), 0);
+        assertEquals(1, friedman.chiSquareP(), 0);
+        assertThrows(IllegalArgumentException.class, () -> RankTests.friedman(new double[][]{ { 1, 2 } }));
+        assertThrows(IllegalArgumentException.class, () -> RankTests.friedman(new double[][]{ { 1 }, { 2 } }));
+    }
+
+    @Test
+    void holmAdjustmentTextbookExample() {
+        // 4 个假设的原始 p 值 0.01, 0.04, 0.03, 0.005：依次乘以 4, 3, 2, 1 后取前缀最大值
+        assertArrayEquals(new double[]{ 0.03, 0.06, 0.06, 0.02 },
+                RankTests.holmAdjust(new double[]{ 0.01, 0.04, 0.03, 0.005 }), 1e-12);
+        // 校正后不超过 1
+        assertArrayEquals(new double[]{ 1, 1 }, RankTests.holmAdjust(new double[]{ 0.6, 0.7 }), 0);
+    }
+
+    @Test
+    void holmComparisonsOfAverageRanks() {
+        // se = sqrt(3 · 4 / 30)，z = -1.4230, -2.3717, -0.9487
+        List<RankTests.Comparison> comparisons = RankTests.holm(new double[]{ 1.2, 2.1, 2.7 }, 5);
+        assertEquals(3, comparisons.size());
+        double[] z = { -1.423025, -2.371708, -0.948683 };
+        double[] p = { 0.154729, 0.017706, 0.342782 };
+        double[] adjusted = { 0.309458, 0.053118, 0.342782 };
+        for (int i = 0; i < 3; i++) {
+            RankTests.Comparison comparison = comparisons.get(i);
+            assertEquals(z[i], comparison.z(), 1e-6);
+            assertEquals(p[i], comparison.pValue(), 1e-6);
+            assertEquals(adjusted[i], comparison.adjustedPValue(), 1e-6);
+        }
+        assertEquals(0, comparisons.get(1).first());
+        assertEquals(2, comparisons.get(1).second());
+    }
+
+    @Test
+    void holmMatchesDemsarExample() {
+        // Demšar 第 3.2.2 节：C4.5 与其余变体的平均秩差，z = 2.342、0.512、2.416
+        List<RankTests.Comparison> comparisons = RankTests.holm(new double[]{ 3.143, 2.000, 2.893, 1.964 }, 14);
+        assertEquals(2.342, comparisons.get(0).z(), 2e-3);
+        assertEquals(0.512, comparisons.get(1).z(), 2e-3);
+        assertEquals(2.416, comparisons.get(2).z(), 2e-3);
+        assertEquals(0.019, comparisons.get(0).pValue(), 1e-3);
+        assertEquals(0.016, comparisons.get(2).pValue(), 1e-3);
+    }
+}
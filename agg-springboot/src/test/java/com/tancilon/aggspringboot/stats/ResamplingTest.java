@@ -0,0 +1,74 @@
+package com.tancilon.aggspringboot.stats;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 重抽样结果与精确分布对照，并检查结果不随线程数变化
+ */
+class ResamplingTest {
+
+    private static ForkJoinPool single;
+    private static ForkJoinPool parallel;
+
+    @BeforeAll
+    static void createPools() {
+        single = new ForkJoinPool(1);
+        parallel = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void shutdownPools() {
+        single.shutdown();
+        parallel.shutdown();
+    }
+
+    @Test
+    void signFlipMatchesExactDistribution() {
+        // 10 个相同的正差值只有全部同号时不小于观测值，精确 p = 2 / 2^10
+        double[] differences = new double[10];
+        Arrays.fill(differences, 0.25);
+        Resampling.PermutationTest test = Resampling.permutationTest(differences, 100000, 42, parallel);
+        assertEquals(100000, test.iterations());
+        assertEquals(2 / 1024.0, test.pValue(), 5e-4);
+    }
+
+    @Test
+    void signFlipOnZeroDifferencesIsOne() {
+        Resampling.PermutationTest test = Resampling.permutationTest(new double[]{ 0, 0, 0 }, 1000, 1, parallel);
+        assertEquals(1, test.pValue(), 0);
+    }
+
+    @Test
+    void resultsDependOnlyOnSeed() {
+        double[] differences = { 0.12, -0.03, 0.4, 0.05, -0.22, 0.31, 0.0, 0.08, -0.11, 0.27, 0.19, -0.02 };
+        assertEquals(Resampling.permutationTest(differences, 20000, 7, single),
+                Resampling.permutationTest(differences, 20000, 7, parallel));
+        assertEquals(Resampling.bootstrapInterval(differences, 20000, 0.95, 7, single),
+                Resampling.bootstrapInterval(differences, 20000, 0.95, 7, parallel));
+    }
+
+    @Test
+    void bootstrapIntervalCoversMean() {
+        // 0 / 1 交替的 100 个差值：均值 0.5，标准误 0.05，95% 区间约为 0.5 ± 0.098
+        double[] differences = new double[100];
+        for (int i = 0; i < differences.length; i++) {
+            differences[i] = i % 2;
+        }
+        Resampling.BootstrapInterval interval = Resampling.bootstrapInterval(differences, 20000, 0.95, 3, parallel);
+        assertEquals(0.95, interval.confidence(), 0);
+        assertEquals(0.402, interval.lower(), 0.015);
+        assertEquals(0.598, interval.upper(), 0.015);
+
+        // 差值全部相同时区间退化为一点
+        interval = Resampling.bootstrapInterval(new double[]{ 0.3, 0.3, 0.3 }, 1000, 0.9, 3, parallel);
+        assertEquals(0.3, interval.lower(), 1e-12);
+        assertEquals(0.3, interval.upper(), 1e-12);
+    }
+}